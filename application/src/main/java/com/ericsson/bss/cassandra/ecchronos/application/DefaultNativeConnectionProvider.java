@@ -21,6 +21,7 @@ import com.datastax.oss.driver.api.core.AllNodesFailedException;
 import com.datastax.oss.driver.api.core.CqlSession;
 import com.datastax.oss.driver.api.core.auth.AuthProvider;
 import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.NodeStateListener;
 import com.datastax.oss.driver.api.core.ssl.SslEngineFactory;
 import com.ericsson.bss.cassandra.ecchronos.connection.CertificateHandler;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.DefaultRepairConfigurationProvider;
@@ -87,8 +88,9 @@ public class DefaultNativeConnectionProvider implements NativeConnectionProvider
                                            final DefaultRepairConfigurationProvider defaultRepairConfigurationProvider,
                                            final MeterRegistry meterRegistry)
     {
-        this(config, cqlSecuritySupplier, new ReloadingCertificateHandler(() -> cqlSecuritySupplier.get().getTls()),
-                defaultRepairConfigurationProvider, meterRegistry);
+        this(config, cqlSecuritySupplier, new ReloadingCertificateHandler(() -> cqlSecuritySupplier.get().getTls(),
+                config.getStatistics().isEnabled() ? meterRegistry : null), defaultRepairConfigurationProvider,
+                meterRegistry);
     }
 
     private static LocalNativeConnectionProvider establishConnection(
@@ -144,6 +146,18 @@ public class DefaultNativeConnectionProvider implements NativeConnectionProvider
         return myLocalNativeConnectionProvider.getRemoteRouting();
     }
 
+    @Override
+    public final void addNodeStateListener(final NodeStateListener listener)
+    {
+        myLocalNativeConnectionProvider.addNodeStateListener(listener);
+    }
+
+    @Override
+    public final void removeNodeStateListener(final NodeStateListener listener)
+    {
+        myLocalNativeConnectionProvider.removeNodeStateListener(listener);
+    }
+
     @Override
     public final void close()
     {
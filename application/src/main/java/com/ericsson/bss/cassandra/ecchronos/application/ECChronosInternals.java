@@ -62,6 +62,7 @@ public class ECChronosInternals implements Closeable
     private final JmxProxyFactory myJmxProxyFactory;
 
     private final CASLockFactory myLockFactory;
+    private final NativeConnectionProvider myNativeConnectionProvider;
 
     public ECChronosInternals(final Config configuration,
                               final NativeConnectionProvider nativeConnectionProvider,
@@ -75,13 +76,17 @@ public class ECChronosInternals implements Closeable
 
         myHostStatesImpl = HostStatesImpl.builder()
                 .withJmxProxyFactory(myJmxProxyFactory)
+                .withMeterRegistry(configuration.getStatistics().isEnabled() ? meterRegistry : null)
                 .build();
+        myNativeConnectionProvider = nativeConnectionProvider;
+        myNativeConnectionProvider.addNodeStateListener(myHostStatesImpl);
 
         myLockFactory = CASLockFactory.builder()
                 .withNativeConnectionProvider(nativeConnectionProvider)
                 .withHostStates(myHostStatesImpl)
                 .withStatementDecorator(statementDecorator)
                 .withKeyspaceName(configuration.getLockFactory().getCas().getKeyspace())
+                .withMeterRegistry(configuration.getStatistics().isEnabled() ? meterRegistry : null)
                 .build();
 
         Node node = nativeConnectionProvider.getLocalNode();
@@ -96,6 +101,7 @@ public class ECChronosInternals implements Closeable
             myTableStorageStatesImpl = TableStorageStatesImpl.builder()
                     .withReplicatedTableProvider(myReplicatedTableProvider)
                     .withJmxProxyFactory(myJmxProxyFactory)
+                    .withMeterRegistry(meterRegistry)
                     .build();
 
             myTableRepairMetricsImpl = TableRepairMetricsImpl.builder()
@@ -112,6 +118,7 @@ public class ECChronosInternals implements Closeable
                 .withLockFactory(myLockFactory)
                 .withRunInterval(configuration.getScheduler().getFrequency().getInterval(TimeUnit.MILLISECONDS),
                         TimeUnit.MILLISECONDS)
+                .withWorkers(configuration.getScheduler().getWorkers())
                 .build();
     }
 
@@ -185,6 +192,7 @@ public class ECChronosInternals implements Closeable
 
         myLockFactory.close();
 
+        myNativeConnectionProvider.removeNodeStateListener(myHostStatesImpl);
         myHostStatesImpl.close();
     }
 
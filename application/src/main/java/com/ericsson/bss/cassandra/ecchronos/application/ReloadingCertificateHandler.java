@@ -17,6 +17,8 @@ package com.ericsson.bss.cassandra.ecchronos.application;
 import com.datastax.oss.driver.api.core.metadata.EndPoint;
 import com.ericsson.bss.cassandra.ecchronos.application.config.TLSConfig;
 import com.ericsson.bss.cassandra.ecchronos.connection.CertificateHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
@@ -34,7 +36,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.security.KeyManagementException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
@@ -42,22 +46,43 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
+/**
+ * A certificate handler that reloads the SSL context when the TLS configuration or the certificate files change.
+ * <p>
+ * The modification time and size of the certificate files are checked for each new SSL engine. The files are only
+ * read and hashed when any of them has changed, and the SSL context is only rebuilt when the content has changed.
+ */
 public class ReloadingCertificateHandler implements CertificateHandler
 {
     private static final Logger LOG = LoggerFactory.getLogger(ReloadingCertificateHandler.class);
 
+    static final String CONTEXT_RELOAD = "tls.context.reload";
+
     private final AtomicReference<Context> currentContext = new AtomicReference<>();
     private final Supplier<TLSConfig> tlsConfigSupplier;
+    private final Timer myReloadTimer;
 
     public ReloadingCertificateHandler(final Supplier<TLSConfig> aTLSConfigSupplier)
+    {
+        this(aTLSConfigSupplier, null);
+    }
+
+    public ReloadingCertificateHandler(final Supplier<TLSConfig> aTLSConfigSupplier, final MeterRegistry meterRegistry)
     {
         this.tlsConfigSupplier = aTLSConfigSupplier;
+        myReloadTimer = meterRegistry == null ? null : Timer.builder(CONTEXT_RELOAD)
+                .description("Time to create the SSL context after the TLS configuration or certificates changed")
+                .register(meterRegistry);
     }
 
     /**
@@ -105,7 +130,7 @@ public class ReloadingCertificateHandler implements CertificateHandler
         {
             while (context == null || !context.sameConfig(tlsConfig))
             {
-                Context newContext = new Context(tlsConfig);
+                Context newContext = createContext(tlsConfig);
                 if (currentContext.compareAndSet(context, newContext))
                 {
                     context = newContext;
@@ -126,6 +151,18 @@ public class ReloadingCertificateHandler implements CertificateHandler
         return context;
     }
 
+    private Context createContext(final TLSConfig tlsConfig) throws NoSuchAlgorithmException, IOException,
+            UnrecoverableKeyException, CertificateException, KeyStoreException, KeyManagementException
+    {
+        long start = System.nanoTime();
+        Context context = new Context(tlsConfig);
+        if (myReloadTimer != null)
+        {
+            myReloadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return context;
+    }
+
     @Override
     public void close() throws Exception
     {
@@ -137,11 +174,13 @@ public class ReloadingCertificateHandler implements CertificateHandler
         private final TLSConfig myTlsConfig;
         private final SslContext mySslContext;
         private final Map<String, String> myChecksums = new HashMap<>();
+        private volatile Map<String, FileStamp> myFileStamps;
 
         Context(final TLSConfig tlsConfig) throws NoSuchAlgorithmException, IOException, UnrecoverableKeyException,
                 CertificateException, KeyStoreException, KeyManagementException
         {
             myTlsConfig = tlsConfig;
+            myFileStamps = getFileStamps(myTlsConfig);
             mySslContext = createSSLContext(myTlsConfig);
             myChecksums.putAll(calculateChecksums(myTlsConfig));
         }
@@ -157,7 +196,18 @@ public class ReloadingCertificateHandler implements CertificateHandler
             {
                 return false;
             }
-            return checksumSame(newTLSConfig);
+            Map<String, FileStamp> fileStamps = getFileStamps(newTLSConfig);
+            if (myFileStamps.equals(fileStamps))
+            {
+                return true;
+            }
+            if (checksumSame(newTLSConfig))
+            {
+                // The files were touched without changing the content
+                myFileStamps = fileStamps;
+                return true;
+            }
+            return false;
         }
 
         private boolean checksumSame(final TLSConfig newTLSConfig) throws IOException, NoSuchAlgorithmException
@@ -165,29 +215,45 @@ public class ReloadingCertificateHandler implements CertificateHandler
             return myChecksums.equals(calculateChecksums(newTLSConfig));
         }
 
+        private Map<String, FileStamp> getFileStamps(final TLSConfig tlsConfig) throws IOException
+        {
+            Map<String, FileStamp> fileStamps = new HashMap<>();
+            for (String file : getFiles(tlsConfig))
+            {
+                Path path = Paths.get(file);
+                fileStamps.put(file, new FileStamp(Files.getLastModifiedTime(path), Files.size(path)));
+            }
+            return fileStamps;
+        }
+
         private Map<String, String> calculateChecksums(final TLSConfig tlsConfig)
                 throws IOException, NoSuchAlgorithmException
         {
             Map<String, String> checksums = new HashMap<>();
+            for (String file : getFiles(tlsConfig))
+            {
+                checksums.put(file, getChecksum(file));
+            }
+            return checksums;
+        }
+
+        private List<String> getFiles(final TLSConfig tlsConfig)
+        {
+            List<String> files = new ArrayList<>();
             if (tlsConfig.getCertificate().isPresent()
                     && tlsConfig.getCertificatePrivateKey().isPresent()
                     && tlsConfig.getTrustCertificate().isPresent())
             {
-                String certificate = tlsConfig.getCertificate().get();
-                checksums.put(certificate, getChecksum(certificate));
-                String certificatePrivateKey = tlsConfig.getCertificatePrivateKey().get();
-                checksums.put(certificatePrivateKey, getChecksum(certificatePrivateKey));
-                String trustCertificate = tlsConfig.getTrustCertificate().get();
-                checksums.put(trustCertificate, getChecksum(trustCertificate));
+                files.add(tlsConfig.getCertificate().get());
+                files.add(tlsConfig.getCertificatePrivateKey().get());
+                files.add(tlsConfig.getTrustCertificate().get());
             }
             else
             {
-                String keyStore = tlsConfig.getKeystore();
-                checksums.put(keyStore, getChecksum(keyStore));
-                String trustStore = tlsConfig.getTruststore();
-                checksums.put(trustStore, getChecksum(trustStore));
+                files.add(tlsConfig.getKeystore());
+                files.add(tlsConfig.getTruststore());
             }
-            return checksums;
+            return files;
         }
 
         private String getChecksum(final String file) throws IOException, NoSuchAlgorithmException
@@ -203,6 +269,39 @@ public class ReloadingCertificateHandler implements CertificateHandler
         }
     }
 
+    private static final class FileStamp
+    {
+        private final FileTime myLastModified;
+        private final long mySize;
+
+        FileStamp(final FileTime lastModified, final long size)
+        {
+            myLastModified = lastModified;
+            mySize = size;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass())
+            {
+                return false;
+            }
+            FileStamp that = (FileStamp) o;
+            return mySize == that.mySize && myLastModified.equals(that.myLastModified);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(myLastModified, mySize);
+        }
+    }
+
     protected static SslContext createSSLContext(final TLSConfig tlsConfig) throws IOException,
             NoSuchAlgorithmException,
             KeyStoreException,
@@ -414,6 +414,9 @@ public class Config
         private RepairLockType lockType = RepairLockType.VNODE;
         private Interval historyLookback = new Interval(THIRTY_DAYS, TimeUnit.DAYS);
         private RepairHistory history = new RepairHistory();
+        private String sizingFile = null;
+        private StateRefresh stateRefresh = new StateRefresh();
+        private int maxVnodesPerGroup = 0;
 
         public final RepairLockType getLockType()
         {
@@ -440,6 +443,36 @@ public class Config
             return history;
         }
 
+        public final String getSizingFile()
+        {
+            return sizingFile;
+        }
+
+        public final void setSizing_file(final String aSizingFile)
+        {
+            this.sizingFile = aSizingFile;
+        }
+
+        public final StateRefresh getStateRefresh()
+        {
+            return stateRefresh;
+        }
+
+        public final void setState_refresh(final StateRefresh aStateRefresh)
+        {
+            this.stateRefresh = aStateRefresh;
+        }
+
+        public final int getMaxVnodesPerGroup()
+        {
+            return maxVnodesPerGroup;
+        }
+
+        public final void setMax_vnodes_per_group(final int aMaxVnodesPerGroup)
+        {
+            this.maxVnodesPerGroup = aMaxVnodesPerGroup;
+        }
+
         public final void setHistory(final RepairHistory aHistory)
         {
             this.history = aHistory;
@@ -459,6 +492,56 @@ public class Config
         }
     }
 
+    public static class StateRefresh
+    {
+        private static final int DEFAULT_THREADS = 2;
+
+        private boolean enabled = true;
+        private int threads = DEFAULT_THREADS;
+        private Interval interval = new Interval(1, TimeUnit.MINUTES);
+        private Interval dueWindow = new Interval(1, TimeUnit.HOURS);
+
+        public final boolean isEnabled()
+        {
+            return enabled;
+        }
+
+        public final void setEnabled(final boolean isEnabled)
+        {
+            this.enabled = isEnabled;
+        }
+
+        public final int getThreads()
+        {
+            return threads;
+        }
+
+        public final void setThreads(final int theThreads)
+        {
+            this.threads = theThreads;
+        }
+
+        public final Interval getInterval()
+        {
+            return interval;
+        }
+
+        public final void setInterval(final Interval anInterval)
+        {
+            this.interval = anInterval;
+        }
+
+        public final Interval getDueWindow()
+        {
+            return dueWindow;
+        }
+
+        public final void setDue_window(final Interval aDueWindow)
+        {
+            this.dueWindow = aDueWindow;
+        }
+    }
+
     public static class RepairHistory
     {
         public enum Provider
@@ -466,8 +549,14 @@ public class Config
             CASSANDRA, UPGRADE, ECC
         }
 
+        private static final int DEFAULT_WRITE_BUFFER_SIZE = 10_000;
+
         private Provider provider = Provider.ECC;
         private String keyspace = "ecchronos";
+        private int pageSize = 0;
+        private int writeBatchSize = 0;
+        private int writeBufferSize = DEFAULT_WRITE_BUFFER_SIZE;
+        private Interval checkpointInterval = new Interval(0, TimeUnit.MINUTES);
 
         public final Provider getProvider()
         {
@@ -488,6 +577,46 @@ public class Config
         {
             this.keyspace = aKeyspace;
         }
+
+        public final int getPageSize()
+        {
+            return pageSize;
+        }
+
+        public final void setPage_size(final int aPageSize)
+        {
+            this.pageSize = aPageSize;
+        }
+
+        public final int getWriteBatchSize()
+        {
+            return writeBatchSize;
+        }
+
+        public final void setWrite_batch_size(final int aWriteBatchSize)
+        {
+            this.writeBatchSize = aWriteBatchSize;
+        }
+
+        public final int getWriteBufferSize()
+        {
+            return writeBufferSize;
+        }
+
+        public final void setWrite_buffer_size(final int aWriteBufferSize)
+        {
+            this.writeBufferSize = aWriteBufferSize;
+        }
+
+        public final Interval getCheckpointInterval()
+        {
+            return checkpointInterval;
+        }
+
+        public final void setCheckpoint_interval(final Interval aCheckpointInterval)
+        {
+            this.checkpointInterval = aCheckpointInterval;
+        }
     }
 
     public static class Alarm
@@ -780,8 +909,11 @@ public class Config
     public static class SchedulerConfig
     {
         private static final int THIRTY_SECONDS = 30;
+        private static final int DEFAULT_WARMUP_THREADS = 4;
 
         private Interval frequency = new Interval(THIRTY_SECONDS, TimeUnit.SECONDS);
+        private int workers = 1;
+        private int warmup_threads = DEFAULT_WARMUP_THREADS;
 
         public final Interval getFrequency()
         {
@@ -792,6 +924,26 @@ public class Config
         {
             this.frequency = aFrequency;
         }
+
+        public final int getWorkers()
+        {
+            return workers;
+        }
+
+        public final void setWorkers(final int theWorkers)
+        {
+            this.workers = theWorkers;
+        }
+
+        public final int getWarmupThreads()
+        {
+            return warmup_threads;
+        }
+
+        public final void setWarmup_threads(final int warmupThreads)
+        {
+            this.warmup_threads = warmupThreads;
+        }
     }
 
     public static class RestServerConfig
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.application.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Matches names against configured names and regular expressions.
+ * <p>
+ * The regular expressions are compiled once on creation. An exact match of the name is tried first, followed by
+ * the regular expressions in the order of the configured entries.
+ *
+ * @param <T> The type of the configured values.
+ */
+final class NameMatcher<T>
+{
+    private static final Logger LOG = LoggerFactory.getLogger(NameMatcher.class);
+
+    private final Map<String, Entry<T>> exactEntries = new HashMap<>();
+    private final List<Entry<T>> entries = new ArrayList<>();
+
+    NameMatcher(final Map<String, T> values)
+    {
+        for (Map.Entry<String, T> value : values.entrySet())
+        {
+            Entry<T> entry = new Entry<>(value.getKey(), compile(value.getKey()), value.getValue());
+            exactEntries.put(value.getKey(), entry);
+            entries.add(entry);
+        }
+    }
+
+    static <T> NameMatcher<T> empty()
+    {
+        return new NameMatcher<>(Collections.emptyMap());
+    }
+
+    /**
+     * Find the first configured value matching the search term for which the function returns a value.
+     *
+     * @param searchTerm The name to match.
+     * @param function The function applied to the matching values.
+     * @param <V> The type of the result.
+     * @return The result of the function for the first matching value or empty.
+     */
+    <V> Optional<V> findMatching(final String searchTerm, final Function<T, Optional<V>> function)
+    {
+        Entry<T> exactMatch = exactEntries.get(searchTerm);
+        if (exactMatch != null)
+        {
+            Optional<V> optionalValue = exactMatch.apply(function);
+            if (optionalValue.isPresent())
+            {
+                return optionalValue;
+            }
+        }
+
+        for (Entry<T> entry : entries)
+        {
+            if (entry.matches(searchTerm))
+            {
+                Optional<V> optionalValue = entry.apply(function);
+                if (optionalValue.isPresent())
+                {
+                    return optionalValue;
+                }
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Get the number of times each configured value has been selected.
+     *
+     * @return The configured names and the number of times they were selected.
+     */
+    Map<String, Long> getMatchCounts()
+    {
+        Map<String, Long> matchCounts = new LinkedHashMap<>();
+        for (Entry<T> entry : entries)
+        {
+            matchCounts.put(entry.name, entry.matches.sum());
+        }
+        return matchCounts;
+    }
+
+    List<T> getValues()
+    {
+        List<T> values = new ArrayList<>();
+        entries.forEach(entry -> values.add(entry.value));
+        return values;
+    }
+
+    private static Pattern compile(final String regex)
+    {
+        try
+        {
+            return Pattern.compile(regex);
+        }
+        catch (PatternSyntaxException e)
+        {
+            LOG.warn("Invalid regular expression '{}', only exact matches will be used", regex, e);
+            return null;
+        }
+    }
+
+    private static final class Entry<T>
+    {
+        private final String name;
+        private final Pattern pattern;
+        private final T value;
+        private final LongAdder matches = new LongAdder();
+
+        Entry(final String aName, final Pattern aPattern, final T aValue)
+        {
+            this.name = aName;
+            this.pattern = aPattern;
+            this.value = aValue;
+        }
+
+        boolean matches(final String searchTerm)
+        {
+            return pattern != null && pattern.matcher(searchTerm).matches();
+        }
+
+        <V> Optional<V> apply(final Function<T, Optional<V>> function)
+        {
+            Optional<V> optionalValue = function.apply(value);
+            if (optionalValue.isPresent())
+            {
+                matches.increment();
+            }
+            return optionalValue;
+        }
+    }
+}
@@ -32,6 +32,9 @@ public class RepairConfig
     private double unwind_ratio = 0.0d;
     private long size_target = RepairConfiguration.FULL_REPAIR_SIZE;
     private boolean ignore_twcs_tables = false;
+    private int max_ranges_per_repair = RepairConfiguration.NO_BATCHING;
+    private Config.Interval session_time_target = new Config.Interval(RepairConfiguration.NO_TARGET_SESSION_TIME,
+            TimeUnit.MILLISECONDS);
 
     public final Config.Alarm getAlarm()
     {
@@ -70,6 +73,16 @@ public class RepairConfig
         this.ignore_twcs_tables = ignoreTWCSTables;
     }
 
+    public final void setMax_ranges_per_repair(final int maxRangesPerRepair)
+    {
+        this.max_ranges_per_repair = maxRangesPerRepair;
+    }
+
+    public final void setSession_time_target(final Config.Interval sessionTimeTarget)
+    {
+        this.session_time_target = sessionTimeTarget;
+    }
+
     public final boolean getIgnoreTWCSTables()
     {
         return ignore_twcs_tables;
@@ -88,6 +101,9 @@ public class RepairConfig
                 .withIgnoreTWCSTables(ignore_twcs_tables)
                 .withRepairUnwindRatio(unwind_ratio)
                 .withTargetRepairSizeInBytes(size_target)
+                .withMaxRangesPerRepair(max_ranges_per_repair)
+                .withTargetRepairSessionTime(session_time_target.getInterval(TimeUnit.MILLISECONDS),
+                        TimeUnit.MILLISECONDS)
                 .build();
     }
 }
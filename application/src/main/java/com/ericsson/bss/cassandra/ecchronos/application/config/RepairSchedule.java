@@ -14,36 +14,132 @@
  */
 package com.ericsson.bss.cassandra.ecchronos.application.config;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.ericsson.bss.cassandra.ecchronos.core.repair.RepairConfiguration;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 public class RepairSchedule
 {
-    private Map<String, KeyspaceSchedule> keyspaces = new HashMap<>();
+    private static final Logger LOG = LoggerFactory.getLogger(RepairSchedule.class);
+
+    private static final long MAX_MEMOIZED_TABLES = 10_000L;
+
+    private NameMatcher<KeyspaceSchedule> keyspaces = NameMatcher.empty();
+
+    private final Cache<TableName, Optional<RepairConfiguration>> repairConfigurations = CacheBuilder.newBuilder()
+            .maximumSize(MAX_MEMOIZED_TABLES)
+            .build();
 
     public final void setKeyspaces(final List<KeyspaceSchedule> theKeyspaces)
     {
         if (theKeyspaces != null)
         {
-            this.keyspaces = theKeyspaces.stream().collect(Collectors.toMap(KeyspaceSchedule::getName, ks -> ks));
+            this.keyspaces = new NameMatcher<>(theKeyspaces.stream()
+                    .collect(Collectors.toMap(KeyspaceSchedule::getName, ks -> ks,
+                            throwOnDuplicate("keyspace", KeyspaceSchedule::getName), LinkedHashMap::new)));
+            repairConfigurations.invalidateAll();
         }
     }
 
+    private static <T> BinaryOperator<T> throwOnDuplicate(final String type, final Function<T, String> nameFunction)
+    {
+        return (a, b) ->
+        {
+            throw new IllegalStateException("Duplicate " + type + " " + nameFunction.apply(a) + " in repair schedule");
+        };
+    }
+
+    /**
+     * Get the repair configuration for a table.
+     * <p>
+     * The result is memoized per keyspace and table name, at most {@value #MAX_MEMOIZED_TABLES} tables are kept.
+     *
+     * @param keyspace The keyspace of the table.
+     * @param table The table.
+     * @return The repair configuration or empty if no configuration matches the table.
+     */
     public final Optional<RepairConfiguration> getRepairConfiguration(final String keyspace, final String table)
     {
-        return findMatching(keyspace, keyspaces, keyspaceSchedule -> keyspaceSchedule.get(table));
+        return repairConfigurations.asMap()
+                .computeIfAbsent(new TableName(keyspace, table), t -> resolve(keyspace, table));
+    }
+
+    private Optional<RepairConfiguration> resolve(final String keyspace, final String table)
+    {
+        Optional<RepairConfiguration> repairConfiguration = keyspaces.findMatching(keyspace, ks -> ks.get(table));
+        if (LOG.isDebugEnabled())
+        {
+            LOG.debug("Resolved repair configuration for {}.{}, schedule match counts {}", keyspace, table,
+                    getMatchCounts());
+        }
+        return repairConfiguration;
+    }
+
+    /**
+     * Get the number of tables each table configuration has been used for.
+     *
+     * @return The configured keyspace and table names, separated by a dot, and the number of tables they matched.
+     */
+    public final Map<String, Long> getMatchCounts()
+    {
+        Map<String, Long> matchCounts = new LinkedHashMap<>();
+        for (KeyspaceSchedule keyspaceSchedule : keyspaces.getValues())
+        {
+            keyspaceSchedule.tables.getMatchCounts().forEach((table, count) ->
+                    matchCounts.put(keyspaceSchedule.getName() + "." + table, count));
+        }
+        return matchCounts;
+    }
+
+    private static final class TableName
+    {
+        private final String keyspace;
+        private final String table;
+
+        TableName(final String aKeyspace, final String aTable)
+        {
+            this.keyspace = aKeyspace;
+            this.table = aTable;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass())
+            {
+                return false;
+            }
+            TableName tableName = (TableName) o;
+            return keyspace.equals(tableName.keyspace) && table.equals(tableName.table);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(keyspace, table);
+        }
     }
 
     static class KeyspaceSchedule
     {
         private String name;
-        private Map<String, TableRepairConfig> tables = new HashMap<>();
+        private NameMatcher<TableRepairConfig> tables = NameMatcher.empty();
 
         public String getName()
         {
@@ -57,14 +153,16 @@ public class RepairSchedule
 
         Optional<RepairConfiguration> get(final String table)
         {
-            return findMatching(table, tables, repairConfig -> Optional.of(repairConfig.asRepairConfiguration()));
+            return tables.findMatching(table, repairConfig -> Optional.of(repairConfig.asRepairConfiguration()));
         }
 
         void setTables(final List<TableRepairConfig> theTables)
         {
             if (theTables != null)
             {
-                this.tables = theTables.stream().collect(Collectors.toMap(TableRepairConfig::getName, tb -> tb));
+                this.tables = new NameMatcher<>(theTables.stream()
+                        .collect(Collectors.toMap(TableRepairConfig::getName, tb -> tb,
+                                throwOnDuplicate("table", TableRepairConfig::getName), LinkedHashMap::new)));
             }
         }
     }
@@ -105,34 +203,4 @@ public class RepairSchedule
             return RepairConfiguration.DISABLED;
         }
     }
-
-    private static <T, V> Optional<V> findMatching(final String searchTerm,
-                                                   final Map<String, T> map,
-                                                   final Function<T, Optional<V>> function)
-    {
-        T exactMatch = map.get(searchTerm);
-        if (exactMatch != null)
-        {
-            Optional<V> optionalValue = function.apply(exactMatch);
-            if (optionalValue.isPresent())
-            {
-                return optionalValue;
-            }
-        }
-
-        for (Map.Entry<String, T> entry : map.entrySet())
-        {
-            String regex = entry.getKey();
-            if (searchTerm.matches(regex))
-            {
-                Optional<V> optionalValue = function.apply(entry.getValue());
-                if (optionalValue.isPresent())
-                {
-                    return optionalValue;
-                }
-            }
-        }
-
-        return Optional.empty();
-    }
 }
@@ -145,11 +145,21 @@ public class BeanConfigurator
     {
         Supplier tlsSupplier = () -> securitySupplier.get().getTls();
 
-        CertificateHandler certificateHandler =
-                ReflectionUtils.construct(configuration.getConnectionConfig().getCql().getCertificateHandlerClass(),
-                new Class<?>[] {
-                        Supplier.class
-                }, tlsSupplier);
+        Class<? extends CertificateHandler> certificateHandlerClass = configuration.getConnectionConfig().getCql()
+                .getCertificateHandlerClass();
+        CertificateHandler certificateHandler;
+        if (ReloadingCertificateHandler.class.equals(certificateHandlerClass))
+        {
+            certificateHandler = new ReloadingCertificateHandler(tlsSupplier,
+                    configuration.getStatistics().isEnabled() ? meterRegistry : null);
+        }
+        else
+        {
+            certificateHandler = ReflectionUtils.construct(certificateHandlerClass,
+                    new Class<?>[] {
+                            Supplier.class
+                    }, tlsSupplier);
+        }
         try
         {
             return ReflectionUtils
@@ -239,13 +249,16 @@ public class BeanConfigurator
     }
 
     @Bean
-    public ReplicationState replicationState(final NativeConnectionProvider nativeConnectionProvider,
-                                             final NodeResolver nodeResolver)
+    public ReplicationState replicationState(final Config config,
+                                             final NativeConnectionProvider nativeConnectionProvider,
+                                             final NodeResolver nodeResolver,
+                                             final MeterRegistry eccCompositeMeterRegistry)
     {
         Node node = nativeConnectionProvider.getLocalNode();
         CqlSession session = nativeConnectionProvider.getSession();
 
-        return new ReplicationStateImpl(nodeResolver, session, node);
+        return new ReplicationStateImpl(nodeResolver, session, node,
+                config.getStatistics().isEnabled() ? eccCompositeMeterRegistry : null);
     }
 
     @Bean
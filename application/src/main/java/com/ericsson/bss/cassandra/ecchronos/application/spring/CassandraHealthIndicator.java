@@ -23,6 +23,7 @@ import com.ericsson.bss.cassandra.ecchronos.connection.NativeConnectionProvider;
 import com.ericsson.bss.cassandra.ecchronos.core.JmxProxy;
 import com.ericsson.bss.cassandra.ecchronos.core.JmxProxyFactory;
 import com.ericsson.bss.cassandra.ecchronos.core.JmxProxyFactoryImpl;
+import com.ericsson.bss.cassandra.ecchronos.core.repair.RepairScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.actuate.health.Health;
@@ -38,12 +39,15 @@ public class CassandraHealthIndicator implements HealthIndicator
     private static final Logger LOG = LoggerFactory.getLogger(CassandraHealthIndicator.class);
     private final NativeConnectionProvider myNativeConnectionProvider;
     private final JmxConnectionProvider myJmxConnectionProvider;
+    private final RepairScheduler myRepairScheduler;
 
     public CassandraHealthIndicator(final NativeConnectionProvider nativeConnectionProvider,
-                                    final JmxConnectionProvider jmxConnectionProvider)
+                                    final JmxConnectionProvider jmxConnectionProvider,
+                                    final RepairScheduler repairScheduler)
     {
         myNativeConnectionProvider = nativeConnectionProvider;
         myJmxConnectionProvider = jmxConnectionProvider;
+        myRepairScheduler = repairScheduler;
     }
 
     @Override
@@ -52,6 +56,7 @@ public class CassandraHealthIndicator implements HealthIndicator
         Map<String, Object> details = new HashMap<>();
         boolean cqlUp = isCqlConnectionUp(details);
         boolean jmxUp = isJmxConnectionUp(details);
+        addSchedulerDetails(details);
         if (cqlUp && jmxUp)
         {
             return Health.up().withDetails(details).build();
@@ -59,6 +64,19 @@ public class CassandraHealthIndicator implements HealthIndicator
         return Health.down().withDetails(details).build();
     }
 
+    /**
+     * Add the warm-up progress of the repair schedules.
+     * The scheduler is only reported as ready when all configured tables have been scheduled, this does not affect
+     * the health status.
+     */
+    private void addSchedulerDetails(final Map<String, Object> details)
+    {
+        int pendingSchedules = myRepairScheduler.getPendingSchedules();
+        details.put("repairScheduler", pendingSchedules > 0 ? "WARMING_UP" : "READY");
+        details.put("pendingSchedules", pendingSchedules);
+        details.put("scheduledTables", myRepairScheduler.getScheduledTableCount());
+    }
+
     private boolean isJmxConnectionUp(final Map<String, Object> details)
     {
         try
@@ -15,7 +15,9 @@
 package com.ericsson.bss.cassandra.ecchronos.application.spring;
 
 import java.io.Closeable;
+import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 import com.ericsson.bss.cassandra.ecchronos.core.utils.RepairStatsProvider;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.RepairStatsProviderImpl;
@@ -35,6 +37,7 @@ import com.ericsson.bss.cassandra.ecchronos.connection.JmxConnectionProvider;
 import com.ericsson.bss.cassandra.ecchronos.connection.NativeConnectionProvider;
 import com.ericsson.bss.cassandra.ecchronos.connection.StatementDecorator;
 import com.ericsson.bss.cassandra.ecchronos.core.TimeBasedRunPolicy;
+import com.ericsson.bss.cassandra.ecchronos.core.repair.AdaptiveRepairSizing;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.DefaultRepairConfigurationProvider;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.OnDemandRepairScheduler;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.OnDemandRepairSchedulerImpl;
@@ -45,6 +48,7 @@ import com.ericsson.bss.cassandra.ecchronos.core.repair.state.VnodeRepairStateFa
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairHistory;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairHistoryProvider;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairStateFactoryImpl;
+import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairStateRefresher;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.ReplicationState;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReferenceFactory;
 import com.ericsson.bss.cassandra.ecchronos.fm.RepairFaultReporter;
@@ -55,6 +59,8 @@ public class ECChronos implements Closeable
     private final ECChronosInternals myECChronosInternals;
 
     private final TimeBasedRunPolicy myTimeBasedRunPolicy;
+    private final RepairStateRefresher myRepairStateRefresher;
+    private final AdaptiveRepairSizing myRepairSizing;
     private final RepairSchedulerImpl myRepairSchedulerImpl;
     private final OnDemandRepairSchedulerImpl myOnDemandRepairSchedulerImpl;
     private final RepairStatsProvider myRepairStatsProvider;
@@ -80,12 +86,16 @@ public class ECChronos implements Closeable
 
         Config.GlobalRepairConfig repairConfig = configuration.getRepair();
 
-        RepairStateFactoryImpl repairStateFactoryImpl = RepairStateFactoryImpl.builder()
+        RepairStateFactoryImpl.Builder repairStateFactoryBuilder = RepairStateFactoryImpl.builder()
                 .withReplicationState(replicationState)
                 .withHostStates(myECChronosInternals.getHostStates())
                 .withRepairHistoryProvider(repairHistoryProvider)
-                .withTableRepairMetrics(myECChronosInternals.getTableRepairMetrics())
-                .build();
+                .withTableRepairMetrics(myECChronosInternals.getTableRepairMetrics());
+        if (repairConfig.getMaxVnodesPerGroup() > 0)
+        {
+            repairStateFactoryBuilder.withMaxVnodesPerRepairGroup(repairConfig.getMaxVnodesPerGroup());
+        }
+        RepairStateFactoryImpl repairStateFactoryImpl = repairStateFactoryBuilder.build();
 
         myTimeBasedRunPolicy = TimeBasedRunPolicy.builder()
                 .withSession(session)
@@ -93,6 +103,29 @@ public class ECChronos implements Closeable
                 .withKeyspaceName(configuration.getRunPolicy().getTimeBased().getKeyspace())
                 .build();
 
+        Config.StateRefresh stateRefreshConfig = repairConfig.getStateRefresh();
+        if (stateRefreshConfig.isEnabled())
+        {
+            myRepairStateRefresher = RepairStateRefresher.builder()
+                    .withThreads(stateRefreshConfig.getThreads())
+                    .withRefreshInterval(stateRefreshConfig.getInterval().getInterval(TimeUnit.MILLISECONDS),
+                            TimeUnit.MILLISECONDS)
+                    .withDueWindow(stateRefreshConfig.getDueWindow().getInterval(TimeUnit.MILLISECONDS),
+                            TimeUnit.MILLISECONDS)
+                    .withSession(session)
+                    .withMeterRegistry(configuration.getStatistics().isEnabled() ? eccCompositeMeterRegistry : null)
+                    .build();
+        }
+        else
+        {
+            myRepairStateRefresher = null;
+        }
+
+        String sizingFile = repairConfig.getSizingFile();
+        myRepairSizing = AdaptiveRepairSizing.builder()
+                .withFile(sizingFile == null ? null : Paths.get(sizingFile))
+                .build();
+
         myRepairSchedulerImpl = RepairSchedulerImpl.builder()
                 .withJmxProxyFactory(myECChronosInternals.getJmxProxyFactory())
                 .withFaultReporter(repairFaultReporter)
@@ -103,6 +136,10 @@ public class ECChronos implements Closeable
                 .withTableStorageStates(myECChronosInternals.getTableStorageStates())
                 .withRepairPolicies(Collections.singletonList(myTimeBasedRunPolicy))
                 .withRepairHistory(repairHistory)
+                .withRepairStateRefresher(myRepairStateRefresher)
+                .withRepairSizing(myRepairSizing)
+                .withWarmupThreads(configuration.getScheduler().getWarmupThreads())
+                .withMeterRegistry(configuration.getStatistics().isEnabled() ? eccCompositeMeterRegistry : null)
                 .build();
 
         AbstractRepairConfigurationProvider repairConfigurationProvider = ReflectionUtils
@@ -126,7 +163,8 @@ public class ECChronos implements Closeable
                 .withSession(session)
                 .withRepairConfiguration(repairConfig.asRepairConfiguration())
                 .withRepairHistory(repairHistory)
-                .withOnDemandStatus(new OnDemandStatus(nativeConnectionProvider))
+                .withOnDemandStatus(new OnDemandStatus(nativeConnectionProvider,
+                        configuration.getStatistics().isEnabled() ? eccCompositeMeterRegistry : null))
                 .build();
         myRepairStatsProvider = new RepairStatsProviderImpl(new VnodeRepairStateFactoryImpl(replicationState,
                 repairHistoryProvider,
@@ -171,6 +209,11 @@ public class ECChronos implements Closeable
 
         myTimeBasedRunPolicy.close();
         myRepairSchedulerImpl.close();
+        if (myRepairStateRefresher != null)
+        {
+            myRepairStateRefresher.close();
+        }
+        myRepairSizing.close();
         myOnDemandRepairSchedulerImpl.close();
 
         myECChronosInternals.close();
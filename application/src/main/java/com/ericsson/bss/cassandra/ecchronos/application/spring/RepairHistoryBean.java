@@ -26,22 +26,26 @@ import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairHistoryProvi
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.ReplicationState;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.DriverNode;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.NodeResolver;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.Closeable;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
-public class RepairHistoryBean
+public class RepairHistoryBean implements Closeable
 {
     private final RepairHistory repairHistory;
     private final RepairHistoryProvider repairHistoryProvider;
+    private final EccRepairHistory eccRepairHistory;
 
     public RepairHistoryBean(final Config configuration,
                              final NativeConnectionProvider nativeConnectionProvider,
                              final NodeResolver nodeResolver,
                              final StatementDecorator statementDecorator,
-                             final ReplicationState replicationState)
+                             final ReplicationState replicationState,
+                             final MeterRegistry eccCompositeMeterRegistry)
     {
         Node node = nativeConnectionProvider.getLocalNode();
         CqlSession session = nativeConnectionProvider.getSession();
@@ -55,10 +59,11 @@ public class RepairHistoryBean
             repairHistoryProvider = createCassandraHistoryProvider(repairConfig, session, nodeResolver,
                     statementDecorator);
             repairHistory = RepairHistory.NO_OP;
+            eccRepairHistory = null;
         }
         else
         {
-            EccRepairHistory eccRepairHistory = EccRepairHistory.newBuilder()
+            eccRepairHistory = EccRepairHistory.newBuilder()
                     .withSession(session)
                     .withReplicationState(replicationState)
                     .withLocalNode(localNode)
@@ -66,6 +71,12 @@ public class RepairHistoryBean
                     .withLookbackTime(repairConfig.getHistoryLookback().getInterval(TimeUnit.MILLISECONDS),
                             TimeUnit.MILLISECONDS)
                     .withKeyspace(repairConfig.getHistory().getKeyspace())
+                    .withPageSize(repairConfig.getHistory().getPageSize())
+                    .withWriteBatchSize(repairConfig.getHistory().getWriteBatchSize())
+                    .withWriteBufferSize(repairConfig.getHistory().getWriteBufferSize())
+                    .withCheckpointInterval(repairConfig.getHistory().getCheckpointInterval()
+                            .getInterval(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS)
+                    .withMeterRegistry(configuration.getStatistics().isEnabled() ? eccCompositeMeterRegistry : null)
                     .build();
 
             if (repairConfig.getHistory().getProvider() == Config.RepairHistory.Provider.UPGRADE)
@@ -82,24 +93,34 @@ public class RepairHistoryBean
         }
     }
 
-    @Bean
+    @Bean(destroyMethod = "")
     public RepairHistory repairHistory()
     {
         return repairHistory;
     }
 
-    @Bean
+    @Bean(destroyMethod = "")
     public RepairHistoryProvider repairHistoryProvider()
     {
         return repairHistoryProvider;
     }
 
+    @Override
+    public final void close()
+    {
+        if (eccRepairHistory != null)
+        {
+            eccRepairHistory.close();
+        }
+    }
+
     private RepairHistoryProvider createCassandraHistoryProvider(final Config.GlobalRepairConfig repairConfig,
                                                                  final CqlSession session,
                                                                  final NodeResolver nodeResolver,
                                                                  final StatementDecorator statementDecorator)
     {
         return new RepairHistoryProviderImpl(nodeResolver, session, statementDecorator,
-                repairConfig.getHistoryLookback().getInterval(TimeUnit.MILLISECONDS));
+                repairConfig.getHistoryLookback().getInterval(TimeUnit.MILLISECONDS),
+                repairConfig.getHistory().getPageSize());
     }
 }
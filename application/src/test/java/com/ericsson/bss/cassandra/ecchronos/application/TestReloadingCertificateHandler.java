@@ -17,12 +17,15 @@ package com.ericsson.bss.cassandra.ecchronos.application;
 
 import com.ericsson.bss.cassandra.ecchronos.application.config.TLSConfig;
 import com.ericsson.bss.cassandra.ecchronos.application.utils.CertUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.time.Instant;
 import java.util.Date;
 
@@ -167,6 +170,40 @@ public class TestReloadingCertificateHandler
         assertThat(newContext).isNotEqualTo(oldContext);
     }
 
+    @Test
+    public void testNewSslEngineSameContextWhenCertificateTouchedPEM() throws IOException
+    {
+        ReloadingCertificateHandler reloadingCertificateHandler = new ReloadingCertificateHandler(() -> getTLSConfigWithPEMFiles());
+
+        reloadingCertificateHandler.newSslEngine(null);
+        ReloadingCertificateHandler.Context oldContext = reloadingCertificateHandler.getContext();
+
+        //Update modification time without changing the content
+        Files.setLastModifiedTime(Paths.get(clientCert), FileTime.fromMillis(System.currentTimeMillis() + 1000));
+
+        reloadingCertificateHandler.newSslEngine(null);
+        ReloadingCertificateHandler.Context newContext = reloadingCertificateHandler.getContext();
+
+        assertThat(newContext).isEqualTo(oldContext);
+    }
+
+    @Test
+    public void testContextReloadIsRecorded()
+    {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReloadingCertificateHandler reloadingCertificateHandler = new ReloadingCertificateHandler(() -> getTLSConfigWithKeyStore(), meterRegistry);
+
+        reloadingCertificateHandler.newSslEngine(null);
+        reloadingCertificateHandler.newSslEngine(null);
+        assertThat(meterRegistry.get(ReloadingCertificateHandler.CONTEXT_RELOAD).timer().count()).isEqualTo(1);
+
+        //Change protocolVersion to simulate a change in the config
+        protocolVersion = "TLSv1.1,TLSv1.2";
+
+        reloadingCertificateHandler.newSslEngine(null);
+        assertThat(meterRegistry.get(ReloadingCertificateHandler.CONTEXT_RELOAD).timer().count()).isEqualTo(2);
+    }
+
     private TLSConfig getTLSConfigWithKeyStore()
     {
         TLSConfig tlsConfig = new TLSConfig();
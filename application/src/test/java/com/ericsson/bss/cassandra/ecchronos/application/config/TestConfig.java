@@ -89,6 +89,8 @@ public class TestConfig
                 .withRepairUnwindRatio(0.5d)
                 .withIgnoreTWCSTables(true)
                 .withTargetRepairSizeInBytes(UnitConverter.toBytes("5m"))
+                .withMaxRangesPerRepair(16)
+                .withTargetRepairSessionTime(5, TimeUnit.MINUTES)
                 .build();
 
         Config.GlobalRepairConfig repairConfig = config.getRepair();
@@ -98,8 +100,18 @@ public class TestConfig
         assertThat(repairConfig.getProvider()).isEqualTo(TestRepairConfigurationProvider.class);
 
         assertThat(repairConfig.getHistoryLookback().getInterval(TimeUnit.DAYS)).isEqualTo(13);
+        assertThat(repairConfig.getSizingFile()).isEqualTo("/tmp/ecc-sizing.properties");
+        assertThat(repairConfig.getMaxVnodesPerGroup()).isEqualTo(8);
+        assertThat(repairConfig.getStateRefresh().isEnabled()).isFalse();
+        assertThat(repairConfig.getStateRefresh().getThreads()).isEqualTo(4);
+        assertThat(repairConfig.getStateRefresh().getInterval().getInterval(TimeUnit.MINUTES)).isEqualTo(5);
+        assertThat(repairConfig.getStateRefresh().getDueWindow().getInterval(TimeUnit.HOURS)).isEqualTo(2);
+        assertThat(repairConfig.getHistory().getWriteBatchSize()).isEqualTo(50);
+        assertThat(repairConfig.getHistory().getWriteBufferSize()).isEqualTo(500);
+        assertThat(repairConfig.getHistory().getCheckpointInterval().getInterval(TimeUnit.MINUTES)).isEqualTo(30);
         assertThat(repairConfig.getHistory().getProvider()).isEqualTo(Config.RepairHistory.Provider.CASSANDRA);
         assertThat(repairConfig.getHistory().getKeyspace()).isEqualTo("customkeyspace");
+        assertThat(repairConfig.getHistory().getPageSize()).isEqualTo(500);
         assertThat(repairConfig.getAlarm().getFaultReporter()).isEqualTo(TestFaultReporter.class);
         assertThat(repairConfig.getIgnoreTWCSTables()).isTrue();
 
@@ -141,6 +153,8 @@ public class TestConfig
 
         Config.SchedulerConfig schedulerConfig = config.getScheduler();
         assertThat(schedulerConfig.getFrequency().getInterval(TimeUnit.SECONDS)).isEqualTo(60);
+        assertThat(schedulerConfig.getWorkers()).isEqualTo(4);
+        assertThat(schedulerConfig.getWarmupThreads()).isEqualTo(8);
 
         Config.RestServerConfig restServerConfig = config.getRestServer();
         assertThat(restServerConfig.getHost()).isEqualTo("127.0.0.2");
@@ -191,6 +205,15 @@ public class TestConfig
         assertThat(repairConfig.getProvider()).isEqualTo(FileBasedRepairConfiguration.class);
 
         assertThat(repairConfig.getHistoryLookback().getInterval(TimeUnit.DAYS)).isEqualTo(30);
+        assertThat(repairConfig.getSizingFile()).isNull();
+        assertThat(repairConfig.getMaxVnodesPerGroup()).isZero();
+        assertThat(repairConfig.getStateRefresh().isEnabled()).isTrue();
+        assertThat(repairConfig.getStateRefresh().getThreads()).isEqualTo(2);
+        assertThat(repairConfig.getStateRefresh().getInterval().getInterval(TimeUnit.MINUTES)).isEqualTo(1);
+        assertThat(repairConfig.getStateRefresh().getDueWindow().getInterval(TimeUnit.HOURS)).isEqualTo(1);
+        assertThat(repairConfig.getHistory().getWriteBatchSize()).isEqualTo(0);
+        assertThat(repairConfig.getHistory().getWriteBufferSize()).isEqualTo(10_000);
+        assertThat(repairConfig.getHistory().getCheckpointInterval().getInterval(TimeUnit.MINUTES)).isEqualTo(0);
         assertThat(repairConfig.getHistory().getProvider()).isEqualTo(Config.RepairHistory.Provider.ECC);
         assertThat(repairConfig.getHistory().getKeyspace()).isEqualTo("ecchronos");
         assertThat(repairConfig.getAlarm().getFaultReporter()).isEqualTo(LoggingFaultReporter.class);
@@ -224,6 +247,8 @@ public class TestConfig
 
         Config.SchedulerConfig schedulerConfig = config.getScheduler();
         assertThat(schedulerConfig.getFrequency().getInterval(TimeUnit.SECONDS)).isEqualTo(30);
+        assertThat(schedulerConfig.getWorkers()).isEqualTo(1);
+        assertThat(schedulerConfig.getWarmupThreads()).isEqualTo(4);
 
         Config.RestServerConfig restServerConfig = config.getRestServer();
         assertThat(restServerConfig.getHost()).isEqualTo("localhost");
@@ -306,6 +331,8 @@ public class TestConfig
 
         Config.SchedulerConfig schedulerConfig = config.getScheduler();
         assertThat(schedulerConfig.getFrequency().getInterval(TimeUnit.SECONDS)).isEqualTo(30);
+        assertThat(schedulerConfig.getWorkers()).isEqualTo(1);
+        assertThat(schedulerConfig.getWarmupThreads()).isEqualTo(4);
 
         Config.RestServerConfig restServerConfig = config.getRestServer();
         assertThat(restServerConfig.getHost()).isEqualTo("localhost");
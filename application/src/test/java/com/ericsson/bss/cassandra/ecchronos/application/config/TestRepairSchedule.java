@@ -15,8 +15,11 @@
 package com.ericsson.bss.cassandra.ecchronos.application.config;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
 
 import java.io.File;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
@@ -114,4 +117,54 @@ public class TestRepairSchedule
 
         assertThat(schedule.getRepairConfiguration("ks2", "tb23")).isEmpty();
     }
+
+    @Test
+    public void testMatchCounts() throws Exception
+    {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        File file = new File(classLoader.getResource("regex_schedule.yml").getFile());
+
+        ObjectMapper objectMapper = new ObjectMapper(new YAMLFactory());
+
+        RepairSchedule schedule = objectMapper.readValue(file, RepairSchedule.class);
+
+        Optional<RepairConfiguration> ks2Tb1 = schedule.getRepairConfiguration("ks2", "tb1");
+        assertThat(schedule.getRepairConfiguration("ks2", "tb1")).isSameAs(ks2Tb1);
+        schedule.getRepairConfiguration("any", "table_abc");
+        schedule.getRepairConfiguration("ks2", "table_abc");
+        schedule.getRepairConfiguration("ks2", "table_abc");
+        schedule.getRepairConfiguration("any", "nonexisting");
+
+        assertThat(schedule.getMatchCounts()).containsExactly(
+                entry(".*.[a-zA-Z0-9]+_abc", 2L),
+                entry(".*.tb2", 0L),
+                entry("ks2.tb1", 1L),
+                entry("ks2.tb2", 0L));
+    }
+
+    @Test
+    public void testDuplicateKeyspace()
+    {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        File file = new File(classLoader.getResource("duplicate_keyspace_schedule.yml").getFile());
+
+        ObjectMapper objectMapper = new ObjectMapper(new YAMLFactory());
+
+        assertThatThrownBy(() -> objectMapper.readValue(file, RepairSchedule.class))
+                .hasRootCauseInstanceOf(IllegalStateException.class)
+                .hasStackTraceContaining("Duplicate keyspace ks1");
+    }
+
+    @Test
+    public void testDuplicateTable()
+    {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        File file = new File(classLoader.getResource("duplicate_table_schedule.yml").getFile());
+
+        ObjectMapper objectMapper = new ObjectMapper(new YAMLFactory());
+
+        assertThatThrownBy(() -> objectMapper.readValue(file, RepairSchedule.class))
+                .hasRootCauseInstanceOf(IllegalStateException.class)
+                .hasStackTraceContaining("Duplicate table tb1");
+    }
 }
@@ -22,6 +22,7 @@ import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.cql.SimpleStatement;
 import com.ericsson.bss.cassandra.ecchronos.connection.JmxConnectionProvider;
 import com.ericsson.bss.cassandra.ecchronos.connection.NativeConnectionProvider;
+import com.ericsson.bss.cassandra.ecchronos.core.repair.RepairScheduler;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
@@ -60,6 +61,9 @@ public class TestCassandraHealthIndicator
     @Mock
     private ResultSet myResultSet;
 
+    @Mock
+    private RepairScheduler myRepairScheduler;
+
     @Test
     public void testHealth() throws IOException
     {
@@ -71,9 +75,32 @@ public class TestCassandraHealthIndicator
         rows.add(mock(Row.class));
         doReturn(rows).when(myResultSet).all();
         CassandraHealthIndicator cassandraHealthIndicator = new CassandraHealthIndicator(myNativeConnectionProvider,
-                myJmxConnectionProvider);
+                myJmxConnectionProvider, myRepairScheduler);
+        Health health = cassandraHealthIndicator.health();
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("repairScheduler", "READY");
+        assertThat(health.getDetails()).containsEntry("pendingSchedules", 0);
+    }
+
+    @Test
+    public void testHealthWhileSchedulerWarmingUp() throws IOException
+    {
+        doReturn(myJMXConnector).when(myJmxConnectionProvider).getJmxConnector();
+        doReturn(mock(MBeanServerConnection.class)).when(myJMXConnector).getMBeanServerConnection();
+        doReturn(mySession).when(myNativeConnectionProvider).getSession();
+        doReturn(myResultSet).when(mySession).execute(any(SimpleStatement.class));
+        List<Row> rows = new ArrayList<>();
+        rows.add(mock(Row.class));
+        doReturn(rows).when(myResultSet).all();
+        doReturn(3).when(myRepairScheduler).getPendingSchedules();
+        doReturn(1).when(myRepairScheduler).getScheduledTableCount();
+        CassandraHealthIndicator cassandraHealthIndicator = new CassandraHealthIndicator(myNativeConnectionProvider,
+                myJmxConnectionProvider, myRepairScheduler);
         Health health = cassandraHealthIndicator.health();
         assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("repairScheduler", "WARMING_UP");
+        assertThat(health.getDetails()).containsEntry("pendingSchedules", 3);
+        assertThat(health.getDetails()).containsEntry("scheduledTables", 1);
     }
 
     @Test
@@ -85,7 +112,7 @@ public class TestCassandraHealthIndicator
         doThrow(AllNodesFailedException.fromErrors(new ArrayList<>())).when(mySession)
                 .execute(any(SimpleStatement.class));
         CassandraHealthIndicator cassandraHealthIndicator = new CassandraHealthIndicator(myNativeConnectionProvider,
-                myJmxConnectionProvider);
+                myJmxConnectionProvider, myRepairScheduler);
         Health health = cassandraHealthIndicator.health();
         assertThat(health.getStatus()).isEqualTo(Status.DOWN);
     }
@@ -99,7 +126,7 @@ public class TestCassandraHealthIndicator
         doReturn(myResultSet).when(mySession).execute(any(SimpleStatement.class));
         doReturn(Collections.emptyList()).when(myResultSet).all();
         CassandraHealthIndicator cassandraHealthIndicator = new CassandraHealthIndicator(myNativeConnectionProvider,
-                myJmxConnectionProvider);
+                myJmxConnectionProvider, myRepairScheduler);
         Health health = cassandraHealthIndicator.health();
         assertThat(health.getStatus()).isEqualTo(Status.DOWN);
     }
@@ -115,7 +142,7 @@ public class TestCassandraHealthIndicator
         rows.add(mock(Row.class));
         doReturn(rows).when(myResultSet).all();
         CassandraHealthIndicator cassandraHealthIndicator = new CassandraHealthIndicator(myNativeConnectionProvider,
-                myJmxConnectionProvider);
+                myJmxConnectionProvider, myRepairScheduler);
         Health health = cassandraHealthIndicator.health();
         assertThat(health.getStatus()).isEqualTo(Status.DOWN);
     }
@@ -22,6 +22,7 @@ import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
 import com.datastax.oss.driver.api.core.config.ProgrammaticDriverConfigLoaderBuilder;
 import com.datastax.oss.driver.api.core.metadata.EndPoint;
 import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.NodeStateListener;
 import com.datastax.oss.driver.api.core.metadata.schema.SchemaChangeListener;
 import com.datastax.oss.driver.api.core.metrics.DefaultNodeMetric;
 import com.datastax.oss.driver.api.core.metrics.DefaultSessionMetric;
@@ -71,12 +72,15 @@ public final class LocalNativeConnectionProvider implements NativeConnectionProv
     private final CqlSession mySession;
     private final Node myLocalNode;
     private final boolean myRemoteRouting;
+    private final NodeStateListenerDispatcher myNodeStateListenerDispatcher;
 
-    private LocalNativeConnectionProvider(final CqlSession session, final Node node, final boolean remoteRouting)
+    private LocalNativeConnectionProvider(final CqlSession session, final Node node, final boolean remoteRouting,
+                                          final NodeStateListenerDispatcher nodeStateListenerDispatcher)
     {
         mySession = session;
         myLocalNode = node;
         myRemoteRouting = remoteRouting;
+        myNodeStateListenerDispatcher = nodeStateListenerDispatcher;
     }
 
     @Override
@@ -97,6 +101,18 @@ public final class LocalNativeConnectionProvider implements NativeConnectionProv
         return myRemoteRouting;
     }
 
+    @Override
+    public void addNodeStateListener(final NodeStateListener listener)
+    {
+        myNodeStateListenerDispatcher.addListener(listener);
+    }
+
+    @Override
+    public void removeNodeStateListener(final NodeStateListener listener)
+    {
+        myNodeStateListenerDispatcher.removeListener(listener);
+    }
+
     @Override
     public void close()
     {
@@ -171,9 +187,10 @@ public final class LocalNativeConnectionProvider implements NativeConnectionProv
 
         public final LocalNativeConnectionProvider build()
         {
-            CqlSession session = createSession(this);
+            NodeStateListenerDispatcher nodeStateListenerDispatcher = new NodeStateListenerDispatcher();
+            CqlSession session = createSession(this, nodeStateListenerDispatcher);
             Node node = resolveLocalhost(session, localEndPoint());
-            return new LocalNativeConnectionProvider(session, node, myRemoteRouting);
+            return new LocalNativeConnectionProvider(session, node, myRemoteRouting, nodeStateListenerDispatcher);
         }
 
         private EndPoint localEndPoint()
@@ -181,7 +198,8 @@ public final class LocalNativeConnectionProvider implements NativeConnectionProv
             return new ContactEndPoint(myLocalhost, myPort);
         }
 
-        private static CqlSession createSession(final Builder builder)
+        private static CqlSession createSession(final Builder builder,
+                                                final NodeStateListener nodeStateListener)
         {
             EndPoint contactEndPoint = builder.localEndPoint();
 
@@ -191,7 +209,8 @@ public final class LocalNativeConnectionProvider implements NativeConnectionProv
                     initialContact.getDataCenter());
 
             CqlSessionBuilder sessionBuilder = fromBuilder(builder);
-            sessionBuilder = sessionBuilder.withLocalDatacenter(initialContact.dataCenter);
+            sessionBuilder = sessionBuilder.withLocalDatacenter(initialContact.dataCenter)
+                    .withNodeStateListener(nodeStateListener);
             ProgrammaticDriverConfigLoaderBuilder loaderBuilder = DriverConfigLoader.programmaticBuilder()
                     .withStringList(DefaultDriverOption.METADATA_SCHEMA_REFRESHED_KEYSPACES,
                             SCHEMA_REFRESHED_KEYSPACES);
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.connection.impl;
+
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.NodeStateListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Node state listener registered with the session that forwards events to listeners added after the session was
+ * created.
+ */
+final class NodeStateListenerDispatcher implements NodeStateListener
+{
+    private static final Logger LOG = LoggerFactory.getLogger(NodeStateListenerDispatcher.class);
+
+    private final List<NodeStateListener> myListeners = new CopyOnWriteArrayList<>();
+
+    void addListener(final NodeStateListener listener)
+    {
+        myListeners.add(listener);
+    }
+
+    void removeListener(final NodeStateListener listener)
+    {
+        myListeners.remove(listener);
+    }
+
+    @Override
+    public void onAdd(final Node node)
+    {
+        dispatch(listener -> listener.onAdd(node));
+    }
+
+    @Override
+    public void onUp(final Node node)
+    {
+        dispatch(listener -> listener.onUp(node));
+    }
+
+    @Override
+    public void onDown(final Node node)
+    {
+        dispatch(listener -> listener.onDown(node));
+    }
+
+    @Override
+    public void onRemove(final Node node)
+    {
+        dispatch(listener -> listener.onRemove(node));
+    }
+
+    @Override
+    public void close()
+    {
+        myListeners.clear();
+    }
+
+    private void dispatch(final Consumer<NodeStateListener> event)
+    {
+        for (NodeStateListener listener : myListeners)
+        {
+            try
+            {
+                event.accept(listener);
+            }
+            catch (RuntimeException e)
+            {
+                LOG.error("Node state listener {} failed", listener, e);
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@ package com.ericsson.bss.cassandra.ecchronos.connection.impl;
 import com.datastax.oss.driver.api.core.CqlSession;
 import com.datastax.oss.driver.api.core.auth.ProgrammaticPlainTextAuthProvider;
 import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.NodeStateListener;
 import com.ericsson.bss.cassandra.ecchronos.connection.NativeConnectionProvider;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -100,6 +101,18 @@ public class OSGiLocalNativeConnectionProvider implements NativeConnectionProvid
         return myDelegateNativeConnectionProvider.getRemoteRouting();
     }
 
+    @Override
+    public final void addNodeStateListener(final NodeStateListener listener)
+    {
+        myDelegateNativeConnectionProvider.addNodeStateListener(listener);
+    }
+
+    @Override
+    public final void removeNodeStateListener(final NodeStateListener listener)
+    {
+        myDelegateNativeConnectionProvider.removeNodeStateListener(listener);
+    }
+
     @ObjectClassDefinition
     public @interface Configuration
     {
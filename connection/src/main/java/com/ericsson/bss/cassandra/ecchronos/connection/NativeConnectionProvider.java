@@ -16,6 +16,7 @@ package com.ericsson.bss.cassandra.ecchronos.connection;
 
 import com.datastax.oss.driver.api.core.CqlSession;
 import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.NodeStateListener;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -31,6 +32,25 @@ public interface NativeConnectionProvider extends Closeable
 
     boolean getRemoteRouting();
 
+    /**
+     * Add a listener for node state events of the session.
+     * Providers not supporting node state events ignore the listener.
+     *
+     * @param listener The listener to add.
+     */
+    default void addNodeStateListener(NodeStateListener listener)
+    {
+    }
+
+    /**
+     * Remove a previously added node state listener.
+     *
+     * @param listener The listener to remove.
+     */
+    default void removeNodeStateListener(NodeStateListener listener)
+    {
+    }
+
     @Override
     default void close() throws IOException
     {
@@ -32,6 +32,7 @@ import org.osgi.service.metatype.annotations.Designate;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 
 @Component(service = LockFactory.class)
 @Designate(ocd = CASLockFactoryService.Configuration.class)
@@ -83,6 +84,15 @@ public class CASLockFactoryService implements LockFactory
         return myDelegateLockFactory.tryLock(dataCenter, resource, priority, metadata);
     }
 
+    @Override
+    public final CompletionStage<DistributedLock> tryLockAsync(final String dataCenter,
+                                                               final String resource,
+                                                               final int priority,
+                                                               final Map<String, String> metadata)
+    {
+        return myDelegateLockFactory.tryLockAsync(dataCenter, resource, priority, metadata);
+    }
+
     @Override
     public final Map<String, String> getLockMetadata(final String dataCenter, final String resource)
     {
@@ -126,6 +126,12 @@ public class RepairSchedulerService implements RepairScheduler
         return myDelegateRepairSchedulerImpl.getCurrentRepairJobs();
     }
 
+    @Override
+    public final int getScheduledTableCount()
+    {
+        return myDelegateRepairSchedulerImpl.getScheduledTableCount();
+    }
+
     @ObjectClassDefinition
     public @interface Configuration
     {
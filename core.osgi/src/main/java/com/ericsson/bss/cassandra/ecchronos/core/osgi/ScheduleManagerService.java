@@ -43,6 +43,7 @@ public class ScheduleManagerService implements ScheduleManager
     private static final Logger LOG = LoggerFactory.getLogger(ScheduleManagerService.class);
 
     private static final long DEFAULT_SCHEDULE_INTERVAL_IN_SECONDS = 60L;
+    private static final int DEFAULT_WORKERS = 1;
 
     @Reference(service = RunPolicy.class,
             cardinality = ReferenceCardinality.MULTIPLE,
@@ -66,6 +67,7 @@ public class ScheduleManagerService implements ScheduleManager
         myDelegateSchedulerManager = ScheduleManagerImpl.builder()
                 .withLockFactory(myLockFactory)
                 .withRunInterval(scheduleIntervalInSeconds, TimeUnit.SECONDS)
+                .withWorkers(configuration.workers())
                 .build();
 
         for (RunPolicy runPolicy : myRunPolicies)
@@ -92,6 +94,12 @@ public class ScheduleManagerService implements ScheduleManager
         myDelegateSchedulerManager.deschedule(job);
     }
 
+    @Override
+    public final void reindex(final ScheduledJob job)
+    {
+        myDelegateSchedulerManager.reindex(job);
+    }
+
     public final synchronized void bindRunPolicy(final RunPolicy runPolicy)
     {
         if (myRunPolicies.add(runPolicy))
@@ -130,5 +138,9 @@ public class ScheduleManagerService implements ScheduleManager
         @AttributeDefinition(name = "Schedule interval in seconds",
                 description = "The interval in which jobs will be scheduled to run")
         long scheduleIntervalInSeconds() default DEFAULT_SCHEDULE_INTERVAL_IN_SECONDS;
+
+        @AttributeDefinition(name = "Number of workers",
+                description = "The number of jobs that can run in parallel")
+        int workers() default DEFAULT_WORKERS;
     }
 }
@@ -93,6 +93,12 @@ public final class TableRepairMetricsService implements TableRepairMetrics, Tabl
         myDelegateTableRepairMetrics.repairSession(tableReference, timeTaken, timeUnit, successful);
     }
 
+    @Override
+    public void remove(final TableReference tableReference)
+    {
+        myDelegateTableRepairMetrics.remove(tableReference);
+    }
+
     @ObjectClassDefinition
     public @interface Configuration
     {
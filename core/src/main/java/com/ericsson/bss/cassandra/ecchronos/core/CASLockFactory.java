@@ -16,6 +16,7 @@ package com.ericsson.bss.cassandra.ecchronos.core;
 
 import com.datastax.oss.driver.api.core.ConsistencyLevel;
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
 import com.datastax.oss.driver.api.core.cql.BoundStatement;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.ResultSet;
@@ -33,6 +34,9 @@ import com.ericsson.bss.cassandra.ecchronos.connection.StatementDecorator;
 import com.ericsson.bss.cassandra.ecchronos.core.exceptions.LockException;
 import com.ericsson.bss.cassandra.ecchronos.core.scheduling.LockFactory;
 import com.google.common.annotations.VisibleForTesting;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,12 +52,17 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
 
 import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
 
@@ -78,6 +87,13 @@ import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
  * PRIMARY KEY(resource, node))
  * WITH default_time_to_live = 600 AND gc_grace_seconds = 0;
  * </pre>
+ *
+ * All locks held by the factory are renewed together by a single renewal task. The renewals are sent as asynchronous
+ * queries so that the round trips for the different resources and data centers overlap. The renewal interval has a
+ * small random jitter to avoid that all instances renew their locks at the same time.
+ *
+ * Locks can also be acquired asynchronously through {@link #tryLockAsync(String, String, int, Map)}, which allows
+ * the priority reads and inserts for several resources to be in flight at the same time.
  */
 public final class CASLockFactory implements LockFactory, Closeable
 {
@@ -92,6 +108,11 @@ public final class CASLockFactory implements LockFactory, Closeable
     private static final long LOCK_UPDATE_TIME_IN_SECONDS = 60;
     private static final int FAILED_LOCK_RETRY_ATTEMPTS =
             (int) (LOCK_TIME_IN_SECONDS / LOCK_UPDATE_TIME_IN_SECONDS) - 1;
+    private static final long LOCK_UPDATE_TIME_IN_MS = TimeUnit.SECONDS.toMillis(LOCK_UPDATE_TIME_IN_SECONDS);
+    private static final long LOCK_UPDATE_MAX_JITTER_IN_MS = LOCK_UPDATE_TIME_IN_MS / 10;
+
+    static final String LOCK_RENEWALS = "lock.renewals";
+    static final String LOCKS_HELD = "locks.held";
 
     private static final String TABLE_LOCK = "lock";
     private static final String TABLE_LOCK_PRIORITY = "lock_priority";
@@ -115,6 +136,11 @@ public final class CASLockFactory implements LockFactory, Closeable
     private final PreparedStatement myRemoveLockPriorityStatement;
     private final LockCache myLockCache;
 
+    private final Set<CASLock> myHeldLocks = ConcurrentHashMap.newKeySet();
+    private final Timer mySuccessfulRenewalTimer;
+    private final Timer myFailedRenewalTimer;
+    private volatile ScheduledFuture<?> myRenewalFuture;
+
     private CASLockFactory(final Builder builder)
     {
         myStatementDecorator = builder.myStatementDecorator;
@@ -198,6 +224,21 @@ public final class CASLockFactory implements LockFactory, Closeable
         myUuid = hostId;
 
         myLockCache = new LockCache(this::doTryLock);
+
+        MeterRegistry meterRegistry = builder.myMeterRegistry;
+        if (meterRegistry != null)
+        {
+            Gauge.builder(LOCKS_HELD, myHeldLocks, Set::size).register(meterRegistry);
+            mySuccessfulRenewalTimer = renewalTimer(meterRegistry, true);
+            myFailedRenewalTimer = renewalTimer(meterRegistry, false);
+        }
+        else
+        {
+            mySuccessfulRenewalTimer = null;
+            myFailedRenewalTimer = null;
+        }
+
+        scheduleRenewal();
     }
 
     @Override
@@ -210,6 +251,15 @@ public final class CASLockFactory implements LockFactory, Closeable
         return myLockCache.getLock(dataCenter, resource, priority, metadata);
     }
 
+    @Override
+    public CompletionStage<DistributedLock> tryLockAsync(final String dataCenter,
+                                                         final String resource,
+                                                         final int priority,
+                                                         final Map<String, String> metadata)
+    {
+        return myLockCache.getLockAsync(dataCenter, resource, priority, metadata, this::doTryLockAsync);
+    }
+
     @Override
     public Map<String, String> getLockMetadata(final String dataCenter, final String resource)
     {
@@ -263,6 +313,11 @@ public final class CASLockFactory implements LockFactory, Closeable
     @Override
     public void close()
     {
+        ScheduledFuture<?> renewalFuture = myRenewalFuture;
+        if (renewalFuture != null)
+        {
+            renewalFuture.cancel(false);
+        }
         myExecutor.shutdown();
         try
         {
@@ -283,6 +338,59 @@ public final class CASLockFactory implements LockFactory, Closeable
         return myUuid;
     }
 
+    @VisibleForTesting
+    int getHeldLocks()
+    {
+        return myHeldLocks.size();
+    }
+
+    /**
+     * Renew all held locks.
+     * <p>
+     * Made available for testing.
+     */
+    @VisibleForTesting
+    void renewLocks()
+    {
+        LOG.trace("Renewing {} locks", myHeldLocks.size());
+        for (CASLock lock : myHeldLocks)
+        {
+            try
+            {
+                lock.renewAsync();
+            }
+            catch (Exception e)
+            {
+                lock.renewalFailed(e);
+            }
+        }
+    }
+
+    private void scheduleRenewal()
+    {
+        long delay = LOCK_UPDATE_TIME_IN_MS - ThreadLocalRandom.current().nextLong(LOCK_UPDATE_MAX_JITTER_IN_MS + 1);
+        try
+        {
+            myRenewalFuture = myExecutor.schedule(this::renewAndReschedule, delay, TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException e)
+        {
+            LOG.debug("Lock renewal not scheduled, lock factory is closed");
+        }
+    }
+
+    private void renewAndReschedule()
+    {
+        try
+        {
+            renewLocks();
+        }
+        finally
+        {
+            scheduleRenewal();
+        }
+    }
+
     public static Builder builder()
     {
         return new Builder();
@@ -296,6 +404,7 @@ public final class CASLockFactory implements LockFactory, Closeable
         private HostStates myHostStates;
         private StatementDecorator myStatementDecorator;
         private String myKeyspaceName = DEFAULT_KEYSPACE_NAME;
+        private MeterRegistry myMeterRegistry;
 
         public final Builder withNativeConnectionProvider(final NativeConnectionProvider nativeConnectionProvider)
         {
@@ -321,6 +430,18 @@ public final class CASLockFactory implements LockFactory, Closeable
             return this;
         }
 
+        /**
+         * Set the meter registry used for lock renewal metrics, metrics are not reported if not set.
+         *
+         * @param meterRegistry The meter registry.
+         * @return The builder
+         */
+        public final Builder withMeterRegistry(final MeterRegistry meterRegistry)
+        {
+            myMeterRegistry = meterRegistry;
+            return this;
+        }
+
         public final CASLockFactory build()
         {
             if (myNativeConnectionProvider == null)
@@ -373,6 +494,110 @@ public final class CASLockFactory implements LockFactory, Closeable
         throw new LockException(String.format("Unable to lock resource %s in datacenter %s", resource, dataCenter));
     }
 
+    private CompletionStage<DistributedLock> doTryLockAsync(final String dataCenter,
+                                                            final String resource,
+                                                            final int priority,
+                                                            final Map<String, String> metadata)
+    {
+        LOG.trace("Trying lock asynchronously for {} - {}", dataCenter, resource);
+
+        if (!sufficientNodesForLocking(dataCenter, resource))
+        {
+            LOG.warn("Not sufficient nodes to lock resource {} in datacenter {}", resource, dataCenter);
+            return failedFuture(new LockException("Not sufficient nodes to lock"));
+        }
+
+        CompletableFuture<DistributedLock> result = new CompletableFuture<>();
+
+        try
+        {
+            computePrioritiesAsync(dataCenter, resource)
+                    .thenCompose(nodePriorities -> new CASLock(dataCenter, resource, priority, metadata,
+                            nodePriorities).lockAsync()) // NOSONAR
+                    .whenComplete((lock, throwable) ->
+                    {
+                        if (throwable == null)
+                        {
+                            result.complete(lock);
+                            return;
+                        }
+
+                        Throwable cause = throwable instanceof CompletionException
+                                ? throwable.getCause()
+                                : throwable;
+                        if (cause instanceof LockException)
+                        {
+                            result.completeExceptionally(cause);
+                        }
+                        else
+                        {
+                            LOG.warn("Unable to lock resource {} in datacenter {} - {}", resource, dataCenter,
+                                    cause.getMessage());
+                            result.completeExceptionally(new LockException(cause));
+                        }
+                    });
+        }
+        catch (Exception e)
+        {
+            LOG.warn("Unable to lock resource {} in datacenter {} - {}", resource, dataCenter, e.getMessage());
+            result.completeExceptionally(new LockException(e));
+        }
+
+        return result;
+    }
+
+    private List<NodePriority> computePriorities(final String dataCenter, final String resource)
+    {
+        List<NodePriority> nodePriorities = new ArrayList<>();
+
+        ResultSet resultSet = execute(dataCenter, myGetPriorityStatement.bind(resource));
+
+        for (Row row : resultSet)
+        {
+            nodePriorities.add(toNodePriority(row));
+        }
+
+        return nodePriorities;
+    }
+
+    private CompletionStage<List<NodePriority>> computePrioritiesAsync(final String dataCenter,
+                                                                       final String resource)
+    {
+        return executeAsync(dataCenter, myGetPriorityStatement.bind(resource))
+                .thenCompose(resultSet -> collectPriorities(resultSet, new ArrayList<>()));
+    }
+
+    private CompletionStage<List<NodePriority>> collectPriorities(final AsyncResultSet resultSet,
+                                                                  final List<NodePriority> nodePriorities)
+    {
+        for (Row row : resultSet.currentPage())
+        {
+            nodePriorities.add(toNodePriority(row));
+        }
+
+        if (resultSet.hasMorePages())
+        {
+            return resultSet.fetchNextPage().thenCompose(nextPage -> collectPriorities(nextPage, nodePriorities));
+        }
+
+        return CompletableFuture.completedFuture(nodePriorities);
+    }
+
+    private static NodePriority toNodePriority(final Row row)
+    {
+        int priority = row.getInt(COLUMN_PRIORITY);
+        UUID hostId = row.getUuid(COLUMN_NODE);
+
+        return new NodePriority(hostId, priority);
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(final Throwable throwable)
+    {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
     private Set<Node> getNodesForResource(final String dataCenter,
                                           final String resource) throws UnsupportedEncodingException
     {
@@ -417,6 +642,16 @@ public final class CASLockFactory implements LockFactory, Closeable
     }
 
     private ResultSet execute(final String dataCenter, final BoundStatement statement)
+    {
+        return mySession.execute(decorate(dataCenter, statement));
+    }
+
+    private CompletionStage<AsyncResultSet> executeAsync(final String dataCenter, final BoundStatement statement)
+    {
+        return mySession.executeAsync(decorate(dataCenter, statement));
+    }
+
+    private Statement decorate(final String dataCenter, final BoundStatement statement)
     {
         Statement executeStatement;
 
@@ -429,7 +664,23 @@ public final class CASLockFactory implements LockFactory, Closeable
             executeStatement = statement;
         }
 
-        return mySession.execute(myStatementDecorator.apply(executeStatement));
+        return myStatementDecorator.apply(executeStatement);
+    }
+
+    private static Timer renewalTimer(final MeterRegistry meterRegistry, final boolean successful)
+    {
+        return Timer.builder(LOCK_RENEWALS)
+                .tags("successful", Boolean.toString(successful))
+                .register(meterRegistry);
+    }
+
+    private void recordRenewal(final long startTimeInNanos, final boolean successful)
+    {
+        Timer timer = successful ? mySuccessfulRenewalTimer : myFailedRenewalTimer;
+        if (timer != null)
+        {
+            timer.record(System.nanoTime() - startTimeInNanos, TimeUnit.NANOSECONDS);
+        }
     }
 
     private void verifySchemasExists()
@@ -458,29 +709,31 @@ public final class CASLockFactory implements LockFactory, Closeable
         }
     }
 
-    class CASLock implements DistributedLock, Runnable
+    class CASLock implements DistributedLock
     {
         private final String myDataCenter;
         private final String myResource;
         private final int myPriority;
         private final Map<String, String> myMetadata;
 
-        private final AtomicReference<ScheduledFuture<?>> myUpdateFuture = new AtomicReference<>();
-
         private final AtomicInteger myFailedUpdateAttempts = new AtomicInteger();
 
         private final int myLocallyHighestPriority;
         private final int globalHighPriority;
 
         CASLock(final String dataCenter, final String resource, final int priority, final Map<String, String> metadata)
+        {
+            this(dataCenter, resource, priority, metadata, CASLockFactory.this.computePriorities(dataCenter, resource));
+        }
+
+        CASLock(final String dataCenter, final String resource, final int priority, final Map<String, String> metadata,
+                final List<NodePriority> nodePriorities)
         {
             myDataCenter = dataCenter;
             myResource = resource;
             myPriority = priority;
             myMetadata = metadata;
 
-            List<NodePriority> nodePriorities = computePriorities();
-
             myLocallyHighestPriority = nodePriorities.stream().filter(n -> n.getUuid().equals(myUuid))
                     .map(NodePriority::getPriority).findFirst().orElse(myPriority);
             globalHighPriority = nodePriorities.stream().filter(n -> !n.getUuid().equals(myUuid))
@@ -495,9 +748,7 @@ public final class CASLockFactory implements LockFactory, Closeable
                 if (tryLock())
                 {
                     LOG.trace("Lock for resource {} acquired", myResource);
-                    ScheduledFuture<?> future = myExecutor.scheduleAtFixedRate(this, LOCK_UPDATE_TIME_IN_SECONDS,
-                            LOCK_UPDATE_TIME_IN_SECONDS, TimeUnit.SECONDS);
-                    myUpdateFuture.set(future);
+                    myHeldLocks.add(this);
 
                     return true;
                 }
@@ -506,36 +757,91 @@ public final class CASLockFactory implements LockFactory, Closeable
             return false;
         }
 
-        @Override
-        public void run()
+        /**
+         * Try to acquire the lock asynchronously.
+         *
+         * @return A completion stage completed with this lock when acquired, or completed exceptionally with a
+         *         {@link LockException} when the lock could not be acquired.
+         */
+        CompletionStage<DistributedLock> lockAsync()
         {
-            try
+            if (myLocallyHighestPriority <= myPriority)
             {
-                updateLock();
-                myFailedUpdateAttempts.set(0);
+                return executeAsync(myDataCenter, myCompeteStatement.bind(myResource, myUuid, myPriority))
+                        .thenCompose(resultSet -> tryLockAsync());
             }
-            catch (Exception e)
+
+            return tryLockAsync();
+        }
+
+        private CompletionStage<DistributedLock> tryLockAsync()
+        {
+            LOG.trace("Highest priority for resource {}: {}", myResource, globalHighPriority);
+            if (myPriority < globalHighPriority)
             {
-                int failedAttempts = myFailedUpdateAttempts.incrementAndGet();
+                return failedFuture(new LockException(String.format(
+                        "Unable to lock resource %s in datacenter %s", myResource, myDataCenter)));
+            }
 
-                if (failedAttempts >= FAILED_LOCK_RETRY_ATTEMPTS)
-                {
-                    LOG.error("Unable to re-lock resource '{}' after {} failed attempts", myResource, failedAttempts);
-                }
-                else
-                {
-                    LOG.warn("Unable to re-lock resource '{}', {} failed attempts", myResource, failedAttempts, e);
-                }
+            LOG.trace("Trying to acquire lock for resource {}", myResource);
+            return executeAsync(myDataCenter, myLockStatement.bind(myResource, myUuid, myMetadata))
+                    .thenApply(this::lockApplied);
+        }
+
+        private DistributedLock lockApplied(final AsyncResultSet resultSet)
+        {
+            if (!resultSet.wasApplied())
+            {
+                throw new CompletionException(new LockException(String.format(
+                        "Unable to lock resource %s in datacenter %s", myResource, myDataCenter)));
+            }
+
+            LOG.trace("Lock for resource {} acquired", myResource);
+            myHeldLocks.add(this);
+            return this;
+        }
+
+        /**
+         * Renew the lock asynchronously, the outcome is handled when the query completes.
+         */
+        void renewAsync()
+        {
+            long startTime = System.nanoTime();
+            executeAsync(myDataCenter, myUpdateLockStatement.bind(myUuid, myMetadata, myResource, myUuid))
+                    .whenComplete((resultSet, throwable) ->
+                    {
+                        if (throwable == null && resultSet.wasApplied())
+                        {
+                            recordRenewal(startTime, true);
+                            myFailedUpdateAttempts.set(0);
+                        }
+                        else if (myHeldLocks.contains(this))
+                        {
+                            recordRenewal(startTime, false);
+                            renewalFailed(throwable != null ? throwable : new LockException("CAS query failed"));
+                        }
+                    });
+        }
+
+        void renewalFailed(final Throwable cause)
+        {
+            int failedAttempts = myFailedUpdateAttempts.incrementAndGet();
+
+            if (failedAttempts >= FAILED_LOCK_RETRY_ATTEMPTS)
+            {
+                LOG.error("Unable to re-lock resource '{}' after {} failed attempts", myResource, failedAttempts);
+            }
+            else
+            {
+                LOG.warn("Unable to re-lock resource '{}', {} failed attempts", myResource, failedAttempts, cause);
             }
         }
 
         @Override
         public void close()
         {
-            ScheduledFuture<?> future = myUpdateFuture.get();
-            if (future != null)
+            if (myHeldLocks.remove(this))
             {
-                future.cancel(true);
                 execute(myDataCenter, myRemoveLockStatement.bind(myResource, myUuid));
 
                 if (myLocallyHighestPriority <= myPriority)
@@ -550,17 +856,6 @@ public final class CASLockFactory implements LockFactory, Closeable
             }
         }
 
-        private void updateLock() throws LockException
-        {
-            ResultSet resultSet = execute(myDataCenter,
-                    myUpdateLockStatement.bind(myUuid, myMetadata, myResource, myUuid));
-
-            if (!resultSet.wasApplied())
-            {
-                throw new LockException("CAS query failed");
-            }
-        }
-
         private boolean compete()
         {
             if (myLocallyHighestPriority <= myPriority)
@@ -582,23 +877,6 @@ public final class CASLockFactory implements LockFactory, Closeable
             return execute(myDataCenter, myLockStatement.bind(myResource, myUuid, myMetadata)).wasApplied();
         }
 
-        private List<NodePriority> computePriorities()
-        {
-            List<NodePriority> nodePriorities = new ArrayList<>();
-
-            ResultSet resultSet = execute(myDataCenter, myGetPriorityStatement.bind(myResource));
-
-            for (Row row : resultSet)
-            {
-                int priority = row.getInt(COLUMN_PRIORITY);
-                UUID hostId = row.getUuid(COLUMN_NODE);
-
-                nodePriorities.add(new NodePriority(hostId, priority));
-            }
-
-            return nodePriorities;
-        }
-
         int getFailedAttempts()
         {
             return myFailedUpdateAttempts.get();
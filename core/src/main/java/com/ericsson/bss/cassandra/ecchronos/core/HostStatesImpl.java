@@ -17,47 +17,101 @@ package com.ericsson.bss.cassandra.ecchronos.core;
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.NodeState;
+import com.datastax.oss.driver.api.core.metadata.NodeStateListener;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.DriverNode;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.logging.ThrottlingLogger;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Implementation of the {@link HostStates} interface using JMX to retrieve node statuses and then caches the retrieved
- * statuses for some time.
+ * Implementation of the {@link HostStates} interface keeping node statuses updated in the background.
+ * <p>
+ * Node statuses are updated from driver node state events, when registered as a {@link NodeStateListener}, and are
+ * reconciled with the gossip state retrieved over JMX on a fixed interval. The first reconciliation is performed when
+ * the instance is built so that the statuses are known before the first lookup. Lookups only read the cached status
+ * and never block on a refresh.
  */
-public final class HostStatesImpl implements HostStates, Closeable
+public final class HostStatesImpl implements HostStates, NodeStateListener, Closeable
 {
     private static final Logger LOG = LoggerFactory.getLogger(HostStatesImpl.class);
     private static final ThrottlingLogger THROTTLED_LOGGER = new ThrottlingLogger(LOG, 1, TimeUnit.MINUTES);
 
     private static final long DEFAULT_REFRESH_INTERVAL_IN_MS = TimeUnit.SECONDS.toMillis(10);
+    private static final long NO_STALE_BOUND = 0L;
 
-    private final ConcurrentHashMap<InetAddress, Boolean> myHostStates = new ConcurrentHashMap<>();
-    private final Object myRefreshLock = new Object();
-    private final long myRefreshIntervalInMs;
+    static final String STATE_CHANGES = "host.state.changes";
+    static final String HOSTS = "host.states";
+    private static final String STATE_TAG = "state";
 
-    private volatile long myLastRefresh = -1;
+    private final ConcurrentHashMap<InetAddress, HostState> myHostStates = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService myRefreshExecutor;
+    private final long myStaleAfterInMs;
 
     private final JmxProxyFactory myJmxProxyFactory;
+    private final Counter myUpCounter;
+    private final Counter myDownCounter;
 
     private HostStatesImpl(final Builder builder)
     {
-        myRefreshIntervalInMs = builder.myRefreshIntervalInMs;
         myJmxProxyFactory = builder.myJmxProxyFactory;
+        myStaleAfterInMs = builder.myStaleAfterInMs;
+
+        MeterRegistry meterRegistry = builder.myMeterRegistry;
+        if (meterRegistry != null)
+        {
+            myUpCounter = Counter.builder(STATE_CHANGES).tag(STATE_TAG, "up").register(meterRegistry);
+            myDownCounter = Counter.builder(STATE_CHANGES).tag(STATE_TAG, "down").register(meterRegistry);
+            Gauge.builder(HOSTS, this, hostStates -> hostStates.countHosts(true))
+                    .tag(STATE_TAG, "up")
+                    .register(meterRegistry);
+            Gauge.builder(HOSTS, this, hostStates -> hostStates.countHosts(false))
+                    .tag(STATE_TAG, "down")
+                    .register(meterRegistry);
+        }
+        else
+        {
+            myUpCounter = null;
+            myDownCounter = null;
+        }
+
+        myRefreshExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("HostStatesRefresher-%d").setDaemon(true).build());
+        tryRefreshHostStates();
+        myRefreshExecutor.scheduleWithFixedDelay(this::tryRefreshHostStates, builder.myRefreshIntervalInMs,
+                builder.myRefreshIntervalInMs, TimeUnit.MILLISECONDS);
     }
 
     @Override
     public boolean isUp(final InetAddress address)
     {
-        refreshNodeStatus();
+        HostState hostState = myHostStates.get(address);
+        if (hostState == null)
+        {
+            return false;
+        }
 
-        Boolean status = myHostStates.get(address);
-        return status != null && status;
+        if (myStaleAfterInMs != NO_STALE_BOUND
+                && hostState.myUpdatedAt < System.currentTimeMillis() - myStaleAfterInMs)
+        {
+            THROTTLED_LOGGER.warn("Host state of {} is stale, treating host as down", address);
+            return false;
+        }
+
+        return hostState.myIsUp;
     }
 
     @Override
@@ -72,76 +126,138 @@ public final class HostStatesImpl implements HostStates, Closeable
         return isUp(node.getPublicAddress());
     }
 
-    @Override
-    public void close()
+    /**
+     * Get the number of times the host has changed state since it was first seen.
+     *
+     * @param address The broadcast address of the host.
+     * @return The number of state changes.
+     */
+    public long getStateChanges(final InetAddress address)
     {
-        myHostStates.clear();
+        HostState hostState = myHostStates.get(address);
+        return hostState == null ? 0 : hostState.myStateChanges;
     }
 
-    private void refreshNodeStatus()
+    @Override
+    public void onAdd(final Node node)
     {
-        if (shouldRefreshNodeStatus())
+        NodeState nodeState = node.getState();
+        if (nodeState == NodeState.UP || nodeState == NodeState.DOWN)
         {
-            synchronized (myRefreshLock)
-            {
-                if (shouldRefreshNodeStatus())
-                {
-                    tryRefreshHostStates();
-                }
-            }
+            broadcastAddress(node).ifPresent(address -> changeHostState(address, nodeState == NodeState.UP));
         }
     }
 
-    private boolean shouldRefreshNodeStatus()
+    @Override
+    public void onUp(final Node node)
     {
-        return myLastRefresh == -1 || myLastRefresh < (System.currentTimeMillis() - myRefreshIntervalInMs);
+        broadcastAddress(node).ifPresent(address -> changeHostState(address, true));
     }
 
-    private synchronized boolean tryRefreshHostStates()
+    @Override
+    public void onDown(final Node node)
     {
-        if (myJmxProxyFactory == null)
-        {
-            return false;
-        }
+        broadcastAddress(node).ifPresent(address -> changeHostState(address, false));
+    }
+
+    @Override
+    public void onRemove(final Node node)
+    {
+        broadcastAddress(node).ifPresent(myHostStates::remove);
+    }
+
+    @Override
+    public void close()
+    {
+        myRefreshExecutor.shutdownNow();
+        myHostStates.clear();
+    }
 
+    private static Optional<InetAddress> broadcastAddress(final Node node)
+    {
+        return node.getBroadcastAddress().map(InetSocketAddress::getAddress);
+    }
+
+    @VisibleForTesting
+    boolean tryRefreshHostStates()
+    {
         try (JmxProxy proxy = myJmxProxyFactory.connect())
         {
             for (String liveHost : proxy.getLiveNodes())
             {
-                InetAddress host = InetAddress.getByName(liveHost);
-
-                if (changeHostState(host, true))
-                {
-                    LOG.debug("Host {} marked as up", host);
-                }
+                changeHostState(InetAddress.getByName(liveHost), true);
             }
 
             for (String unreachableHost : proxy.getUnreachableNodes())
             {
-                InetAddress host = InetAddress.getByName(unreachableHost);
-
-                if (changeHostState(host, false))
-                {
-                    LOG.debug("Host {} marked as down", host);
-                }
+                changeHostState(InetAddress.getByName(unreachableHost), false);
             }
 
-            myLastRefresh = System.currentTimeMillis();
             return true;
         }
         catch (IOException e)
         {
             THROTTLED_LOGGER.warn("Unable to retrieve host states", e);
         }
+        catch (RuntimeException e)
+        {
+            LOG.error("Unexpected error while retrieving host states", e);
+        }
 
         return false;
     }
 
-    private boolean changeHostState(final InetAddress host, final boolean newValue)
+    private void changeHostState(final InetAddress host, final boolean newValue)
     {
-        Boolean oldValue = myHostStates.put(host, newValue);
+        HostState[] oldState = new HostState[1];
+        myHostStates.compute(host, (address, current) ->
+        {
+            oldState[0] = current;
+            return current == null
+                    ? new HostState(newValue, 0)
+                    : current.withState(newValue);
+        });
 
-        return oldValue == null || oldValue != newValue;
+        if (oldState[0] == null)
+        {
+            LOG.debug("Host {} discovered as {}", host, newValue ? "up" : "down");
+        }
+        else if (oldState[0].myIsUp != newValue)
+        {
+            LOG.debug("Host {} marked as {}", host, newValue ? "up" : "down");
+            Counter counter = newValue ? myUpCounter : myDownCounter;
+            if (counter != null)
+            {
+                counter.increment();
+            }
+        }
+    }
+
+    private long countHosts(final boolean isUp)
+    {
+        return myHostStates.values().stream().filter(hostState -> hostState.myIsUp == isUp).count();
+    }
+
+    /**
+     * Immutable state of a host, replaced on every update.
+     */
+    private static final class HostState
+    {
+        private final boolean myIsUp;
+        private final long myStateChanges;
+        private final long myUpdatedAt;
+
+        HostState(final boolean isUp, final long stateChanges)
+        {
+            myIsUp = isUp;
+            myStateChanges = stateChanges;
+            myUpdatedAt = System.currentTimeMillis();
+        }
+
+        HostState withState(final boolean isUp)
+        {
+            return new HostState(isUp, isUp == myIsUp ? myStateChanges : myStateChanges + 1);
+        }
     }
 
     public static Builder builder()
@@ -153,6 +269,8 @@ public final class HostStatesImpl implements HostStates, Closeable
     {
         private JmxProxyFactory myJmxProxyFactory;
         private long myRefreshIntervalInMs = DEFAULT_REFRESH_INTERVAL_IN_MS;
+        private long myStaleAfterInMs = NO_STALE_BOUND;
+        private MeterRegistry myMeterRegistry;
 
         public final Builder withJmxProxyFactory(final JmxProxyFactory jmxProxyFactory)
         {
@@ -166,6 +284,25 @@ public final class HostStatesImpl implements HostStates, Closeable
             return this;
         }
 
+        /**
+         * Treat hosts as down if their state has not been updated within the provided time.
+         *
+         * @param staleAfter The maximum age of a host state, 0 to never treat a state as stale.
+         * @param timeUnit The time unit.
+         * @return The builder
+         */
+        public final Builder withStaleAfter(final long staleAfter, final TimeUnit timeUnit)
+        {
+            myStaleAfterInMs = timeUnit.toMillis(staleAfter);
+            return this;
+        }
+
+        public final Builder withMeterRegistry(final MeterRegistry meterRegistry)
+        {
+            myMeterRegistry = meterRegistry;
+            return this;
+        }
+
         public final HostStatesImpl build()
         {
             if (myJmxProxyFactory == null)
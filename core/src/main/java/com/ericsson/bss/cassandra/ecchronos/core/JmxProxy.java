@@ -15,6 +15,8 @@
 package com.ericsson.bss.cassandra.ecchronos.core;
 
 import java.io.Closeable;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -90,4 +92,23 @@ public interface JmxProxy extends Closeable
      * @return The live disk space used by the provided table.
      */
     long liveDiskSpaceUsed(TableReference tableReference);
+
+    /**
+     * Get the live disk space used for the provided tables.
+     *
+     * @param tableReferences
+     *            The tables to get the live disk space for.
+     * @return The live disk space used per table, tables that could not be found are not included.
+     */
+    default Map<TableReference, Long> liveDiskSpaceUsedForTables(Collection<TableReference> tableReferences)
+    {
+        Map<TableReference, Long> diskSpaceUsed = new HashMap<>();
+
+        for (TableReference tableReference : tableReferences)
+        {
+            diskSpaceUsed.put(tableReference, liveDiskSpaceUsed(tableReference));
+        }
+
+        return diskSpaceUsed;
+    }
 }
@@ -15,13 +15,16 @@
 package com.ericsson.bss.cassandra.ecchronos.core;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.management.AttributeNotFoundException;
 import javax.management.InstanceNotFoundException;
-import javax.management.ListenerNotFoundException;
+import javax.management.JMException;
 import javax.management.MBeanException;
 import javax.management.MBeanServerConnection;
 import javax.management.MalformedObjectNameException;
@@ -50,8 +53,15 @@ public class JmxProxyFactoryImpl implements JmxProxyFactory
     private static final String FORCE_TERMINATE_ALL_REPAIR_SESSIONS_METHOD = "forceTerminateAllRepairSessions";
     private static final String LIVE_NODES_ATTRIBUTE = "LiveNodes";
     private static final String UNREACHABLE_NODES_ATTRIBUTE = "UnreachableNodes";
+    private static final String LIVE_DISK_SPACE_USED_PATTERN
+            = "org.apache.cassandra.metrics:type=%s,name=LiveDiskSpaceUsed,*";
+    private static final String TABLE_METRIC_TYPE = "Table";
+    private static final String LEGACY_TABLE_METRIC_TYPE = "ColumnFamily";
+    private static final String COUNT_ATTRIBUTE = "Count";
 
     private final JmxConnectionProvider myJmxConnectionProvider;
+    private final StorageServiceNotificationDispatcher myNotificationDispatcher
+            = new StorageServiceNotificationDispatcher();
 
     private JmxProxyFactoryImpl(final Builder builder)
     {
@@ -100,15 +110,8 @@ public class JmxProxyFactoryImpl implements JmxProxyFactory
         @Override
         public void addStorageServiceListener(final NotificationListener listener)
         {
-            try
-            {
-                myJmxConnector.addConnectionNotificationListener(listener, null, null);
-                myMbeanServerConnection.addNotificationListener(myStorageServiceObject, listener, null, null);
-            }
-            catch (InstanceNotFoundException | IOException e)
-            {
-                LOG.error("Unable to add StorageService listener", e);
-            }
+            myNotificationDispatcher.addListener(myJmxConnector, myMbeanServerConnection, myStorageServiceObject,
+                    listener);
         }
 
         @SuppressWarnings ("unchecked")
@@ -203,15 +206,7 @@ public class JmxProxyFactoryImpl implements JmxProxyFactory
         @Override
         public void removeStorageServiceListener(final NotificationListener listener)
         {
-            try
-            {
-                myJmxConnector.removeConnectionNotificationListener(listener);
-                myMbeanServerConnection.removeNotificationListener(myStorageServiceObject, listener);
-            }
-            catch (InstanceNotFoundException | ListenerNotFoundException | IOException e)
-            {
-                LOG.error("Unable to remove StorageService listener", e);
-            }
+            myNotificationDispatcher.removeListener(listener);
         }
 
         /**
@@ -231,7 +226,7 @@ public class JmxProxyFactoryImpl implements JmxProxyFactory
                         .format("org.apache.cassandra.metrics:type=Table,keyspace=%s,scope=%s,name=LiveDiskSpaceUsed",
                                 tableReference.getKeyspace(), tableReference.getTable()));
 
-                return (Long) myMbeanServerConnection.getAttribute(objectName, "Count");
+                return (Long) myMbeanServerConnection.getAttribute(objectName, COUNT_ATTRIBUTE);
             }
             catch (AttributeNotFoundException
                    | InstanceNotFoundException
@@ -245,6 +240,73 @@ public class JmxProxyFactoryImpl implements JmxProxyFactory
 
             return 0;
         }
+
+        /**
+         * Get the live disk space used for the provided tables.
+         * <p>
+         * The table metrics are listed with a single query and only the metrics of the provided tables are read.
+         * Tables dropped during the read are left out of the result.
+         *
+         * @param tableReferences The tables to get the live disk space for.
+         * @return The live disk space used per table.
+         */
+        @Override
+        public Map<TableReference, Long> liveDiskSpaceUsedForTables(final Collection<TableReference> tableReferences)
+        {
+            Map<String, TableReference> tablesByName = new HashMap<>();
+            for (TableReference tableReference : tableReferences)
+            {
+                tablesByName.put(tableReference.getKeyspace() + "." + tableReference.getTable(), tableReference);
+            }
+
+            Map<TableReference, Long> diskSpaceUsed = new HashMap<>();
+            try
+            {
+                Set<ObjectName> objectNames = queryLiveDiskSpaceUsed(TABLE_METRIC_TYPE);
+                if (objectNames.isEmpty())
+                {
+                    objectNames = queryLiveDiskSpaceUsed(LEGACY_TABLE_METRIC_TYPE);
+                }
+
+                for (ObjectName objectName : objectNames)
+                {
+                    TableReference tableReference = tablesByName.get(objectName.getKeyProperty("keyspace")
+                            + "." + objectName.getKeyProperty("scope"));
+                    if (tableReference != null)
+                    {
+                        readLiveDiskSpaceUsed(objectName, tableReference, diskSpaceUsed);
+                    }
+                }
+            }
+            catch (IOException | JMException e)
+            {
+                LOG.error("Unable to retrieve disk space usage for {} tables", tableReferences.size(), e);
+            }
+
+            return diskSpaceUsed;
+        }
+
+        private Set<ObjectName> queryLiveDiskSpaceUsed(final String type) throws IOException, JMException
+        {
+            return myMbeanServerConnection.queryNames(new ObjectName(String.format(LIVE_DISK_SPACE_USED_PATTERN, type)),
+                    null);
+        }
+
+        private void readLiveDiskSpaceUsed(final ObjectName objectName,
+                                           final TableReference tableReference,
+                                           final Map<TableReference, Long> diskSpaceUsed)
+                throws IOException, JMException
+        {
+            try
+            {
+                diskSpaceUsed.put(tableReference,
+                        (Long) myMbeanServerConnection.getAttribute(objectName, COUNT_ATTRIBUTE));
+            }
+            catch (InstanceNotFoundException e)
+            {
+                LOG.debug("Table {} removed while retrieving disk space usage", tableReference, e);
+            }
+        }
     }
 
     public static Builder builder()
@@ -24,6 +24,9 @@ import org.slf4j.LoggerFactory;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -82,6 +85,35 @@ public final class LockCache
         }
     }
 
+    public CompletionStage<DistributedLock> getLockAsync(final String dataCenter,
+                                                         final String resource,
+                                                         final int priority,
+                                                         final Map<String, String> metadata,
+                                                         final AsyncLockSupplier lockSupplier)
+    {
+        LockKey lockKey = new LockKey(dataCenter, resource);
+
+        Optional<LockException> cachedFailure = getCachedFailure(lockKey);
+
+        if (cachedFailure.isPresent())
+        {
+            LOG.debug("Encountered cached locking failure, completing exceptionally", cachedFailure.get());
+            CompletableFuture<DistributedLock> future = new CompletableFuture<>();
+            future.completeExceptionally(cachedFailure.get());
+            return future;
+        }
+
+        return lockSupplier.getLockAsync(dataCenter, resource, priority, metadata)
+                .whenComplete((lock, throwable) ->
+                {
+                    Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                    if (cause instanceof LockException)
+                    {
+                        myFailureCache.put(lockKey, (LockException) cause);
+                    }
+                });
+    }
+
     private void throwCachedLockException(final LockException e) throws LockException
     {
         LOG.debug("Encountered cached locking failure, throwing exception", e);
@@ -100,6 +132,13 @@ public final class LockCache
                 throws LockException;
     }
 
+    @FunctionalInterface
+    public interface AsyncLockSupplier
+    {
+        CompletionStage<DistributedLock> getLockAsync(String dataCenter, String resource, int priority,
+                                                      Map<String, String> metadata);
+    }
+
     static final class LockKey
     {
         private final String myDataCenter;
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.ListenerNotFoundException;
+import javax.management.MBeanServerConnection;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnectionNotification;
+import javax.management.remote.JMXConnector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A single notification listener registered once per JMX connection that dispatches StorageService and connection
+ * notifications to all local listeners.
+ * <p>
+ * Local listeners are only added to and removed from an in-memory set, which avoids the remote round trips of
+ * registering a listener per repair. Connection notifications like lost notifications or a closed connection are
+ * delivered to all local listeners at once. When the connection fails the dispatcher registers itself again on the
+ * next connection that is used.
+ */
+class StorageServiceNotificationDispatcher implements NotificationListener
+{
+    private static final Logger LOG = LoggerFactory.getLogger(StorageServiceNotificationDispatcher.class);
+
+    private final Set<NotificationListener> myListeners = new CopyOnWriteArraySet<>();
+
+    private JMXConnector myRegisteredConnector;
+    private MBeanServerConnection myRegisteredConnection;
+    private ObjectName myRegisteredObject;
+    private boolean myIsStale;
+
+    /**
+     * Add a local listener, registering this dispatcher on the provided connection if needed.
+     *
+     * @param jmxConnector The JMX connector currently in use.
+     * @param mbeanServerConnection The MBean server connection of the connector.
+     * @param storageServiceObject The StorageService object name.
+     * @param listener The local listener to add.
+     */
+    void addListener(final JMXConnector jmxConnector,
+                     final MBeanServerConnection mbeanServerConnection,
+                     final ObjectName storageServiceObject,
+                     final NotificationListener listener)
+    {
+        register(jmxConnector, mbeanServerConnection, storageServiceObject);
+        myListeners.add(listener);
+    }
+
+    /**
+     * Remove a local listener.
+     *
+     * @param listener The local listener to remove.
+     */
+    void removeListener(final NotificationListener listener)
+    {
+        myListeners.remove(listener);
+    }
+
+    /**
+     * Get the number of local listeners.
+     *
+     * @return The number of local listeners.
+     */
+    int getListenerCount()
+    {
+        return myListeners.size();
+    }
+
+    @Override
+    public void handleNotification(final Notification notification, final Object handback)
+    {
+        String type = notification.getType();
+        if (JMXConnectionNotification.FAILED.equals(type) || JMXConnectionNotification.CLOSED.equals(type))
+        {
+            LOG.debug("JMX connection {}, registering again on next use", type);
+            markStale();
+        }
+
+        for (NotificationListener listener : myListeners)
+        {
+            try
+            {
+                listener.handleNotification(notification, handback);
+            }
+            catch (RuntimeException e)
+            {
+                LOG.warn("Listener {} failed to handle notification {}", listener, notification, e);
+            }
+        }
+    }
+
+    private synchronized void register(final JMXConnector jmxConnector,
+                                       final MBeanServerConnection mbeanServerConnection,
+                                       final ObjectName storageServiceObject)
+    {
+        if (myRegisteredConnector == jmxConnector && !myIsStale)
+        {
+            return;
+        }
+
+        unregisterFromPrevious();
+
+        try
+        {
+            jmxConnector.addConnectionNotificationListener(this, null, null);
+            mbeanServerConnection.addNotificationListener(storageServiceObject, this, null, null);
+            myRegisteredConnector = jmxConnector;
+            myRegisteredConnection = mbeanServerConnection;
+            myRegisteredObject = storageServiceObject;
+            myIsStale = false;
+        }
+        catch (InstanceNotFoundException | IOException e)
+        {
+            LOG.error("Unable to add StorageService listener", e);
+            try
+            {
+                jmxConnector.removeConnectionNotificationListener(this);
+            }
+            catch (ListenerNotFoundException e2)
+            {
+                LOG.trace("Connection listener was not added", e2);
+            }
+        }
+    }
+
+    private void unregisterFromPrevious()
+    {
+        if (myRegisteredConnector == null)
+        {
+            return;
+        }
+
+        try
+        {
+            myRegisteredConnector.removeConnectionNotificationListener(this);
+            myRegisteredConnection.removeNotificationListener(myRegisteredObject, this);
+        }
+        catch (InstanceNotFoundException | ListenerNotFoundException | IOException e)
+        {
+            LOG.debug("Unable to remove StorageService listener from previous connection", e);
+        }
+        myRegisteredConnector = null;
+        myRegisteredConnection = null;
+        myRegisteredObject = null;
+    }
+
+    private synchronized void markStale()
+    {
+        myIsStale = true;
+    }
+}
@@ -16,8 +16,8 @@ package com.ericsson.bss.cassandra.ecchronos.core;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -25,6 +25,8 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import com.ericsson.bss.cassandra.ecchronos.core.utils.ReplicatedTableProvider;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReference;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,16 +39,22 @@ public final class TableStorageStatesImpl implements TableStorageStates, Closeab
 
     private static final long DEFAULT_UPDATE_DELAY_IN_MS = TimeUnit.SECONDS.toMillis(60);
 
+    static final String REFRESH_TIME = "table.storage.refresh";
+
     private final AtomicReference<ImmutableMap<TableReference, Long>> myTableSizes = new AtomicReference<>();
     private final ScheduledExecutorService myScheduledExecutorService;
 
     private final ReplicatedTableProvider myReplicatedTableProvider;
     private final JmxProxyFactory myJmxProxyFactory;
+    private final Timer myRefreshTimer;
 
     private TableStorageStatesImpl(final Builder builder)
     {
         myReplicatedTableProvider = builder.myReplicatedTableProvider;
         myJmxProxyFactory = builder.myJmxProxyFactory;
+        myRefreshTimer = builder.myMeterRegistry == null ? null : Timer.builder(REFRESH_TIME)
+                .description("Time to refresh the disk usage of all replicated tables")
+                .register(builder.myMeterRegistry);
 
         myScheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
         myScheduledExecutorService.scheduleAtFixedRate(this::updateTableStates,
@@ -101,6 +109,7 @@ public final class TableStorageStatesImpl implements TableStorageStates, Closeab
 
         private long myInitialDelayInMs = 0;
         private long myUpdateDelayInMs = DEFAULT_UPDATE_DELAY_IN_MS;
+        private MeterRegistry myMeterRegistry;
 
         public final Builder withReplicatedTableProvider(final ReplicatedTableProvider replicatedTableProvider)
         {
@@ -126,6 +135,12 @@ public final class TableStorageStatesImpl implements TableStorageStates, Closeab
             return this;
         }
 
+        public final Builder withMeterRegistry(final MeterRegistry meterRegistry)
+        {
+            myMeterRegistry = meterRegistry;
+            return this;
+        }
+
         public final TableStorageStatesImpl build()
         {
             if (myReplicatedTableProvider == null)
@@ -147,32 +162,41 @@ public final class TableStorageStatesImpl implements TableStorageStates, Closeab
     {
         if (myJmxProxyFactory != null)
         {
+            long start = System.nanoTime();
             try (JmxProxy jmxProxy = myJmxProxyFactory.connect())
             {
-                myTableSizes.set(getTableSizes(jmxProxy));
+                ImmutableMap<TableReference, Long> tableSizes = getTableSizes(jmxProxy);
+                if (!tableSizes.equals(myTableSizes.get()))
+                {
+                    myTableSizes.set(tableSizes);
+                }
             }
             catch (IOException e)
             {
                 LOG.error("Unable to update table sizes, future metrics might contain stale data", e);
             }
+            finally
+            {
+                if (myRefreshTimer != null)
+                {
+                    myRefreshTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
         }
     }
 
     private ImmutableMap<TableReference, Long> getTableSizes(final JmxProxy jmxProxy)
     {
-        Map<TableReference, Long> dataSizes = new HashMap<>();
-
-        if (myReplicatedTableProvider != null)
+        if (myReplicatedTableProvider == null)
         {
-            for (TableReference tableReference : myReplicatedTableProvider.getAll())
-            {
-                long diskSpaceUsed = jmxProxy.liveDiskSpaceUsed(tableReference);
-
-                LOG.debug("{} -> {}", tableReference, diskSpaceUsed);
-                dataSizes.put(tableReference, diskSpaceUsed);
-            }
+            return ImmutableMap.of();
         }
 
+        Set<TableReference> tableReferences = myReplicatedTableProvider.getAll();
+        Map<TableReference, Long> dataSizes = jmxProxy.liveDiskSpaceUsedForTables(tableReferences);
+
+        LOG.debug("Disk space used by {} tables -> {}", tableReferences.size(), dataSizes);
+
         return ImmutableMap.copyOf(dataSizes);
     }
 }
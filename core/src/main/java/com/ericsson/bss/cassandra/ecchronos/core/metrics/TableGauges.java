@@ -14,33 +14,67 @@
  */
 package com.ericsson.bss.cassandra.ecchronos.core.metrics;
 
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+
 import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Holder class for repair metrics gauges for a specific table.
+ * <p>
+ * The meters of the table are registered once and kept until the table is removed.
+ * Updates are expected to synchronize on the instance and to be dropped once it is {@link #isClosed() closed}.
  */
 public class TableGauges implements Closeable
 {
     private final AtomicReference<Double> myRepairRatio = new AtomicReference<>(0.0);
     private final AtomicReference<Long> myLastRepairedAt = new AtomicReference<>(0L);
     private final AtomicReference<Long> myRemainingRepairTime = new AtomicReference<>(0L);
+    private final Map<String, Meter> myMeters = new ConcurrentHashMap<>();
+    private volatile boolean myClosed = false;
+
+    /**
+     * Update repair ratio.
+     *
+     * @param repairedRanges Ranges repaired
+     * @param notRepairedRanges Ranges NOT repaired
+     * @return The previous repair ratio
+     */
+    double repairRatio(final int repairedRanges, final int notRepairedRanges)
+    {
+        return repairRatio(calculateRepairRatio(repairedRanges, notRepairedRanges));
+    }
 
     /**
      * Update repair ratio.
      *
+     * @param repairRatio The ratio of repaired ranges
+     * @return The previous repair ratio
+     */
+    double repairRatio(final double repairRatio)
+    {
+        return myRepairRatio.getAndSet(repairRatio);
+    }
+
+    /**
+     * Calculate the ratio of repaired ranges.
+     *
      * @param repairedRanges Ranges repaired
      * @param notRepairedRanges Ranges NOT repaired
+     * @return The ratio of repaired ranges, zero if there are no ranges
      */
-    void repairRatio(final int repairedRanges, final int notRepairedRanges)
+    static double calculateRepairRatio(final int repairedRanges, final int notRepairedRanges)
     {
-        double repairRatio = 0.0;
         int allRanges = repairedRanges + notRepairedRanges;
         if (allRanges > 0)
         {
-            repairRatio = (double) repairedRanges / (repairedRanges + notRepairedRanges);
+            return (double) repairedRanges / allRanges;
         }
-        myRepairRatio.set(repairRatio);
+        return 0.0;
     }
 
     /**
@@ -57,10 +91,11 @@ public class TableGauges implements Closeable
      * Update last repaired at.
      *
      * @param lastRepairedAt Last repaired at
+     * @return The previous last repaired at
      */
-    void lastRepairedAt(final long lastRepairedAt)
+    long lastRepairedAt(final long lastRepairedAt)
     {
-        myLastRepairedAt.set(lastRepairedAt);
+        return myLastRepairedAt.getAndSet(lastRepairedAt);
     }
 
     /**
@@ -77,10 +112,11 @@ public class TableGauges implements Closeable
      * Update remaining repair time.
      *
      * @param remainingRepairTime Remaining repair time
+     * @return The previous remaining repair time
      */
-    public void remainingRepairTime(final long remainingRepairTime)
+    public long remainingRepairTime(final long remainingRepairTime)
     {
-        myRemainingRepairTime.set(remainingRepairTime);
+        return myRemainingRepairTime.getAndSet(remainingRepairTime);
     }
 
     /**
@@ -93,8 +129,47 @@ public class TableGauges implements Closeable
         return myRemainingRepairTime.get();
     }
 
+    /**
+     * Get a meter of the table, registering it on first use.
+     *
+     * @param key The key of the meter within the table.
+     * @param registration Registers the meter.
+     * @param <T> The meter type.
+     * @return The meter.
+     */
+    @SuppressWarnings("unchecked")
+    <T extends Meter> T getOrRegister(final String key, final Supplier<T> registration)
+    {
+        return (T) myMeters.computeIfAbsent(key, k -> registration.get());
+    }
+
+    /**
+     * Remove all meters of the table from the registry.
+     *
+     * @param meterRegistry The registry the meters were registered in.
+     */
+    void removeMeters(final MeterRegistry meterRegistry)
+    {
+        for (Meter meter : myMeters.values())
+        {
+            meterRegistry.remove(meter);
+        }
+        myMeters.clear();
+    }
+
+    /**
+     * Check if the table has been removed, updates should be dropped.
+     *
+     * @return True if closed
+     */
+    boolean isClosed()
+    {
+        return myClosed;
+    }
+
     @Override
     public void close()
     {
+        myClosed = true;
     }
 }
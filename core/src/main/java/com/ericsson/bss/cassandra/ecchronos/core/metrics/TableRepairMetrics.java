@@ -57,4 +57,13 @@ public interface TableRepairMetrics
      * @param successful If the repair was successful or not.
      */
     void repairSession(TableReference tableReference, long timeTaken, TimeUnit timeUnit, boolean successful);
+
+    /**
+     * Remove all metrics of the provided table, e.g. when the table has been dropped.
+     *
+     * @param tableReference The table to remove the metrics for.
+     */
+    default void remove(TableReference tableReference)
+    {
+    }
 }
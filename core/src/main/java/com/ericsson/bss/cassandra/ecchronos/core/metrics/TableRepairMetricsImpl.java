@@ -19,15 +19,30 @@ import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReference;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.TimeGauge;
 import io.micrometer.core.instrument.Timer;
 
 import java.io.Closeable;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+/**
+ * Table repair metrics backed by a meter registry.
+ * <p>
+ * Table meters are registered once per table and removed with {@link #remove(TableReference)}.
+ * The node level aggregates are kept up to date on every table update so that reading them does not require
+ * iterating over all tables. Updates of a table are serialized, and updates racing with the removal of the table are
+ * dropped.
+ */
 public final class TableRepairMetricsImpl implements TableRepairMetrics, TableRepairMetricsProvider, Closeable
 {
     private static final String KEYSPACE_TAG = "keyspace";
@@ -52,6 +67,11 @@ public final class TableRepairMetricsImpl implements TableRepairMetrics, TableRe
     static Clock clock = () -> System.currentTimeMillis();
 
     private final ConcurrentHashMap<TableReference, TableGauges> myTableGauges = new ConcurrentHashMap<>();
+    private final Map<String, Meter> myNodeMeters = new ConcurrentHashMap<>();
+    private final DoubleAdder myRepairRatioSum = new DoubleAdder();
+    private final DoubleAdder myRemainingRepairTimeSum = new DoubleAdder();
+    private final AtomicLong myMinLastRepairedAt = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicBoolean myMinLastRepairedAtOutdated = new AtomicBoolean();
     private final TableStorageStates myTableStorageStates;
     private final MeterRegistry myMeterRegistry;
 
@@ -67,15 +87,20 @@ public final class TableRepairMetricsImpl implements TableRepairMetrics, TableRe
                             final int repairedRanges,
                             final int notRepairedRanges)
     {
-        createOrGetTableGauges(tableReference).repairRatio(repairedRanges, notRepairedRanges);
-        Gauge.builder(REPAIRED_RATIO, myTableGauges,
-                        (tableGauges) -> tableGauges.get(tableReference).getRepairRatio())
-                .tags(KEYSPACE_TAG, tableReference.getKeyspace(), TABLE_TAG, tableReference.getTable())
-                .register(myMeterRegistry);
-        Gauge.builder(NODE_REPAIRED_RATIO, myTableGauges,
-                        (tableGauges) -> tableGauges.values().stream().mapToDouble(TableGauges::getRepairRatio)
-                                .average().orElse(0))
-                .register(myMeterRegistry);
+        double repairRatio = TableGauges.calculateRepairRatio(repairedRanges, notRepairedRanges);
+        updateTableGauges(tableReference, tableGauges ->
+        {
+            double previousRepairRatio = tableGauges.repairRatio(repairRatio);
+            myRepairRatioSum.add(repairRatio - previousRepairRatio);
+
+            tableGauges.getOrRegister(REPAIRED_RATIO, () -> Gauge.builder(REPAIRED_RATIO, tableGauges,
+                            TableGauges::getRepairRatio)
+                    .tags(KEYSPACE_TAG, tableReference.getKeyspace(), TABLE_TAG, tableReference.getTable())
+                    .register(myMeterRegistry));
+        });
+        getOrRegisterNodeMeter(NODE_REPAIRED_RATIO, () -> Gauge.builder(NODE_REPAIRED_RATIO, this,
+                        TableRepairMetricsImpl::getNodeRepairRatio)
+                .register(myMeterRegistry));
     }
 
     @Override
@@ -92,31 +117,44 @@ public final class TableRepairMetricsImpl implements TableRepairMetrics, TableRe
     public void lastRepairedAt(final TableReference tableReference,
                                final long lastRepairedAt)
     {
-        createOrGetTableGauges(tableReference).lastRepairedAt(lastRepairedAt);
-        TimeGauge.builder(TIME_SINCE_LAST_REPAIRED, myTableGauges, TimeUnit.MILLISECONDS,
-                        (tableGauges) -> clock.timeNow() - tableGauges.get(tableReference).getLastRepairedAt())
-                .tags(KEYSPACE_TAG, tableReference.getKeyspace(), TABLE_TAG, tableReference.getTable())
-                .register(myMeterRegistry);
-        TimeGauge.builder(NODE_TIME_SINCE_LAST_REPAIRED, myTableGauges, TimeUnit.MILLISECONDS,
-                        (tableGauges) ->
-                                clock.timeNow() - tableGauges.values().stream()
-                                        .mapToDouble(TableGauges::getLastRepairedAt).min().orElse(0))
-                .register(myMeterRegistry);
+        updateTableGauges(tableReference, tableGauges ->
+        {
+            long previousLastRepairedAt = tableGauges.lastRepairedAt(lastRepairedAt);
+            long minLastRepairedAt = myMinLastRepairedAt.accumulateAndGet(lastRepairedAt, Math::min);
+            if (lastRepairedAt > minLastRepairedAt && previousLastRepairedAt <= minLastRepairedAt)
+            {
+                // The least recently repaired table was repaired, the minimum is recalculated on next read
+                myMinLastRepairedAtOutdated.set(true);
+            }
+
+            tableGauges.getOrRegister(TIME_SINCE_LAST_REPAIRED, () -> TimeGauge.builder(TIME_SINCE_LAST_REPAIRED,
+                            tableGauges, TimeUnit.MILLISECONDS,
+                            (gauges) -> clock.timeNow() - gauges.getLastRepairedAt())
+                    .tags(KEYSPACE_TAG, tableReference.getKeyspace(), TABLE_TAG, tableReference.getTable())
+                    .register(myMeterRegistry));
+        });
+        getOrRegisterNodeMeter(NODE_TIME_SINCE_LAST_REPAIRED, () -> TimeGauge.builder(NODE_TIME_SINCE_LAST_REPAIRED,
+                        this, TimeUnit.MILLISECONDS, (metrics) -> clock.timeNow() - metrics.getMinLastRepairedAt())
+                .register(myMeterRegistry));
     }
 
     @Override
     public void remainingRepairTime(final TableReference tableReference,
                                     final long remainingRepairTime)
     {
-        createOrGetTableGauges(tableReference).remainingRepairTime(remainingRepairTime);
-        TimeGauge.builder(REMAINING_REPAIR_TIME, myTableGauges, TimeUnit.MILLISECONDS,
-                        (tableGauges) -> tableGauges.get(tableReference).getRemainingRepairTime())
-                .tags(KEYSPACE_TAG, tableReference.getKeyspace(), TABLE_TAG, tableReference.getTable())
-                .register(myMeterRegistry);
-        TimeGauge.builder(NODE_REMAINING_REPAIR_TIME, myTableGauges, TimeUnit.MILLISECONDS,
-                        (tableGauges) ->
-                                tableGauges.values().stream().mapToDouble(TableGauges::getRemainingRepairTime).sum())
-                .register(myMeterRegistry);
+        updateTableGauges(tableReference, tableGauges ->
+        {
+            long previousRemainingRepairTime = tableGauges.remainingRepairTime(remainingRepairTime);
+            myRemainingRepairTimeSum.add(remainingRepairTime - previousRemainingRepairTime);
+
+            tableGauges.getOrRegister(REMAINING_REPAIR_TIME, () -> TimeGauge.builder(REMAINING_REPAIR_TIME,
+                            tableGauges, TimeUnit.MILLISECONDS, TableGauges::getRemainingRepairTime)
+                    .tags(KEYSPACE_TAG, tableReference.getKeyspace(), TABLE_TAG, tableReference.getTable())
+                    .register(myMeterRegistry));
+        });
+        getOrRegisterNodeMeter(NODE_REMAINING_REPAIR_TIME, () -> TimeGauge.builder(NODE_REMAINING_REPAIR_TIME,
+                        myRemainingRepairTimeSum, TimeUnit.MILLISECONDS, DoubleAdder::sum)
+                .register(myMeterRegistry));
     }
 
     @Override
@@ -125,16 +163,44 @@ public final class TableRepairMetricsImpl implements TableRepairMetrics, TableRe
                               final TimeUnit timeUnit,
                               final boolean successful)
     {
-        Timer.builder(REPAIR_SESSIONS)
-                .tags(KEYSPACE_TAG, tableReference.getKeyspace(),
-                      TABLE_TAG, tableReference.getTable(),
-                      "successful", Boolean.toString(successful))
-                .register(myMeterRegistry)
-                .record(timeTaken, timeUnit);
-        Timer.builder(NODE_REPAIR_SESSIONS)
-                .tags("successful", Boolean.toString(successful))
-                .register(myMeterRegistry)
-                .record(timeTaken, timeUnit);
+        String successfulTag = Boolean.toString(successful);
+        updateTableGauges(tableReference, tableGauges ->
+        {
+            Timer tableTimer = tableGauges.getOrRegister(REPAIR_SESSIONS + "." + successfulTag,
+                    () -> Timer.builder(REPAIR_SESSIONS)
+                            .tags(KEYSPACE_TAG, tableReference.getKeyspace(),
+                                  TABLE_TAG, tableReference.getTable(),
+                                  "successful", successfulTag)
+                            .register(myMeterRegistry));
+            tableTimer.record(timeTaken, timeUnit);
+        });
+        Timer nodeTimer = getOrRegisterNodeMeter(NODE_REPAIR_SESSIONS + "." + successfulTag,
+                () -> Timer.builder(NODE_REPAIR_SESSIONS)
+                        .tags("successful", successfulTag)
+                        .register(myMeterRegistry));
+        nodeTimer.record(timeTaken, timeUnit);
+    }
+
+    /**
+     * Remove the metrics of a table, e.g. when the table has been dropped.
+     *
+     * @param tableReference The table.
+     */
+    @Override
+    public void remove(final TableReference tableReference)
+    {
+        TableGauges tableGauges = myTableGauges.remove(tableReference);
+        if (tableGauges != null)
+        {
+            synchronized (tableGauges)
+            {
+                tableGauges.close();
+                myRepairRatioSum.add(-tableGauges.getRepairRatio());
+                myRemainingRepairTimeSum.add(-tableGauges.getRemainingRepairTime());
+                myMinLastRepairedAtOutdated.set(true);
+                tableGauges.removeMeters(myMeterRegistry);
+            }
+        }
     }
 
     @Override
@@ -146,6 +212,43 @@ public final class TableRepairMetricsImpl implements TableRepairMetrics, TableRe
         }
     }
 
+    private void updateTableGauges(final TableReference tableReference, final Consumer<TableGauges> update)
+    {
+        TableGauges tableGauges = createOrGetTableGauges(tableReference);
+        synchronized (tableGauges)
+        {
+            // The table was removed while the update was in flight
+            if (!tableGauges.isClosed())
+            {
+                update.accept(tableGauges);
+            }
+        }
+    }
+
+    private double getNodeRepairRatio()
+    {
+        int tables = myTableGauges.size();
+        return tables == 0 ? 0 : myRepairRatioSum.sum() / tables;
+    }
+
+    private long getMinLastRepairedAt()
+    {
+        if (myMinLastRepairedAtOutdated.compareAndSet(true, false))
+        {
+            myMinLastRepairedAt.set(myTableGauges.values().stream()
+                    .mapToLong(TableGauges::getLastRepairedAt)
+                    .min()
+                    .orElse(0L));
+        }
+        return myMinLastRepairedAt.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Meter> T getOrRegisterNodeMeter(final String key, final Supplier<T> registration)
+    {
+        return (T) myNodeMeters.computeIfAbsent(key, k -> registration.get());
+    }
+
     public static Builder builder()
     {
         return new Builder();
@@ -197,15 +300,12 @@ public final class TableRepairMetricsImpl implements TableRepairMetrics, TableRe
 
         if (tableGauges == null)
         {
-            tableGauges = new TableGauges();
-
-            TableGauges oldTableGauges = myTableGauges.putIfAbsent(tableReference,
-                    tableGauges);
-
-            if (oldTableGauges != null)
+            tableGauges = myTableGauges.computeIfAbsent(tableReference, table ->
             {
-                tableGauges = oldTableGauges;
-            }
+                // New tables have not been repaired
+                myMinLastRepairedAt.accumulateAndGet(0L, Math::min);
+                return new TableGauges();
+            });
         }
 
         return tableGauges;
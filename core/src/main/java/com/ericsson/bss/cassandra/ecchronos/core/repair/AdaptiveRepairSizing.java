@@ -0,0 +1,325 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.repair;
+
+import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReference;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Learns how long repair sessions take per token for each table and sizes the sub ranges to reach a target session
+ * time.
+ * <p>
+ * The time per token is kept as an exponentially weighted moving average of the successful repair sessions of a
+ * table. The adapted size is bounded by a factor of the size calculated from the target repair size in bytes.
+ * If a file is provided the learned values are loaded from it when created and stored to it periodically and on close.
+ * Periodic stores are performed by a single background thread so that recording a session never blocks on file I/O.
+ */
+public final class AdaptiveRepairSizing implements Closeable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(AdaptiveRepairSizing.class);
+
+    private static final double DEFAULT_SMOOTHING_FACTOR = 0.3d;
+    private static final int DEFAULT_MAX_ADJUSTMENT_FACTOR = 16;
+    private static final long DEFAULT_SAVE_INTERVAL_IN_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final int TERMINATION_WAIT = 10;
+
+    private final Map<String, Double> myNanosPerToken = new ConcurrentHashMap<>();
+    private final Path myFile;
+    private final double mySmoothingFactor;
+    private final BigInteger myMaxAdjustmentFactor;
+    private final long mySaveIntervalInMs;
+    private final ExecutorService mySaveExecutor;
+    private final Object mySaveLock = new Object();
+    private final AtomicLong myLastSave;
+
+    private AdaptiveRepairSizing(final Builder builder)
+    {
+        myFile = builder.myFile;
+        mySmoothingFactor = builder.mySmoothingFactor;
+        myMaxAdjustmentFactor = BigInteger.valueOf(builder.myMaxAdjustmentFactor);
+        mySaveIntervalInMs = builder.mySaveIntervalInMs;
+        myLastSave = new AtomicLong(System.currentTimeMillis());
+        mySaveExecutor = myFile == null ? null : Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("AdaptiveRepairSizingSave-%d").setDaemon(true).build());
+
+        load();
+    }
+
+    /**
+     * Record a successful repair session.
+     *
+     * @param tableReference The repaired table.
+     * @param tokens The number of tokens repaired in the session.
+     * @param durationInNanos The duration of the session in nanoseconds.
+     */
+    public void recordSession(final TableReference tableReference, final BigInteger tokens,
+                              final long durationInNanos)
+    {
+        if (tokens.signum() <= 0 || durationInNanos <= 0)
+        {
+            return;
+        }
+
+        double observed = durationInNanos / tokens.doubleValue();
+        myNanosPerToken.merge(key(tableReference), observed,
+                (previous, current) -> previous + mySmoothingFactor * (current - previous));
+
+        if (mySaveExecutor != null)
+        {
+            long now = System.currentTimeMillis();
+            long lastSave = myLastSave.get();
+            if (now - lastSave >= mySaveIntervalInMs && myLastSave.compareAndSet(lastSave, now))
+            {
+                try
+                {
+                    mySaveExecutor.execute(this::save);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    LOG.debug("Repair sizing not stored, already closed");
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the number of tokens to repair per session for a table.
+     *
+     * @param tableReference The table to repair.
+     * @param targetSessionTimeInMs The target time of a repair session.
+     * @param baseTokensPerRepair The tokens per repair calculated from the target repair size.
+     * @return The adapted tokens per repair or the base tokens if nothing has been learned for the table yet.
+     */
+    public BigInteger getTokensPerRepair(final TableReference tableReference, final long targetSessionTimeInMs,
+                                         final BigInteger baseTokensPerRepair)
+    {
+        Double nanosPerToken = myNanosPerToken.get(key(tableReference));
+        if (nanosPerToken == null || nanosPerToken <= 0 || targetSessionTimeInMs <= 0)
+        {
+            return baseTokensPerRepair;
+        }
+
+        BigInteger adapted = BigDecimal.valueOf(TimeUnit.MILLISECONDS.toNanos(targetSessionTimeInMs))
+                .divide(BigDecimal.valueOf(nanosPerToken), 0, RoundingMode.DOWN)
+                .toBigInteger();
+
+        BigInteger min = baseTokensPerRepair.divide(myMaxAdjustmentFactor).max(BigInteger.ONE);
+        BigInteger max = baseTokensPerRepair.multiply(myMaxAdjustmentFactor);
+
+        return adapted.max(min).min(max);
+    }
+
+    @VisibleForTesting
+    Double getNanosPerToken(final TableReference tableReference)
+    {
+        return myNanosPerToken.get(key(tableReference));
+    }
+
+    /**
+     * Store the learned values to the file, if any.
+     * <p>
+     * Concurrent stores are serialized.
+     */
+    public void save()
+    {
+        if (myFile == null)
+        {
+            return;
+        }
+
+        synchronized (mySaveLock)
+        {
+            doSave();
+        }
+    }
+
+    private void doSave()
+    {
+        Properties properties = new Properties();
+        myNanosPerToken.forEach((table, nanosPerToken) -> properties.setProperty(table, nanosPerToken.toString()));
+
+        try
+        {
+            Path tmpFile = myFile.resolveSibling(myFile.getFileName() + ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(tmpFile))
+            {
+                properties.store(outputStream, "Learned repair time per token in nanoseconds");
+            }
+            Files.move(tmpFile, myFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Unable to store repair sizing to {}", myFile, e);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (mySaveExecutor != null)
+        {
+            mySaveExecutor.shutdown();
+            try
+            {
+                if (!mySaveExecutor.awaitTermination(TERMINATION_WAIT, TimeUnit.SECONDS))
+                {
+                    LOG.warn("Waited {} seconds for repair sizing to be stored, still not shut down",
+                            TERMINATION_WAIT);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                LOG.warn("Interrupted while waiting for repair sizing to be stored", e);
+                Thread.currentThread().interrupt();
+            }
+        }
+        save();
+    }
+
+    private void load()
+    {
+        if (myFile == null || !Files.exists(myFile))
+        {
+            return;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(myFile))
+        {
+            properties.load(inputStream);
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Unable to load repair sizing from {}", myFile, e);
+            return;
+        }
+
+        for (String table : properties.stringPropertyNames())
+        {
+            try
+            {
+                myNanosPerToken.put(table, Double.valueOf(properties.getProperty(table)));
+            }
+            catch (NumberFormatException e)
+            {
+                LOG.warn("Ignoring invalid repair sizing for {}", table, e);
+            }
+        }
+        LOG.debug("Loaded repair sizing for {} tables from {}", myNanosPerToken.size(), myFile);
+    }
+
+    private static String key(final TableReference tableReference)
+    {
+        return tableReference.getKeyspace() + "." + tableReference.getTable();
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    public static class Builder
+    {
+        private Path myFile;
+        private double mySmoothingFactor = DEFAULT_SMOOTHING_FACTOR;
+        private int myMaxAdjustmentFactor = DEFAULT_MAX_ADJUSTMENT_FACTOR;
+        private long mySaveIntervalInMs = DEFAULT_SAVE_INTERVAL_IN_MS;
+
+        /**
+         * Build with a file to persist the learned values in.
+         *
+         * @param file The file or null to keep the values in memory only.
+         * @return The builder
+         */
+        public final Builder withFile(final Path file)
+        {
+            myFile = file;
+            return this;
+        }
+
+        /**
+         * Build with the weight of a new observation, between 0 and 1.
+         *
+         * @param smoothingFactor The smoothing factor.
+         * @return The builder
+         */
+        public final Builder withSmoothingFactor(final double smoothingFactor)
+        {
+            if (smoothingFactor <= 0 || smoothingFactor > 1)
+            {
+                throw new IllegalArgumentException("Smoothing factor must be in (0, 1], got " + smoothingFactor);
+            }
+            mySmoothingFactor = smoothingFactor;
+            return this;
+        }
+
+        /**
+         * Build with the maximum factor the tokens per repair can be changed from the size based value.
+         *
+         * @param maxAdjustmentFactor The maximum adjustment factor.
+         * @return The builder
+         */
+        public final Builder withMaxAdjustmentFactor(final int maxAdjustmentFactor)
+        {
+            if (maxAdjustmentFactor < 1)
+            {
+                throw new IllegalArgumentException("Max adjustment factor must be at least 1, got "
+                        + maxAdjustmentFactor);
+            }
+            myMaxAdjustmentFactor = maxAdjustmentFactor;
+            return this;
+        }
+
+        /**
+         * Build with the minimum interval between storing the learned values.
+         *
+         * @param saveInterval The interval.
+         * @param timeUnit The time unit of the interval.
+         * @return The builder
+         */
+        public final Builder withSaveInterval(final long saveInterval, final TimeUnit timeUnit)
+        {
+            mySaveIntervalInMs = timeUnit.toMillis(saveInterval);
+            return this;
+        }
+
+        public final AdaptiveRepairSizing build()
+        {
+            return new AdaptiveRepairSizing(this);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.repair;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of asynchronous requests in flight.
+ * <p>
+ * Requests submitted while the limit is reached are queued and started in submission order as earlier requests
+ * complete. Submitting never blocks, so requests can be submitted from the callbacks of other requests.
+ */
+final class AsyncRequestLimiter
+{
+    private final Queue<Runnable> myPendingRequests = new ArrayDeque<>();
+    private final int myMaxInFlight;
+    private int myAvailable;
+    private boolean myDraining = false;
+    private boolean myCancelled = false;
+
+    AsyncRequestLimiter(final int maxInFlight)
+    {
+        myMaxInFlight = maxInFlight;
+        myAvailable = maxInFlight;
+    }
+
+    /**
+     * Submit a request, the request is started once it can be started within the limit.
+     *
+     * @param request Starts the request.
+     * @param <T> The result type of the request.
+     * @return The result of the request.
+     */
+    <T> CompletableFuture<T> submit(final Supplier<? extends CompletionStage<T>> request)
+    {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        synchronized (this)
+        {
+            myPendingRequests.add(() -> start(request, result));
+        }
+        drain();
+        return result;
+    }
+
+    /**
+     * Cancel all requests that have not been started yet, requests submitted after this are cancelled directly.
+     */
+    void cancel()
+    {
+        synchronized (this)
+        {
+            myCancelled = true;
+        }
+        drain();
+    }
+
+    synchronized int getInFlight()
+    {
+        return myMaxInFlight - myAvailable;
+    }
+
+    private <T> void start(final Supplier<? extends CompletionStage<T>> request, final CompletableFuture<T> result)
+    {
+        if (isCancelled())
+        {
+            result.completeExceptionally(new CancellationException("Request cancelled before it was started"));
+            release();
+            return;
+        }
+
+        CompletionStage<T> response;
+        try
+        {
+            response = request.get();
+        }
+        catch (RuntimeException e)
+        {
+            result.completeExceptionally(e);
+            release();
+            return;
+        }
+
+        response.whenComplete((value, throwable) ->
+        {
+            release();
+            if (throwable != null)
+            {
+                result.completeExceptionally(throwable);
+            }
+            else
+            {
+                result.complete(value);
+            }
+        });
+    }
+
+    private synchronized boolean isCancelled()
+    {
+        return myCancelled;
+    }
+
+    private void release()
+    {
+        synchronized (this)
+        {
+            myAvailable++;
+        }
+        drain();
+    }
+
+    /**
+     * Start pending requests while within the limit.
+     * <p>
+     * Only one thread drains at a time, requests completing in the draining thread only release their permit so that
+     * the pending requests are started in a loop rather than recursively.
+     */
+    private void drain()
+    {
+        synchronized (this)
+        {
+            if (myDraining)
+            {
+                return;
+            }
+            myDraining = true;
+        }
+
+        while (true)
+        {
+            Runnable next;
+            synchronized (this)
+            {
+                if (myAvailable == 0 || myPendingRequests.isEmpty())
+                {
+                    myDraining = false;
+                    return;
+                }
+                myAvailable--;
+                next = myPendingRequests.poll();
+            }
+            next.run();
+        }
+    }
+}
@@ -16,6 +16,7 @@ package com.ericsson.bss.cassandra.ecchronos.core.repair;
 
 import java.io.Closeable;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -63,6 +64,8 @@ public final class OnDemandRepairSchedulerImpl implements OnDemandRepairSchedule
     private final OnDemandStatus myOnDemandStatus;
     private final ScheduledExecutorService myExecutor = Executors.newSingleThreadScheduledExecutor();
 
+    private volatile boolean myOngoingJobsLoaded = false;
+
     private OnDemandRepairSchedulerImpl(final Builder builder)
     {
         myJmxProxyFactory = builder.myJmxProxyFactory;
@@ -81,7 +84,21 @@ public final class OnDemandRepairSchedulerImpl implements OnDemandRepairSchedule
     {
         try
         {
-            Set<OngoingJob> ongoingJobs = myOnDemandStatus.getOngoingJobs(myReplicationState);
+            Set<OngoingJob> ongoingJobs;
+            if (myOngoingJobsLoaded)
+            {
+                Set<UUID> knownJobIds;
+                synchronized (myLock)
+                {
+                    knownJobIds = new HashSet<>(myScheduledJobs.keySet());
+                }
+                ongoingJobs = myOnDemandStatus.getOngoingJobs(myReplicationState, knownJobIds);
+            }
+            else
+            {
+                ongoingJobs = myOnDemandStatus.getOngoingJobs(myReplicationState);
+                myOngoingJobsLoaded = true;
+            }
             ongoingJobs.forEach(j -> scheduleOngoingJob(j));
         }
         catch (Exception e)
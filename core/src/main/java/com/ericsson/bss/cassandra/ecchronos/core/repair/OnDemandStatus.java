@@ -16,13 +16,16 @@ package com.ericsson.bss.cassandra.ecchronos.core.repair;
 
 import com.datastax.oss.driver.api.core.ConsistencyLevel;
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
 import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.ResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.cql.SimpleStatement;
 import com.datastax.oss.driver.api.core.data.UdtValue;
-import com.datastax.oss.driver.api.core.metadata.Metadata;
 import com.datastax.oss.driver.api.core.metadata.Node;
 import com.datastax.oss.driver.api.core.type.UserDefinedType;
 import com.ericsson.bss.cassandra.ecchronos.connection.NativeConnectionProvider;
@@ -35,22 +38,49 @@ import com.ericsson.bss.cassandra.ecchronos.core.utils.NodeResolverImpl;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReference;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReferenceFactory;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReferenceFactoryImpl;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.deleteFrom;
 import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.insertInto;
 import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.literal;
 import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.selectFrom;
 import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.update;
 
+/**
+ * Persistence of on demand repair jobs.
+ * <p>
+ * The progress of a job is written as one row per repaired range in {@value #PROGRESS_TABLE_NAME}, which keeps the
+ * write cost per finished range constant. The full set of repaired ranges is only written to the job status
+ * periodically as a checkpoint, see {@link OngoingJob#finishRanges(Set)}.
+ * <p>
+ * Jobs with the status 'started' are also indexed in {@value #ACTIVE_TABLE_NAME} and removed from it when they are
+ * finished or failed. This allows polling for ongoing jobs without reading the full job history of the host.
+ */
 public class OnDemandStatus
 {
     private static final Logger LOG = LoggerFactory.getLogger(OnDemandStatus.class);
@@ -71,6 +101,15 @@ public class OnDemandStatus
     private static final String UDT_KEYSPACE_NAME = "keyspace_name";
     private static final String UDT_TABLE_NAME = "table_name";
     private static final String COMPLETED_TIME_COLUMN_NAME = "completed_time";
+    private static final String PROGRESS_TABLE_NAME = "on_demand_repair_progress";
+    private static final String RANGE_BEGIN_COLUMN_NAME = "range_begin";
+    private static final String RANGE_END_COLUMN_NAME = "range_end";
+    private static final String ACTIVE_TABLE_NAME = "on_demand_repair_active";
+
+    private static final int MAX_CLUSTER_WIDE_REQUESTS_IN_FLIGHT = 16;
+
+    static final String POLL_TIME = "ondemand.status.poll";
+    static final String POLL_ROWS = "ondemand.status.poll.rows";
 
     private final CqlSession mySession;
     private final UUID myHostId;
@@ -81,7 +120,21 @@ public class OnDemandStatus
     private final PreparedStatement myUpdateRepairedTokenForJobStatement;
     private final PreparedStatement myUpdateJobToFinishedStatement;
     private final PreparedStatement myUpdateJobToFailedStatement;
+    private final PreparedStatement myInsertRepairedRangeStatement;
+    private final PreparedStatement myGetRepairedRangesStatement;
+    private final PreparedStatement myGetJobStatement;
+    private final PreparedStatement myGetActiveJobsStatement;
+    private final PreparedStatement myInsertActiveJobStatement;
+    private final PreparedStatement myDeleteActiveJobStatement;
     private final TableReferenceFactory myTableReferenceFactory;
+    private final Timer myPollTimer;
+    private final MeterRegistry myMeterRegistry;
+    private final DistributionSummary myPollRows;
+    private final NodeResolver myNodeResolver;
+    private final Map<UUID, ReplicationState> myNodeReplicationStates = new ConcurrentHashMap<>();
+    private final long myClusterWideJobsCacheTimeInMs;
+    private final AtomicLong myClusterWideJobsGeneration = new AtomicLong();
+    private volatile CachedClusterWideJobs myClusterWideJobs;
 
     /**
      * Constructor.
@@ -90,9 +143,53 @@ public class OnDemandStatus
      */
     public OnDemandStatus(final NativeConnectionProvider nativeConnectionProvider)
     {
+        this(nativeConnectionProvider, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param nativeConnectionProvider The native connection provider.
+     * @param meterRegistry The meter registry used to report polling of ongoing jobs or null.
+     */
+    public OnDemandStatus(final NativeConnectionProvider nativeConnectionProvider, final MeterRegistry meterRegistry)
+    {
+        this(nativeConnectionProvider, meterRegistry, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param nativeConnectionProvider The native connection provider.
+     * @param meterRegistry The meter registry used to report polling of ongoing jobs or null.
+     * @param clusterWideJobsCacheTime The time to cache cluster wide jobs, 0 to disable caching.
+     * @param timeUnit The time unit of the cache time.
+     */
+    public OnDemandStatus(final NativeConnectionProvider nativeConnectionProvider,
+                          final MeterRegistry meterRegistry,
+                          final long clusterWideJobsCacheTime,
+                          final TimeUnit timeUnit)
+    {
+        myClusterWideJobsCacheTimeInMs = timeUnit.toMillis(clusterWideJobsCacheTime);
+        myMeterRegistry = meterRegistry;
+        if (meterRegistry != null)
+        {
+            myPollTimer = Timer.builder(POLL_TIME)
+                    .description("Time to poll for ongoing on demand repair jobs")
+                    .register(meterRegistry);
+            myPollRows = DistributionSummary.builder(POLL_ROWS)
+                    .description("Rows read when polling for ongoing on demand repair jobs")
+                    .register(meterRegistry);
+        }
+        else
+        {
+            myPollTimer = null;
+            myPollRows = null;
+        }
         mySession = nativeConnectionProvider.getSession();
         myHostId = nativeConnectionProvider.getLocalNode().getHostId();
         myTableReferenceFactory = new TableReferenceFactoryImpl(mySession);
+        myNodeResolver = new NodeResolverImpl(mySession);
         myUDTTokenType = mySession.getMetadata()
                 .getKeyspace(KEYSPACE_NAME)
                 .flatMap(ks -> ks.getUserDefinedType(UDT_TOKEN_RANGE_NAME))
@@ -132,11 +229,46 @@ public class OnDemandStatus
                 .whereColumn(JOB_ID_COLUMN_NAME).isEqualTo(bindMarker())
                 .build().setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM);
 
+        SimpleStatement insertRepairedRangeStatement = insertInto(KEYSPACE_NAME, PROGRESS_TABLE_NAME)
+                .value(HOST_ID_COLUMN_NAME, bindMarker())
+                .value(JOB_ID_COLUMN_NAME, bindMarker())
+                .value(RANGE_BEGIN_COLUMN_NAME, bindMarker())
+                .value(RANGE_END_COLUMN_NAME, bindMarker())
+                .build().setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM);
+        SimpleStatement getRepairedRangesStatement = selectFrom(KEYSPACE_NAME, PROGRESS_TABLE_NAME)
+                .columns(RANGE_BEGIN_COLUMN_NAME, RANGE_END_COLUMN_NAME)
+                .whereColumn(HOST_ID_COLUMN_NAME).isEqualTo(bindMarker())
+                .whereColumn(JOB_ID_COLUMN_NAME).isEqualTo(bindMarker())
+                .build().setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM);
+        SimpleStatement getJobStatement = selectFrom(KEYSPACE_NAME, TABLE_NAME)
+                .all()
+                .whereColumn(HOST_ID_COLUMN_NAME).isEqualTo(bindMarker())
+                .whereColumn(JOB_ID_COLUMN_NAME).isEqualTo(bindMarker())
+                .build().setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM);
+        SimpleStatement getActiveJobsStatement = selectFrom(KEYSPACE_NAME, ACTIVE_TABLE_NAME)
+                .column(JOB_ID_COLUMN_NAME)
+                .whereColumn(HOST_ID_COLUMN_NAME).isEqualTo(bindMarker())
+                .build().setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM);
+        SimpleStatement insertActiveJobStatement = insertInto(KEYSPACE_NAME, ACTIVE_TABLE_NAME)
+                .value(HOST_ID_COLUMN_NAME, bindMarker())
+                .value(JOB_ID_COLUMN_NAME, bindMarker())
+                .build().setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM);
+        SimpleStatement deleteActiveJobStatement = deleteFrom(KEYSPACE_NAME, ACTIVE_TABLE_NAME)
+                .whereColumn(HOST_ID_COLUMN_NAME).isEqualTo(bindMarker())
+                .whereColumn(JOB_ID_COLUMN_NAME).isEqualTo(bindMarker())
+                .build().setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM);
+
         myGetStatusStatement = mySession.prepare(getStatusStatement);
         myInsertNewJobStatement = mySession.prepare(insertNewJobStatement);
         myUpdateRepairedTokenForJobStatement = mySession.prepare(updateRepairedTokenForJobStatement);
         myUpdateJobToFinishedStatement = mySession.prepare(updateJobToFinishedStatement);
         myUpdateJobToFailedStatement = mySession.prepare(updateJobToFailedStatement);
+        myInsertRepairedRangeStatement = mySession.prepare(insertRepairedRangeStatement);
+        myGetRepairedRangesStatement = mySession.prepare(getRepairedRangesStatement);
+        myGetJobStatement = mySession.prepare(getJobStatement);
+        myGetActiveJobsStatement = mySession.prepare(getActiveJobsStatement);
+        myInsertActiveJobStatement = mySession.prepare(insertActiveJobStatement);
+        myDeleteActiveJobStatement = mySession.prepare(deleteActiveJobStatement);
     }
 
     /**
@@ -151,17 +283,24 @@ public class OnDemandStatus
 
     /**
      * Get all jobs for this host that have the status 'started'.
+     * <p>
+     * This reads the full job history of the host and adds any ongoing job missing from the index of active jobs.
+     * It is intended to be used once on startup, after that {@link #getOngoingJobs(ReplicationState, Set)} should be
+     * used.
      *
      * @param replicationState The replication state.
      * @return Set of ongoing jobs
      */
     public Set<OngoingJob> getOngoingJobs(final ReplicationState replicationState)
     {
+        long start = System.nanoTime();
         ResultSet result = mySession.execute(myGetStatusStatement.bind(myHostId));
 
+        int rows = 0;
         Set<OngoingJob> ongoingJobs = new HashSet<>();
-        for (Row row : result.all())
+        for (Row row : result)
         {
+            rows++;
             Status status;
             try
             {
@@ -176,32 +315,183 @@ public class OnDemandStatus
 
             if (status.equals(Status.started))
             {
-                createOngoingJob(replicationState, ongoingJobs, row, status, myHostId);
+                mySession.execute(myInsertActiveJobStatement.bind(myHostId, row.getUuid(JOB_ID_COLUMN_NAME)));
+                createOngoingJob(replicationState, ongoingJobs, row, status, myHostId, null);
             }
         }
 
+        recordPoll(start, rows);
         return ongoingJobs;
     }
 
+    /**
+     * Get the jobs for this host that have the status 'started' and are not already known.
+     * <p>
+     * Only the index of active jobs and the status of new jobs are read.
+     *
+     * @param replicationState The replication state.
+     * @param knownJobIds The ids of the jobs already known by the caller.
+     * @return Set of ongoing jobs not part of the known jobs
+     */
+    public Set<OngoingJob> getOngoingJobs(final ReplicationState replicationState, final Set<UUID> knownJobIds)
+    {
+        long start = System.nanoTime();
+        int rows = 0;
+        List<UUID> newJobIds = new ArrayList<>();
+        for (Row row : mySession.execute(myGetActiveJobsStatement.bind(myHostId)))
+        {
+            rows++;
+            UUID jobId = row.getUuid(JOB_ID_COLUMN_NAME);
+            if (!knownJobIds.contains(jobId))
+            {
+                newJobIds.add(jobId);
+            }
+        }
+
+        Set<OngoingJob> ongoingJobs = new HashSet<>();
+        for (UUID jobId : newJobIds)
+        {
+            Row row = mySession.execute(myGetJobStatement.bind(myHostId, jobId)).one();
+            if (row == null)
+            {
+                LOG.debug("Removing expired job {} from active jobs", jobId);
+                mySession.execute(myDeleteActiveJobStatement.bind(myHostId, jobId));
+                continue;
+            }
+            rows++;
+
+            String status = row.getString(STATUS_COLUMN_NAME);
+            if (Status.started.name().equals(status))
+            {
+                createOngoingJob(replicationState, ongoingJobs, row, Status.started, myHostId, null);
+            }
+            else
+            {
+                LOG.debug("Removing job {} with status {} from active jobs", jobId, status);
+                mySession.execute(myDeleteActiveJobStatement.bind(myHostId, jobId));
+            }
+        }
+
+        recordPoll(start, rows);
+        return ongoingJobs;
+    }
+
+    private void recordPoll(final long startNanos, final int rows)
+    {
+        if (myPollTimer != null)
+        {
+            myPollTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            myPollRows.record(rows);
+        }
+    }
+
     /**
      * Get jobs for all the nodes, independent of their status.
+     * <p>
+     * The jobs and the progress of started jobs of each node are read concurrently with at most
+     * {@value #MAX_CLUSTER_WIDE_REQUESTS_IN_FLIGHT} requests in flight. If a cache time is configured the rows read are
+     * reused for repeated calls within that time, the cache is invalidated when a job is added, finished or failed by
+     * this instance. Rows read while the cache was invalidated are not cached. New jobs are created for each call.
      *
      * @return  Set of ongoing jobs
      */
     public Set<OngoingJob> getAllClusterWideJobs()
     {
-        Metadata metadata = mySession.getMetadata();
-        NodeResolver nodeResolver = new NodeResolverImpl(mySession);
-        Collection<Node> nodes = metadata.getNodes().values();
+        List<NodeJobs> nodeJobs;
+        long generation = myClusterWideJobsGeneration.get();
+        CachedClusterWideJobs cached = myClusterWideJobs;
+        if (cached != null && cached.isValid(System.currentTimeMillis(), generation))
+        {
+            nodeJobs = cached.myNodeJobs;
+        }
+        else
+        {
+            long fetchedAt = System.currentTimeMillis();
+            nodeJobs = readClusterWideJobs();
+            if (myClusterWideJobsCacheTimeInMs > 0)
+            {
+                // Only valid until the next invalidation, which could already have happened during the read
+                myClusterWideJobs = new CachedClusterWideJobs(nodeJobs, fetchedAt + myClusterWideJobsCacheTimeInMs,
+                        generation);
+            }
+        }
+
         Set<OngoingJob> ongoingJobs = new HashSet<>();
-        for (Node node : nodes)
+        for (NodeJobs jobs : nodeJobs)
         {
-            ReplicationState replState = new ReplicationStateImpl(nodeResolver, mySession, node);
-            ongoingJobs.addAll(getAllJobsForHost(replState, node.getHostId()));
+            Node node = jobs.myNode;
+            addJobs(getReplicationState(node), ongoingJobs, jobs.myRows, jobs.myProgress, node.getHostId());
         }
         return ongoingJobs;
     }
 
+    private List<NodeJobs> readClusterWideJobs()
+    {
+        Collection<Node> nodes = mySession.getMetadata().getNodes().values();
+        Set<UUID> hostIds = new HashSet<>();
+        nodes.forEach(node -> hostIds.add(node.getHostId()));
+        // Drop the replication states of nodes that have left the cluster
+        myNodeReplicationStates.keySet().retainAll(hostIds);
+
+        AsyncRequestLimiter limiter = new AsyncRequestLimiter(MAX_CLUSTER_WIDE_REQUESTS_IN_FLIGHT);
+        List<CompletableFuture<NodeJobs>> pendingJobs = new ArrayList<>(nodes.size());
+        try
+        {
+            for (Node node : nodes)
+            {
+                pendingJobs.add(readJobsAsync(node, limiter));
+            }
+
+            ImmutableList.Builder<NodeJobs> nodeJobs = ImmutableList.builder();
+            for (CompletableFuture<NodeJobs> jobs : pendingJobs)
+            {
+                nodeJobs.add(jobs.join());
+            }
+            return nodeJobs.build();
+        }
+        catch (CompletionException e)
+        {
+            limiter.cancel();
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            limiter.cancel();
+            throw e;
+        }
+    }
+
+    private CompletableFuture<NodeJobs> readJobsAsync(final Node node, final AsyncRequestLimiter limiter)
+    {
+        UUID hostId = node.getHostId();
+        return limiter.submit(() -> mySession.executeAsync(myGetStatusStatement.bind(hostId))
+                        .thenCompose(resultSet -> collectRows(resultSet, new ArrayList<>())))
+                .thenCompose(rows -> getProgressAsync(rows, hostId, limiter)
+                        .thenApply(progress -> new NodeJobs(node, rows, progress)));
+    }
+
+    private ReplicationState getReplicationState(final Node node)
+    {
+        return myNodeReplicationStates.computeIfAbsent(node.getHostId(),
+                hostId -> new ReplicationStateImpl(myNodeResolver, mySession, node, myMeterRegistry));
+    }
+
+    private CompletionStage<List<Row>> collectRows(final AsyncResultSet resultSet, final List<Row> rows)
+    {
+        resultSet.currentPage().forEach(rows::add);
+
+        if (resultSet.hasMorePages())
+        {
+            return resultSet.fetchNextPage().thenCompose(nextPage -> collectRows(nextPage, rows));
+        }
+
+        return CompletableFuture.completedFuture(rows);
+    }
+
     /**
      * Get all jobs for this host, independent of the status.
      *
@@ -215,10 +505,61 @@ public class OnDemandStatus
 
     private Set<OngoingJob> getAllJobsForHost(final ReplicationState replicationState, final UUID hostId)
     {
-        ResultSet result = mySession.execute(myGetStatusStatement.bind(hostId));
+        List<Row> rows = new ArrayList<>();
+        mySession.execute(myGetStatusStatement.bind(hostId)).forEach(rows::add);
+
+        Map<UUID, Set<LongTokenRange>> progress;
+        try
+        {
+            AsyncRequestLimiter limiter = new AsyncRequestLimiter(MAX_CLUSTER_WIDE_REQUESTS_IN_FLIGHT);
+            progress = getProgressAsync(rows, hostId, limiter).toCompletableFuture().join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
 
         Set<OngoingJob> ongoingJobs = new HashSet<>();
-        for (Row row : result.all())
+        addJobs(replicationState, ongoingJobs, rows, progress, hostId);
+        return ongoingJobs;
+    }
+
+    /**
+     * Read the progress of the started jobs concurrently, finished and failed jobs only use the last checkpoint.
+     */
+    private CompletionStage<Map<UUID, Set<LongTokenRange>>> getProgressAsync(final List<Row> rows, final UUID hostId,
+                                                                             final AsyncRequestLimiter limiter)
+    {
+        Map<UUID, CompletableFuture<Set<LongTokenRange>>> pendingProgress = new HashMap<>();
+        for (Row row : rows)
+        {
+            if (Status.started.name().equals(row.getString(STATUS_COLUMN_NAME)))
+            {
+                UUID jobId = row.getUuid(JOB_ID_COLUMN_NAME);
+                pendingProgress.put(jobId, limiter.submit(() -> getRepairedRangesAsync(hostId, jobId)));
+            }
+        }
+
+        return CompletableFuture.allOf(pendingProgress.values().toArray(new CompletableFuture<?>[0]))
+                .thenApply(v ->
+                {
+                    ImmutableMap.Builder<UUID, Set<LongTokenRange>> progress = ImmutableMap.builder();
+                    pendingProgress.forEach((jobId, ranges) -> progress.put(jobId, ImmutableSet.copyOf(ranges.join())));
+                    return progress.build();
+                });
+    }
+
+    private void addJobs(final ReplicationState replicationState,
+                         final Set<OngoingJob> ongoingJobs,
+                         final Iterable<Row> rows,
+                         final Map<UUID, Set<LongTokenRange>> progress,
+                         final UUID hostId)
+    {
+        for (Row row : rows)
         {
             Status status;
             try
@@ -232,17 +573,17 @@ public class OnDemandStatus
                 continue;
             }
 
-            createOngoingJob(replicationState, ongoingJobs, row, status, hostId);
+            createOngoingJob(replicationState, ongoingJobs, row, status, hostId,
+                    progress.get(row.getUuid(JOB_ID_COLUMN_NAME)));
         }
-
-        return ongoingJobs;
     }
 
     private void createOngoingJob(final ReplicationState replicationState,
                                   final Set<OngoingJob> ongoingJobs,
                                   final Row row,
                                   final Status status,
-                                  final UUID hostId)
+                                  final UUID hostId,
+                                  final Set<LongTokenRange> progress)
     {
         UUID jobId = row.getUuid(JOB_ID_COLUMN_NAME);
         int tokenMapHash = row.getInt(TOKEN_MAP_HASH_COLUMN_NAME);
@@ -266,6 +607,7 @@ public class OnDemandStatus
                     .withReplicationState(replicationState)
                     .withOngoingJobInfo(jobId, tokenMapHash, repairedTokens, status, completedTime)
                     .withHostId(hostId)
+                    .withProgress(progress)
                     .build();
             ongoingJobs.add(ongoingJob);
         }
@@ -313,11 +655,71 @@ public class OnDemandStatus
                 .setString(UDT_TABLE_NAME, tableReference.getTable());
         BoundStatement statement = myInsertNewJobStatement.bind(host, jobId, uDTTableReference, tokenMapHash,
                 repairedRangesUDT);
-        mySession.execute(statement);
+        mySession.execute(BatchStatement.newInstance(DefaultBatchType.LOGGED, statement,
+                myInsertActiveJobStatement.bind(host, jobId)).setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM));
+        invalidateClusterWideJobs();
+    }
+
+    /**
+     * Add repaired ranges to the progress of a job.
+     *
+     * @param jobId Job id.
+     * @param repairedRanges The newly repaired ranges.
+     */
+    public void addRepairedRanges(final UUID jobId, final Set<LongTokenRange> repairedRanges)
+    {
+        List<BatchableStatement<?>> statements = new ArrayList<>();
+        for (LongTokenRange range : repairedRanges)
+        {
+            statements.add(myInsertRepairedRangeStatement.bind(myHostId, jobId, Long.toString(range.start),
+                    Long.toString(range.end)));
+        }
+
+        if (statements.size() == 1)
+        {
+            mySession.execute(statements.get(0));
+        }
+        else if (!statements.isEmpty())
+        {
+            mySession.execute(BatchStatement.newInstance(DefaultBatchType.UNLOGGED, statements)
+                    .setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM));
+        }
+    }
+
+    /**
+     * Get the repaired ranges added to the progress of a job.
+     *
+     * @param hostId The host running the job.
+     * @param jobId Job id.
+     * @return The repaired ranges, not including the ranges of the last checkpoint.
+     */
+    public Set<LongTokenRange> getRepairedRanges(final UUID hostId, final UUID jobId)
+    {
+        return toRepairedRanges(mySession.execute(myGetRepairedRangesStatement.bind(hostId, jobId)));
+    }
+
+    private CompletionStage<Set<LongTokenRange>> getRepairedRangesAsync(final UUID hostId, final UUID jobId)
+    {
+        return mySession.executeAsync(myGetRepairedRangesStatement.bind(hostId, jobId))
+                .thenCompose(resultSet -> collectRows(resultSet, new ArrayList<>()))
+                .thenApply(this::toRepairedRanges);
+    }
+
+    private Set<LongTokenRange> toRepairedRanges(final Iterable<Row> rows)
+    {
+        Set<LongTokenRange> repairedRanges = new HashSet<>();
+        for (Row row : rows)
+        {
+            repairedRanges.add(new LongTokenRange(Long.parseLong(row.getString(RANGE_BEGIN_COLUMN_NAME)),
+                    Long.parseLong(row.getString(RANGE_END_COLUMN_NAME))));
+        }
+        return repairedRanges;
     }
 
     /**
      * Update job with repaired tokens.
+     * <p>
+     * Used to checkpoint the full progress of a job, see {@link #addRepairedRanges(UUID, Set)}.
      *
      * @param jobId Job id.
      * @param repairedTokens Repaired tokens.
@@ -334,8 +736,11 @@ public class OnDemandStatus
      */
     public void finishJob(final UUID jobId)
     {
-        mySession.execute(myUpdateJobToFinishedStatement.bind(Instant.ofEpochMilli(System.currentTimeMillis()),
-                myHostId, jobId));
+        BoundStatement statement = myUpdateJobToFinishedStatement.bind(
+                Instant.ofEpochMilli(System.currentTimeMillis()), myHostId, jobId);
+        mySession.execute(BatchStatement.newInstance(DefaultBatchType.LOGGED, statement,
+                myDeleteActiveJobStatement.bind(myHostId, jobId)).setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM));
+        invalidateClusterWideJobs();
     }
 
     /**
@@ -345,8 +750,11 @@ public class OnDemandStatus
      */
     public void failJob(final UUID jobId)
     {
-        mySession.execute(myUpdateJobToFailedStatement.bind(Instant.ofEpochMilli(System.currentTimeMillis()),
-                myHostId, jobId));
+        BoundStatement statement = myUpdateJobToFailedStatement.bind(
+                Instant.ofEpochMilli(System.currentTimeMillis()), myHostId, jobId);
+        mySession.execute(BatchStatement.newInstance(DefaultBatchType.LOGGED, statement,
+                myDeleteActiveJobStatement.bind(myHostId, jobId)).setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM));
+        invalidateClusterWideJobs();
     }
 
     /**
@@ -383,4 +791,43 @@ public class OnDemandStatus
     {
         return Long.valueOf(t.getString(UDT_END_TOKEN_NAME));
     }
+
+    private static final class NodeJobs
+    {
+        private final Node myNode;
+        private final List<Row> myRows;
+        private final Map<UUID, Set<LongTokenRange>> myProgress;
+
+        NodeJobs(final Node node, final List<Row> rows, final Map<UUID, Set<LongTokenRange>> progress)
+        {
+            myNode = node;
+            myRows = ImmutableList.copyOf(rows);
+            myProgress = progress;
+        }
+    }
+
+    private void invalidateClusterWideJobs()
+    {
+        myClusterWideJobsGeneration.incrementAndGet();
+        myClusterWideJobs = null;
+    }
+
+    private static final class CachedClusterWideJobs
+    {
+        private final List<NodeJobs> myNodeJobs;
+        private final long myValidUntil;
+        private final long myGeneration;
+
+        CachedClusterWideJobs(final List<NodeJobs> nodeJobs, final long validUntil, final long generation)
+        {
+            myNodeJobs = nodeJobs;
+            myValidUntil = validUntil;
+            myGeneration = generation;
+        }
+
+        boolean isValid(final long now, final long generation)
+        {
+            return now < myValidUntil && myGeneration == generation;
+        }
+    }
 }
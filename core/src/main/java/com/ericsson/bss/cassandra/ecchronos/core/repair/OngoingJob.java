@@ -35,6 +35,8 @@ public class OngoingJob
         started, finished, failed
     }
 
+    private static final int CHECKPOINT_INTERVAL_IN_RANGES = 32;
+
     private final UUID myJobId;
     private final UUID myHostId;
     private final TableReference myTableReference;
@@ -45,6 +47,10 @@ public class OngoingJob
     private final Integer myTokenHash;
     private final Status myStatus;
     private final long myCompletedTime;
+    private final Set<LongTokenRange> myProgress;
+
+    private Set<LongTokenRange> myRepairedRanges;
+    private int myRangesSinceCheckpoint = 0;
 
     private OngoingJob(final Builder builder)
     {
@@ -58,10 +64,12 @@ public class OngoingJob
         myTokenHash = builder.tokenMapHash;
         myStatus = builder.status;
         myCompletedTime = builder.completedTime;
+        myProgress = builder.progress;
 
         if (myTokenHash == null)
         {
             myOnDemandStatus.addNewJob(myJobId, myTableReference, myTokens.keySet().hashCode());
+            myRepairedRanges = new HashSet<>();
         }
     }
 
@@ -90,18 +98,64 @@ public class OngoingJob
         return myTableReference;
     }
 
-    public Set<LongTokenRange> getRepairedTokens()
+    public synchronized Set<LongTokenRange> getRepairedTokens()
     {
-        Set<LongTokenRange> repairedLongTokenRanges = new HashSet<>();
-        myRepairedTokens.forEach(t -> repairedLongTokenRanges
-                .add(new LongTokenRange(myOnDemandStatus.getStartTokenFrom(t), myOnDemandStatus.getEndTokenFrom(t))));
-        return repairedLongTokenRanges;
+        return new HashSet<>(repairedRanges());
     }
 
-    public void finishRanges(final Set<LongTokenRange> ranges)
+    /**
+     * Mark ranges as repaired.
+     * <p>
+     * Only the newly repaired ranges are written, the full set of repaired ranges is checkpointed once every
+     * {@value #CHECKPOINT_INTERVAL_IN_RANGES} ranges and when the job is finished.
+     *
+     * @param ranges The repaired ranges.
+     */
+    public synchronized void finishRanges(final Set<LongTokenRange> ranges)
     {
-        ranges.forEach(t -> myRepairedTokens.add(myOnDemandStatus.createUDTTokenRangeValue(t.start, t.end)));
-        myOnDemandStatus.updateJob(myJobId, myRepairedTokens);
+        repairedRanges().addAll(ranges);
+        myOnDemandStatus.addRepairedRanges(myJobId, ranges);
+        myRangesSinceCheckpoint += ranges.size();
+
+        if (myRangesSinceCheckpoint >= CHECKPOINT_INTERVAL_IN_RANGES)
+        {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Get the repaired ranges, reconstructed from the last checkpoint and the progress on first use.
+     * <p>
+     * Finished and failed jobs are checkpointed when they complete so only the checkpoint is used for them.
+     * The progress of started jobs is read unless it was provided when the job was built.
+     */
+    private Set<LongTokenRange> repairedRanges()
+    {
+        if (myRepairedRanges == null)
+        {
+            Set<LongTokenRange> repairedRanges = new HashSet<>();
+            myRepairedTokens.forEach(t -> repairedRanges.add(new LongTokenRange(
+                    myOnDemandStatus.getStartTokenFrom(t), myOnDemandStatus.getEndTokenFrom(t))));
+            if (myProgress != null)
+            {
+                repairedRanges.addAll(myProgress);
+            }
+            else if (myStatus == Status.started)
+            {
+                UUID hostId = myHostId == null ? myOnDemandStatus.getHostId() : myHostId;
+                repairedRanges.addAll(myOnDemandStatus.getRepairedRanges(hostId, myJobId));
+            }
+            myRepairedRanges = repairedRanges;
+        }
+        return myRepairedRanges;
+    }
+
+    private void checkpoint()
+    {
+        Set<UdtValue> repairedTokens = new HashSet<>();
+        repairedRanges().forEach(t -> repairedTokens.add(myOnDemandStatus.createUDTTokenRangeValue(t.start, t.end)));
+        myOnDemandStatus.updateJob(myJobId, repairedTokens);
+        myRangesSinceCheckpoint = 0;
     }
 
     public Map<LongTokenRange, ImmutableSet<DriverNode>> getTokens()
@@ -163,13 +217,21 @@ public class OngoingJob
         }
     }
 
-    public void finishJob()
+    public synchronized void finishJob()
     {
+        if (myRangesSinceCheckpoint > 0)
+        {
+            checkpoint();
+        }
         myOnDemandStatus.finishJob(myJobId);
     }
 
-    public void failJob()
+    public synchronized void failJob()
     {
+        if (myRangesSinceCheckpoint > 0)
+        {
+            checkpoint();
+        }
         myOnDemandStatus.failJob(myJobId);
     }
 
@@ -184,6 +246,7 @@ public class OngoingJob
         private Integer tokenMapHash = null;
         private Status status = Status.started;
         private long completedTime = -1;
+        private Set<LongTokenRange> progress = null;
 
         /**
          * Ongoing job build with ongoing job info.
@@ -212,6 +275,20 @@ public class OngoingJob
             return this;
         }
 
+        /**
+         * Ongoing job build with the progress added since the last checkpoint.
+         * <p>
+         * If not set the progress of a started job is read when the repaired ranges are first used.
+         *
+         * @param theProgress The repaired ranges added since the last checkpoint.
+         * @return The builder
+         */
+        public Builder withProgress(final Set<LongTokenRange> theProgress)
+        {
+            this.progress = theProgress;
+            return this;
+        }
+
         /**
          * Ongoing job build with table reference.
          *
@@ -25,6 +25,8 @@ public class RepairConfiguration
 {
     public static final double NO_UNWIND = 0.0d;
     public static final long FULL_REPAIR_SIZE = Long.MAX_VALUE;
+    public static final int NO_BATCHING = 1;
+    public static final long NO_TARGET_SESSION_TIME = 0L;
 
     private static final long DEFAULT_REPAIR_INTERVAL_IN_MS = TimeUnit.DAYS.toMillis(7);
     private static final long DEFAULT_REPAIR_WARNING_TIME_IN_MS = TimeUnit.DAYS.toMillis(8);
@@ -34,6 +36,8 @@ public class RepairConfiguration
     private static final double DEFAULT_UNWIND_RATIO = NO_UNWIND;
     private static final long DEFAULT_TARGET_REPAIR_SIZE_IN_BYTES = FULL_REPAIR_SIZE;
     private static final boolean DEFAULT_IGNORE_TWCS_TABLES = false;
+    private static final int DEFAULT_MAX_RANGES_PER_REPAIR = NO_BATCHING;
+    private static final long DEFAULT_TARGET_REPAIR_SESSION_TIME_IN_MS = NO_TARGET_SESSION_TIME;
 
     public static final RepairConfiguration DEFAULT = newBuilder().build();
     public static final RepairConfiguration DISABLED
@@ -46,6 +50,8 @@ public class RepairConfiguration
     private final double myRepairUnwindRatio;
     private final long myTargetRepairSizeInBytes;
     private final boolean myIgnoreTWCSTables;
+    private final int myMaxRangesPerRepair;
+    private final long myTargetRepairSessionTimeInMs;
 
     private RepairConfiguration(final Builder builder)
     {
@@ -56,6 +62,8 @@ public class RepairConfiguration
         myRepairUnwindRatio = builder.myRepairUnwindRatio;
         myTargetRepairSizeInBytes = builder.myTargetRepairSizeInBytes;
         myIgnoreTWCSTables = builder.myIgnoreTWCSTables;
+        myMaxRangesPerRepair = builder.myMaxRangesPerRepair;
+        myTargetRepairSessionTimeInMs = builder.myTargetRepairSessionTimeInMs;
     }
 
     public RepairOptions.RepairParallelism getRepairParallelism()
@@ -93,6 +101,16 @@ public class RepairConfiguration
         return myIgnoreTWCSTables;
     }
 
+    public int getMaxRangesPerRepair()
+    {
+        return myMaxRangesPerRepair;
+    }
+
+    public long getTargetRepairSessionTimeInMs()
+    {
+        return myTargetRepairSessionTimeInMs;
+    }
+
     public static Builder newBuilder(final RepairConfiguration from)
     {
         return new Builder(from);
@@ -133,14 +151,17 @@ public class RepairConfiguration
                 && Double.compare(that.myRepairUnwindRatio, myRepairUnwindRatio) == 0
                 && myTargetRepairSizeInBytes == that.myTargetRepairSizeInBytes
                 && myRepairParallelism == that.myRepairParallelism
-                && myIgnoreTWCSTables == that.myIgnoreTWCSTables;
+                && myIgnoreTWCSTables == that.myIgnoreTWCSTables
+                && myMaxRangesPerRepair == that.myMaxRangesPerRepair
+                && myTargetRepairSessionTimeInMs == that.myTargetRepairSessionTimeInMs;
     }
 
     @Override
     public int hashCode()
     {
         return Objects.hash(myRepairParallelism, myRepairIntervalInMs, myRepairWarningTimeInMs,
-                myRepairErrorTimeInMs, myRepairUnwindRatio, myTargetRepairSizeInBytes, myIgnoreTWCSTables);
+                myRepairErrorTimeInMs, myRepairUnwindRatio, myTargetRepairSizeInBytes, myIgnoreTWCSTables,
+                myMaxRangesPerRepair, myTargetRepairSessionTimeInMs);
     }
 
     public static class Builder
@@ -152,6 +173,8 @@ public class RepairConfiguration
         private double myRepairUnwindRatio = DEFAULT_UNWIND_RATIO;
         private long myTargetRepairSizeInBytes = DEFAULT_TARGET_REPAIR_SIZE_IN_BYTES;
         private boolean myIgnoreTWCSTables = DEFAULT_IGNORE_TWCS_TABLES;
+        private int myMaxRangesPerRepair = DEFAULT_MAX_RANGES_PER_REPAIR;
+        private long myTargetRepairSessionTimeInMs = DEFAULT_TARGET_REPAIR_SESSION_TIME_IN_MS;
 
         /**
          * Constructor.
@@ -173,6 +196,8 @@ public class RepairConfiguration
             myRepairWarningTimeInMs = from.getRepairWarningTimeInMs();
             myRepairErrorTimeInMs = from.getRepairErrorTimeInMs();
             myRepairUnwindRatio = from.getRepairUnwindRatio();
+            myMaxRangesPerRepair = from.getMaxRangesPerRepair();
+            myTargetRepairSessionTimeInMs = from.getTargetRepairSessionTimeInMs();
         }
 
         /**
@@ -276,6 +301,43 @@ public class RepairConfiguration
             return this;
         }
 
+        /**
+         * Set the maximum number of token ranges to repair in a single repair session.
+         *
+         * Ranges of the same replica set are packed together as long as their total size stays within the tokens
+         * calculated from the target repair size.
+         * This reduces the number of repair sessions for tables with little data per virtual node.
+         *
+         * @param maxRangesPerRepair The maximum number of ranges per repair session, {@link #NO_BATCHING} to disable.
+         * @return The builder
+         */
+        public Builder withMaxRangesPerRepair(final int maxRangesPerRepair)
+        {
+            if (maxRangesPerRepair < NO_BATCHING)
+            {
+                throw new IllegalArgumentException("Max ranges per repair must be at least 1, got "
+                        + maxRangesPerRepair);
+            }
+            myMaxRangesPerRepair = maxRangesPerRepair;
+            return this;
+        }
+
+        /**
+         * Set the target duration of a single repair session.
+         *
+         * When set together with a target repair size the size of the sub ranges is adapted to the observed repair
+         * session throughput of the table, bounded by the size calculated from the target repair size.
+         *
+         * @param targetSessionTime The target session time, {@link #NO_TARGET_SESSION_TIME} to disable.
+         * @param timeUnit The time unit of the target session time.
+         * @return The builder
+         */
+        public Builder withTargetRepairSessionTime(final long targetSessionTime, final TimeUnit timeUnit)
+        {
+            myTargetRepairSessionTimeInMs = timeUnit.toMillis(targetSessionTime);
+            return this;
+        }
+
         /**
          * Build repair configuration.
          *
@@ -35,6 +35,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -58,6 +59,7 @@ public class RepairGroup extends ScheduledTask
     private final List<TableRepairPolicy> myRepairPolicies;
     private final RepairHistory myRepairHistory;
     private final UUID myJobId;
+    private final AdaptiveRepairSizing myRepairSizing;
 
     public RepairGroup(final int priority, final Builder builder)
     {
@@ -84,6 +86,7 @@ public class RepairGroup extends ScheduledTask
                 .checkNotNull(builder.repairHistory, "Repair history must be set");
         myJobId = Preconditions
                 .checkNotNull(builder.jobId, "Job id must be set");
+        myRepairSizing = builder.repairSizing;
     }
 
     /**
@@ -114,12 +117,69 @@ public class RepairGroup extends ScheduledTask
             catch (ScheduledJobException e)
             {
                 LOG.warn("Encountered issue when running repair task {}", repairTask, e);
-                successful = false;
                 if (e.getCause() instanceof InterruptedException)
                 {
                     LOG.info("{} thread was interrupted", this);
+                    successful = false;
                     break;
                 }
+                successful &= retryIndividually(repairTask);
+            }
+            finally
+            {
+                repairTask.cleanup();
+            }
+        }
+
+        return successful;
+    }
+
+    /**
+     * Retry the ranges of a failed batched repair task that were not reported as completed, one range at a time.
+     *
+     * @param failedTask The failed repair task.
+     * @return True if all retried ranges were repaired successfully.
+     */
+    private boolean retryIndividually(final RepairTask failedTask)
+    {
+        Set<LongTokenRange> tokenRanges = failedTask.getTokenRanges();
+        if (tokenRanges.size() <= 1)
+        {
+            return false;
+        }
+
+        Set<LongTokenRange> failedRanges = new LinkedHashSet<>(tokenRanges);
+        failedRanges.removeAll(failedTask.getCompletedRanges());
+        if (failedRanges.isEmpty())
+        {
+            return false;
+        }
+
+        LOG.info("Retrying {} ranges of {} individually", failedRanges.size(), this);
+        boolean successful = true;
+        for (LongTokenRange range : failedRanges)
+        {
+            if (!shouldContinue())
+            {
+                LOG.info("Repair of {} was stopped by policy, will continue later", this);
+                return false;
+            }
+
+            RepairTask repairTask = newRepairTaskBuilder()
+                    .withTokenRanges(Collections.singletonList(range))
+                    .build();
+            try
+            {
+                repairTask.execute();
+            }
+            catch (ScheduledJobException e)
+            {
+                LOG.warn("Encountered issue when retrying repair task {}", repairTask, e);
+                if (e.getCause() instanceof InterruptedException)
+                {
+                    return false;
+                }
+                successful = false;
             }
             finally
             {
@@ -174,27 +234,50 @@ public class RepairGroup extends ScheduledTask
     {
         Collection<RepairTask> tasks = new ArrayList<>();
 
-        RepairTask.Builder builder = new RepairTask.Builder()
-                .withJMXProxyFactory(myJmxProxyFactory)
-                .withTableReference(myTableReference)
-                .withTableRepairMetrics(myTableRepairMetrics)
-                .withRepairConfiguration(myRepairConfiguration)
-                .withReplicas(myReplicaRepairGroup.getReplicas())
-                .withRepairHistory(myRepairHistory)
-                .withJobId(myJobId);
+        RepairTask.Builder builder = newRepairTaskBuilder();
+
+        int maxRangesPerRepair = myRepairConfiguration.getMaxRangesPerRepair();
+        List<LongTokenRange> batch = new ArrayList<>();
+        BigInteger batchTokens = BigInteger.ZERO;
 
         for (LongTokenRange range : myReplicaRepairGroup)
         {
             for (LongTokenRange subRange : new TokenSubRangeUtil(range).generateSubRanges(myTokensPerRepair))
             {
-                builder.withTokenRanges(Collections.singletonList(subRange));
-                tasks.add(builder.build());
+                BigInteger subRangeTokens = subRange.rangeSize();
+                if (!batch.isEmpty() && (batch.size() >= maxRangesPerRepair
+                        || batchTokens.add(subRangeTokens).compareTo(myTokensPerRepair) > 0))
+                {
+                    tasks.add(builder.withTokenRanges(batch).build());
+                    batch.clear();
+                    batchTokens = BigInteger.ZERO;
+                }
+                batch.add(subRange);
+                batchTokens = batchTokens.add(subRangeTokens);
             }
         }
 
+        if (!batch.isEmpty())
+        {
+            tasks.add(builder.withTokenRanges(batch).build());
+        }
+
         return tasks;
     }
 
+    private RepairTask.Builder newRepairTaskBuilder()
+    {
+        return new RepairTask.Builder()
+                .withJMXProxyFactory(myJmxProxyFactory)
+                .withTableReference(myTableReference)
+                .withTableRepairMetrics(myTableRepairMetrics)
+                .withRepairConfiguration(myRepairConfiguration)
+                .withReplicas(myReplicaRepairGroup.getReplicas())
+                .withRepairHistory(myRepairHistory)
+                .withRepairSizing(myRepairSizing)
+                .withJobId(myJobId);
+    }
+
     public static Builder newBuilder()
     {
         return new Builder();
@@ -214,6 +297,7 @@ public class RepairGroup extends ScheduledTask
         private RepairLockFactory repairLockFactory;
         private RepairHistory repairHistory;
         private UUID jobId;
+        private AdaptiveRepairSizing repairSizing;
 
         /**
          * Build with table reference.
@@ -347,6 +431,18 @@ public class RepairGroup extends ScheduledTask
             return this;
         }
 
+        /**
+         * Build with adaptive repair sizing.
+         *
+         * @param theRepairSizing Adaptive repair sizing, may be null.
+         * @return Builder
+         */
+        public Builder withRepairSizing(final AdaptiveRepairSizing theRepairSizing)
+        {
+            this.repairSizing = theRepairSizing;
+            return this;
+        }
+
         /**
          * Build repair group.
          *
@@ -16,10 +16,13 @@ package com.ericsson.bss.cassandra.ecchronos.core.repair;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -83,6 +86,12 @@ public class RepairLockFactoryImpl implements RepairLockFactory
         }
     }
 
+    /**
+     * Acquire the locks for all repair resources.
+     * <p>
+     * All lock attempts are started before waiting for any of them, so that the round trips for the different
+     * resources overlap. If any of the attempts fail all acquired locks are released.
+     */
     private Collection<LockFactory.DistributedLock> getRepairResourceLocks(
             final LockFactory lockFactory,
             final Collection<RepairResource> repairResources,
@@ -90,19 +99,38 @@ public class RepairLockFactoryImpl implements RepairLockFactory
             final int priority)
             throws LockException
     {
+        Map<RepairResource, CompletableFuture<LockFactory.DistributedLock>> pendingLocks = new LinkedHashMap<>();
+        for (RepairResource repairResource : repairResources)
+        {
+            pendingLocks.put(repairResource, tryLockAsync(lockFactory, repairResource, metadata, priority));
+        }
+
+        CompletableFuture.allOf(pendingLocks.values().toArray(new CompletableFuture[0]))
+                .exceptionally(t -> null)
+                .join();
+
         try (TemporaryLockHolder lockHolder = new TemporaryLockHolder())
         {
-            for (RepairResource repairResource : repairResources)
+            for (CompletableFuture<LockFactory.DistributedLock> pendingLock : pendingLocks.values())
+            {
+                if (!pendingLock.isCompletedExceptionally() && pendingLock.join() != null)
+                {
+                    lockHolder.add(pendingLock.join());
+                }
+            }
+
+            for (Map.Entry<RepairResource, CompletableFuture<LockFactory.DistributedLock>> entry
+                    : pendingLocks.entrySet())
             {
                 try
                 {
-                    lockHolder.add(getLockForRepairResource(lockFactory, repairResource, metadata, priority));
+                    getLockForRepairResource(entry.getKey(), entry.getValue());
                 }
                 catch (LockException e)
                 {
-                    LOG.debug("{} - Unable to get repair resource lock '{}', releasing previously acquired locks - {}",
+                    LOG.debug("{} - Unable to get repair resource lock '{}', releasing acquired locks - {}",
                             this,
-                            repairResource,
+                            entry.getKey(),
                             e.getMessage());
                     throw e;
                 }
@@ -112,11 +140,30 @@ public class RepairLockFactoryImpl implements RepairLockFactory
         }
     }
 
-    private LockFactory.DistributedLock getLockForRepairResource(
+    private CompletableFuture<LockFactory.DistributedLock> tryLockAsync(
             final LockFactory lockFactory,
             final RepairResource repairResource,
             final Map<String, String> metadata,
             final int priority)
+    {
+        String dataCenter = repairResource.getDataCenter();
+        String resource = repairResource.getResourceName(LOCKS_PER_RESOURCE);
+
+        try
+        {
+            return lockFactory.tryLockAsync(dataCenter, resource, priority, metadata).toCompletableFuture();
+        }
+        catch (RuntimeException e)
+        {
+            CompletableFuture<LockFactory.DistributedLock> failedLock = new CompletableFuture<>();
+            failedLock.completeExceptionally(e);
+            return failedLock;
+        }
+    }
+
+    private LockFactory.DistributedLock getLockForRepairResource(
+            final RepairResource repairResource,
+            final CompletableFuture<LockFactory.DistributedLock> pendingLock)
             throws LockException
     {
         LockFactory.DistributedLock myLock;
@@ -126,22 +173,31 @@ public class RepairLockFactoryImpl implements RepairLockFactory
         String resource = repairResource.getResourceName(LOCKS_PER_RESOURCE);
         try
         {
-            myLock = lockFactory.tryLock(dataCenter, resource, priority, metadata);
-
-            if (myLock != null)
+            myLock = pendingLock.join();
+        }
+        catch (CompletionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof LockException)
             {
-                return myLock;
+                LOG.debug("Lock ({} in datacenter {}) got error {}", resource, dataCenter, cause.getMessage());
+                throw (LockException) cause;
             }
-
-            String msg = String.format("Lock resources exhausted for %s", repairResource);
-            LOG.warn(msg);
-            throw new LockException(msg);
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new LockException(cause);
         }
-        catch (LockException e)
+
+        if (myLock != null)
         {
-            LOG.debug("Lock ({} in datacenter {}) got error {}", resource, dataCenter, e.getMessage());
-            throw e;
+            return myLock;
         }
+
+        String msg = String.format("Lock resources exhausted for %s", repairResource);
+        LOG.warn(msg);
+        throw new LockException(msg);
     }
 
     static class TemporaryLockHolder implements AutoCloseable
@@ -44,4 +44,24 @@ public interface RepairScheduler
      * @return the list of the currently scheduled repair jobs.
      */
     List<ScheduledRepairJobView> getCurrentRepairJobs();
+
+    /**
+     * Get the number of currently scheduled tables without creating views of the repair jobs.
+     *
+     * @return The number of scheduled tables.
+     */
+    default int getScheduledTableCount()
+    {
+        return getCurrentRepairJobs().size();
+    }
+
+    /**
+     * Get the number of configured tables that are not yet scheduled, e.g. while their repair state is built.
+     *
+     * @return The number of pending schedules.
+     */
+    default int getPendingSchedules()
+    {
+        return 0;
+    }
 }
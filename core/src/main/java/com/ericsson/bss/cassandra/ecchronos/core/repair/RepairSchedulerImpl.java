@@ -21,11 +21,16 @@ import com.ericsson.bss.cassandra.ecchronos.core.repair.state.AlarmPostUpdateHoo
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairHistory;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairState;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairStateFactory;
+import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairStateRefresher;
 import com.ericsson.bss.cassandra.ecchronos.core.scheduling.ScheduleManager;
 import com.ericsson.bss.cassandra.ecchronos.core.scheduling.ScheduledJob;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReference;
 import com.ericsson.bss.cassandra.ecchronos.fm.RepairFaultReporter;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,22 +42,37 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
  * A factory creating {@link TableRepairJob}'s for tables based on the provided repair configuration.
+ * <p>
+ * Configuration changes are handled in order on a single thread while the repair states of new schedules, which
+ * require the repair history to be read, are built on a bounded thread pool. Schedules are warmed up in order of
+ * their repair error time, so that the tables with the shortest time before being alarmed are scheduled first.
+ * A configuration change or removal of a table that is still warming up replaces the pending schedule.
  */
 public final class RepairSchedulerImpl implements RepairScheduler, Closeable
 {
     private static final int TERMINATION_WAIT = 10;
+    private static final int DEFAULT_WARMUP_THREADS = 4;
+
+    static final String WARMUP_PENDING = "repair.scheduler.warmup.pending";
+    static final String SCHEDULED_TABLES = "repair.scheduler.scheduled";
 
     private static final Logger LOG = LoggerFactory.getLogger(RepairSchedulerImpl.class);
 
     private final Map<TableReference, TableRepairJob> myScheduledJobs = new HashMap<>();
+    private final Map<TableReference, PendingSchedule> myPendingSchedules = new HashMap<>();
+    private final AtomicLong myWarmupSequence = new AtomicLong();
     private final Object myLock = new Object();
 
     private final ExecutorService myExecutor;
+    private final ThreadPoolExecutor myWarmupExecutor;
 
     private final RepairFaultReporter myFaultReporter;
     private final JmxProxyFactory myJmxProxyFactory;
@@ -63,10 +83,15 @@ public final class RepairSchedulerImpl implements RepairScheduler, Closeable
     private final TableStorageStates myTableStorageStates;
     private final List<TableRepairPolicy> myRepairPolicies;
     private final RepairHistory myRepairHistory;
+    private final RepairStateRefresher myRepairStateRefresher;
+    private final AdaptiveRepairSizing myRepairSizing;
 
     private RepairSchedulerImpl(final Builder builder)
     {
         myExecutor = Executors.newSingleThreadScheduledExecutor();
+        myWarmupExecutor = new ThreadPoolExecutor(builder.myWarmupThreads, builder.myWarmupThreads, 0L,
+                TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), new ThreadFactoryBuilder()
+                .setNameFormat("RepairSchedulerWarmup-%d").build());
         myFaultReporter = builder.myFaultReporter;
         myJmxProxyFactory = builder.myJmxProxyFactory;
         myTableRepairMetrics = builder.myTableRepairMetrics;
@@ -76,15 +101,27 @@ public final class RepairSchedulerImpl implements RepairScheduler, Closeable
         myTableStorageStates = builder.myTableStorageStates;
         myRepairPolicies = new ArrayList<>(builder.myRepairPolicies);
         myRepairHistory = Preconditions.checkNotNull(builder.myRepairHistory, "Repair history must be set");
+        myRepairStateRefresher = builder.myRepairStateRefresher;
+        myRepairSizing = builder.myRepairSizing;
+
+        if (builder.myMeterRegistry != null)
+        {
+            Gauge.builder(WARMUP_PENDING, this, RepairSchedulerImpl::getPendingSchedules)
+                    .register(builder.myMeterRegistry);
+            Gauge.builder(SCHEDULED_TABLES, this, RepairSchedulerImpl::getScheduledTableCount)
+                    .register(builder.myMeterRegistry);
+        }
     }
 
     @Override
     public void close()
     {
         myExecutor.shutdown();
+        myWarmupExecutor.shutdownNow();
         try
         {
-            if (!myExecutor.awaitTermination(TERMINATION_WAIT, TimeUnit.SECONDS))
+            if (!myExecutor.awaitTermination(TERMINATION_WAIT, TimeUnit.SECONDS)
+                    || !myWarmupExecutor.awaitTermination(TERMINATION_WAIT, TimeUnit.SECONDS))
             {
                 LOG.warn("Waited 10 seconds for executor to shutdown, still not shut down");
             }
@@ -99,11 +136,12 @@ public final class RepairSchedulerImpl implements RepairScheduler, Closeable
         {
             for (TableReference tableReference : myScheduledJobs.keySet())
             {
-                ScheduledJob job = myScheduledJobs.get(tableReference);
+                TableRepairJob job = myScheduledJobs.get(tableReference);
                 descheduleTableJob(job);
             }
 
             myScheduledJobs.clear();
+            myPendingSchedules.clear();
         }
     }
 
@@ -131,6 +169,29 @@ public final class RepairSchedulerImpl implements RepairScheduler, Closeable
         }
     }
 
+    @Override
+    public int getScheduledTableCount()
+    {
+        synchronized (myLock)
+        {
+            return myScheduledJobs.size();
+        }
+    }
+
+    /**
+     * Get the number of table schedules waiting for their repair state to be built.
+     *
+     * @return The number of pending schedules.
+     */
+    @Override
+    public int getPendingSchedules()
+    {
+        synchronized (myLock)
+        {
+            return myPendingSchedules.size();
+        }
+    }
+
     private void handleTableConfigurationChange(final TableReference tableReference,
                                                 final RepairConfiguration repairConfiguration)
     {
@@ -140,7 +201,10 @@ public final class RepairSchedulerImpl implements RepairScheduler, Closeable
             {
                 if (configurationHasChanged(tableReference, repairConfiguration))
                 {
-                    createTableSchedule(tableReference, repairConfiguration);
+                    PendingSchedule pendingSchedule = new PendingSchedule(tableReference, repairConfiguration,
+                            myWarmupSequence.getAndIncrement());
+                    myPendingSchedules.put(tableReference, pendingSchedule);
+                    myWarmupExecutor.execute(pendingSchedule);
                 }
             }
             catch (Exception e)
@@ -153,19 +217,66 @@ public final class RepairSchedulerImpl implements RepairScheduler, Closeable
     private boolean configurationHasChanged(final TableReference tableReference,
                                             final RepairConfiguration repairConfiguration)
     {
+        PendingSchedule pendingSchedule = myPendingSchedules.get(tableReference);
+        if (pendingSchedule != null)
+        {
+            return !repairConfiguration.equals(pendingSchedule.myRepairConfiguration);
+        }
+
         TableRepairJob tableRepairJob = myScheduledJobs.get(tableReference);
 
         return tableRepairJob == null || !repairConfiguration.equals(tableRepairJob.getRepairConfiguration());
     }
 
+    private void warmUp(final PendingSchedule pendingSchedule)
+    {
+        TableReference tableReference = pendingSchedule.myTableReference;
+        RepairConfiguration repairConfiguration = pendingSchedule.myRepairConfiguration;
+
+        synchronized (myLock)
+        {
+            if (myPendingSchedules.get(tableReference) != pendingSchedule)
+            {
+                LOG.debug("Schedule of {} replaced before warm-up", tableReference);
+                return;
+            }
+        }
+
+        try
+        {
+            AlarmPostUpdateHook alarmPostUpdateHook = new AlarmPostUpdateHook(tableReference,
+                    repairConfiguration, myFaultReporter);
+            RepairState repairState = myRepairStateFactory.create(tableReference, repairConfiguration,
+                    alarmPostUpdateHook);
+
+            synchronized (myLock)
+            {
+                if (myPendingSchedules.get(tableReference) == pendingSchedule)
+                {
+                    myPendingSchedules.remove(tableReference);
+                    createTableSchedule(tableReference, repairConfiguration, repairState);
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            LOG.error("Unexpected error during schedule change of {}:", tableReference, e);
+            synchronized (myLock)
+            {
+                myPendingSchedules.remove(tableReference, pendingSchedule);
+            }
+        }
+    }
+
     private void createTableSchedule(final TableReference tableReference,
-                                     final RepairConfiguration repairConfiguration)
+                                     final RepairConfiguration repairConfiguration,
+                                     final RepairState repairState)
     {
         TableRepairJob oldTableRepairJob = myScheduledJobs.get(tableReference);
 
         descheduleTableJob(oldTableRepairJob);
 
-        TableRepairJob job = getRepairJob(tableReference, repairConfiguration);
+        TableRepairJob job = getRepairJob(tableReference, repairConfiguration, repairState);
         myScheduledJobs.put(tableReference, job);
         myScheduleManager.schedule(job);
     }
@@ -176,8 +287,13 @@ public final class RepairSchedulerImpl implements RepairScheduler, Closeable
         {
             try
             {
-                ScheduledJob job = myScheduledJobs.remove(tableReference);
+                myPendingSchedules.remove(tableReference);
+                TableRepairJob job = myScheduledJobs.remove(tableReference);
                 descheduleTableJob(job);
+                if (myTableRepairMetrics != null)
+                {
+                    myTableRepairMetrics.remove(tableReference);
+                }
             }
             catch (Exception e)
             {
@@ -186,16 +302,21 @@ public final class RepairSchedulerImpl implements RepairScheduler, Closeable
         }
     }
 
-    private void descheduleTableJob(final ScheduledJob job)
+    private void descheduleTableJob(final TableRepairJob job)
     {
         if (job != null)
         {
             myScheduleManager.deschedule(job);
+            if (myRepairStateRefresher != null)
+            {
+                myRepairStateRefresher.unregister(job.getTableReference());
+            }
         }
     }
 
     private TableRepairJob getRepairJob(final TableReference tableReference,
-                                        final RepairConfiguration repairConfiguration)
+                                        final RepairConfiguration repairConfiguration,
+                                        final RepairState repairState)
     {
         long repairIntervalInMs = repairConfiguration.getRepairIntervalInMs();
 
@@ -203,9 +324,6 @@ public final class RepairSchedulerImpl implements RepairScheduler, Closeable
                 .withPriority(ScheduledJob.Priority.LOW)
                 .withRunInterval(repairIntervalInMs, TimeUnit.MILLISECONDS)
                 .build();
-        AlarmPostUpdateHook alarmPostUpdateHook = new AlarmPostUpdateHook(tableReference,
-                repairConfiguration, myFaultReporter);
-        RepairState repairState = myRepairStateFactory.create(tableReference, repairConfiguration, alarmPostUpdateHook);
 
         TableRepairJob job = new TableRepairJob.Builder()
                 .withConfiguration(configuration)
@@ -218,13 +336,64 @@ public final class RepairSchedulerImpl implements RepairScheduler, Closeable
                 .withTableStorageStates(myTableStorageStates)
                 .withRepairPolices(myRepairPolicies)
                 .withRepairHistory(myRepairHistory)
+                .withRepairStateRefresher(myRepairStateRefresher)
+                .withRepairSizing(myRepairSizing)
                 .build();
 
+        if (myRepairStateRefresher != null)
+        {
+            myRepairStateRefresher.register(tableReference, repairState, repairIntervalInMs,
+                    () -> myScheduleManager.reindex(job));
+        }
+
         job.runnable();
 
         return job;
     }
 
+    @VisibleForTesting
+    int getWarmupQueueSize()
+    {
+        return myWarmupExecutor.getQueue().size();
+    }
+
+    /**
+     * A table schedule waiting for its repair state to be built.
+     * Ordered by repair error time and then by the order the schedules were requested.
+     */
+    private final class PendingSchedule implements Runnable, Comparable<PendingSchedule>
+    {
+        private final TableReference myTableReference;
+        private final RepairConfiguration myRepairConfiguration;
+        private final long mySequence;
+
+        PendingSchedule(final TableReference tableReference, final RepairConfiguration repairConfiguration,
+                        final long sequence)
+        {
+            myTableReference = tableReference;
+            myRepairConfiguration = repairConfiguration;
+            mySequence = sequence;
+        }
+
+        @Override
+        public void run()
+        {
+            warmUp(this);
+        }
+
+        @Override
+        public int compareTo(final PendingSchedule other)
+        {
+            int cmp = Long.compare(myRepairConfiguration.getRepairErrorTimeInMs(),
+                    other.myRepairConfiguration.getRepairErrorTimeInMs());
+            if (cmp != 0)
+            {
+                return cmp;
+            }
+            return Long.compare(mySequence, other.mySequence);
+        }
+    }
+
     public static Builder builder()
     {
         return new Builder();
@@ -240,6 +409,10 @@ public final class RepairSchedulerImpl implements RepairScheduler, Closeable
         private RepairLockType myRepairLockType;
         private TableStorageStates myTableStorageStates;
         private RepairHistory myRepairHistory;
+        private RepairStateRefresher myRepairStateRefresher;
+        private AdaptiveRepairSizing myRepairSizing;
+        private int myWarmupThreads = DEFAULT_WARMUP_THREADS;
+        private MeterRegistry myMeterRegistry;
         private final List<TableRepairPolicy> myRepairPolicies = new ArrayList<>();
 
         /**
@@ -350,6 +523,59 @@ public final class RepairSchedulerImpl implements RepairScheduler, Closeable
             return this;
         }
 
+        /**
+         * RepairSchedulerImpl build with repair state refresher.
+         * <p>
+         * If set the repair states of the scheduled tables are refreshed in the background.
+         *
+         * @param repairStateRefresher Repair state refresher.
+         * @return Builder
+         */
+        public Builder withRepairStateRefresher(final RepairStateRefresher repairStateRefresher)
+        {
+            myRepairStateRefresher = repairStateRefresher;
+            return this;
+        }
+
+        /**
+         * RepairSchedulerImpl build with adaptive repair sizing.
+         * <p>
+         * If set the sub ranges of tables with a target repair session time are sized from the observed session time.
+         *
+         * @param repairSizing Adaptive repair sizing.
+         * @return Builder
+         */
+        public Builder withRepairSizing(final AdaptiveRepairSizing repairSizing)
+        {
+            myRepairSizing = repairSizing;
+            return this;
+        }
+
+        /**
+         * RepairSchedulerImpl build with the number of threads building the repair states of new schedules.
+         *
+         * @param warmupThreads The number of warm-up threads.
+         * @return Builder
+         */
+        public Builder withWarmupThreads(final int warmupThreads)
+        {
+            Preconditions.checkArgument(warmupThreads > 0, "Warm-up threads must be positive");
+            myWarmupThreads = warmupThreads;
+            return this;
+        }
+
+        /**
+         * RepairSchedulerImpl build with meter registry for the warm-up progress.
+         *
+         * @param meterRegistry The meter registry, may be null.
+         * @return Builder
+         */
+        public Builder withMeterRegistry(final MeterRegistry meterRegistry)
+        {
+            myMeterRegistry = meterRegistry;
+            return this;
+        }
+
         /**
          * RepairSchedulerImpl build.
          *
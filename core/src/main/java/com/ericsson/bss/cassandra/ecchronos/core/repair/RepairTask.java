@@ -26,6 +26,7 @@ import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReference;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,6 +34,7 @@ import javax.management.Notification;
 import javax.management.NotificationListener;
 import javax.management.remote.JMXConnectionNotification;
 import java.io.IOException;
+import java.math.BigInteger;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -43,9 +45,9 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -56,6 +58,8 @@ import java.util.stream.Collectors;
  * <p>
  * If the repair failed the {@link #getUnknownRanges()} can be used to retrieve the ranges that have an unknown status
  * during the repair.
+ * <p>
+ * All repair tasks share a single timer thread for the hang prevention.
  */
 public class RepairTask implements NotificationListener //NOPMD Possible god class, needs refactoring
 {
@@ -68,7 +72,7 @@ public class RepairTask implements NotificationListener //NOPMD Possible god cla
 
     private static final long HANG_PREVENT_TIME_IN_MINUTES = 30;
 
-    private final ScheduledExecutorService myExecutor = Executors.newScheduledThreadPool(1);
+    private static final ScheduledExecutorService HANG_PREVENTION_EXECUTOR = createHangPreventionExecutor();
 
     private final Set<LongTokenRange> completedRanges = Collections.synchronizedSet(new HashSet<>());
     private final CountDownLatch myLatch = new CountDownLatch(1);
@@ -79,6 +83,7 @@ public class RepairTask implements NotificationListener //NOPMD Possible god cla
     private final TableReference myTableReference;
     private final TableRepairMetrics myTableRepairMetrics;
     private final RepairConfiguration myRepairConfiguration;
+    private final AdaptiveRepairSizing myRepairSizing;
 
     private volatile boolean hasLostNotification = false;
     private volatile ScheduledJobException myLastError;
@@ -102,6 +107,7 @@ public class RepairTask implements NotificationListener //NOPMD Possible god cla
         myReplicas = Preconditions.checkNotNull(builder.replicas, "Replicas must be set");
         myTableRepairMetrics = builder.tableRepairMetrics;
         myRepairConfiguration = builder.repairConfiguration;
+        myRepairSizing = builder.repairSizing;
 
         for (LongTokenRange range : myTokenRanges)
         {
@@ -149,9 +155,22 @@ public class RepairTask implements NotificationListener //NOPMD Possible god cla
             myTableRepairMetrics.repairSession(myTableReference, executionNanos, TimeUnit.NANOSECONDS, successful);
         }
 
+        recordSessionTime(executionNanos);
+
         lazySleep(executionNanos);
     }
 
+    private void recordSessionTime(final long executionNanos)
+    {
+        if (myRepairSizing != null)
+        {
+            BigInteger tokens = myTokenRanges.stream()
+                    .map(LongTokenRange::rangeSize)
+                    .reduce(BigInteger.ZERO, BigInteger::add);
+            myRepairSizing.recordSession(myTableReference, tokens, executionNanos);
+        }
+    }
+
     private void finish(final RepairStatus repairStatus)
     {
         myRepairSessions.values().forEach(rs -> rs.finish(repairStatus));
@@ -198,7 +217,11 @@ public class RepairTask implements NotificationListener //NOPMD Possible god cla
      */
     public void cleanup()
     {
-        myExecutor.shutdown();
+        ScheduledFuture<?> hangPreventFuture = myHangPreventFuture;
+        if (hangPreventFuture != null)
+        {
+            hangPreventFuture.cancel(false);
+        }
     }
 
     /**
@@ -420,10 +443,20 @@ public class RepairTask implements NotificationListener //NOPMD Possible god cla
         {
             myHangPreventFuture.cancel(false);
         }
-        myHangPreventFuture = myExecutor.schedule(new HangPreventingTask(),
+        myHangPreventFuture = HANG_PREVENTION_EXECUTOR.schedule(new HangPreventingTask(),
                 HANG_PREVENT_TIME_IN_MINUTES, TimeUnit.MINUTES);
     }
 
+    private static ScheduledExecutorService createHangPreventionExecutor()
+    {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setNameFormat("RepairHangPrevention-%d")
+                .setDaemon(true)
+                .build());
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
     /**
      * A builder class for repair tasks.
      */
@@ -437,6 +470,7 @@ public class RepairTask implements NotificationListener //NOPMD Possible god cla
         private Set<DriverNode> replicas;
         private TableRepairMetrics tableRepairMetrics;
         private RepairConfiguration repairConfiguration = RepairConfiguration.DEFAULT;
+        private AdaptiveRepairSizing repairSizing;
 
         /**
          * Build with repair history.
@@ -534,6 +568,18 @@ public class RepairTask implements NotificationListener //NOPMD Possible god cla
             return this;
         }
 
+        /**
+         * Build with adaptive repair sizing, successful sessions are recorded to it.
+         *
+         * @param theRepairSizing Adaptive repair sizing, may be null.
+         * @return Builder
+         */
+        public Builder withRepairSizing(final AdaptiveRepairSizing theRepairSizing)
+        {
+            this.repairSizing = theRepairSizing;
+            return this;
+        }
+
         /**
          * Build RepairTask.
          *
@@ -613,7 +659,6 @@ public class RepairTask implements NotificationListener //NOPMD Possible god cla
      *
      * @return Set<LongTokenRanges>
      */
-    @VisibleForTesting
     Set<LongTokenRange> getTokenRanges()
     {
         return Sets.newHashSet(myTokenRanges);
@@ -624,7 +669,6 @@ public class RepairTask implements NotificationListener //NOPMD Possible god cla
      *
      * @return Collection<LongTokenRange>
      */
-    @VisibleForTesting
     Collection<LongTokenRange> getCompletedRanges()
     {
         return Sets.newHashSet(completedRanges);
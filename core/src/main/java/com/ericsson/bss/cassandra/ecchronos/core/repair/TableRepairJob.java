@@ -19,6 +19,7 @@ import com.ericsson.bss.cassandra.ecchronos.core.TableStorageStates;
 import com.ericsson.bss.cassandra.ecchronos.core.metrics.TableRepairMetrics;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairHistory;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairState;
+import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairStateRefresher;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairStateSnapshot;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.ReplicaRepairGroup;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.VnodeRepairState;
@@ -64,6 +65,8 @@ public class TableRepairJob extends ScheduledJob
     private final TableRepairMetrics myTableRepairMetrics;
     private final TableStorageStates myTableStorageStates;
     private final RepairHistory myRepairHistory;
+    private final RepairStateRefresher myRepairStateRefresher;
+    private final AdaptiveRepairSizing myRepairSizing;
 
     TableRepairJob(final Builder builder)
     {
@@ -89,6 +92,8 @@ public class TableRepairJob extends ScheduledJob
                 "Repair policies cannot be null");
         myRepairHistory = Preconditions.checkNotNull(builder.repairHistory,
                 "Repair history must be set");
+        myRepairStateRefresher = builder.repairStateRefresher;
+        myRepairSizing = builder.repairSizing;
     }
 
     /**
@@ -200,6 +205,7 @@ public class TableRepairJob extends ScheduledJob
                         .withTokensPerRepair(tokensPerRepair)
                         .withRepairPolicies(myRepairPolicies)
                         .withRepairHistory(myRepairHistory)
+                        .withRepairSizing(myRepairSizing)
                         .withJobId(getId());
 
                 taskList.add(builder.build(getRealPriority()));
@@ -224,13 +230,11 @@ public class TableRepairJob extends ScheduledJob
     @Override
     public void postExecute(final boolean successful, final ScheduledTask task)
     {
-        try
+        // The next tasks are based on the snapshot, so it is refreshed before continuing to avoid repairing the
+        // ranges of this task again
+        if (myRepairStateRefresher == null || !myRepairStateRefresher.refreshNow(myTableReference))
         {
-            myRepairState.update();
-        }
-        catch (Exception e)
-        {
-            LOG.warn("Unable to check repair history, {}", this, e);
+            updateRepairStateDirectly();
         }
 
         super.postExecute(successful, task);
@@ -268,14 +272,7 @@ public class TableRepairJob extends ScheduledJob
     {
         if (super.runnable())
         {
-            try
-            {
-                myRepairState.update();
-            }
-            catch (Exception e)
-            {
-                LOG.warn("Unable to check repair history, {}", this, e);
-            }
+            updateRepairState();
         }
 
         return myRepairState.getSnapshot().canRepair() && super.runnable();
@@ -292,6 +289,31 @@ public class TableRepairJob extends ScheduledJob
         return String.format("Repair job of %s", myTableReference);
     }
 
+    /**
+     * Update the repair state, either in the background if a refresher is used or directly.
+     */
+    private void updateRepairState()
+    {
+        if (myRepairStateRefresher != null && myRepairStateRefresher.requestRefresh(myTableReference))
+        {
+            return;
+        }
+
+        updateRepairStateDirectly();
+    }
+
+    private void updateRepairStateDirectly()
+    {
+        try
+        {
+            myRepairState.update();
+        }
+        catch (Exception e)
+        {
+            LOG.warn("Unable to check repair history, {}", this, e);
+        }
+    }
+
     private BigInteger getTokensPerRepair(final VnodeRepairStates vnodeRepairStates)
     {
         BigInteger tokensPerRepair = LongTokenRange.FULL_RANGE;
@@ -312,6 +334,12 @@ public class TableRepairJob extends ScheduledJob
                 BigInteger targetRepairs = tableSizeInBytes.divide(targetSizeInBytes);
                 tokensPerRepair = fullRangeSize.divide(targetRepairs);
             }
+
+            if (myRepairSizing != null)
+            {
+                tokensPerRepair = myRepairSizing.getTokensPerRepair(myTableReference,
+                        myRepairConfiguration.getTargetRepairSessionTimeInMs(), tokensPerRepair);
+            }
         }
 
         return tokensPerRepair;
@@ -333,6 +361,8 @@ public class TableRepairJob extends ScheduledJob
         private TableStorageStates tableStorageStates;
         private final List<TableRepairPolicy> repairPolicies = new ArrayList<>();
         private RepairHistory repairHistory;
+        private RepairStateRefresher repairStateRefresher;
+        private AdaptiveRepairSizing repairSizing;
 
         /**
          * Build table repair job with configuration.
@@ -454,6 +484,34 @@ public class TableRepairJob extends ScheduledJob
             return this;
         }
 
+        /**
+         * Build table repair job with repair state refresher.
+         * <p>
+         * If set the repair state is refreshed in the background instead of in the scheduling thread.
+         *
+         * @param aRepairStateRefresher Repair state refresher.
+         * @return Builder
+         */
+        public Builder withRepairStateRefresher(final RepairStateRefresher aRepairStateRefresher)
+        {
+            this.repairStateRefresher = aRepairStateRefresher;
+            return this;
+        }
+
+        /**
+         * Build table repair job with adaptive repair sizing.
+         *
+         * If set the sub ranges are sized based on the observed repair session time of the table.
+         *
+         * @param aRepairSizing Adaptive repair sizing.
+         * @return Builder
+         */
+        public Builder withRepairSizing(final AdaptiveRepairSizing aRepairSizing)
+        {
+            this.repairSizing = aRepairSizing;
+            return this;
+        }
+
         /**
          * Build table repair job.
          *
@@ -17,8 +17,8 @@ package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
 import com.datastax.oss.driver.api.core.ConsistencyLevel;
 import com.datastax.oss.driver.api.core.CqlSession;
 import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
-import com.datastax.oss.driver.api.core.cql.ResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.cql.Statement;
 import com.datastax.oss.driver.api.core.uuid.Uuids;
@@ -30,16 +30,24 @@ import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReference;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -47,13 +55,29 @@ import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
 
-public final class EccRepairHistory implements RepairHistory, RepairHistoryProvider
+/**
+ * Repair history stored in the {@code repair_history} table.
+ * <p>
+ * The history read for a table and node is kept in memory together with a watermark of how far it has been read.
+ * Subsequent iterations up to the current time only read the rows newer than the watermark and merge them with the
+ * history already read.
+ * <p>
+ * If a checkpoint interval is set the history read for the local node is periodically stored as a checkpoint. When
+ * the history of a table is not in memory, e.g. after a restart, it is rebuilt from the checkpoint and the rows newer
+ * than the checkpoint instead of reading the full lookback time.
+ * <p>
+ * If a write batch size is set the session rows are written behind, grouped per partition into unlogged batches.
+ * All rows are written with increasing timestamps so that the finish of a session always overrides its start, even
+ * if both end up in the same batch.
+ */
+public final class EccRepairHistory implements RepairHistory, RepairHistoryProvider, Closeable
 {
     private static final Logger LOG = LoggerFactory.getLogger(EccRepairHistory.class);
 
@@ -68,7 +92,16 @@ public final class EccRepairHistory implements RepairHistory, RepairHistoryProvi
     private static final String COLUMN_STARTED_AT = "started_at";
     private static final String COLUMN_FINISHED_AT = "finished_at";
 
+    private static final long WATERMARK_OVERLAP_IN_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long FULL_READ_INTERVAL_IN_MS = TimeUnit.DAYS.toMillis(1);
+
+    static final String ROWS_READ = "repair.history.rows.read";
+    static final String INITIAL_READ_TIME = "repair.history.initial.read";
+    private static final String SOURCE_TAG = "source";
+
     private final long lookbackTimeInMs;
+    private final int pageSize;
+    private final Cache<HistoryKey, IngestedRepairHistory> ingestedHistories;
 
     private final CqlSession session;
     private final DriverNode localNode;
@@ -80,6 +113,16 @@ public final class EccRepairHistory implements RepairHistory, RepairHistoryProvi
     private final PreparedStatement initiateStatement;
     private final PreparedStatement finishStatement;
 
+    private final AtomicLong lastWriteTimestamp = new AtomicLong();
+    private final RepairHistoryWriter writer;
+
+    private final RepairHistoryCheckpoints checkpoints;
+    private final long checkpointIntervalInMs;
+
+    private final Counter historyRowsRead;
+    private final Counter checkpointRowsRead;
+    private final Timer initialReadTimer;
+
     private EccRepairHistory(final Builder builder)
     {
         Preconditions.checkArgument(builder.lookbackTimeInMs > 0,
@@ -94,6 +137,18 @@ public final class EccRepairHistory implements RepairHistory, RepairHistoryProvi
         replicationState = Preconditions.checkNotNull(builder.replicationState,
                 "Replication state must be set");
         lookbackTimeInMs = builder.lookbackTimeInMs;
+        pageSize = builder.pageSize;
+        if (builder.ingestedHistoryCacheSize > 0)
+        {
+            ingestedHistories = CacheBuilder.newBuilder()
+                    .maximumSize(builder.ingestedHistoryCacheSize)
+                    .expireAfterAccess(FULL_READ_INTERVAL_IN_MS, TimeUnit.MILLISECONDS)
+                    .build();
+        }
+        else
+        {
+            ingestedHistories = null;
+        }
 
         initiateStatement = session.prepare(QueryBuilder.insertInto(builder.keyspaceName, "repair_history")
                         .value(COLUMN_TABLE_ID, bindMarker())
@@ -105,9 +160,11 @@ public final class EccRepairHistory implements RepairHistory, RepairHistoryProvi
                         .value(COLUMN_RANGE_END, bindMarker())
                         .value(COLUMN_STATUS, bindMarker())
                         .value(COLUMN_STARTED_AT, bindMarker())
+                        .usingTimestamp(bindMarker())
                 .build().setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM));
 
         finishStatement = session.prepare(QueryBuilder.update(builder.keyspaceName, "repair_history")
+                        .usingTimestamp(bindMarker())
                         .setColumn(COLUMN_STATUS, bindMarker())
                         .setColumn(COLUMN_FINISHED_AT, bindMarker())
                         .whereColumn(COLUMN_TABLE_ID).isEqualTo(bindMarker())
@@ -122,6 +179,52 @@ public final class EccRepairHistory implements RepairHistory, RepairHistoryProvi
                 .whereColumn(COLUMN_REPAIR_ID).isGreaterThanOrEqualTo(bindMarker())
                 .whereColumn(COLUMN_REPAIR_ID).isLessThanOrEqualTo(bindMarker()).build()
                 .setConsistencyLevel(ConsistencyLevel.LOCAL_ONE));
+
+        checkpointIntervalInMs = builder.checkpointIntervalInMs;
+        if (checkpointIntervalInMs > 0)
+        {
+            checkpoints = new RepairHistoryCheckpoints(session, builder.keyspaceName, this::executeAsync);
+        }
+        else
+        {
+            checkpoints = null;
+        }
+
+        if (builder.meterRegistry != null)
+        {
+            historyRowsRead = Counter.builder(ROWS_READ).tag(SOURCE_TAG, "history").register(builder.meterRegistry);
+            checkpointRowsRead = Counter.builder(ROWS_READ).tag(SOURCE_TAG, "checkpoint")
+                    .register(builder.meterRegistry);
+            initialReadTimer = Timer.builder(INITIAL_READ_TIME).register(builder.meterRegistry);
+        }
+        else
+        {
+            historyRowsRead = null;
+            checkpointRowsRead = null;
+            initialReadTimer = null;
+        }
+
+        if (builder.writeBatchSize > 0)
+        {
+            writer = new RepairHistoryWriter(this::executeAsync, builder.writeBatchSize,
+                    builder.writeBufferSize, builder.writeFlushIntervalInMs, builder.meterRegistry);
+        }
+        else
+        {
+            writer = null;
+        }
+    }
+
+    /**
+     * Write the buffered session rows, if any, and stop buffering.
+     */
+    @Override
+    public void close()
+    {
+        if (writer != null)
+        {
+            writer.close();
+        }
     }
 
     @Override
@@ -166,23 +269,216 @@ public final class EccRepairHistory implements RepairHistory, RepairHistoryProvi
                                          final long from,
                                          final Predicate<RepairEntry> predicate)
     {
-        UUID start = Uuids.startOf(from);
-        UUID finish = Uuids.endOf(to);
-
         boolean clusterWide = false;
         if (!nodeId.equals(localNode.getId()))
         {
             clusterWide = true;
         }
-        Statement statement = iterateStatement.bind(tableReference.getId(), nodeId, start, finish);
-        ResultSet resultSet = execute(statement);
 
-        return new RepairEntryIterator(tableReference, resultSet, predicate, clusterWide);
+        Iterator<IngestedRepairHistory.HistoryRow> ingestedRows = iterateIngested(nodeId, tableReference, to, from);
+        if (ingestedRows != null)
+        {
+            return new RepairEntryIterator(tableReference, ingestedRows, predicate, clusterWide);
+        }
+
+        Iterator<Row> rows = executeIterate(nodeId, tableReference, to, from);
+
+        return new RepairEntryIterator(tableReference, toHistoryRows(rows), predicate, clusterWide);
+    }
+
+    /**
+     * Iterate the ingested history for the interval, reading only the rows newer than the watermark if the
+     * history has been read before.
+     * <p>
+     * The read is started right away but the rows are merged into the ingested history when the iteration starts.
+     *
+     * @return The rows of the ingested history or null if the interval is not up to the current time.
+     */
+    private Iterator<IngestedRepairHistory.HistoryRow> iterateIngested(final UUID nodeId,
+                                                                       final TableReference tableReference,
+                                                                       final long to,
+                                                                       final long from)
+    {
+        long now = System.currentTimeMillis();
+        if (ingestedHistories == null || to < now - WATERMARK_OVERLAP_IN_MS)
+        {
+            return null;
+        }
+
+        HistoryKey historyKey = new HistoryKey(nodeId, tableReference.getId());
+        IngestedRepairHistory cachedHistory = ingestedHistories.getIfPresent(historyKey);
+
+        IngestedRepairHistory ingestedHistory;
+        long readFrom;
+        if (cachedHistory != null && cachedHistory.canServe(from, to, now, FULL_READ_INTERVAL_IN_MS))
+        {
+            ingestedHistory = cachedHistory;
+            readFrom = ingestedHistory.tailStart(WATERMARK_OVERLAP_IN_MS);
+            LOG.trace("Reading repair history of {} for {} from watermark {}", tableReference, nodeId, readFrom);
+        }
+        else
+        {
+            ingestedHistory = new IngestedRepairHistory(from, now, FULL_READ_INTERVAL_IN_MS);
+            readFrom = from;
+            if (cachedHistory == null && checkpoints != null)
+            {
+                readFrom = readCheckpoint(nodeId, tableReference, ingestedHistory, from, now);
+            }
+            LOG.debug("Reading repair history of {} for {} from {}", tableReference, nodeId, readFrom);
+        }
+
+        long initialReadStart = System.nanoTime();
+        Iterator<Row> rows = executeIterate(nodeId, tableReference, to, readFrom);
+
+        return new AbstractIterator<IngestedRepairHistory.HistoryRow>()
+        {
+            private Iterator<IngestedRepairHistory.HistoryRow> myIngestedRows;
+
+            @Override
+            protected IngestedRepairHistory.HistoryRow computeNext()
+            {
+                if (myIngestedRows == null)
+                {
+                    ingestedHistory.ingest(() -> toHistoryRows(rows), Math.min(to, now));
+                    if (ingestedHistory != cachedHistory)
+                    {
+                        ingestedHistories.put(historyKey, ingestedHistory);
+                    }
+                    if (cachedHistory == null && initialReadTimer != null)
+                    {
+                        initialReadTimer.record(System.nanoTime() - initialReadStart, TimeUnit.NANOSECONDS);
+                    }
+                    writeCheckpointIfDue(nodeId, tableReference, ingestedHistory, now);
+                    myIngestedRows = ingestedHistory.getRows(from, to).iterator();
+                }
+
+                return myIngestedRows.hasNext() ? myIngestedRows.next() : endOfData();
+            }
+        };
+    }
+
+    /**
+     * Seed the ingested history from the stored checkpoint.
+     *
+     * @return The point in time to read the repair history from.
+     */
+    private long readCheckpoint(final UUID nodeId,
+                                final TableReference tableReference,
+                                final IngestedRepairHistory ingestedHistory,
+                                final long from,
+                                final long now)
+    {
+        RepairHistoryCheckpoints.Checkpoint checkpoint;
+        try
+        {
+            checkpoint = checkpoints.read(tableReference.getId(), nodeId);
+        }
+        catch (RuntimeException e)
+        {
+            LOG.warn("Unable to read repair history checkpoint of {} for {}, reading full history",
+                    tableReference, nodeId, e);
+            return from;
+        }
+
+        if (checkpoint == null || checkpoint.getMergedUntil() <= from)
+        {
+            return from;
+        }
+
+        ingestedHistory.ingest(checkpoint.getRows(), Math.min(checkpoint.getMergedUntil(), now));
+        ingestedHistory.markCheckpointed(now);
+        if (checkpointRowsRead != null)
+        {
+            checkpointRowsRead.increment(checkpoint.getRows().size());
+        }
+        LOG.debug("Read repair history checkpoint of {} for {} merged until {}", tableReference, nodeId,
+                checkpoint.getMergedUntil());
+
+        return ingestedHistory.tailStart(WATERMARK_OVERLAP_IN_MS);
+    }
+
+    /**
+     * Store the history of the local node as a checkpoint if the checkpoint interval has passed.
+     */
+    private void writeCheckpointIfDue(final UUID nodeId,
+                                      final TableReference tableReference,
+                                      final IngestedRepairHistory ingestedHistory,
+                                      final long now)
+    {
+        if (checkpoints == null || !nodeId.equals(localNode.getId()))
+        {
+            return;
+        }
+
+        RepairHistoryCheckpoints.Checkpoint checkpoint = ingestedHistory.checkpointIfDue(now,
+                checkpointIntervalInMs);
+        if (checkpoint != null)
+        {
+            LOG.debug("Storing repair history checkpoint of {} with {} rows", tableReference,
+                    checkpoint.getRows().size());
+            checkpoints.write(tableReference.getId(), nodeId, checkpoint);
+        }
+    }
+
+    /**
+     * Start reading the repair history rows, the pages are fetched asynchronously while iterating.
+     */
+    private Iterator<Row> executeIterate(final UUID nodeId,
+                                         final TableReference tableReference,
+                                         final long to,
+                                         final long from)
+    {
+        UUID start = Uuids.startOf(from);
+        UUID finish = Uuids.endOf(to);
+
+        BoundStatement statement = iterateStatement.bind(tableReference.getId(), nodeId, start, finish);
+        if (pageSize > 0)
+        {
+            statement = statement.setPageSize(pageSize);
+        }
+        Iterator<Row> rows = new PrefetchingRowIterator(executeAsync(statement));
+        if (historyRowsRead != null)
+        {
+            return Iterators.transform(rows, this::countRead);
+        }
+        return rows;
+    }
+
+    private Row countRead(final Row row)
+    {
+        historyRowsRead.increment();
+        return row;
+    }
+
+    private static Iterator<IngestedRepairHistory.HistoryRow> toHistoryRows(final Iterator<Row> rows)
+    {
+        return Iterators.transform(Iterators.filter(rows, EccRepairHistory::validateFields),
+                EccRepairHistory::toHistoryRow);
+    }
+
+    private static IngestedRepairHistory.HistoryRow toHistoryRow(final Row row)
+    {
+        long rangeBegin = Long.parseLong(row.getString(COLUMN_RANGE_BEGIN));
+        long rangeEnd = Long.parseLong(row.getString(COLUMN_RANGE_END));
+
+        LongTokenRange tokenRange = new LongTokenRange(rangeBegin, rangeEnd);
+        long startedAt = row.getInstant(COLUMN_STARTED_AT).toEpochMilli();
+        Instant finished = row.getInstant(COLUMN_FINISHED_AT);
+        long finishedAt = -1L;
+        if (finished != null)
+        {
+            finishedAt = finished.toEpochMilli();
+        }
+
+        return new IngestedRepairHistory.HistoryRow(tokenRange, startedAt, finishedAt, row.getString(COLUMN_STATUS));
     }
 
-    private ResultSet execute(final Statement statement)
+    private static boolean validateFields(final Row row)
     {
-        return session.execute(statementDecorator.apply(statement));
+        return !row.isNull(COLUMN_RANGE_BEGIN)
+                && !row.isNull(COLUMN_RANGE_END)
+                && !row.isNull(COLUMN_STARTED_AT)
+                && !row.isNull(COLUMN_STATUS);
     }
 
     private CompletionStage<AsyncResultSet> executeAsync(final Statement statement)
@@ -190,20 +486,29 @@ public final class EccRepairHistory implements RepairHistory, RepairHistoryProvi
         return session.executeAsync(statementDecorator.apply(statement));
     }
 
+    /**
+     * Get a write timestamp in microseconds that is higher than all previous write timestamps.
+     */
+    private long nextWriteTimestamp()
+    {
+        long now = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        return lastWriteTimestamp.updateAndGet(last -> Math.max(now, last + 1));
+    }
+
     class RepairEntryIterator extends AbstractIterator<RepairEntry>
     {
         private final TableReference tableReference;
-        private final Iterator<Row> rowIterator;
+        private final Iterator<IngestedRepairHistory.HistoryRow> rowIterator;
         private final Predicate<RepairEntry> predicate;
         private final boolean clusterWide;
 
         RepairEntryIterator(final TableReference aTableReference,
-                            final ResultSet aResultSet,
+                            final Iterator<IngestedRepairHistory.HistoryRow> aRowIterator,
                             final Predicate<RepairEntry> aPredicate,
                             final boolean isClusterWide)
         {
             this.tableReference = aTableReference;
-            this.rowIterator = aResultSet.iterator();
+            this.rowIterator = aRowIterator;
             this.predicate = aPredicate;
             this.clusterWide = isClusterWide;
         }
@@ -213,34 +518,21 @@ public final class EccRepairHistory implements RepairHistory, RepairHistoryProvi
         {
             while (rowIterator.hasNext())
             {
-                Row row = rowIterator.next();
+                IngestedRepairHistory.HistoryRow row = rowIterator.next();
 
-                if (validateFields(row))
+                RepairEntry repairEntry = buildFrom(row, clusterWide);
+                if (repairEntry != null && predicate.apply(repairEntry))
                 {
-                    RepairEntry repairEntry = buildFrom(row, clusterWide);
-                    if (repairEntry != null && predicate.apply(repairEntry))
-                    {
-                        return repairEntry;
-                    }
+                    return repairEntry;
                 }
             }
 
             return endOfData();
         }
 
-        private RepairEntry buildFrom(final Row row, final boolean isClusterWide)
+        private RepairEntry buildFrom(final IngestedRepairHistory.HistoryRow row, final boolean isClusterWide)
         {
-            long rangeBegin = Long.parseLong(row.getString(COLUMN_RANGE_BEGIN));
-            long rangeEnd = Long.parseLong(row.getString(COLUMN_RANGE_END));
-
-            LongTokenRange tokenRange = new LongTokenRange(rangeBegin, rangeEnd);
-            long startedAt = row.getInstant(COLUMN_STARTED_AT).toEpochMilli();
-            Instant finished = row.getInstant(COLUMN_FINISHED_AT);
-            long finishedAt = -1L;
-            if (finished != null)
-            {
-                finishedAt = finished.toEpochMilli();
-            }
+            LongTokenRange tokenRange = row.getRange();
             Set<DriverNode> nodes;
             if (isClusterWide)
             {
@@ -255,17 +547,41 @@ public final class EccRepairHistory implements RepairHistory, RepairHistoryProvi
                 LOG.debug("Token range {} was not found in metadata", tokenRange);
                 return null;
             }
-            String status = row.getString(COLUMN_STATUS);
 
-            return new RepairEntry(tokenRange, startedAt, finishedAt, nodes, status);
+            return new RepairEntry(tokenRange, row.getStartedAt(), row.getFinishedAt(), nodes, row.getStatus());
+        }
+    }
+
+    private static final class HistoryKey
+    {
+        private final UUID nodeId;
+        private final UUID tableId;
+
+        HistoryKey(final UUID aNodeId, final UUID aTableId)
+        {
+            this.nodeId = aNodeId;
+            this.tableId = aTableId;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass())
+            {
+                return false;
+            }
+            HistoryKey that = (HistoryKey) o;
+            return nodeId.equals(that.nodeId) && tableId.equals(that.tableId);
         }
 
-        private boolean validateFields(final Row row)
+        @Override
+        public int hashCode()
         {
-            return !row.isNull(COLUMN_RANGE_BEGIN)
-                    && !row.isNull(COLUMN_RANGE_END)
-                    && !row.isNull(COLUMN_STARTED_AT)
-                    && !row.isNull(COLUMN_STATUS);
+            return Objects.hash(nodeId, tableId);
         }
     }
 
@@ -326,7 +642,8 @@ public final class EccRepairHistory implements RepairHistory, RepairHistoryProvi
             String rangeEnd = Long.toString(range.end);
             Date startedAt = new Date(Uuids.unixTimestamp(repairId.get()));
 
-            insertWithRetry(participant -> insertStart(rangeBegin, rangeEnd, startedAt, participant));
+            long timestamp = nextWriteTimestamp();
+            write(participant -> startStatement(rangeBegin, rangeEnd, startedAt, participant, timestamp));
         }
 
         /**
@@ -342,7 +659,23 @@ public final class EccRepairHistory implements RepairHistory, RepairHistoryProvi
             transitionTo(SessionState.DONE);
             Date finishedAt = new Date(System.currentTimeMillis());
 
-            insertWithRetry(participant -> insertFinish(repairStatus, finishedAt, participant));
+            long timestamp = nextWriteTimestamp();
+            write(participant -> finishStatement(repairStatus, finishedAt, participant, timestamp));
+        }
+
+        private void write(final Function<UUID, BoundStatement> statementFunction)
+        {
+            if (writer != null)
+            {
+                for (UUID participant : participants)
+                {
+                    writer.write(new HistoryKey(participant, tableId), statementFunction.apply(participant));
+                }
+            }
+            else
+            {
+                insertWithRetry(participant -> executeAsync(statementFunction.apply(participant)));
+            }
         }
 
         private void insertWithRetry(final Function<UUID, CompletionStage<AsyncResultSet>> insertFunction)
@@ -386,27 +719,28 @@ public final class EccRepairHistory implements RepairHistory, RepairHistoryProvi
             }
         }
 
-        private CompletionStage<AsyncResultSet> insertStart(final String rangeBegin,
-                                                            final String rangeEnd,
-                                                            final Date startedAt,
-                                                            final UUID participant)
+        private BoundStatement startStatement(final String rangeBegin,
+                                              final String rangeEnd,
+                                              final Date startedAt,
+                                              final UUID participant,
+                                              final long timestamp)
         {
-            Statement statement = initiateStatement.bind(tableId, participant, repairId.get(), jobId, nodeId,
+            return initiateStatement.bind(tableId, participant, repairId.get(), jobId, nodeId,
                     rangeBegin,
-                    rangeEnd, RepairStatus.STARTED.toString(), startedAt.toInstant());
-            return executeAsync(statement);
+                    rangeEnd, RepairStatus.STARTED.toString(), startedAt.toInstant(), timestamp);
         }
 
-        private CompletionStage<AsyncResultSet> insertFinish(final RepairStatus repairStatus,
-                                                             final Date finishedAt,
-                                                             final UUID participant)
+        private BoundStatement finishStatement(final RepairStatus repairStatus,
+                                               final Date finishedAt,
+                                               final UUID participant,
+                                               final long timestamp)
         {
-            Statement statement = finishStatement.bind(repairStatus.toString(),
+            return finishStatement.bind(timestamp,
+                    repairStatus.toString(),
                     finishedAt.toInstant(),
                     tableId,
                     participant,
                     repairId.get());
-            return executeAsync(statement);
         }
 
         /**
@@ -441,12 +775,23 @@ public final class EccRepairHistory implements RepairHistory, RepairHistoryProvi
 
     public static class Builder
     {
+        private static final long DEFAULT_INGESTED_HISTORY_CACHE_SIZE = 10_000L;
+        private static final int DEFAULT_WRITE_BUFFER_SIZE = 10_000;
+        private static final long DEFAULT_WRITE_FLUSH_INTERVAL_IN_MS = TimeUnit.SECONDS.toMillis(1);
+
         private CqlSession session;
         private DriverNode localNode;
         private StatementDecorator statementDecorator;
         private ReplicationState replicationState;
         private long lookbackTimeInMs;
         private String keyspaceName = "ecchronos";
+        private long ingestedHistoryCacheSize = DEFAULT_INGESTED_HISTORY_CACHE_SIZE;
+        private int pageSize;
+        private int writeBatchSize;
+        private int writeBufferSize = DEFAULT_WRITE_BUFFER_SIZE;
+        private long writeFlushIntervalInMs = DEFAULT_WRITE_FLUSH_INTERVAL_IN_MS;
+        private MeterRegistry meterRegistry;
+        private long checkpointIntervalInMs;
 
         /**
          * Build ECC repair history with session.
@@ -521,6 +866,98 @@ public final class EccRepairHistory implements RepairHistory, RepairHistoryProvi
             return this;
         }
 
+        /**
+         * Build ECC repair history with the maximum number of table and node combinations to keep the read repair
+         * history in memory for. A size of zero disables incremental reads of the repair history.
+         *
+         * @param cacheSize The maximum number of ingested histories.
+         * @return Builder
+         */
+        public Builder withIngestedHistoryCacheSize(final long cacheSize)
+        {
+            this.ingestedHistoryCacheSize = cacheSize;
+            return this;
+        }
+
+        /**
+         * Build ECC repair history with the page size used when reading the repair history.
+         * If not set the page size of the driver configuration is used.
+         *
+         * @param aPageSize The page size.
+         * @return Builder
+         */
+        public Builder withPageSize(final int aPageSize)
+        {
+            this.pageSize = aPageSize;
+            return this;
+        }
+
+        /**
+         * Build ECC repair history with the number of session rows to write per partition in one batch.
+         * A batch size of zero, the default, writes the rows directly when a session starts or finishes.
+         *
+         * @param aBatchSize The batch size.
+         * @return Builder
+         */
+        public Builder withWriteBatchSize(final int aBatchSize)
+        {
+            this.writeBatchSize = aBatchSize;
+            return this;
+        }
+
+        /**
+         * Build ECC repair history with the maximum number of buffered and in-flight session rows.
+         * Sessions starting or finishing are blocked while the limit is reached.
+         *
+         * @param aBufferSize The buffer size.
+         * @return Builder
+         */
+        public Builder withWriteBufferSize(final int aBufferSize)
+        {
+            this.writeBufferSize = aBufferSize;
+            return this;
+        }
+
+        /**
+         * Build ECC repair history with the maximum time session rows are buffered before being written.
+         *
+         * @param flushInterval The flush interval.
+         * @param unit Time unit.
+         * @return Builder
+         */
+        public Builder withWriteFlushInterval(final long flushInterval, final TimeUnit unit)
+        {
+            this.writeFlushIntervalInMs = unit.toMillis(flushInterval);
+            return this;
+        }
+
+        /**
+         * Build ECC repair history with the interval to store the read repair history of the local node as a
+         * checkpoint in the {@code repair_history_checkpoint} table.
+         * An interval of zero, the default, disables checkpoints.
+         *
+         * @param checkpointInterval The checkpoint interval.
+         * @param unit Time unit.
+         * @return Builder
+         */
+        public Builder withCheckpointInterval(final long checkpointInterval, final TimeUnit unit)
+        {
+            this.checkpointIntervalInMs = unit.toMillis(checkpointInterval);
+            return this;
+        }
+
+        /**
+         * Build ECC repair history with a meter registry for the read and write metrics.
+         *
+         * @param aMeterRegistry The meter registry, may be null.
+         * @return Builder
+         */
+        public Builder withMeterRegistry(final MeterRegistry aMeterRegistry)
+        {
+            this.meterRegistry = aMeterRegistry;
+            return this;
+        }
+
         /**
          * Build ECC repair history.
          *
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
+
+import com.ericsson.bss.cassandra.ecchronos.core.utils.LongTokenRange;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The repair history of a table for a single node that has been read so far.
+ * <p>
+ * Only the latest row per token range and status is kept which bounds the size to the number of ranges of the
+ * table. The watermark tracks up to which point in time the history has been read so that only newer rows have to be
+ * read on the next refresh.
+ * <p>
+ * Rows that are started but not yet finished will be updated in place when the repair session finishes. To pick up
+ * those updates the next read starts from the oldest unfinished row instead of the watermark, as long as that row is
+ * not older than the tracking time.
+ */
+final class IngestedRepairHistory
+{
+    private static final long NOT_CHECKPOINTED = -1L;
+
+    private final long myCreatedAt;
+    private final long myOldestIncluded;
+    private final long myUnfinishedTrackingTimeInMs;
+
+    private final Map<LongTokenRange, Map<String, HistoryRow>> myRows = new HashMap<>();
+
+    private long myWatermark;
+    private long myCheckpointedAt = NOT_CHECKPOINTED;
+
+    IngestedRepairHistory(final long oldestIncluded, final long createdAt, final long unfinishedTrackingTimeInMs)
+    {
+        myOldestIncluded = oldestIncluded;
+        myCreatedAt = createdAt;
+        myUnfinishedTrackingTimeInMs = unfinishedTrackingTimeInMs;
+        myWatermark = oldestIncluded;
+    }
+
+    /**
+     * Check if the provided interval can be served by reading only the tail of the history.
+     *
+     * @param from The start of the interval.
+     * @param to The end of the interval.
+     * @param now The current time.
+     * @param maxAge The maximum time since creation before the history should be read again from scratch.
+     * @return True if the interval can be served incrementally.
+     */
+    synchronized boolean canServe(final long from, final long to, final long now, final long maxAge)
+    {
+        return from >= myOldestIncluded && to >= myWatermark && now - myCreatedAt < maxAge;
+    }
+
+    /**
+     * Get the point in time to start reading new rows from.
+     *
+     * @param overlap The time to read before the watermark to account for delayed writes and clock skew.
+     * @return The point in time to start reading from.
+     */
+    synchronized long tailStart(final long overlap)
+    {
+        long tailStart = myWatermark;
+        long unfinishedLimit = myWatermark - myUnfinishedTrackingTimeInMs;
+
+        for (Map<String, HistoryRow> rowsPerStatus : myRows.values())
+        {
+            for (HistoryRow row : rowsPerStatus.values())
+            {
+                if (!row.isFinished() && row.myStartedAt >= unfinishedLimit && row.myStartedAt < tailStart)
+                {
+                    tailStart = row.myStartedAt;
+                }
+            }
+        }
+
+        return Math.max(myOldestIncluded, tailStart - overlap);
+    }
+
+    /**
+     * Merge newly read rows and advance the watermark.
+     *
+     * @param rows The rows that were read.
+     * @param watermark The point in time up to which the rows were read.
+     */
+    synchronized void ingest(final Iterable<HistoryRow> rows, final long watermark)
+    {
+        for (HistoryRow row : rows)
+        {
+            Map<String, HistoryRow> rowsPerStatus = myRows.computeIfAbsent(row.myRange, r -> new HashMap<>());
+            HistoryRow previous = rowsPerStatus.get(row.myStatus);
+            if (previous == null || previous.myStartedAt <= row.myStartedAt)
+            {
+                rowsPerStatus.put(row.myStatus, row);
+            }
+
+            if (row.isFinished())
+            {
+                removeUnfinished(rowsPerStatus, row);
+            }
+        }
+
+        myWatermark = Math.max(myWatermark, watermark);
+    }
+
+    /**
+     * Get the rows started within the provided interval.
+     *
+     * @param from The start of the interval.
+     * @param to The end of the interval.
+     * @return The rows, at most one per token range and status, ordered with the latest started row first.
+     */
+    synchronized List<HistoryRow> getRows(final long from, final long to)
+    {
+        List<HistoryRow> result = new ArrayList<>();
+
+        for (Map<String, HistoryRow> rowsPerStatus : myRows.values())
+        {
+            for (HistoryRow row : rowsPerStatus.values())
+            {
+                if (row.myStartedAt >= from && row.myStartedAt <= to)
+                {
+                    result.add(row);
+                }
+            }
+        }
+
+        result.sort(Comparator.comparingLong(HistoryRow::getStartedAt).reversed());
+        return result;
+    }
+
+    synchronized long getWatermark()
+    {
+        return myWatermark;
+    }
+
+    /**
+     * Mark that the history is stored in a checkpoint, e.g. when it was read from one.
+     *
+     * @param checkpointedAt The point in time the checkpoint was stored.
+     */
+    synchronized void markCheckpointed(final long checkpointedAt)
+    {
+        myCheckpointedAt = checkpointedAt;
+    }
+
+    /**
+     * Create a checkpoint if the previous one was created at least the interval ago.
+     * <p>
+     * The checkpoint contains the finished rows and is merged until the point in time the next read would start
+     * from, so that unfinished rows are read again when the history is rebuilt from the checkpoint.
+     *
+     * @param now The current time.
+     * @param interval The minimum time between checkpoints.
+     * @return The checkpoint or null if the previous checkpoint is more recent than the interval.
+     */
+    synchronized RepairHistoryCheckpoints.Checkpoint checkpointIfDue(final long now, final long interval)
+    {
+        if (myCheckpointedAt != NOT_CHECKPOINTED && now - myCheckpointedAt < interval)
+        {
+            return null;
+        }
+        myCheckpointedAt = now;
+
+        List<HistoryRow> finishedRows = new ArrayList<>();
+        for (Map<String, HistoryRow> rowsPerStatus : myRows.values())
+        {
+            for (HistoryRow row : rowsPerStatus.values())
+            {
+                if (row.isFinished())
+                {
+                    finishedRows.add(row);
+                }
+            }
+        }
+
+        return new RepairHistoryCheckpoints.Checkpoint(finishedRows, tailStart(0L));
+    }
+
+    private static void removeUnfinished(final Map<String, HistoryRow> rowsPerStatus, final HistoryRow finishedRow)
+    {
+        rowsPerStatus.values().removeIf(row -> !row.isFinished() && row.myStartedAt == finishedRow.myStartedAt);
+    }
+
+    /**
+     * A row from the repair history.
+     */
+    static final class HistoryRow
+    {
+        private final LongTokenRange myRange;
+        private final long myStartedAt;
+        private final long myFinishedAt;
+        private final String myStatus;
+
+        HistoryRow(final LongTokenRange range, final long startedAt, final long finishedAt, final String status)
+        {
+            myRange = range;
+            myStartedAt = startedAt;
+            myFinishedAt = finishedAt;
+            myStatus = status;
+        }
+
+        LongTokenRange getRange()
+        {
+            return myRange;
+        }
+
+        long getStartedAt()
+        {
+            return myStartedAt;
+        }
+
+        long getFinishedAt()
+        {
+            return myFinishedAt;
+        }
+
+        String getStatus()
+        {
+            return myStatus;
+        }
+
+        boolean isFinished()
+        {
+            return myFinishedAt != -1L;
+        }
+    }
+}
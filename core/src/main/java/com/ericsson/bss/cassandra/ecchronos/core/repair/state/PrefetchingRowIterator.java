@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
+
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.google.common.collect.AbstractIterator;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Iterator over the rows of an asynchronous query.
+ * <p>
+ * When a page is received the next page is requested right away, so that the next page is fetched while the rows of
+ * the current page are processed. At most one page is fetched ahead of the page being iterated.
+ */
+final class PrefetchingRowIterator extends AbstractIterator<Row>
+{
+    private Iterator<Row> myCurrentPage = Collections.emptyIterator();
+    private CompletableFuture<AsyncResultSet> myNextPage;
+
+    PrefetchingRowIterator(final CompletionStage<AsyncResultSet> firstPage)
+    {
+        myNextPage = firstPage.toCompletableFuture();
+    }
+
+    @Override
+    protected Row computeNext()
+    {
+        while (!myCurrentPage.hasNext())
+        {
+            if (myNextPage == null)
+            {
+                return endOfData();
+            }
+
+            AsyncResultSet resultSet = await(myNextPage);
+            myNextPage = resultSet.hasMorePages()
+                    ? resultSet.fetchNextPage().toCompletableFuture()
+                    : null;
+            myCurrentPage = resultSet.currentPage().iterator();
+        }
+
+        return myCurrentPage.next();
+    }
+
+    private static AsyncResultSet await(final CompletableFuture<AsyncResultSet> page)
+    {
+        boolean interrupted = false;
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    return page.get();
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+                catch (ExecutionException e)
+                {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException)
+                    {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new CompletionException(cause);
+                }
+            }
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
+import com.ericsson.bss.cassandra.ecchronos.core.utils.LongTokenRange;
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
+
+/**
+ * Roll-up checkpoints of the repair history stored in the {@code repair_history_checkpoint} table.
+ * <p>
+ * A checkpoint contains the latest finished row per token range and status of a table and node together with the
+ * point in time up to which the repair history has been merged into it. After a restart the repair history can be
+ * rebuilt from the checkpoint and the rows newer than that point in time.
+ */
+final class RepairHistoryCheckpoints
+{
+    private static final Logger LOG = LoggerFactory.getLogger(RepairHistoryCheckpoints.class);
+
+    private static final String TABLE_REPAIR_HISTORY_CHECKPOINT = "repair_history_checkpoint";
+
+    private static final String COLUMN_TABLE_ID = "table_id";
+    private static final String COLUMN_NODE_ID = "node_id";
+    private static final String COLUMN_RANGE_BEGIN = "range_begin";
+    private static final String COLUMN_RANGE_END = "range_end";
+    private static final String COLUMN_STATUS = "status";
+    private static final String COLUMN_STARTED_AT = "started_at";
+    private static final String COLUMN_FINISHED_AT = "finished_at";
+    private static final String COLUMN_MERGED_UNTIL = "merged_until";
+
+    private static final int ROWS_PER_BATCH = 100;
+
+    private final Function<Statement<?>, CompletionStage<AsyncResultSet>> myExecutor;
+
+    private final PreparedStatement myReadStatement;
+    private final PreparedStatement myRowStatement;
+    private final PreparedStatement myMergedUntilStatement;
+
+    RepairHistoryCheckpoints(final CqlSession session,
+                             final String keyspaceName,
+                             final Function<Statement<?>, CompletionStage<AsyncResultSet>> executor)
+    {
+        myExecutor = executor;
+
+        myReadStatement = session.prepare(QueryBuilder.selectFrom(keyspaceName, TABLE_REPAIR_HISTORY_CHECKPOINT)
+                .columns(COLUMN_RANGE_BEGIN, COLUMN_RANGE_END, COLUMN_STATUS, COLUMN_STARTED_AT, COLUMN_FINISHED_AT,
+                        COLUMN_MERGED_UNTIL)
+                .whereColumn(COLUMN_TABLE_ID).isEqualTo(bindMarker())
+                .whereColumn(COLUMN_NODE_ID).isEqualTo(bindMarker())
+                .build()
+                .setConsistencyLevel(ConsistencyLevel.LOCAL_ONE));
+
+        myRowStatement = session.prepare(QueryBuilder.insertInto(keyspaceName, TABLE_REPAIR_HISTORY_CHECKPOINT)
+                .value(COLUMN_TABLE_ID, bindMarker())
+                .value(COLUMN_NODE_ID, bindMarker())
+                .value(COLUMN_RANGE_BEGIN, bindMarker())
+                .value(COLUMN_RANGE_END, bindMarker())
+                .value(COLUMN_STATUS, bindMarker())
+                .value(COLUMN_STARTED_AT, bindMarker())
+                .value(COLUMN_FINISHED_AT, bindMarker())
+                .build()
+                .setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM));
+
+        myMergedUntilStatement = session.prepare(QueryBuilder.update(keyspaceName, TABLE_REPAIR_HISTORY_CHECKPOINT)
+                .setColumn(COLUMN_MERGED_UNTIL, bindMarker())
+                .whereColumn(COLUMN_TABLE_ID).isEqualTo(bindMarker())
+                .whereColumn(COLUMN_NODE_ID).isEqualTo(bindMarker())
+                .build()
+                .setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM));
+    }
+
+    /**
+     * Read the checkpoint of a table and node.
+     *
+     * @param tableId The table id.
+     * @param nodeId The node id.
+     * @return The checkpoint or null if there is no checkpoint.
+     */
+    Checkpoint read(final UUID tableId, final UUID nodeId)
+    {
+        Iterator<Row> rows = new PrefetchingRowIterator(myExecutor.apply(myReadStatement.bind(tableId, nodeId)));
+
+        long mergedUntil = -1L;
+        List<IngestedRepairHistory.HistoryRow> historyRows = new ArrayList<>();
+        while (rows.hasNext())
+        {
+            Row row = rows.next();
+            Instant rowMergedUntil = row.getInstant(COLUMN_MERGED_UNTIL);
+            if (rowMergedUntil != null)
+            {
+                mergedUntil = rowMergedUntil.toEpochMilli();
+            }
+            if (!row.isNull(COLUMN_RANGE_BEGIN) && !row.isNull(COLUMN_RANGE_END) && !row.isNull(COLUMN_STATUS)
+                    && !row.isNull(COLUMN_STARTED_AT) && !row.isNull(COLUMN_FINISHED_AT))
+            {
+                historyRows.add(toHistoryRow(row));
+            }
+        }
+
+        if (mergedUntil == -1L)
+        {
+            return null;
+        }
+
+        return new Checkpoint(historyRows, mergedUntil);
+    }
+
+    /**
+     * Store a checkpoint of a table and node.
+     * <p>
+     * The rows are written first and the point in time they are merged until is updated when all rows are written.
+     *
+     * @param tableId The table id.
+     * @param nodeId The node id.
+     * @param checkpoint The checkpoint.
+     * @return A future completed when the checkpoint is stored.
+     */
+    CompletableFuture<Void> write(final UUID tableId, final UUID nodeId, final Checkpoint checkpoint)
+    {
+        List<BatchableStatement<?>> rowStatements = new ArrayList<>(checkpoint.getRows().size());
+        for (IngestedRepairHistory.HistoryRow row : checkpoint.getRows())
+        {
+            rowStatements.add(myRowStatement.bind(tableId, nodeId,
+                    Long.toString(row.getRange().start), Long.toString(row.getRange().end), row.getStatus(),
+                    Instant.ofEpochMilli(row.getStartedAt()), Instant.ofEpochMilli(row.getFinishedAt())));
+        }
+
+        List<CompletableFuture<AsyncResultSet>> rowFutures = new ArrayList<>();
+        for (List<BatchableStatement<?>> batch : Lists.partition(rowStatements, ROWS_PER_BATCH))
+        {
+            Statement<?> statement = BatchStatement.newInstance(DefaultBatchType.UNLOGGED, batch)
+                    .setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM);
+            rowFutures.add(myExecutor.apply(statement).toCompletableFuture());
+        }
+
+        return CompletableFuture.allOf(rowFutures.toArray(new CompletableFuture[0]))
+                .thenCompose(v -> myExecutor.apply(myMergedUntilStatement.bind(
+                        Instant.ofEpochMilli(checkpoint.getMergedUntil()), tableId, nodeId)))
+                .<Void>thenApply(v -> null)
+                .whenComplete((v, throwable) ->
+                {
+                    if (throwable != null)
+                    {
+                        LOG.warn("Unable to store repair history checkpoint for table {} and node {}", tableId,
+                                nodeId, throwable);
+                    }
+                });
+    }
+
+    private static IngestedRepairHistory.HistoryRow toHistoryRow(final Row row)
+    {
+        LongTokenRange range = new LongTokenRange(Long.parseLong(row.getString(COLUMN_RANGE_BEGIN)),
+                Long.parseLong(row.getString(COLUMN_RANGE_END)));
+        return new IngestedRepairHistory.HistoryRow(range, row.getInstant(COLUMN_STARTED_AT).toEpochMilli(),
+                row.getInstant(COLUMN_FINISHED_AT).toEpochMilli(), row.getString(COLUMN_STATUS));
+    }
+
+    /**
+     * The finished rows of a repair history and the point in time the history has been merged until.
+     */
+    static final class Checkpoint
+    {
+        private final List<IngestedRepairHistory.HistoryRow> myRows;
+        private final long myMergedUntil;
+
+        Checkpoint(final List<IngestedRepairHistory.HistoryRow> rows, final long mergedUntil)
+        {
+            myRows = rows;
+            myMergedUntil = mergedUntil;
+        }
+
+        List<IngestedRepairHistory.HistoryRow> getRows()
+        {
+            return myRows;
+        }
+
+        long getMergedUntil()
+        {
+            return myMergedUntil;
+        }
+    }
+}
@@ -15,8 +15,9 @@
 package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
 
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
-import com.datastax.oss.driver.api.core.cql.ResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.cql.Statement;
 import com.ericsson.bss.cassandra.ecchronos.connection.StatementDecorator;
@@ -38,6 +39,7 @@ import java.util.Iterator;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Implementation of the RepairHistoryProvider interface that retrieves the repair history from Cassandra.
@@ -68,6 +70,7 @@ public class RepairHistoryProviderImpl implements RepairHistoryProvider
 
     private final PreparedStatement myRepairHistoryByTimeStatement;
     private final long myLookbackTime;
+    private final int myPageSize;
     private final Clock myClock;
 
     public RepairHistoryProviderImpl(final NodeResolver nodeResolver,
@@ -75,7 +78,25 @@ public class RepairHistoryProviderImpl implements RepairHistoryProvider
                                      final StatementDecorator statementDecorator,
                                      final long lookbackTime)
     {
-        this(nodeResolver, session, statementDecorator, lookbackTime, Clock.systemDefaultZone());
+        this(nodeResolver, session, statementDecorator, lookbackTime, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param nodeResolver The node resolver.
+     * @param session The session.
+     * @param statementDecorator The statement decorator.
+     * @param lookbackTime The lookback time in milliseconds.
+     * @param pageSize The page size used when reading the repair history, the driver default is used if not positive.
+     */
+    public RepairHistoryProviderImpl(final NodeResolver nodeResolver,
+                                     final CqlSession session,
+                                     final StatementDecorator statementDecorator,
+                                     final long lookbackTime,
+                                     final int pageSize)
+    {
+        this(nodeResolver, session, statementDecorator, lookbackTime, pageSize, Clock.systemDefaultZone());
     }
 
     @VisibleForTesting
@@ -84,12 +105,23 @@ public class RepairHistoryProviderImpl implements RepairHistoryProvider
                               final StatementDecorator statementDecorator,
                               final long lookbackTime,
                               final Clock clock)
+    {
+        this(nodeResolver, session, statementDecorator, lookbackTime, 0, clock);
+    }
+
+    private RepairHistoryProviderImpl(final NodeResolver nodeResolver,
+                                      final CqlSession session,
+                                      final StatementDecorator statementDecorator,
+                                      final long lookbackTime,
+                                      final int pageSize,
+                                      final Clock clock)
     {
         myNodeResolver = nodeResolver;
         mySession = session;
         myStatementDecorator = statementDecorator;
         myRepairHistoryByTimeStatement = mySession.prepare(REPAIR_HISTORY_BY_TIME_STATEMENT);
         myLookbackTime = lookbackTime;
+        myPageSize = pageSize;
         myClock = clock;
     }
 
@@ -121,11 +153,14 @@ public class RepairHistoryProviderImpl implements RepairHistoryProvider
             throw new IllegalArgumentException(
                     "Invalid range when iterating " + tableReference + ", from (" + fromDate + ") to (" + toDate + ")");
         }
-        ResultSet resultSet =
-                execute(myRepairHistoryByTimeStatement.bind(tableReference.getKeyspace(), tableReference.getTable(),
-                        fromDate, toDate));
+        BoundStatement statement = myRepairHistoryByTimeStatement.bind(tableReference.getKeyspace(),
+                tableReference.getTable(), fromDate, toDate);
+        if (myPageSize > 0)
+        {
+            statement = statement.setPageSize(myPageSize);
+        }
 
-        return new RepairEntryIterator(resultSet.iterator(), predicate);
+        return new RepairEntryIterator(new PrefetchingRowIterator(executeAsync(statement)), predicate);
     }
 
     /**
@@ -141,9 +176,9 @@ public class RepairHistoryProviderImpl implements RepairHistoryProvider
         return iterate(tableReference, to, from, predicate);
     }
 
-    private ResultSet execute(final Statement statement)
+    private CompletionStage<AsyncResultSet> executeAsync(final Statement statement)
     {
-        return mySession.execute(myStatementDecorator.apply(statement));
+        return mySession.executeAsync(myStatementDecorator.apply(statement));
     }
 
     class RepairEntryIterator extends AbstractIterator<RepairEntry>
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Write-behind buffer for repair history rows.
+ * <p>
+ * Writes are grouped by partition and sent as unlogged single partition batches, either when the number of buffered
+ * writes reaches the batch size or periodically. Callers are blocked while the number of buffered and in-flight
+ * writes is at the limit. Failed batches are retried once.
+ */
+final class RepairHistoryWriter implements Closeable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(RepairHistoryWriter.class);
+
+    static final String BUFFER_DEPTH = "repair.history.write.buffer";
+    static final String WRITE_TIME = "repair.history.write";
+
+    private static final long CLOSE_TIMEOUT_IN_MS = TimeUnit.SECONDS.toMillis(10);
+
+    private final Object myLock = new Object();
+
+    private final Function<Statement<?>, CompletionStage<AsyncResultSet>> myExecutor;
+    private final int myBatchSize;
+    private final int myMaxPendingWrites;
+    private final ScheduledExecutorService myFlushExecutor;
+    private final MeterRegistry myMeterRegistry;
+    private final Meter myBufferDepthGauge;
+    private final Timer myWriteTimer;
+
+    private Map<Object, List<BatchableStatement<?>>> myBuffer = new LinkedHashMap<>();
+    private int myBufferedWrites;
+    private int myPendingWrites;
+    private boolean myFlushScheduled;
+    private boolean myClosed;
+
+    RepairHistoryWriter(final Function<Statement<?>, CompletionStage<AsyncResultSet>> executor,
+                        final int batchSize,
+                        final int maxPendingWrites,
+                        final long flushIntervalInMs,
+                        final MeterRegistry meterRegistry)
+    {
+        myExecutor = executor;
+        myBatchSize = batchSize;
+        myMaxPendingWrites = Math.max(batchSize, maxPendingWrites);
+        myMeterRegistry = meterRegistry;
+
+        if (myMeterRegistry != null)
+        {
+            myBufferDepthGauge = Gauge.builder(BUFFER_DEPTH, this, RepairHistoryWriter::getPendingWrites)
+                    .register(myMeterRegistry);
+            myWriteTimer = Timer.builder(WRITE_TIME).register(myMeterRegistry);
+        }
+        else
+        {
+            myBufferDepthGauge = null;
+            myWriteTimer = null;
+        }
+
+        myFlushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("RepairHistoryWriter-%d").build());
+        myFlushExecutor.scheduleWithFixedDelay(this::flush, flushIntervalInMs, flushIntervalInMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Buffer a write to a partition.
+     * <p>
+     * Blocks while the number of buffered and in-flight writes is at the limit.
+     *
+     * @param partitionKey The key of the partition the statement writes to.
+     * @param statement The statement.
+     */
+    void write(final Object partitionKey, final BatchableStatement<?> statement)
+    {
+        synchronized (myLock)
+        {
+            while (!myClosed && myPendingWrites >= myMaxPendingWrites)
+            {
+                scheduleFlush();
+                try
+                {
+                    myLock.wait();
+                }
+                catch (InterruptedException e)
+                {
+                    LOG.warn("Interrupted while waiting to buffer repair history write");
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            if (!myClosed)
+            {
+                myBuffer.computeIfAbsent(partitionKey, k -> new ArrayList<>()).add(statement);
+                myBufferedWrites++;
+                myPendingWrites++;
+                if (myBufferedWrites >= myBatchSize)
+                {
+                    scheduleFlush();
+                }
+                return;
+            }
+        }
+
+        LOG.debug("Repair history writer is closed, writing directly");
+        myExecutor.apply(statement);
+    }
+
+    /**
+     * Send all buffered writes.
+     */
+    void flush()
+    {
+        Map<Object, List<BatchableStatement<?>>> toWrite;
+        synchronized (myLock)
+        {
+            myFlushScheduled = false;
+            if (myBufferedWrites == 0)
+            {
+                return;
+            }
+            toWrite = myBuffer;
+            myBuffer = new LinkedHashMap<>();
+            myBufferedWrites = 0;
+        }
+
+        for (List<BatchableStatement<?>> partitionWrites : toWrite.values())
+        {
+            for (List<BatchableStatement<?>> batch : Lists.partition(partitionWrites, myBatchSize))
+            {
+                writeBatch(batch, true);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    int getPendingWrites()
+    {
+        synchronized (myLock)
+        {
+            return myPendingWrites;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        synchronized (myLock)
+        {
+            if (myClosed)
+            {
+                return;
+            }
+            myClosed = true;
+            myLock.notifyAll();
+        }
+
+        myFlushExecutor.shutdown();
+        flush();
+
+        long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT_IN_MS;
+        synchronized (myLock)
+        {
+            long remaining = deadline - System.currentTimeMillis();
+            while (myPendingWrites > 0 && remaining > 0)
+            {
+                try
+                {
+                    myLock.wait(remaining);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+            if (myPendingWrites > 0)
+            {
+                LOG.warn("Closed with {} repair history writes not completed", myPendingWrites);
+            }
+        }
+
+        if (myMeterRegistry != null)
+        {
+            myMeterRegistry.remove(myBufferDepthGauge);
+            myMeterRegistry.remove(myWriteTimer);
+        }
+    }
+
+    private void scheduleFlush()
+    {
+        if (!myFlushScheduled && !myClosed)
+        {
+            myFlushScheduled = true;
+            myFlushExecutor.execute(this::flush);
+        }
+    }
+
+    private void writeBatch(final List<BatchableStatement<?>> statements, final boolean retry)
+    {
+        Statement<?> statement;
+        if (statements.size() == 1)
+        {
+            statement = statements.get(0);
+        }
+        else
+        {
+            statement = BatchStatement.newInstance(DefaultBatchType.UNLOGGED, statements)
+                    .setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM);
+        }
+
+        long start = System.nanoTime();
+        CompletionStage<AsyncResultSet> future;
+        try
+        {
+            future = myExecutor.apply(statement);
+        }
+        catch (RuntimeException e)
+        {
+            CompletableFuture<AsyncResultSet> failedFuture = new CompletableFuture<>();
+            failedFuture.completeExceptionally(e);
+            future = failedFuture;
+        }
+
+        future.whenComplete((result, throwable) ->
+        {
+            if (myWriteTimer != null)
+            {
+                myWriteTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+
+            if (throwable != null && retry)
+            {
+                LOG.warn("Unable to write {} repair history rows, retrying", statements.size(), throwable);
+                writeBatch(statements, false);
+                return;
+            }
+            if (throwable != null)
+            {
+                LOG.warn("Unable to write {} repair history rows", statements.size(), throwable);
+            }
+            release(statements.size());
+        });
+    }
+
+    private void release(final int writes)
+    {
+        synchronized (myLock)
+        {
+            myPendingWrites -= writes;
+            myLock.notifyAll();
+        }
+    }
+}
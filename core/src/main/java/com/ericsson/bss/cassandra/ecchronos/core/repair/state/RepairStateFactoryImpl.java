@@ -26,6 +26,7 @@ public final class RepairStateFactoryImpl implements RepairStateFactory
 
     private final VnodeRepairStateFactoryImpl myVnodeRepairStateFactory;
     private final VnodeRepairStateFactoryImpl mySubRangeRepairStateFactory;
+    private final ReplicaRepairGroupFactory myReplicaRepairGroupFactory;
 
     private RepairStateFactoryImpl(final Builder builder)
     {
@@ -36,6 +37,7 @@ public final class RepairStateFactoryImpl implements RepairStateFactory
                 builder.myRepairHistoryProvider, false);
         mySubRangeRepairStateFactory = new VnodeRepairStateFactoryImpl(builder.myReplicationState,
                 builder.myRepairHistoryProvider, true);
+        myReplicaRepairGroupFactory = VnodeRepairGroupFactory.withMaxVnodesPerGroup(builder.myMaxVnodesPerRepairGroup);
     }
 
     @Override
@@ -43,7 +45,7 @@ public final class RepairStateFactoryImpl implements RepairStateFactory
                               final RepairConfiguration repairConfiguration,
                               final PostUpdateHook postUpdateHook)
     {
-        ReplicaRepairGroupFactory replicaRepairGroupFactory = VnodeRepairGroupFactory.INSTANCE;
+        ReplicaRepairGroupFactory replicaRepairGroupFactory = myReplicaRepairGroupFactory;
 
         VnodeRepairStateFactory vnodeRepairStateFactory = myVnodeRepairStateFactory;
         if (repairConfiguration.getTargetRepairSizeInBytes() != RepairConfiguration.FULL_REPAIR_SIZE)
@@ -66,6 +68,7 @@ public final class RepairStateFactoryImpl implements RepairStateFactory
         private HostStates myHostStates;
         private RepairHistoryProvider myRepairHistoryProvider;
         private TableRepairMetrics myTableRepairMetrics;
+        private int myMaxVnodesPerRepairGroup = VnodeRepairGroupFactory.UNBOUNDED_GROUP_SIZE;
 
         /**
          * Build repair state factory with replication state.
@@ -115,6 +118,19 @@ public final class RepairStateFactoryImpl implements RepairStateFactory
             return this;
         }
 
+        /**
+         * Build repair state factory with a bound on the number of vnodes in each repair group.
+         * Larger groups of vnodes with common replicas are split into several repair groups.
+         *
+         * @param maxVnodesPerRepairGroup The maximum number of vnodes in a repair group.
+         * @return Builder
+         */
+        public Builder withMaxVnodesPerRepairGroup(final int maxVnodesPerRepairGroup)
+        {
+            myMaxVnodesPerRepairGroup = maxVnodesPerRepairGroup;
+            return this;
+        }
+
         /**
          * Build repair state factory.
          *
@@ -81,14 +81,20 @@ public class RepairStateImpl implements RepairState
             {
                 myTableRepairMetrics.lastRepairedAt(myTableReference, newRepairStateSnapshot.lastCompletedAt());
 
-                int nonRepairedRanges
-                        = (int) newRepairStateSnapshot.getVnodeRepairStates().getVnodeRepairStates().stream()
-                        .filter(v -> vnodeIsRepairable(v, newRepairStateSnapshot, System.currentTimeMillis()))
-                        .count();
-
-                int repairedRanges
-                        = newRepairStateSnapshot.getVnodeRepairStates().getVnodeRepairStates().size()
-                        - nonRepairedRanges;
+                long now = System.currentTimeMillis();
+                int nonRepairedRanges = 0;
+                int repairedRanges = 0;
+                for (VnodeRepairState vnode : newRepairStateSnapshot.getVnodeRepairStates().getVnodeRepairStates())
+                {
+                    if (vnodeIsRepairable(vnode, newRepairStateSnapshot, now))
+                    {
+                        nonRepairedRanges++;
+                    }
+                    else
+                    {
+                        repairedRanges++;
+                    }
+                }
                 myTableRepairMetrics.repairState(myTableReference, repairedRanges, nonRepairedRanges);
                 myTableRepairMetrics.remainingRepairTime(myTableReference,
                         newRepairStateSnapshot.getRemainingRepairTime(System.currentTimeMillis(),
@@ -0,0 +1,534 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReference;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the {@link RepairState repair states} of tables up to date in the background.
+ * <p>
+ * Refreshing a repair state reads the repair history of the table, which can be slow. Instead of updating the repair
+ * states in the scheduling thread, refreshes are requested from this class and performed on a bounded thread pool.
+ * Multiple requests for the same table are coalesced while a refresh is pending.
+ * <p>
+ * Repair states that have not been refreshed within the refresh interval are considered stale. Stale repair states are
+ * refreshed periodically once the table is due for repair or will be due within the due window, without a topology
+ * change the repair history of a table that is not due can only move its next repair further away. If a session is
+ * provided all repair states are invalidated when the token map of the cluster changes. Invalidated repair states are
+ * refreshed whether the table is due or not, as a topology change can introduce ranges that have not been repaired.
+ */
+public final class RepairStateRefresher implements Closeable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(RepairStateRefresher.class);
+
+    private static final String KEYSPACE_TAG = "keyspace";
+    private static final String TABLE_TAG = "table";
+
+    static final String REFRESH_TIME = "repair.state.refresh";
+    static final String REFRESH_QUEUE_DEPTH = "repair.state.refresh.queue";
+    static final String SNAPSHOT_AGE = "repair.state.snapshot.age";
+
+    private static final int TERMINATION_WAIT = 10;
+
+    private final Map<TableReference, RefreshEntry> myEntries = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor myRefreshExecutor;
+    private final ScheduledExecutorService mySweepExecutor;
+    private final CqlSession mySession;
+    private final MeterRegistry myMeterRegistry;
+    private final long myRefreshIntervalInMs;
+    private final long myDueWindowInMs;
+
+    private volatile TokenMap myLastTokenMap;
+
+    private RepairStateRefresher(final Builder builder)
+    {
+        mySession = builder.mySession;
+        myMeterRegistry = builder.myMeterRegistry;
+        myRefreshIntervalInMs = builder.myRefreshIntervalInMs;
+        myDueWindowInMs = builder.myDueWindowInMs;
+
+        myRefreshExecutor = new ThreadPoolExecutor(builder.myThreads, builder.myThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setNameFormat("RepairStateRefresher-%d")
+                .build());
+        mySweepExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("RepairStateRefresherSweep-%d").build());
+
+        if (myMeterRegistry != null)
+        {
+            Gauge.builder(REFRESH_QUEUE_DEPTH, myRefreshExecutor, executor -> executor.getQueue().size())
+                    .register(myMeterRegistry);
+        }
+
+        myLastTokenMap = currentTokenMap();
+
+        long sweepInterval = Math.max(1, myRefreshIntervalInMs / 2);
+        mySweepExecutor.scheduleWithFixedDelay(this::sweep, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start keeping the repair state of the table up to date.
+     * <p>
+     * The repair state is expected to be up to date when registered.
+     * Registering a table that is already registered replaces the previous repair state.
+     *
+     * @param tableReference The table.
+     * @param repairState The repair state of the table.
+     * @param repairIntervalInMs The repair interval of the table, used to determine when the table is due.
+     */
+    public void register(final TableReference tableReference, final RepairState repairState,
+                         final long repairIntervalInMs)
+    {
+        register(tableReference, repairState, repairIntervalInMs, null);
+    }
+
+    /**
+     * Start keeping the repair state of the table up to date and get notified after each successful refresh.
+     * <p>
+     * The listener is called in the refreshing thread and can be used to reschedule the repair job of the table, as a
+     * refreshed repair state can make the table eligible for repair earlier than before.
+     *
+     * @param tableReference The table.
+     * @param repairState The repair state of the table.
+     * @param repairIntervalInMs The repair interval of the table, used to determine when the table is due.
+     * @param refreshListener The listener called after the repair state has been refreshed, can be null.
+     */
+    public void register(final TableReference tableReference, final RepairState repairState,
+                         final long repairIntervalInMs, final Runnable refreshListener)
+    {
+        RefreshEntry entry = new RefreshEntry(tableReference, repairState, repairIntervalInMs, refreshListener);
+        RefreshEntry previous = myEntries.put(tableReference, entry);
+        if (previous != null)
+        {
+            previous.removeMeters();
+        }
+        entry.registerMeters();
+    }
+
+    /**
+     * Stop keeping the repair state of the table up to date.
+     *
+     * @param tableReference The table.
+     */
+    public void unregister(final TableReference tableReference)
+    {
+        RefreshEntry entry = myEntries.remove(tableReference);
+        if (entry != null)
+        {
+            entry.removeMeters();
+        }
+    }
+
+    /**
+     * Request a refresh of the repair state of the table.
+     * <p>
+     * The refresh is performed asynchronously, if a refresh is already pending for the table this is a no-op.
+     *
+     * @param tableReference The table.
+     * @return True if the table is registered.
+     */
+    public boolean requestRefresh(final TableReference tableReference)
+    {
+        RefreshEntry entry = myEntries.get(tableReference);
+        if (entry == null)
+        {
+            return false;
+        }
+
+        entry.requestRefresh();
+        return true;
+    }
+
+    /**
+     * Refresh the repair state of the table in the calling thread.
+     * <p>
+     * Used when the repair state is known to be outdated, e.g. after a repair task has finished, so that the next
+     * repair tasks are not based on the outdated state.
+     *
+     * @param tableReference The table.
+     * @return True if the table is registered.
+     */
+    public boolean refreshNow(final TableReference tableReference)
+    {
+        RefreshEntry entry = myEntries.get(tableReference);
+        if (entry == null)
+        {
+            return false;
+        }
+
+        entry.refreshNow();
+        return true;
+    }
+
+    /**
+     * Request a refresh of the repair states of all registered tables.
+     */
+    public void refreshAll()
+    {
+        for (RefreshEntry entry : myEntries.values())
+        {
+            entry.requestRefresh();
+        }
+    }
+
+    /**
+     * Check if the repair state of the table has not been refreshed within the refresh interval.
+     *
+     * @param tableReference The table.
+     * @return True if the repair state is stale or if the table is not registered.
+     */
+    public boolean isStale(final TableReference tableReference)
+    {
+        RefreshEntry entry = myEntries.get(tableReference);
+        return entry == null || entry.isStale(System.currentTimeMillis());
+    }
+
+    @Override
+    public void close()
+    {
+        mySweepExecutor.shutdown();
+        myRefreshExecutor.shutdown();
+        try
+        {
+            if (!myRefreshExecutor.awaitTermination(TERMINATION_WAIT, TimeUnit.SECONDS))
+            {
+                LOG.warn("Waited {} seconds for refreshes to finish, still not shut down", TERMINATION_WAIT);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            LOG.warn("Interrupted while waiting for refreshes to finish", e);
+            Thread.currentThread().interrupt();
+        }
+
+        for (RefreshEntry entry : myEntries.values())
+        {
+            entry.removeMeters();
+        }
+        myEntries.clear();
+    }
+
+    @VisibleForTesting
+    void sweep()
+    {
+        try
+        {
+            TokenMap tokenMap = currentTokenMap();
+            if (tokenMap != myLastTokenMap)
+            {
+                LOG.debug("Token map changed, invalidating all repair states");
+                myLastTokenMap = tokenMap;
+                myEntries.values().forEach(RefreshEntry::invalidate);
+            }
+
+            long now = System.currentTimeMillis();
+            for (RefreshEntry entry : myEntries.values())
+            {
+                if (entry.isInvalidated() || (entry.isStale(now) && entry.isDue(now)))
+                {
+                    entry.requestRefresh();
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            LOG.warn("Unable to check for stale repair states", e);
+        }
+    }
+
+    private TokenMap currentTokenMap()
+    {
+        if (mySession == null)
+        {
+            return null;
+        }
+
+        return mySession.getMetadata().getTokenMap().orElse(null);
+    }
+
+    private final class RefreshEntry
+    {
+        private final TableReference myTableReference;
+        private final RepairState myRepairState;
+        private final long myRepairIntervalInMs;
+        private final Runnable myRefreshListener;
+        private final AtomicBoolean myPending = new AtomicBoolean();
+        private final AtomicBoolean myInvalidated = new AtomicBoolean();
+
+        private volatile long myLastRefreshedAt = System.currentTimeMillis();
+        private volatile Meter mySnapshotAgeGauge;
+        private volatile Timer mySuccessfulRefreshTimer;
+        private volatile Timer myFailedRefreshTimer;
+
+        RefreshEntry(final TableReference tableReference, final RepairState repairState,
+                     final long repairIntervalInMs, final Runnable refreshListener)
+        {
+            myTableReference = tableReference;
+            myRepairState = repairState;
+            myRepairIntervalInMs = repairIntervalInMs;
+            myRefreshListener = refreshListener;
+        }
+
+        void requestRefresh()
+        {
+            if (myPending.compareAndSet(false, true))
+            {
+                try
+                {
+                    myRefreshExecutor.execute(this::refresh);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    myPending.set(false);
+                    LOG.debug("Refresh of {} not scheduled, refresher is closed", myTableReference);
+                }
+            }
+        }
+
+        boolean isStale(final long now)
+        {
+            return now - myLastRefreshedAt >= myRefreshIntervalInMs;
+        }
+
+        boolean isDue(final long now)
+        {
+            RepairStateSnapshot snapshot = myRepairState.getSnapshot();
+            if (snapshot == null)
+            {
+                return true;
+            }
+
+            long nextRepairAt = snapshot.lastCompletedAt() + myRepairIntervalInMs - snapshot.getEstimatedRepairTime();
+            return now + myDueWindowInMs >= nextRepairAt;
+        }
+
+        boolean isInvalidated()
+        {
+            return myInvalidated.get();
+        }
+
+        void invalidate()
+        {
+            myLastRefreshedAt = 0L;
+            myInvalidated.set(true);
+        }
+
+        private void refresh()
+        {
+            myPending.set(false);
+            refreshNow();
+        }
+
+        void refreshNow()
+        {
+            if (update() && myRefreshListener != null)
+            {
+                try
+                {
+                    myRefreshListener.run();
+                }
+                catch (Exception e)
+                {
+                    LOG.warn("Unable to notify refresh of {}", myTableReference, e);
+                }
+            }
+        }
+
+        private synchronized boolean update()
+        {
+            long start = System.nanoTime();
+            boolean successful = false;
+            boolean invalidated = myInvalidated.getAndSet(false);
+            try
+            {
+                myRepairState.update();
+                myLastRefreshedAt = System.currentTimeMillis();
+                successful = true;
+            }
+            catch (Exception e)
+            {
+                LOG.warn("Unable to refresh repair state of {}", myTableReference, e);
+                if (invalidated)
+                {
+                    myInvalidated.set(true);
+                }
+            }
+            finally
+            {
+                recordRefresh(start, successful);
+            }
+            return successful;
+        }
+
+        private void recordRefresh(final long startTimeInNanos, final boolean successful)
+        {
+            Timer timer = successful ? mySuccessfulRefreshTimer : myFailedRefreshTimer;
+            if (timer != null)
+            {
+                timer.record(System.nanoTime() - startTimeInNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private Timer refreshTimer(final boolean successful)
+        {
+            return Timer.builder(REFRESH_TIME)
+                    .tags(KEYSPACE_TAG, myTableReference.getKeyspace(), TABLE_TAG, myTableReference.getTable(),
+                            "successful", Boolean.toString(successful))
+                    .register(myMeterRegistry);
+        }
+
+        void registerMeters()
+        {
+            if (myMeterRegistry != null)
+            {
+                mySuccessfulRefreshTimer = refreshTimer(true);
+                myFailedRefreshTimer = refreshTimer(false);
+                mySnapshotAgeGauge = TimeGauge.builder(SNAPSHOT_AGE, this, TimeUnit.MILLISECONDS,
+                                entry -> System.currentTimeMillis() - entry.myLastRefreshedAt)
+                        .tags(KEYSPACE_TAG, myTableReference.getKeyspace(), TABLE_TAG, myTableReference.getTable())
+                        .register(myMeterRegistry);
+            }
+        }
+
+        void removeMeters()
+        {
+            if (myMeterRegistry != null)
+            {
+                removeMeter(mySnapshotAgeGauge);
+                removeMeter(mySuccessfulRefreshTimer);
+                removeMeter(myFailedRefreshTimer);
+            }
+        }
+
+        private void removeMeter(final Meter meter)
+        {
+            if (meter != null)
+            {
+                myMeterRegistry.remove(meter);
+            }
+        }
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    public static class Builder
+    {
+        private static final int DEFAULT_THREADS = 2;
+        private static final long DEFAULT_REFRESH_INTERVAL_IN_MS = TimeUnit.MINUTES.toMillis(1);
+        private static final long DEFAULT_DUE_WINDOW_IN_MS = TimeUnit.HOURS.toMillis(1);
+
+        private int myThreads = DEFAULT_THREADS;
+        private long myRefreshIntervalInMs = DEFAULT_REFRESH_INTERVAL_IN_MS;
+        private long myDueWindowInMs = DEFAULT_DUE_WINDOW_IN_MS;
+        private CqlSession mySession;
+        private MeterRegistry myMeterRegistry;
+
+        /**
+         * Set the number of threads used to refresh repair states.
+         *
+         * @param threads The number of threads, must be at least one.
+         * @return The builder
+         */
+        public final Builder withThreads(final int threads)
+        {
+            if (threads < 1)
+            {
+                throw new IllegalArgumentException("Threads must be at least 1");
+            }
+            myThreads = threads;
+            return this;
+        }
+
+        /**
+         * Set the interval after which a repair state is considered stale and is refreshed.
+         *
+         * @param refreshInterval The refresh interval.
+         * @param timeUnit The time unit of the refresh interval.
+         * @return The builder
+         */
+        public final Builder withRefreshInterval(final long refreshInterval, final TimeUnit timeUnit)
+        {
+            myRefreshIntervalInMs = timeUnit.toMillis(refreshInterval);
+            return this;
+        }
+
+        /**
+         * Set how long before a table is due for repair its stale repair state starts being refreshed.
+         *
+         * @param dueWindow The due window.
+         * @param timeUnit The time unit of the due window.
+         * @return The builder
+         */
+        public final Builder withDueWindow(final long dueWindow, final TimeUnit timeUnit)
+        {
+            myDueWindowInMs = timeUnit.toMillis(dueWindow);
+            return this;
+        }
+
+        /**
+         * Set the session used to detect topology changes, topology changes are not detected if not set.
+         *
+         * @param session The session.
+         * @return The builder
+         */
+        public final Builder withSession(final CqlSession session)
+        {
+            mySession = session;
+            return this;
+        }
+
+        /**
+         * Set the meter registry used for refresh metrics, metrics are not reported if not set.
+         *
+         * @param meterRegistry The meter registry.
+         * @return The builder
+         */
+        public final Builder withMeterRegistry(final MeterRegistry meterRegistry)
+        {
+            myMeterRegistry = meterRegistry;
+            return this;
+        }
+
+        public final RepairStateRefresher build()
+        {
+            return new RepairStateRefresher(this);
+        }
+    }
+}
@@ -14,52 +14,108 @@
  */
 package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
 
+import java.lang.ref.WeakReference;
 import java.net.InetSocketAddress;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import com.datastax.oss.driver.api.core.CqlSession;
 import com.datastax.oss.driver.api.core.metadata.Metadata;
 import com.datastax.oss.driver.api.core.metadata.Node;
 import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.datastax.oss.driver.api.core.metadata.schema.KeyspaceMetadata;
 import com.datastax.oss.driver.api.core.metadata.token.TokenRange;
 import com.datastax.oss.driver.internal.core.metadata.token.Murmur3Token;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.ericsson.bss.cassandra.ecchronos.core.utils.LongTokenRange;
+import com.ericsson.bss.cassandra.ecchronos.core.utils.LongTokenRangeIndex;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.DriverNode;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.NodeResolver;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReference;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 import static com.ericsson.bss.cassandra.ecchronos.core.utils.Metadata.quoteIfNeeded;
 
 /**
  * Utility class to generate a token -&gt; replicas map for a specific table.
+ * <p>
+ * The generated maps are cached per keyspace together with the driver {@link TokenMap} they were built from.
+ * The driver replaces the token map whenever the topology or the replication of a keyspace changes, so as long as the
+ * same token map instance is in use the cached map is returned without walking the token ranges again.
+ * Keyspaces with identical replication settings share the same map.
+ * <p>
+ * The caches belong to the instance and only keep weak references to the token maps. When a new token map is seen the
+ * maps of dropped keyspaces are evicted.
  */
 public class ReplicationStateImpl implements ReplicationState
 {
     private static final Logger LOG = LoggerFactory.getLogger(ReplicationStateImpl.class);
 
-    private static final Map<String, ImmutableMap<LongTokenRange, ImmutableSet<DriverNode>>>
-            KEYSPACE_REPLICATION_CACHE = new ConcurrentHashMap<>();
-    private static final Map<String, ImmutableMap<LongTokenRange, ImmutableSet<DriverNode>>>
-            CLUSTER_WIDE_KEYSPACE_REPLICATION_CACHE = new ConcurrentHashMap<>();
+    static final String CACHE_HITS = "replication.cache.hits";
+    static final String CACHE_MISSES = "replication.cache.misses";
+    static final String CACHE_REBUILD_TIME = "replication.cache.rebuild";
+
+    private final Map<String, CachedReplication> myKeyspaceReplicationCache = new ConcurrentHashMap<>();
+    private final Map<String, CachedReplication> myClusterWideKeyspaceReplicationCache = new ConcurrentHashMap<>();
+    private final Map<ReplicationKey, CachedReplication> myReplicationSettingsCache = new ConcurrentHashMap<>();
+    private final Object myCacheLock = new Object();
+    private volatile WeakReference<TokenMap> myCachedTokenMap = new WeakReference<>(null);
 
     private final NodeResolver myNodeResolver;
     private final CqlSession mySession;
     private final Node myLocalNode;
+    private final Counter myCacheHits;
+    private final Counter myCacheMisses;
+    private final Timer myRebuildTimer;
 
     public ReplicationStateImpl(final NodeResolver nodeResolver, final CqlSession session, final Node localNode)
+    {
+        this(nodeResolver, session, localNode, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param nodeResolver The node resolver.
+     * @param session The session.
+     * @param localNode The local node.
+     * @param meterRegistry The meter registry used to report cache hits, misses and rebuild time or null.
+     */
+    public ReplicationStateImpl(final NodeResolver nodeResolver, final CqlSession session, final Node localNode,
+                                final MeterRegistry meterRegistry)
     {
         myNodeResolver = nodeResolver;
         mySession = session;
         myLocalNode = localNode;
+        if (meterRegistry != null)
+        {
+            myCacheHits = Counter.builder(CACHE_HITS)
+                    .description("Replication lookups served from the cache")
+                    .register(meterRegistry);
+            myCacheMisses = Counter.builder(CACHE_MISSES)
+                    .description("Replication lookups that required the token map to be rebuilt")
+                    .register(meterRegistry);
+            myRebuildTimer = Timer.builder(CACHE_REBUILD_TIME)
+                    .description("Time to rebuild the token map of a keyspace")
+                    .register(meterRegistry);
+        }
+        else
+        {
+            myCacheHits = null;
+            myCacheMisses = null;
+            myRebuildTimer = null;
+        }
     }
 
     /**
@@ -70,8 +126,7 @@ public class ReplicationStateImpl implements ReplicationState
     {
         String keyspace = tableReference.getKeyspace();
 
-        ImmutableMap<LongTokenRange, ImmutableSet<DriverNode>> replication = maybeRenew(keyspace);
-        return getNodes(replication, tokenRange);
+        return getNodes(maybeRenew(keyspace), tokenRange);
     }
 
     /**
@@ -83,25 +138,16 @@ public class ReplicationStateImpl implements ReplicationState
     {
         String keyspace = tableReference.getKeyspace();
 
-        ImmutableMap<LongTokenRange, ImmutableSet<DriverNode>> replication = maybeRenewClusterWide(keyspace);
-        return getNodes(replication, tokenRange);
+        return getNodes(maybeRenewClusterWide(keyspace), tokenRange);
     }
 
-    private ImmutableSet<DriverNode> getNodes(final ImmutableMap<LongTokenRange, ImmutableSet<DriverNode>> replication,
-                                              final LongTokenRange tokenRange)
+    private ImmutableSet<DriverNode> getNodes(final CachedReplication replication, final LongTokenRange tokenRange)
     {
-        ImmutableSet<DriverNode> nodes = replication.get(tokenRange);
+        ImmutableSet<DriverNode> nodes = replication.myReplication.get(tokenRange);
 
         if (nodes == null)
         {
-            for (Map.Entry<LongTokenRange, ImmutableSet<DriverNode>> entry : replication.entrySet())
-            {
-                if (entry.getKey().isCovering(tokenRange))
-                {
-                    nodes = entry.getValue();
-                    break;
-                }
-            }
+            nodes = replication.getIndex().getCovering(tokenRange);
         }
 
         return nodes;
@@ -118,14 +164,12 @@ public class ReplicationStateImpl implements ReplicationState
     public Map<LongTokenRange, ImmutableSet<DriverNode>> getTokenRangeToReplicas(final TableReference tableReference)
     {
         String keyspace = tableReference.getKeyspace();
-        return maybeRenew(keyspace);
+        return maybeRenew(keyspace).myReplication;
     }
 
-    private ImmutableMap<LongTokenRange, ImmutableSet<DriverNode>> maybeRenew(final String keyspace)
+    private CachedReplication maybeRenew(final String keyspace)
     {
-        ImmutableMap<LongTokenRange, ImmutableSet<DriverNode>> replication = buildTokenMap(keyspace, false);
-
-        return KEYSPACE_REPLICATION_CACHE.compute(keyspace, (k, v) -> !replication.equals(v) ? replication : v);
+        return maybeRenew(keyspace, false, myKeyspaceReplicationCache);
     }
 
     /**
@@ -138,43 +182,128 @@ public class ReplicationStateImpl implements ReplicationState
     public Map<LongTokenRange, ImmutableSet<DriverNode>> getTokenRanges(final TableReference tableReference)
     {
         String keyspace = tableReference.getKeyspace();
-        return maybeRenewClusterWide(keyspace);
+        return maybeRenewClusterWide(keyspace).myReplication;
     }
 
-    private ImmutableMap<LongTokenRange, ImmutableSet<DriverNode>> maybeRenewClusterWide(final String keyspace)
+    private CachedReplication maybeRenewClusterWide(final String keyspace)
     {
-        ImmutableMap<LongTokenRange, ImmutableSet<DriverNode>> replication = buildTokenMap(keyspace, true);
-
-        return CLUSTER_WIDE_KEYSPACE_REPLICATION_CACHE
-                .compute(keyspace, (k, v) -> !replication.equals(v) ? replication : v);
+        return maybeRenew(keyspace, true, myClusterWideKeyspaceReplicationCache);
     }
 
-    private ImmutableMap<LongTokenRange, ImmutableSet<DriverNode>> buildTokenMap(final String keyspace,
-                                                                                 final boolean clusterWide)
+    private CachedReplication maybeRenew(final String keyspace, final boolean clusterWide,
+                                         final Map<String, CachedReplication> keyspaceCache)
     {
-        ImmutableMap.Builder<LongTokenRange, ImmutableSet<DriverNode>> replicationBuilder = ImmutableMap.builder();
-        Map<Set<Node>, ImmutableSet<DriverNode>> replicaCache = new HashMap<>();
         Metadata metadata = mySession.getMetadata();
-        Optional<TokenMap> tokenMap = metadata.getTokenMap();
-        if (!tokenMap.isPresent())
+        Optional<TokenMap> optionalTokenMap = metadata.getTokenMap();
+        if (!optionalTokenMap.isPresent())
         {
             throw new IllegalStateException("Cannot determine ranges, is metadata/tokenMap disabled?");
         }
+        TokenMap tokenMap = optionalTokenMap.get();
+        evictIfReplaced(metadata, tokenMap);
         String keyspaceName = quoteIfNeeded(keyspace);
+        Map<String, String> replicationSettings = metadata.getKeyspace(keyspaceName)
+                .map(KeyspaceMetadata::getReplication)
+                .filter(settings -> !settings.isEmpty())
+                .orElse(null);
+
+        CachedReplication cached = keyspaceCache.get(keyspace);
+        if (cached != null && cached.isValidFor(tokenMap, replicationSettings))
+        {
+            increment(myCacheHits);
+            return cached;
+        }
+
+        ReplicationKey replicationKey = null;
+        if (replicationSettings != null)
+        {
+            replicationKey = new ReplicationKey(replicationSettings, clusterWide);
+            CachedReplication shared = myReplicationSettingsCache.get(replicationKey);
+            if (shared != null && shared.isValidFor(tokenMap, replicationSettings))
+            {
+                increment(myCacheHits);
+                keyspaceCache.put(keyspace, shared);
+                return shared;
+            }
+        }
+
+        increment(myCacheMisses);
+        LOG.debug("Building token map for keyspace {}", keyspace);
+        long startNanos = System.nanoTime();
+        ImmutableMap<LongTokenRange, ImmutableSet<DriverNode>> replication
+                = buildTokenMap(tokenMap, keyspaceName, clusterWide);
+        if (myRebuildTimer != null)
+        {
+            myRebuildTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+        if (cached != null && replication.equals(cached.myReplication))
+        {
+            replication = cached.myReplication;
+        }
+
+        CachedReplication renewed = new CachedReplication(tokenMap, replicationSettings, replication);
+        synchronized (myCacheLock)
+        {
+            keyspaceCache.put(keyspace, renewed);
+            if (replicationKey != null)
+            {
+                myReplicationSettingsCache.put(replicationKey, renewed);
+            }
+        }
+        return renewed;
+    }
+
+    private void evictIfReplaced(final Metadata metadata, final TokenMap tokenMap)
+    {
+        if (tokenMap != myCachedTokenMap.get())
+        {
+            synchronized (myCacheLock)
+            {
+                if (tokenMap != myCachedTokenMap.get())
+                {
+                    LOG.debug("Token map replaced, evicting dropped keyspaces");
+                    myKeyspaceReplicationCache.keySet().removeIf(keyspace -> isDropped(metadata, keyspace));
+                    myClusterWideKeyspaceReplicationCache.keySet().removeIf(keyspace -> isDropped(metadata, keyspace));
+                    myReplicationSettingsCache.clear();
+                    myCachedTokenMap = new WeakReference<>(tokenMap);
+                }
+            }
+        }
+    }
+
+    private static boolean isDropped(final Metadata metadata, final String keyspace)
+    {
+        return !metadata.getKeyspace(quoteIfNeeded(keyspace)).isPresent();
+    }
+
+    private static void increment(final Counter counter)
+    {
+        if (counter != null)
+        {
+            counter.increment();
+        }
+    }
+
+    private ImmutableMap<LongTokenRange, ImmutableSet<DriverNode>> buildTokenMap(final TokenMap tokenMap,
+                                                                                 final String keyspaceName,
+                                                                                 final boolean clusterWide)
+    {
+        ImmutableMap.Builder<LongTokenRange, ImmutableSet<DriverNode>> replicationBuilder = ImmutableMap.builder();
+        Map<Set<Node>, ImmutableSet<DriverNode>> replicaCache = new HashMap<>();
         Set<TokenRange> tokenRanges;
         if (clusterWide)
         {
-            tokenRanges = tokenMap.get().getTokenRanges();
+            tokenRanges = tokenMap.getTokenRanges();
         }
         else
         {
-            tokenRanges = tokenMap.get().getTokenRanges(keyspaceName, myLocalNode);
+            tokenRanges = tokenMap.getTokenRanges(keyspaceName, myLocalNode);
         }
         for (TokenRange tokenRange : tokenRanges)
         {
             LongTokenRange longTokenRange = convert(tokenRange);
             ImmutableSet<DriverNode> replicas
-                    = replicaCache.computeIfAbsent(tokenMap.get().getReplicas(keyspaceName, tokenRange), this::convert);
+                    = replicaCache.computeIfAbsent(tokenMap.getReplicas(keyspaceName, tokenRange), this::convert);
 
             replicationBuilder.put(longTokenRange, replicas);
         }
@@ -215,4 +344,70 @@ public class ReplicationStateImpl implements ReplicationState
         long end = ((Murmur3Token) range.getEnd()).getValue();
         return new LongTokenRange(start, end);
     }
+
+    private static final class CachedReplication
+    {
+        private final WeakReference<TokenMap> myTokenMap;
+        private final Map<String, String> myReplicationSettings;
+        private final ImmutableMap<LongTokenRange, ImmutableSet<DriverNode>> myReplication;
+        private volatile LongTokenRangeIndex<ImmutableSet<DriverNode>> myIndex;
+
+        CachedReplication(final TokenMap tokenMap, final Map<String, String> replicationSettings,
+                          final ImmutableMap<LongTokenRange, ImmutableSet<DriverNode>> replication)
+        {
+            myTokenMap = new WeakReference<>(tokenMap);
+            myReplicationSettings = replicationSettings;
+            myReplication = replication;
+        }
+
+        boolean isValidFor(final TokenMap tokenMap, final Map<String, String> replicationSettings)
+        {
+            return myTokenMap.get() == tokenMap && Objects.equals(myReplicationSettings, replicationSettings);
+        }
+
+        LongTokenRangeIndex<ImmutableSet<DriverNode>> getIndex()
+        {
+            LongTokenRangeIndex<ImmutableSet<DriverNode>> index = myIndex;
+            if (index == null)
+            {
+                index = LongTokenRangeIndex.of(myReplication);
+                myIndex = index;
+            }
+            return index;
+        }
+    }
+
+    private static final class ReplicationKey
+    {
+        private final Map<String, String> myReplicationSettings;
+        private final boolean myClusterWide;
+
+        ReplicationKey(final Map<String, String> replicationSettings, final boolean clusterWide)
+        {
+            myReplicationSettings = replicationSettings;
+            myClusterWide = clusterWide;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass())
+            {
+                return false;
+            }
+            ReplicationKey that = (ReplicationKey) o;
+            return myReplicationSettings.equals(that.myReplicationSettings)
+                    && myClusterWide == that.myClusterWide;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(myReplicationSettings, myClusterWide);
+        }
+    }
 }
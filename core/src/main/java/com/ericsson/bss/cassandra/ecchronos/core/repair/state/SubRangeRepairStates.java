@@ -15,6 +15,7 @@
 package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
 
 import com.ericsson.bss.cassandra.ecchronos.core.utils.LongTokenRange;
+import com.ericsson.bss.cassandra.ecchronos.core.utils.LongTokenRangeIndex;
 import com.google.common.collect.ImmutableList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -93,6 +94,7 @@ public final class SubRangeRepairStates implements VnodeRepairStates // CPD-OFF
     public static class Builder implements VnodeRepairStates.Builder
     {
         private final ImmutableList<VnodeRepairState> myVnodeRepairStatesBase;
+        private final LongTokenRangeIndex<VnodeRepairState> myVnodeRepairStatesIndex;
         private final Map<LongTokenRange, VnodeRepairState> myActualVnodeRepairStates = new HashMap<>();
 
         public Builder(final Collection<VnodeRepairState> vnodeRepairStates)
@@ -103,6 +105,7 @@ public final class SubRangeRepairStates implements VnodeRepairStates // CPD-OFF
                 builder.add(vnodeRepairState);
             }
             myVnodeRepairStatesBase = builder.build();
+            myVnodeRepairStatesIndex = LongTokenRangeIndex.of(myVnodeRepairStatesBase, VnodeRepairState::getTokenRange);
         }
 
         /**
@@ -114,13 +117,10 @@ public final class SubRangeRepairStates implements VnodeRepairStates // CPD-OFF
         @Override
         public VnodeRepairStates.Builder updateVnodeRepairState(final VnodeRepairState vnodeRepairState)
         {
-            for (VnodeRepairState baseVnode : myVnodeRepairStatesBase)
+            VnodeRepairState baseVnode = myVnodeRepairStatesIndex.getCovering(vnodeRepairState.getTokenRange());
+            if (baseVnode != null)
             {
-                if (baseVnode.getTokenRange().isCovering(vnodeRepairState.getTokenRange()))
-                {
-                    replaceIfNewer(baseVnode, vnodeRepairState);
-                    break;
-                }
+                replaceIfNewer(baseVnode, vnodeRepairState);
             }
 
             return this;
@@ -21,51 +21,147 @@ import com.google.common.collect.ImmutableSet;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * A factory for {@link ReplicaRepairGroup} that creates repair groups for all vnodes with common replicas.
  *
  * The generated list will contain the vnode groups in a sorted order so that the most urgent vnode to
  * repair is first in the list.
+ *
+ * Optionally the number of vnodes in each group can be bounded, in which case large groups are split into several
+ * groups with the most urgent vnodes in the first group.
  */
 public final class VnodeRepairGroupFactory implements ReplicaRepairGroupFactory
 {
-    public static final VnodeRepairGroupFactory INSTANCE = new VnodeRepairGroupFactory();
+    public static final int UNBOUNDED_GROUP_SIZE = Integer.MAX_VALUE;
+
+    public static final VnodeRepairGroupFactory INSTANCE = new VnodeRepairGroupFactory(UNBOUNDED_GROUP_SIZE);
+
+    private static final Comparator<VnodeGroup> URGENCY_COMPARATOR = Comparator
+            .comparingLong((VnodeGroup group) -> group.myMinLastRepairedAt)
+            .thenComparingInt(group -> group.myMinIndex);
 
-    private VnodeRepairGroupFactory()
+    private final int myMaxVnodesPerGroup;
+
+    private VnodeRepairGroupFactory(final int maxVnodesPerGroup)
     {
-        // Nothing to do here
+        myMaxVnodesPerGroup = maxVnodesPerGroup;
+    }
+
+    /**
+     * Get a factory that splits the repair groups into groups containing at most the provided number of vnodes.
+     *
+     * @param maxVnodesPerGroup The maximum number of vnodes in each group.
+     * @return The repair group factory
+     */
+    public static VnodeRepairGroupFactory withMaxVnodesPerGroup(final int maxVnodesPerGroup)
+    {
+        if (maxVnodesPerGroup < 1)
+        {
+            throw new IllegalArgumentException("Max vnodes per group must be at least 1, got " + maxVnodesPerGroup);
+        }
+        if (maxVnodesPerGroup == UNBOUNDED_GROUP_SIZE)
+        {
+            return INSTANCE;
+        }
+        return new VnodeRepairGroupFactory(maxVnodesPerGroup);
     }
 
     @Override
     public List<ReplicaRepairGroup> generateReplicaRepairGroups(final List<VnodeRepairState> availableVnodeRepairStates)
     {
-        List<VnodeRepairState> sortedVnodeRepairStates = availableVnodeRepairStates.stream()
-                .sorted(Comparator.comparingLong(VnodeRepairState::lastRepairedAt))
-                .collect(Collectors.toList());
+        Map<ImmutableSet<DriverNode>, VnodeGroup> groupsByReplicas = new LinkedHashMap<>();
+
+        for (int i = 0; i < availableVnodeRepairStates.size(); i++)
+        {
+            VnodeRepairState vnodeRepairState = availableVnodeRepairStates.get(i);
+            groupsByReplicas.computeIfAbsent(vnodeRepairState.getReplicas(), VnodeGroup::new)
+                    .add(vnodeRepairState, i);
+        }
+
+        List<VnodeGroup> groups = new ArrayList<>();
+        for (VnodeGroup group : groupsByReplicas.values())
+        {
+            group.split(myMaxVnodesPerGroup, groups);
+        }
+
+        groups.sort(URGENCY_COMPARATOR);
+
+        List<ReplicaRepairGroup> sortedRepairGroups = new ArrayList<>(groups.size());
+        for (VnodeGroup group : groups)
+        {
+            sortedRepairGroups.add(group.toReplicaRepairGroup());
+        }
+
+        return sortedRepairGroups;
+    }
+
+    /**
+     * The vnodes of a replica set, keeping track of the most urgent vnode in the group.
+     * The index of the most urgent vnode is used to keep the order stable between groups that are equally urgent.
+     */
+    private static final class VnodeGroup
+    {
+        private final ImmutableSet<DriverNode> myReplicas;
+        private final List<VnodeRepairState> myVnodes = new ArrayList<>();
+        private final List<Integer> myIndexes = new ArrayList<>();
+        private long myMinLastRepairedAt = Long.MAX_VALUE;
+        private int myMinIndex = Integer.MAX_VALUE;
 
-        List<ReplicaRepairGroup> sortedRepairGroups = new ArrayList<>();
-        Set<Set<DriverNode>> countedReplicaGroups = new HashSet<>();
+        VnodeGroup(final ImmutableSet<DriverNode> replicas)
+        {
+            myReplicas = replicas;
+        }
 
-        for (VnodeRepairState vnodeRepairState : sortedVnodeRepairStates)
+        void add(final VnodeRepairState vnodeRepairState, final int index)
         {
-            ImmutableSet<DriverNode> replicas = vnodeRepairState.getReplicas();
+            myVnodes.add(vnodeRepairState);
+            myIndexes.add(index);
+            if (vnodeRepairState.lastRepairedAt() < myMinLastRepairedAt)
+            {
+                myMinLastRepairedAt = vnodeRepairState.lastRepairedAt();
+                myMinIndex = index;
+            }
+        }
 
-            if (countedReplicaGroups.add(replicas))
+        void split(final int maxVnodesPerGroup, final List<VnodeGroup> result)
+        {
+            if (myVnodes.size() <= maxVnodesPerGroup)
             {
-                List<LongTokenRange> commonVnodes = availableVnodeRepairStates.stream()
-                        .filter(v -> v.getReplicas().equals(replicas))
-                        .map(VnodeRepairState::getTokenRange)
-                        .collect(Collectors.toList());
+                result.add(this);
+                return;
+            }
 
-                sortedRepairGroups.add(new ReplicaRepairGroup(replicas, ImmutableList.copyOf(commonVnodes)));
+            List<Integer> order = new ArrayList<>(myVnodes.size());
+            for (int i = 0; i < myVnodes.size(); i++)
+            {
+                order.add(i);
+            }
+            order.sort(Comparator.comparingLong(i -> myVnodes.get(i).lastRepairedAt()));
+
+            VnodeGroup batch = null;
+            for (int i : order)
+            {
+                if (batch == null || batch.myVnodes.size() >= maxVnodesPerGroup)
+                {
+                    batch = new VnodeGroup(myReplicas);
+                    result.add(batch);
+                }
+                batch.add(myVnodes.get(i), myIndexes.get(i));
             }
         }
 
-        return sortedRepairGroups;
+        ReplicaRepairGroup toReplicaRepairGroup()
+        {
+            ImmutableList.Builder<LongTokenRange> vnodes = ImmutableList.builder();
+            for (VnodeRepairState vnodeRepairState : myVnodes)
+            {
+                vnodes.add(vnodeRepairState.getTokenRange());
+            }
+            return new ReplicaRepairGroup(myReplicas, vnodes.build());
+        }
     }
 }
@@ -15,18 +15,24 @@
 package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
 
 import com.ericsson.bss.cassandra.ecchronos.core.utils.LongTokenRange;
+import com.ericsson.bss.cassandra.ecchronos.core.utils.LongTokenRangeIndex;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.DriverNode;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReference;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * A repair state factory which uses a {@link RepairHistoryProvider} to determine repair state.
@@ -35,6 +41,8 @@ public class VnodeRepairStateFactoryImpl implements VnodeRepairStateFactory
 {
     private static final Logger LOG = LoggerFactory.getLogger(VnodeRepairStateFactoryImpl.class);
 
+    static final int MAX_CONCURRENT_NODE_READS = 8;
+
     private final ReplicationState myReplicationState;
     private final RepairHistoryProvider myRepairHistoryProvider;
     private final boolean useSubRanges;
@@ -56,6 +64,7 @@ public class VnodeRepairStateFactoryImpl implements VnodeRepairStateFactory
     {
         Map<LongTokenRange, ImmutableSet<DriverNode>> tokenRangeToReplicaMap
                 = myReplicationState.getTokenRangeToReplicas(tableReference);
+        ReplicaLookup replicaLookup = new ReplicaLookup(tokenRangeToReplicaMap);
         long lastRepairedAt = previousLastRepairedAt(previous, tokenRangeToReplicaMap);
         long now = System.currentTimeMillis();
 
@@ -65,17 +74,17 @@ public class VnodeRepairStateFactoryImpl implements VnodeRepairStateFactory
         {
             LOG.debug("No last repaired at found for {}, iterating over all repair entries", tableReference);
             repairEntryIterator = myRepairHistoryProvider.iterate(tableReference,
-                    now, (repairEntry) -> acceptRepairEntries(repairEntry, tokenRangeToReplicaMap));
+                    now, (repairEntry) -> acceptRepairEntries(repairEntry, replicaLookup));
         }
         else
         {
             LOG.debug("Table {} last repaired at {}, iterating repair entries until that time",
                     tableReference, lastRepairedAt);
             repairEntryIterator = myRepairHistoryProvider.iterate(tableReference,
-                    now, lastRepairedAt, (repairEntry) -> acceptRepairEntries(repairEntry, tokenRangeToReplicaMap));
+                    now, lastRepairedAt, (repairEntry) -> acceptRepairEntries(repairEntry, replicaLookup));
         }
 
-        return generateVnodeRepairStates(lastRepairedAt, previous, repairEntryIterator, tokenRangeToReplicaMap);
+        return generateVnodeRepairStates(lastRepairedAt, previous, repairEntryIterator, replicaLookup);
     }
 
     /**
@@ -86,12 +95,11 @@ public class VnodeRepairStateFactoryImpl implements VnodeRepairStateFactory
                                             final long to,
                                             final long from)
     {
-        Map<LongTokenRange, ImmutableSet<DriverNode>> tokenRangeToReplicaMap
-                = myReplicationState.getTokenRangeToReplicas(tableReference);
+        ReplicaLookup replicaLookup = new ReplicaLookup(myReplicationState.getTokenRangeToReplicas(tableReference));
         Iterator<RepairEntry> repairEntryIterator = myRepairHistoryProvider.iterate(tableReference, to, from,
-                (repairEntry) -> acceptRepairEntries(repairEntry, tokenRangeToReplicaMap));
+                (repairEntry) -> acceptRepairEntries(repairEntry, replicaLookup));
         return generateVnodeRepairStates(VnodeRepairState.UNREPAIRED,
-                null, repairEntryIterator, tokenRangeToReplicaMap);
+                null, repairEntryIterator, replicaLookup);
     }
 
     /**
@@ -103,29 +111,26 @@ public class VnodeRepairStateFactoryImpl implements VnodeRepairStateFactory
                                                        final long from)
     {
         Map<LongTokenRange, ImmutableSet<DriverNode>> tokenRanges = myReplicationState.getTokenRanges(tableReference);
+        ReplicaLookup replicaLookup = new ReplicaLookup(tokenRanges);
         Set<DriverNode> allNodes = new HashSet<>();
         tokenRanges.values().forEach(n -> allNodes.addAll(n));
-        List<RepairEntry> allRepairEntries = new ArrayList<>();
-        for (DriverNode node : allNodes)
-        {
-            Iterator<RepairEntry> repairEntryIterator = myRepairHistoryProvider.iterate(node.getId(),
-                    tableReference, to, from, (repairEntry) -> acceptRepairEntries(repairEntry, tokenRanges));
-            while (repairEntryIterator.hasNext())
-            {
-                RepairEntry repairEntry = repairEntryIterator.next();
-                allRepairEntries.add(repairEntry);
-            }
-        }
-        return generateVnodeRepairStates(VnodeRepairState.UNREPAIRED, null, allRepairEntries.iterator(), tokenRanges);
+
+        // Start iterating the history of nodes ahead of consuming them so that the reads overlap
+        Iterator<Iterator<RepairEntry>> repairEntryIterators = new ReadAheadIterator<>(allNodes.iterator(),
+                node -> myRepairHistoryProvider.iterate(node.getId(), tableReference, to, from,
+                        (repairEntry) -> acceptRepairEntries(repairEntry, replicaLookup)),
+                MAX_CONCURRENT_NODE_READS);
+        return generateVnodeRepairStates(VnodeRepairState.UNREPAIRED, null,
+                Iterators.concat(repairEntryIterators), replicaLookup);
     }
 
     private VnodeRepairStates generateVnodeRepairStates(final long lastRepairedAt,
                                                         final RepairStateSnapshot previous,
                                                         final Iterator<RepairEntry> repairEntryIterator,
-                                                        final Map<LongTokenRange, ImmutableSet<DriverNode>>
-                                                                tokenRangeToReplicaMap)
+                                                        final ReplicaLookup replicaLookup)
     {
         List<VnodeRepairState> vnodeRepairStatesBase = new ArrayList<>();
+        Map<LongTokenRange, ImmutableSet<DriverNode>> tokenRangeToReplicaMap = replicaLookup.myTokenRangeToReplicas;
 
         for (Map.Entry<LongTokenRange, ImmutableSet<DriverNode>> entry : tokenRangeToReplicaMap.entrySet())
         {
@@ -153,7 +158,7 @@ public class VnodeRepairStateFactoryImpl implements VnodeRepairStateFactory
         {
             RepairEntry repairEntry = repairEntryIterator.next();
             LongTokenRange longTokenRange = repairEntry.getRange();
-            ImmutableSet<DriverNode> replicas = getReplicasForRange(longTokenRange, tokenRangeToReplicaMap);
+            ImmutableSet<DriverNode> replicas = replicaLookup.getReplicasForRange(longTokenRange);
 
             VnodeRepairState vnodeRepairState = new VnodeRepairState(longTokenRange,
                     replicas, repairEntry.getStartedAt(), repairEntry.getFinishedAt());
@@ -193,8 +198,7 @@ public class VnodeRepairStateFactoryImpl implements VnodeRepairStateFactory
         return lastRepairedAt == Long.MAX_VALUE ? VnodeRepairState.UNREPAIRED : lastRepairedAt;
     }
 
-    private boolean acceptRepairEntries(final RepairEntry repairEntry,
-                                        final Map<LongTokenRange, ImmutableSet<DriverNode>> tokenRangeToReplicaMap)
+    private boolean acceptRepairEntries(final RepairEntry repairEntry, final ReplicaLookup replicaLookup)
     {
         if (RepairStatus.SUCCESS != repairEntry.getStatus())
         {
@@ -204,7 +208,7 @@ public class VnodeRepairStateFactoryImpl implements VnodeRepairStateFactory
 
         LongTokenRange repairedRange = repairEntry.getRange();
 
-        ImmutableSet<DriverNode> nodes = getReplicasForRange(repairedRange, tokenRangeToReplicaMap);
+        ImmutableSet<DriverNode> nodes = replicaLookup.getReplicasForRange(repairedRange);
         if (nodes == null)
         {
             LOG.trace("Ignoring entry {}, replicas not present in tokenRangeToReplicas", repairEntry);
@@ -220,23 +224,76 @@ public class VnodeRepairStateFactoryImpl implements VnodeRepairStateFactory
         return true;
     }
 
-    private ImmutableSet<DriverNode> getReplicasForRange(final LongTokenRange range,
-                                                         final Map<LongTokenRange, ImmutableSet<DriverNode>>
-                                                                 tokenRangeToReplicaMap)
+    /**
+     * Lookup of replicas for repaired ranges, the covering range index is only built if sub ranges are used.
+     */
+    private final class ReplicaLookup
     {
-        ImmutableSet<DriverNode> nodes = tokenRangeToReplicaMap.get(range);
-        if (nodes == null && useSubRanges)
+        private final Map<LongTokenRange, ImmutableSet<DriverNode>> myTokenRangeToReplicas;
+        private LongTokenRangeIndex<ImmutableSet<DriverNode>> myIndex;
+
+        ReplicaLookup(final Map<LongTokenRange, ImmutableSet<DriverNode>> tokenRangeToReplicas)
+        {
+            myTokenRangeToReplicas = tokenRangeToReplicas;
+        }
+
+        ImmutableSet<DriverNode> getReplicasForRange(final LongTokenRange range)
         {
-            for (Map.Entry<LongTokenRange, ImmutableSet<DriverNode>> vnode : tokenRangeToReplicaMap.entrySet())
+            ImmutableSet<DriverNode> nodes = myTokenRangeToReplicas.get(range);
+            if (nodes == null && useSubRanges)
             {
-                if (vnode.getKey().isCovering(range))
+                if (myIndex == null)
                 {
-                    nodes = vnode.getValue();
-                    break;
+                    myIndex = LongTokenRangeIndex.of(myTokenRangeToReplicas);
                 }
+                nodes = myIndex.getCovering(range);
+            }
+
+            return nodes;
+        }
+    }
+
+    /**
+     * Creates the iterators of the elements at most a fixed number of elements ahead of the consumer.
+     * <p>
+     * Creating a repair entry iterator starts reading the repair history of a node, this bounds the number of nodes
+     * read concurrently.
+     */
+    static final class ReadAheadIterator<T, R> implements Iterator<R>
+    {
+        private final Iterator<T> mySource;
+        private final Function<T, R> myFactory;
+        private final Deque<R> myStarted = new ArrayDeque<>();
+
+        ReadAheadIterator(final Iterator<T> source, final Function<T, R> factory, final int readAhead)
+        {
+            mySource = source;
+            myFactory = factory;
+            while (myStarted.size() < readAhead && mySource.hasNext())
+            {
+                myStarted.add(myFactory.apply(mySource.next()));
             }
         }
 
-        return nodes;
+        @Override
+        public boolean hasNext()
+        {
+            return !myStarted.isEmpty();
+        }
+
+        @Override
+        public R next()
+        {
+            R next = myStarted.poll();
+            if (next == null)
+            {
+                throw new NoSuchElementException();
+            }
+            if (mySource.hasNext())
+            {
+                myStarted.add(myFactory.apply(mySource.next()));
+            }
+            return next;
+        }
     }
 }
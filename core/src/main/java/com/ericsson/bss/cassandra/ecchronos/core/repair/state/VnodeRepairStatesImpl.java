@@ -14,21 +14,65 @@
  */
 package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
 
+import com.ericsson.bss.cassandra.ecchronos.core.utils.DriverNode;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.LongTokenRange;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.RandomAccess;
 
+/**
+ * Vnode repair states stored column wise in primitive arrays.
+ *
+ * The token ranges and replica sets of a table rarely change between two snapshots so those columns are shared
+ * between snapshots derived from each other while the repair timestamps are copied on the first update.
+ * The {@link VnodeRepairState} objects returned by {@link #getVnodeRepairStates()} are created on access.
+ */
 public final class VnodeRepairStatesImpl implements VnodeRepairStates // CPD-OFF
 {
-    private final ImmutableList<VnodeRepairState> myVnodeRepairStatuses;
+    private static final Interner<ImmutableSet<DriverNode>> REPLICA_SET_INTERNER = Interners.newWeakInterner();
+
+    private final long[] myStarts;
+    private final long[] myEnds;
+    private final int[] myReplicaIds;
+    private final ImmutableList<ImmutableSet<DriverNode>> myReplicaSets;
+    private final long[] myStartedAts;
+    private final long[] myFinishedAts;
+    private final long[] myRepairTimes;
+    private final List<VnodeRepairState> myVnodeRepairStatuses = new VnodeRepairStateList();
 
     private VnodeRepairStatesImpl(final Builder builder)
     {
-        myVnodeRepairStatuses = ImmutableList.copyOf(builder.myVnodeRepairStates.values());
+        myStarts = builder.myStarts;
+        myEnds = builder.myEnds;
+        myReplicaIds = builder.myReplicaIds;
+        myReplicaSets = builder.myReplicaSets;
+        myStartedAts = builder.myStartedAts;
+        myFinishedAts = builder.myFinishedAts;
+        myRepairTimes = builder.myRepairTimes;
+    }
+
+    private VnodeRepairStatesImpl(final VnodeRepairStatesImpl base,
+                                  final long[] startedAts,
+                                  final long[] finishedAts,
+                                  final long[] repairTimes)
+    {
+        myStarts = base.myStarts;
+        myEnds = base.myEnds;
+        myReplicaIds = base.myReplicaIds;
+        myReplicaSets = base.myReplicaSets;
+        myStartedAts = startedAts;
+        myFinishedAts = finishedAts;
+        myRepairTimes = repairTimes;
     }
 
     @Override
@@ -40,16 +84,32 @@ public final class VnodeRepairStatesImpl implements VnodeRepairStates // CPD-OFF
     @Override
     public VnodeRepairStatesImpl combineWithRepairedAt(final long repairedAt)
     {
-        Builder builder = newBuilder(getVnodeRepairStates());
+        long[] startedAts = null;
+        long[] finishedAts = null;
+        long[] repairTimes = null;
 
-        for (VnodeRepairState vnodeRepairState : getVnodeRepairStates())
+        for (int i = 0; i < myStartedAts.length; i++)
         {
-            VnodeRepairState vnodeRepairStateWithRepairedAt = new VnodeRepairState(vnodeRepairState.getTokenRange(),
-                    vnodeRepairState.getReplicas(), repairedAt);
-            builder.updateVnodeRepairState(vnodeRepairStateWithRepairedAt);
+            if (myStartedAts[i] < repairedAt || myFinishedAts[i] < VnodeRepairState.UNREPAIRED)
+            {
+                if (startedAts == null)
+                {
+                    startedAts = myStartedAts.clone();
+                    finishedAts = myFinishedAts.clone();
+                    repairTimes = myRepairTimes.clone();
+                }
+                startedAts[i] = repairedAt;
+                finishedAts[i] = VnodeRepairState.UNREPAIRED;
+                repairTimes[i] = 0;
+            }
         }
 
-        return builder.build();
+        if (startedAts == null)
+        {
+            return this;
+        }
+
+        return new VnodeRepairStatesImpl(this, startedAts, finishedAts, repairTimes);
     }
 
     @Override
@@ -75,25 +135,146 @@ public final class VnodeRepairStatesImpl implements VnodeRepairStates // CPD-OFF
             return false;
         }
         VnodeRepairStatesImpl that = (VnodeRepairStatesImpl) o;
-        return Objects.equals(myVnodeRepairStatuses, that.myVnodeRepairStatuses);
+        if (!Arrays.equals(myStarts, that.myStarts)
+                || !Arrays.equals(myEnds, that.myEnds)
+                || !Arrays.equals(myStartedAts, that.myStartedAts)
+                || !Arrays.equals(myFinishedAts, that.myFinishedAts)
+                || !Arrays.equals(myRepairTimes, that.myRepairTimes))
+        {
+            return false;
+        }
+        for (int i = 0; i < myReplicaIds.length; i++)
+        {
+            if (!replicasAt(i).equals(that.replicasAt(i)))
+            {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(myVnodeRepairStatuses);
+        int result = Arrays.hashCode(myStarts);
+        result = 31 * result + Arrays.hashCode(myEnds);
+        result = 31 * result + Arrays.hashCode(myStartedAts);
+        result = 31 * result + Arrays.hashCode(myFinishedAts);
+        result = 31 * result + Arrays.hashCode(myRepairTimes);
+        for (int i = 0; i < myReplicaIds.length; i++)
+        {
+            result = 31 * result + replicasAt(i).hashCode();
+        }
+        return result;
+    }
+
+    private ImmutableSet<DriverNode> replicasAt(final int index)
+    {
+        return myReplicaSets.get(myReplicaIds[index]);
+    }
+
+    private VnodeRepairState vnodeRepairStateAt(final int index)
+    {
+        return new VnodeRepairState(new LongTokenRange(myStarts[index], myEnds[index]), replicasAt(index),
+                myStartedAts[index], myFinishedAts[index], myRepairTimes[index]);
+    }
+
+    /**
+     * Read-only list view materializing the vnode repair states from the columns.
+     */
+    private final class VnodeRepairStateList extends AbstractList<VnodeRepairState> implements RandomAccess
+    {
+        @Override
+        public VnodeRepairState get(final int index)
+        {
+            return vnodeRepairStateAt(index);
+        }
+
+        @Override
+        public int size()
+        {
+            return myStarts.length;
+        }
+
+        private VnodeRepairStatesImpl owner()
+        {
+            return VnodeRepairStatesImpl.this;
+        }
     }
 
     public static class Builder implements VnodeRepairStates.Builder
     {
-        private final Map<LongTokenRange, VnodeRepairState> myVnodeRepairStates = new LinkedHashMap<>();
+        private final long[] myStarts;
+        private final long[] myEnds;
+        private final int[] myReplicaIds;
+        private final ImmutableList<ImmutableSet<DriverNode>> myReplicaSets;
+        private long[] myStartedAts;
+        private long[] myFinishedAts;
+        private long[] myRepairTimes;
+        private boolean myIsShared;
+        private Map<LongTokenRange, Integer> myIndex;
 
         public Builder(final Collection<VnodeRepairState> vnodeRepairStates)
         {
+            if (vnodeRepairStates instanceof VnodeRepairStatesImpl.VnodeRepairStateList)
+            {
+                VnodeRepairStatesImpl base = ((VnodeRepairStatesImpl.VnodeRepairStateList) vnodeRepairStates).owner();
+                myStarts = base.myStarts;
+                myEnds = base.myEnds;
+                myReplicaIds = base.myReplicaIds;
+                myReplicaSets = base.myReplicaSets;
+                myStartedAts = base.myStartedAts;
+                myFinishedAts = base.myFinishedAts;
+                myRepairTimes = base.myRepairTimes;
+                myIsShared = true;
+                return;
+            }
+
+            myIndex = new HashMap<>();
+            List<VnodeRepairState> uniqueVnodes = new ArrayList<>(vnodeRepairStates.size());
             for (VnodeRepairState vnodeRepairState : vnodeRepairStates)
             {
-                myVnodeRepairStates.put(vnodeRepairState.getTokenRange(), vnodeRepairState);
+                Integer index = myIndex.putIfAbsent(vnodeRepairState.getTokenRange(), uniqueVnodes.size());
+                if (index == null)
+                {
+                    uniqueVnodes.add(vnodeRepairState);
+                }
+                else
+                {
+                    uniqueVnodes.set(index, vnodeRepairState);
+                }
+            }
+
+            int size = uniqueVnodes.size();
+            myStarts = new long[size];
+            myEnds = new long[size];
+            myReplicaIds = new int[size];
+            myStartedAts = new long[size];
+            myFinishedAts = new long[size];
+            myRepairTimes = new long[size];
+
+            Map<ImmutableSet<DriverNode>, Integer> replicaSetIds = new HashMap<>();
+            ImmutableList.Builder<ImmutableSet<DriverNode>> replicaSets = ImmutableList.builder();
+            for (int i = 0; i < size; i++)
+            {
+                VnodeRepairState vnodeRepairState = uniqueVnodes.get(i);
+                ImmutableSet<DriverNode> replicas = vnodeRepairState.getReplicas();
+                Integer replicaId = replicaSetIds.get(replicas);
+                if (replicaId == null)
+                {
+                    replicaId = replicaSetIds.size();
+                    replicaSetIds.put(replicas, replicaId);
+                    replicaSets.add(REPLICA_SET_INTERNER.intern(replicas));
+                }
+
+                myStarts[i] = vnodeRepairState.getTokenRange().start;
+                myEnds[i] = vnodeRepairState.getTokenRange().end;
+                myReplicaIds[i] = replicaId;
+                myStartedAts[i] = vnodeRepairState.getStartedAt();
+                myFinishedAts[i] = vnodeRepairState.getFinishedAt();
+                myRepairTimes[i] = vnodeRepairState.getRepairTime();
             }
+            myReplicaSets = replicaSets.build();
         }
 
         /**
@@ -104,6 +285,16 @@ public final class VnodeRepairStatesImpl implements VnodeRepairStates // CPD-OFF
         @Override
         public Builder updateVnodeRepairStates(final Collection<VnodeRepairState> vnodeRepairStates)
         {
+            if (vnodeRepairStates instanceof VnodeRepairStatesImpl.VnodeRepairStateList)
+            {
+                VnodeRepairStatesImpl other = ((VnodeRepairStatesImpl.VnodeRepairStateList) vnodeRepairStates).owner();
+                if (other.myStarts == myStarts && other.myEnds == myEnds && other.myReplicaIds == myReplicaIds)
+                {
+                    updateFromSameVnodes(other);
+                    return this;
+                }
+            }
+
             for (VnodeRepairState vnodeRepairState : vnodeRepairStates)
             {
                 updateVnodeRepairState(vnodeRepairState);
@@ -119,10 +310,11 @@ public final class VnodeRepairStatesImpl implements VnodeRepairStates // CPD-OFF
         @Override
         public Builder updateVnodeRepairState(final VnodeRepairState vnodeRepairState)
         {
-            VnodeRepairState oldVnode = myVnodeRepairStates.get(vnodeRepairState.getTokenRange());
-            if (shouldReplace(oldVnode, vnodeRepairState))
+            Integer index = index().get(vnodeRepairState.getTokenRange());
+            if (index != null && myReplicaSets.get(myReplicaIds[index]).equals(vnodeRepairState.getReplicas()))
             {
-                myVnodeRepairStates.put(vnodeRepairState.getTokenRange(), vnodeRepairState);
+                replaceIfNewer(index, vnodeRepairState.getStartedAt(), vnodeRepairState.getFinishedAt(),
+                        vnodeRepairState.getRepairTime());
             }
             return this;
         }
@@ -135,23 +327,47 @@ public final class VnodeRepairStatesImpl implements VnodeRepairStates // CPD-OFF
         @Override
         public VnodeRepairStatesImpl build()
         {
+            myIsShared = true;
             return new VnodeRepairStatesImpl(this);
         }
 
-        private boolean shouldReplace(final VnodeRepairState oldVnode, final VnodeRepairState newVnode)
+        private void updateFromSameVnodes(final VnodeRepairStatesImpl other)
         {
-            if (oldVnode == null)
+            for (int i = 0; i < myStarts.length; i++)
             {
-                return false;
+                replaceIfNewer(i, other.myStartedAts[i], other.myFinishedAts[i], other.myRepairTimes[i]);
             }
+        }
 
-            if (!oldVnode.isSameVnode(newVnode))
+        private void replaceIfNewer(final int index, final long startedAt, final long finishedAt,
+                                    final long repairTime)
+        {
+            if (myStartedAts[index] < startedAt || myFinishedAts[index] < finishedAt)
             {
-                return false;
+                if (myIsShared)
+                {
+                    myStartedAts = myStartedAts.clone();
+                    myFinishedAts = myFinishedAts.clone();
+                    myRepairTimes = myRepairTimes.clone();
+                    myIsShared = false;
+                }
+                myStartedAts[index] = startedAt;
+                myFinishedAts[index] = finishedAt;
+                myRepairTimes[index] = repairTime;
             }
+        }
 
-            return oldVnode.lastRepairedAt() < newVnode.lastRepairedAt()
-                    || oldVnode.getFinishedAt() < newVnode.getFinishedAt();
+        private Map<LongTokenRange, Integer> index()
+        {
+            if (myIndex == null)
+            {
+                myIndex = new HashMap<>();
+                for (int i = 0; i < myStarts.length; i++)
+                {
+                    myIndex.put(new LongTokenRange(myStarts[i], myEnds[i]), i);
+                }
+            }
+            return myIndex;
         }
     }
 }
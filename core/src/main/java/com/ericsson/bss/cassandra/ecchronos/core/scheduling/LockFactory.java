@@ -17,6 +17,8 @@ package com.ericsson.bss.cassandra.ecchronos.core.scheduling;
 import java.io.Closeable;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import com.ericsson.bss.cassandra.ecchronos.core.exceptions.LockException;
 
@@ -44,6 +46,37 @@ public interface LockFactory
     DistributedLock tryLock(String dataCenter, String resource, int priority, Map<String, String> metadata)
             throws LockException;
 
+    /**
+     * Try to lock a distributed resource asynchronously using the provided priority.
+     * <p>
+     * The default implementation delegates to {@link #tryLock(String, String, int, Map)} in the calling thread.
+     *
+     * @param dataCenter
+     *            The data center the lock belongs to or null if it's a global lock.
+     * @param resource
+     *            The resource to lock.
+     * @param priority
+     *            The priority of the lock.
+     * @param metadata
+     *            The metadata of the lock.
+     * @return A completion stage completed with the lock if able to lock the resource, or completed exceptionally
+     *         with a {@link LockException} if not.
+     */
+    default CompletionStage<DistributedLock> tryLockAsync(String dataCenter, String resource, int priority,
+                                                          Map<String, String> metadata)
+    {
+        CompletableFuture<DistributedLock> future = new CompletableFuture<>();
+        try
+        {
+            future.complete(tryLock(dataCenter, resource, priority, metadata));
+        }
+        catch (Exception e)
+        {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     /**
      * Get the metadata of a resource lock.
      *
@@ -31,4 +31,14 @@ public interface ScheduleManager
      *            The job to deschedule.
      */
     void deschedule(ScheduledJob job);
+
+    /**
+     * Update the scheduling of the provided job after it could have become eligible to run earlier.
+     * <p>
+     * Jobs that are not scheduled are ignored.
+     *
+     * @param job
+     *            The job to reindex.
+     */
+    void reindex(ScheduledJob job);
 }
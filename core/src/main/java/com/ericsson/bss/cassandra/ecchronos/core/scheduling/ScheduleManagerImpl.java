@@ -15,42 +15,73 @@
 package com.ericsson.bss.cassandra.ecchronos.core.scheduling;
 
 import java.io.Closeable;
+import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import com.ericsson.bss.cassandra.ecchronos.core.exceptions.LockException;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * ScheduleManager handles the run scheduler and update scheduler.
+ * <p>
+ * By default one job is run at a time on the scheduling thread. When configured with more than one worker the
+ * scheduling thread instead dispatches runnable jobs to a bounded worker pool, where each job competes for the locks of
+ * its tasks as usual. Since the locks are handed out per repair resource, jobs running in parallel will always work on
+ * disjoint sets of resources.
+ * <p>
+ * Between two runs the scheduling thread sleeps until the next job becomes due, but never longer than the configured
+ * run interval.
  */
 public final class ScheduleManagerImpl implements ScheduleManager, Closeable
 {
     private static final Logger LOG = LoggerFactory.getLogger(ScheduleManagerImpl.class);
 
     static final long DEFAULT_RUN_DELAY_IN_MS = TimeUnit.SECONDS.toMillis(30);
+    static final int DEFAULT_WORKERS = 1;
+    static final long MIN_RUN_DELAY_IN_MS = TimeUnit.SECONDS.toMillis(1);
 
     private final ScheduledJobQueue myQueue = new ScheduledJobQueue(new DefaultJobComparator());
     private final Set<RunPolicy> myRunPolicies = Sets.newConcurrentHashSet();
-    private final ScheduledFuture<?> myRunFuture;
+    private final long myRunIntervalInMs;
+    private volatile ScheduledFuture<?> myRunFuture;
 
     private final JobRunTask myRunTask = new JobRunTask();
     private final LockFactory myLockFactory;
     private final ScheduledExecutorService myExecutor = Executors.newSingleThreadScheduledExecutor();
 
+    private final int myWorkers;
+    private final Semaphore myWorkerPermits;
+    private final ExecutorService myWorkerExecutor;
+    private final Set<ScheduledJob> myRunningJobs = Sets.newConcurrentHashSet();
+
     private ScheduleManagerImpl(final Builder builder)
     {
         myLockFactory = builder.myLockFactory;
-        myRunFuture = myExecutor.scheduleWithFixedDelay(myRunTask,
-                builder.myRunIntervalInMs,
-                builder.myRunIntervalInMs,
-                TimeUnit.MILLISECONDS);
+        myRunIntervalInMs = builder.myRunIntervalInMs;
+        myWorkers = builder.myWorkers;
+        myWorkerPermits = new Semaphore(myWorkers);
+        if (myWorkers > 1)
+        {
+            myWorkerExecutor = Executors.newFixedThreadPool(myWorkers, new ThreadFactoryBuilder()
+                    .setNameFormat("ScheduleWorker-%d")
+                    .build());
+        }
+        else
+        {
+            myWorkerExecutor = null;
+        }
+        myRunFuture = myExecutor.schedule(this::runAndReschedule, myRunIntervalInMs, TimeUnit.MILLISECONDS);
     }
 
     public boolean addRunPolicy(final RunPolicy runPolicy)
@@ -77,6 +108,12 @@ public final class ScheduleManagerImpl implements ScheduleManager, Closeable
         myQueue.remove(job);
     }
 
+    @Override
+    public void reindex(final ScheduledJob job)
+    {
+        myQueue.reindex(job);
+    }
+
     @Override
     public void close()
     {
@@ -86,6 +123,10 @@ public final class ScheduleManagerImpl implements ScheduleManager, Closeable
         }
 
         myExecutor.shutdown();
+        if (myWorkerExecutor != null)
+        {
+            myWorkerExecutor.shutdown();
+        }
         myRunPolicies.clear();
     }
 
@@ -109,6 +150,63 @@ public final class ScheduleManagerImpl implements ScheduleManager, Closeable
         return myQueue.size();
     }
 
+    /**
+     * Get the number of jobs that are currently being run by the workers.
+     *
+     * @return The number of running jobs.
+     */
+    public int getRunningJobs()
+    {
+        return myRunningJobs.size();
+    }
+
+    /**
+     * Get the number of workers that are able to run jobs in parallel.
+     *
+     * @return The number of workers.
+     */
+    public int getWorkers()
+    {
+        return myWorkers;
+    }
+
+    /**
+     * Get the delay until the scheduler should check the queue again.
+     * <p>
+     * If jobs are due but could not be run the regular run interval is used.
+     * Otherwise the scheduler sleeps until the next job becomes due, bounded by the run interval.
+     *
+     * @param now The current time in milliseconds.
+     * @return The delay in milliseconds.
+     */
+    @VisibleForTesting
+    long getNextRunDelay(final long now)
+    {
+        long nextDeadline = myQueue.getNextDeadline();
+        if (nextDeadline <= now)
+        {
+            return myRunIntervalInMs;
+        }
+
+        long untilDeadline = Math.max(nextDeadline - now, MIN_RUN_DELAY_IN_MS);
+        return Math.min(untilDeadline, myRunIntervalInMs);
+    }
+
+    private void runAndReschedule()
+    {
+        myRunTask.run();
+
+        try
+        {
+            myRunFuture = myExecutor.schedule(this::runAndReschedule, getNextRunDelay(System.currentTimeMillis()),
+                    TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException e)
+        {
+            LOG.debug("Scheduler is shut down, not rescheduling");
+        }
+    }
+
     private Long validateJob(final ScheduledJob job)
     {
         for (RunPolicy runPolicy : myRunPolicies)
@@ -129,6 +227,7 @@ public final class ScheduleManagerImpl implements ScheduleManager, Closeable
      * Internal run task that is scheduled by the {@link ScheduleManagerImpl}.
      * <p>
      * Retrieves a job from the queue and tries to run it provided that it's possible to get the required locks.
+     * With multiple workers, jobs are instead handed to the worker pool until all workers are occupied.
      */
     private class JobRunTask implements Runnable
     {
@@ -147,6 +246,12 @@ public final class ScheduleManagerImpl implements ScheduleManager, Closeable
 
         private void tryRunNext()
         {
+            if (myWorkerExecutor != null)
+            {
+                dispatchToWorkers();
+                return;
+            }
+
             for (ScheduledJob next : myQueue)
             {
                 if (validate(next) && tryRunTasks(next))
@@ -156,6 +261,55 @@ public final class ScheduleManagerImpl implements ScheduleManager, Closeable
             }
         }
 
+        private void dispatchToWorkers()
+        {
+            Iterator<ScheduledJob> iterator = myQueue.iterator(job -> !myRunningJobs.contains(job));
+            while (iterator.hasNext())
+            {
+                ScheduledJob next = iterator.next();
+                if (!validate(next))
+                {
+                    continue;
+                }
+
+                if (!myWorkerPermits.tryAcquire())
+                {
+                    LOG.debug("All {} workers busy, will continue later", myWorkers);
+                    break;
+                }
+
+                myRunningJobs.add(next);
+                try
+                {
+                    myWorkerExecutor.execute(() -> runOnWorker(next));
+                }
+                catch (RejectedExecutionException e)
+                {
+                    LOG.debug("Unable to dispatch job {}, worker pool is shut down", next);
+                    myRunningJobs.remove(next);
+                    myWorkerPermits.release();
+                    break;
+                }
+            }
+        }
+
+        private void runOnWorker(final ScheduledJob job)
+        {
+            try
+            {
+                tryRunTasks(job);
+            }
+            catch (Exception e)
+            {
+                LOG.error("Unexpected exception while running job {}", job, e);
+            }
+            finally
+            {
+                myRunningJobs.remove(job);
+                myWorkerPermits.release();
+            }
+        }
+
         private boolean validate(final ScheduledJob job)
         {
             LOG.trace("Validating job {}", job);
@@ -231,6 +385,7 @@ public final class ScheduleManagerImpl implements ScheduleManager, Closeable
     {
         private LockFactory myLockFactory;
         private long myRunIntervalInMs = DEFAULT_RUN_DELAY_IN_MS;
+        private int myWorkers = DEFAULT_WORKERS;
 
         public final Builder withLockFactory(final LockFactory lockFactory)
         {
@@ -244,6 +399,21 @@ public final class ScheduleManagerImpl implements ScheduleManager, Closeable
             return this;
         }
 
+        /**
+         * Set the number of jobs that can run in parallel.
+         *
+         * @param workers The number of workers, must be at least one.
+         * @return The builder
+         */
+        public final Builder withWorkers(final int workers)
+        {
+            if (workers < 1)
+            {
+                throw new IllegalArgumentException("Number of workers must be at least 1, got " + workers);
+            }
+            myWorkers = workers;
+            return this;
+        }
 
         public final ScheduleManagerImpl build()
         {
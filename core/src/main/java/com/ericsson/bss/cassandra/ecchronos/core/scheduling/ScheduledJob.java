@@ -158,6 +158,22 @@ public abstract class ScheduledJob implements Iterable<ScheduledTask>
         return hours * myPriority.getValue();
     }
 
+    /**
+     * Get the earliest point in time this job could become runnable.
+     * <p>
+     * This is the latest of the time the job was {@link #setRunnableIn(long) parked until} and the time its
+     * {@link #getRealPriority() current priority} becomes non-negative.
+     * Subclasses can still report the job as not runnable after this point in time.
+     *
+     * @return The unix timestamp in milliseconds when the job could run next.
+     */
+    public long getNextEligibleTime()
+    {
+        long eligibleAt = getLastSuccessfulRun() + myRunIntervalInMs - getRunOffset();
+
+        return Math.max(myNextRunTime, eligibleAt);
+    }
+
     /**
      * @return The offset for the job.
      */
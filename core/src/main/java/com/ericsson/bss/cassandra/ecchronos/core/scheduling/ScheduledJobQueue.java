@@ -14,34 +14,51 @@
  */
 package com.ericsson.bss.cassandra.ecchronos.core.scheduling;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import com.google.common.collect.AbstractIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.ericsson.bss.cassandra.ecchronos.core.utils.ManyToOneIterator;
 import com.google.common.annotations.VisibleForTesting;
 
 /**
  * Dynamic priority queue for scheduled jobs.
  * <p>
- * This queue is divided in several smaller queues, one for each {@link ScheduledJob.Priority priority type} and are
- * then retrieved using a
- * {@link ManyToOneIterator}.
+ * The jobs are indexed by their {@link ScheduledJob#getNextEligibleTime() next eligible time} so that only jobs that
+ * are due have to be evaluated when iterating the queue. The due jobs are then ordered by the provided comparator.
+ * <p>
+ * The eligible time of a job changes as it runs, so due jobs are re-indexed lazily when the queue is iterated.
+ * A job that becomes eligible earlier than indexed, e.g. when its state is refreshed after a topology change, should be
+ * {@link #reindex(ScheduledJob) re-indexed} explicitly. All jobs are also re-indexed periodically.
  */
 public class ScheduledJobQueue implements Iterable<ScheduledJob>
 {
     private static final Logger LOG = LoggerFactory.getLogger(ScheduledJobQueue.class);
 
+    static final long FULL_REINDEX_INTERVAL_IN_MS = TimeUnit.MINUTES.toMillis(10);
+
     private final Comparator<ScheduledJob> myComparator;
 
-    private final EnumMap<ScheduledJob.Priority, PriorityQueue<ScheduledJob>> myJobQueues
-            = new EnumMap<>(ScheduledJob.Priority.class);
+    private final NavigableSet<IndexedJob> myDeadlineIndex = new TreeSet<>(Comparator
+            .comparingLong((IndexedJob indexedJob) -> indexedJob.myDeadline)
+            .thenComparingLong(indexedJob -> indexedJob.mySequence));
+    private final Map<ScheduledJob, IndexedJob> myIndexedJobs = new HashMap<>();
+
+    private long mySequence;
+    private long myLastFullReindex = -1;
 
     /**
      * Construct a new job queue that prioritizes the jobs based on the provided comparator.
@@ -52,11 +69,6 @@ public class ScheduledJobQueue implements Iterable<ScheduledJob>
     public ScheduledJobQueue(final Comparator<ScheduledJob> comparator)
     {
         this.myComparator = comparator;
-
-        for (ScheduledJob.Priority priority : ScheduledJob.Priority.values())
-        {
-            myJobQueues.put(priority, new PriorityQueue<>(1, comparator));
-        }
     }
 
     /**
@@ -93,43 +105,165 @@ public class ScheduledJobQueue implements Iterable<ScheduledJob>
     public synchronized void remove(final ScheduledJob job)
     {
         LOG.debug("Removing job: {}", job);
-        myJobQueues.get(job.getPriority()).remove(job);
+        IndexedJob indexedJob = myIndexedJobs.remove(job);
+        if (indexedJob != null)
+        {
+            myDeadlineIndex.remove(indexedJob);
+        }
+    }
+
+    /**
+     * Update the next eligible time of a job in the queue.
+     * <p>
+     * Jobs that are not in the queue are ignored.
+     *
+     * @param job
+     *            The job to re-index.
+     */
+    public synchronized void reindex(final ScheduledJob job)
+    {
+        IndexedJob indexedJob = myIndexedJobs.get(job);
+        if (indexedJob != null)
+        {
+            reindex(Collections.singletonList(indexedJob));
+        }
+    }
+
+    /**
+     * Get the earliest point in time a job in this queue could become runnable.
+     *
+     * @return The next deadline in milliseconds or {@link Long#MAX_VALUE} if the queue is empty.
+     */
+    public synchronized long getNextDeadline()
+    {
+        reindexDue(System.currentTimeMillis());
+
+        if (myDeadlineIndex.isEmpty())
+        {
+            return Long.MAX_VALUE;
+        }
+
+        return myDeadlineIndex.first().myDeadline;
     }
 
     private void addJobInternal(final ScheduledJob job)
     {
         LOG.debug("Adding job: {}, Priority: {}", job, job.getPriority());
-        myJobQueues.get(job.getPriority()).add(job);
+        IndexedJob previous = myIndexedJobs.remove(job);
+        if (previous != null)
+        {
+            myDeadlineIndex.remove(previous);
+        }
+        index(job);
     }
 
-    @VisibleForTesting
-    final int size()
+    private void index(final ScheduledJob job)
     {
-        int size = 0;
+        IndexedJob indexedJob = new IndexedJob(job, job.getNextEligibleTime(), mySequence++);
+        myIndexedJobs.put(job, indexedJob);
+        myDeadlineIndex.add(indexedJob);
+    }
 
-        for (PriorityQueue<ScheduledJob> queue : myJobQueues.values())
+    private List<ScheduledJob> collectDueJobs(final long now)
+    {
+        if (myLastFullReindex == -1 || now - myLastFullReindex >= FULL_REINDEX_INTERVAL_IN_MS)
+        {
+            reindex(new ArrayList<>(myDeadlineIndex));
+            myLastFullReindex = now;
+        }
+        else
         {
-            size += queue.size();
+            reindexDue(now);
         }
 
-        return size;
+        PriorityQueue<ScheduledJob> dueQueue = new PriorityQueue<>(1, myComparator);
+        for (IndexedJob indexedJob : myDeadlineIndex)
+        {
+            if (indexedJob.myDeadline > now)
+            {
+                break;
+            }
+            dueQueue.add(indexedJob.myJob);
+        }
+
+        List<ScheduledJob> dueJobs = new ArrayList<>(dueQueue.size());
+        while (!dueQueue.isEmpty())
+        {
+            dueJobs.add(dueQueue.poll());
+        }
+        return dueJobs;
+    }
+
+    private void reindexDue(final long now)
+    {
+        reindex(new ArrayList<>(myDeadlineIndex.headSet(new IndexedJob(null, now, Long.MAX_VALUE), true)));
+    }
+
+    private void reindex(final List<IndexedJob> indexedJobs)
+    {
+        for (IndexedJob indexedJob : indexedJobs)
+        {
+            long deadline = indexedJob.myJob.getNextEligibleTime();
+            if (deadline != indexedJob.myDeadline)
+            {
+                myDeadlineIndex.remove(indexedJob);
+                index(indexedJob.myJob);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    final synchronized int size()
+    {
+        return myIndexedJobs.size();
     }
 
     @Override
-    public final synchronized Iterator<ScheduledJob> iterator()
+    public final Iterator<ScheduledJob> iterator()
+    {
+        return iterator(job -> true);
+    }
+
+    /**
+     * Iterate the runnable jobs, skipping jobs not accepted by the filter.
+     * <p>
+     * The filter is applied before the state of a job is evaluated, jobs that are skipped are neither evaluated nor
+     * descheduled.
+     *
+     * @param filter
+     *            The filter deciding which jobs should be evaluated.
+     * @return The iterator of runnable jobs.
+     */
+    public final synchronized Iterator<ScheduledJob> iterator(final Predicate<ScheduledJob> filter)
     {
-        Iterator<ScheduledJob> baseIterator = new ManyToOneIterator<>(myJobQueues.values(), myComparator);
+        Iterator<ScheduledJob> baseIterator = collectDueJobs(System.currentTimeMillis()).iterator();
 
-        return new RunnableJobIterator(baseIterator);
+        return new RunnableJobIterator(baseIterator, filter);
+    }
+
+    private static final class IndexedJob
+    {
+        private final ScheduledJob myJob;
+        private final long myDeadline;
+        private final long mySequence;
+
+        IndexedJob(final ScheduledJob job, final long deadline, final long sequence)
+        {
+            myJob = job;
+            myDeadline = deadline;
+            mySequence = sequence;
+        }
     }
 
     private class RunnableJobIterator extends AbstractIterator<ScheduledJob>
     {
         private final Iterator<ScheduledJob> myBaseIterator;
+        private final Predicate<ScheduledJob> myFilter;
 
-        RunnableJobIterator(final Iterator<ScheduledJob> baseIterator)
+        RunnableJobIterator(final Iterator<ScheduledJob> baseIterator, final Predicate<ScheduledJob> filter)
         {
             myBaseIterator = baseIterator;
+            myFilter = filter;
         }
 
         @Override
@@ -138,6 +272,10 @@ public class ScheduledJobQueue implements Iterable<ScheduledJob>
             while (myBaseIterator.hasNext())
             {
                 ScheduledJob job = myBaseIterator.next();
+                if (!myFilter.test(job))
+                {
+                    continue;
+                }
 
                 ScheduledJob.State state = job.getState();
                 if (state == ScheduledJob.State.FAILED || state == ScheduledJob.State.FINISHED)
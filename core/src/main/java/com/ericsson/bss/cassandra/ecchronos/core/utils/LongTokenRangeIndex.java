@@ -0,0 +1,203 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.utils;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A sorted index of non-overlapping token ranges, e.g. the vnodes of a token map, used to find the range covering a
+ * provided (sub-)range without scanning all ranges.
+ * <p>
+ * Non-wrapping ranges are kept in primitive arrays sorted by start token and looked up with a binary search.
+ * Wrapping ranges, of which there is normally at most one, are checked separately.
+ *
+ * @param <T> The type of the value associated with each range.
+ */
+public final class LongTokenRangeIndex<T>
+{
+    private final long[] myStarts;
+    private final long[] myEnds;
+    private final LongTokenRange[] myRanges;
+    private final Object[] myValues;
+
+    private final LongTokenRange[] myWrappingRanges;
+    private final Object[] myWrappingValues;
+
+    private LongTokenRangeIndex(final List<Map.Entry<LongTokenRange, T>> entries)
+    {
+        List<Map.Entry<LongTokenRange, T>> nonWrapping = new ArrayList<>(entries.size());
+        List<Map.Entry<LongTokenRange, T>> wrapping = new ArrayList<>();
+
+        for (Map.Entry<LongTokenRange, T> entry : entries)
+        {
+            if (entry.getKey().isWrapAround())
+            {
+                wrapping.add(entry);
+            }
+            else
+            {
+                nonWrapping.add(entry);
+            }
+        }
+
+        nonWrapping.sort(Comparator.comparingLong(e -> e.getKey().start));
+
+        myStarts = new long[nonWrapping.size()];
+        myEnds = new long[nonWrapping.size()];
+        myRanges = new LongTokenRange[nonWrapping.size()];
+        myValues = new Object[nonWrapping.size()];
+        for (int i = 0; i < nonWrapping.size(); i++)
+        {
+            Map.Entry<LongTokenRange, T> entry = nonWrapping.get(i);
+            myStarts[i] = entry.getKey().start;
+            myEnds[i] = entry.getKey().end;
+            myRanges[i] = entry.getKey();
+            myValues[i] = entry.getValue();
+        }
+
+        myWrappingRanges = new LongTokenRange[wrapping.size()];
+        myWrappingValues = new Object[wrapping.size()];
+        for (int i = 0; i < wrapping.size(); i++)
+        {
+            myWrappingRanges[i] = wrapping.get(i).getKey();
+            myWrappingValues[i] = wrapping.get(i).getValue();
+        }
+    }
+
+    /**
+     * Create an index from the provided map of token ranges.
+     *
+     * @param tokenRanges The non-overlapping token ranges and their values.
+     * @param <T> The type of the values.
+     * @return The index
+     */
+    public static <T> LongTokenRangeIndex<T> of(final Map<LongTokenRange, T> tokenRanges)
+    {
+        return new LongTokenRangeIndex<>(new ArrayList<>(tokenRanges.entrySet()));
+    }
+
+    /**
+     * Create an index from the provided collection of elements.
+     *
+     * @param elements The elements to index.
+     * @param rangeFunction Function to retrieve the non-overlapping token range of each element.
+     * @param <T> The type of the elements.
+     * @return The index
+     */
+    public static <T> LongTokenRangeIndex<T> of(final Iterable<T> elements,
+                                                final Function<T, LongTokenRange> rangeFunction)
+    {
+        List<Map.Entry<LongTokenRange, T>> entries = new ArrayList<>();
+        for (T element : elements)
+        {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(rangeFunction.apply(element), element));
+        }
+        return new LongTokenRangeIndex<>(entries);
+    }
+
+    /**
+     * Get the value of the range covering the provided token range.
+     *
+     * @param tokenRange The token range to look up.
+     * @return The value of the covering range or null if no single range covers the provided range.
+     * @see LongTokenRange#isCovering(LongTokenRange)
+     */
+    public T getCovering(final LongTokenRange tokenRange)
+    {
+        int index = indexOfCovering(tokenRange);
+        if (index >= 0)
+        {
+            return value(myValues, index);
+        }
+
+        for (int i = 0; i < myWrappingRanges.length; i++)
+        {
+            if (myWrappingRanges[i].isCovering(tokenRange))
+            {
+                return value(myWrappingValues, i);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the range covering the provided token range.
+     *
+     * @param tokenRange The token range to look up.
+     * @return The covering range or null if no single range covers the provided range.
+     */
+    public LongTokenRange getCoveringRange(final LongTokenRange tokenRange)
+    {
+        int index = indexOfCovering(tokenRange);
+        if (index >= 0)
+        {
+            return myRanges[index];
+        }
+
+        for (LongTokenRange wrappingRange : myWrappingRanges)
+        {
+            if (wrappingRange.isCovering(tokenRange))
+            {
+                return wrappingRange;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return The number of ranges in this index.
+     */
+    public int size()
+    {
+        return myRanges.length + myWrappingRanges.length;
+    }
+
+    private int indexOfCovering(final LongTokenRange tokenRange)
+    {
+        if (tokenRange.isWrapAround() || myStarts.length == 0)
+        {
+            // Only a wrapping range is able to cover a wrapping range
+            return -1;
+        }
+
+        int index = Arrays.binarySearch(myStarts, tokenRange.start);
+        if (index < 0)
+        {
+            // Use the range with the closest start before the provided range
+            index = -index - 2;
+        }
+
+        if (index >= 0 && myStarts[index] <= tokenRange.start && myEnds[index] >= tokenRange.end)
+        {
+            return index;
+        }
+
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T value(final Object[] values, final int index)
+    {
+        return (T) values[index];
+    }
+}
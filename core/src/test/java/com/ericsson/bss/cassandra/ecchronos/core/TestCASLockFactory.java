@@ -17,6 +17,7 @@ package com.ericsson.bss.cassandra.ecchronos.core;
 import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -30,6 +31,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -138,6 +140,51 @@ public class TestCASLockFactory extends AbstractCassandraTest
         assertThat(myLockFactory.getCachedFailure(DATA_CENTER, "lock")).isEmpty();
     }
 
+    @Test
+    public void testLockIsRenewedWhileHeld() throws Exception
+    {
+        try (DistributedLock lock = myLockFactory.tryLock(DATA_CENTER, "lock", 1, new HashMap<String, String>()))
+        {
+            assertThat(myLockFactory.getHeldLocks()).isEqualTo(1);
+
+            long expectedLockWriteCount = getWriteCount(TABLE_LOCK) + 1;
+            myLockFactory.renewLocks();
+
+            await().atMost(5, TimeUnit.SECONDS)
+                    .until(() -> getWriteCount(TABLE_LOCK) >= expectedLockWriteCount);
+        }
+
+        assertThat(myLockFactory.getHeldLocks()).isEqualTo(0);
+        assertPriorityListEmpty("lock");
+    }
+
+    @Test
+    public void testGetLockAsync() throws Exception
+    {
+        try (DistributedLock lock = myLockFactory.tryLockAsync(DATA_CENTER, "lock", 1, new HashMap<>())
+                .toCompletableFuture().get(5, TimeUnit.SECONDS))
+        {
+            assertThat(myLockFactory.getHeldLocks()).isEqualTo(1);
+        }
+
+        assertThat(myLockFactory.getHeldLocks()).isEqualTo(0);
+        assertPriorityListEmpty("lock");
+        assertThat(myLockFactory.getCachedFailure(DATA_CENTER, "lock")).isEmpty();
+    }
+
+    @Test
+    public void testGetAlreadyTakenLockAsync()
+    {
+        execute(myLockStatement.bind("lock", UUID.randomUUID(), new HashMap<>()));
+
+        assertThatExceptionOfType(ExecutionException.class)
+                .isThrownBy(() -> myLockFactory.tryLockAsync(DATA_CENTER, "lock", 1, new HashMap<>())
+                        .toCompletableFuture().get(5, TimeUnit.SECONDS))
+                .withCauseInstanceOf(LockException.class);
+        assertPrioritiesInList("lock", 1);
+        assertThat(myLockFactory.getCachedFailure(DATA_CENTER, "lock")).isNotEmpty();
+    }
+
     @Test
     public void testGetGlobalLock() throws LockException
     {
@@ -298,17 +345,22 @@ public class TestCASLockFactory extends AbstractCassandraTest
     public void testFailedLockRetryAttempts()
     {
         Map<String, String> metadata = new HashMap<>();
-        try (CASLockFactory.CASLock lockUpdateTask = myLockFactory.new CASLock(DATA_CENTER, "lock", 1, metadata))
+        try (CASLockFactory.CASLock lock = myLockFactory.new CASLock(DATA_CENTER, "lock", 1, metadata))
         {
+            assertThat(lock.lock()).isTrue();
+            execute(myRemoveLockStatement.bind("lock"));
+
             for (int i = 0; i < 10; i++)
             {
-                lockUpdateTask.run();
-                assertThat(lockUpdateTask.getFailedAttempts()).isEqualTo(i + 1);
+                int expectedFailedAttempts = i + 1;
+                myLockFactory.renewLocks();
+                await().atMost(5, TimeUnit.SECONDS)
+                        .until(() -> lock.getFailedAttempts() == expectedFailedAttempts);
             }
 
             execute(myLockStatement.bind("lock", myLockFactory.getHostId(), new HashMap<>()));
-            lockUpdateTask.run();
-            assertThat(lockUpdateTask.getFailedAttempts()).isEqualTo(0);
+            myLockFactory.renewLocks();
+            await().atMost(5, TimeUnit.SECONDS).until(() -> lock.getFailedAttempts() == 0);
         }
 
         assertThat(myLockFactory.getCachedFailure(DATA_CENTER, "lock")).isEmpty();
@@ -30,6 +30,8 @@ import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.NodeState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -54,16 +56,15 @@ public class TestHostStatesImpl
     public void setup() throws IOException
     {
         when(myJmxProxyFactory.connect()).thenReturn(myJmxProxy);
-
-        myHostStates = HostStatesImpl.builder()
-                .withJmxProxyFactory(myJmxProxyFactory)
-                .build();
     }
 
     @After
     public void cleanup()
     {
-        myHostStates.close();
+        if (myHostStates != null)
+        {
+            myHostStates.close();
+        }
     }
 
     @Test
@@ -86,7 +87,11 @@ public class TestHostStatesImpl
         when(myJmxProxy.getLiveNodes()).thenReturn(expectedLiveNodes);
         when(myJmxProxy.getUnreachableNodes()).thenReturn(expectedUnreachableNodes);
 
-        assertThat(myHostStates.isUp(expectedAddress)).isTrue();
+        myHostStates = HostStatesImpl.builder()
+                .withJmxProxyFactory(myJmxProxyFactory)
+                .build();
+
+        await().pollInterval(10, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> myHostStates.isUp(expectedAddress));
     }
 
     @Test
@@ -103,7 +108,27 @@ public class TestHostStatesImpl
 
         when(expectedHost.getBroadcastAddress()).thenReturn(Optional.of(expectedAddress));
 
-        assertThat(myHostStates.isUp(expectedHost)).isTrue();
+        myHostStates = HostStatesImpl.builder()
+                .withJmxProxyFactory(myJmxProxyFactory)
+                .build();
+
+        await().pollInterval(10, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> myHostStates.isUp(expectedHost));
+    }
+
+    @Test
+    public void testHostStatesAreKnownWhenBuilt() throws UnknownHostException
+    {
+        InetAddress expectedAddress = InetAddress.getLocalHost();
+
+        when(myJmxProxy.getLiveNodes()).thenReturn(Collections.singletonList(expectedAddress.getHostAddress()));
+        when(myJmxProxy.getUnreachableNodes()).thenReturn(Collections.emptyList());
+
+        myHostStates = HostStatesImpl.builder()
+                .withJmxProxyFactory(myJmxProxyFactory)
+                .withRefreshIntervalInMs(TimeUnit.HOURS.toMillis(1))
+                .build();
+
+        assertThat(myHostStates.isUp(expectedAddress)).isTrue();
     }
 
     @Test
@@ -114,6 +139,11 @@ public class TestHostStatesImpl
         when(myJmxProxy.getLiveNodes()).thenReturn(Collections.emptyList());
         when(myJmxProxy.getUnreachableNodes()).thenReturn(Collections.emptyList());
 
+        myHostStates = HostStatesImpl.builder()
+                .withJmxProxyFactory(myJmxProxyFactory)
+                .build();
+
+        assertThat(myHostStates.tryRefreshHostStates()).isTrue();
         assertThat(myHostStates.isUp(expectedAddress)).isFalse();
     }
 
@@ -156,6 +186,10 @@ public class TestHostStatesImpl
 
         });
 
+        myHostStates = HostStatesImpl.builder()
+                .withJmxProxyFactory(myJmxProxyFactory)
+                .build();
+
         assertThat(myHostStates.isUp(expectedAddress)).isFalse();
         assertThat(myHostStates.isUp(expectedAddress)).isFalse();
     }
@@ -165,11 +199,6 @@ public class TestHostStatesImpl
     {
         final InetAddress expectedAddress = InetAddress.getLocalHost();
 
-        HostStatesImpl hostStates = HostStatesImpl.builder()
-                .withJmxProxyFactory(myJmxProxyFactory)
-                .withRefreshIntervalInMs(1)
-                .build();
-
         when(myJmxProxy.getLiveNodes()).thenAnswer(new Answer<List<String>>()
         {
             private int counter = 0;
@@ -202,8 +231,97 @@ public class TestHostStatesImpl
 
         });
 
-        assertThat(hostStates.isUp(expectedAddress)).isFalse();
+        myHostStates = HostStatesImpl.builder()
+                .withJmxProxyFactory(myJmxProxyFactory)
+                .withRefreshIntervalInMs(100)
+                .build();
+
+        assertThat(myHostStates.isUp(expectedAddress)).isFalse();
+
+        await().pollInterval(10, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> myHostStates.isUp(expectedAddress));
+    }
+
+    @Test
+    public void testNodeStateEvents() throws UnknownHostException
+    {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getByName("127.0.0.2"), 9042);
+        Node node = mock(Node.class);
+        when(node.getBroadcastAddress()).thenReturn(Optional.of(address));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        myHostStates = HostStatesImpl.builder()
+                .withJmxProxyFactory(myJmxProxyFactory)
+                .withRefreshIntervalInMs(TimeUnit.HOURS.toMillis(1))
+                .withMeterRegistry(meterRegistry)
+                .build();
+
+        myHostStates.onUp(node);
+        assertThat(myHostStates.isUp(node)).isTrue();
+
+        myHostStates.onDown(node);
+        assertThat(myHostStates.isUp(node)).isFalse();
 
-        await().pollInterval(10, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> hostStates.isUp(expectedAddress));
+        myHostStates.onUp(node);
+        assertThat(myHostStates.isUp(node)).isTrue();
+        assertThat(myHostStates.getStateChanges(address.getAddress())).isEqualTo(2);
+        assertThat(meterRegistry.get(HostStatesImpl.STATE_CHANGES).tag("state", "down").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get(HostStatesImpl.STATE_CHANGES).tag("state", "up").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get(HostStatesImpl.HOSTS).tag("state", "up").gauge().value()).isEqualTo(1.0);
+
+        myHostStates.onRemove(node);
+        assertThat(myHostStates.isUp(node)).isFalse();
+        assertThat(myHostStates.getStateChanges(address.getAddress())).isZero();
+    }
+
+    @Test
+    public void testAddedNodeStateIsSeededFromDriver() throws UnknownHostException
+    {
+        Node upNode = mockNode("127.0.0.2", NodeState.UP);
+        Node downNode = mockNode("127.0.0.3", NodeState.DOWN);
+        Node unknownNode = mockNode("127.0.0.4", NodeState.UNKNOWN);
+        when(myJmxProxyFactory.connect()).thenThrow(new IOException("JMX unavailable"));
+
+        myHostStates = HostStatesImpl.builder()
+                .withJmxProxyFactory(myJmxProxyFactory)
+                .withRefreshIntervalInMs(TimeUnit.HOURS.toMillis(1))
+                .build();
+
+        myHostStates.onAdd(upNode);
+        myHostStates.onAdd(downNode);
+        myHostStates.onAdd(unknownNode);
+
+        assertThat(myHostStates.isUp(upNode)).isTrue();
+        assertThat(myHostStates.isUp(downNode)).isFalse();
+        assertThat(myHostStates.isUp(unknownNode)).isFalse();
+        assertThat(myHostStates.getStateChanges(InetAddress.getByName("127.0.0.2"))).isZero();
+    }
+
+    @Test
+    public void testStaleNodeStateIsDown() throws UnknownHostException
+    {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getByName("127.0.0.2"), 9042);
+        Node node = mock(Node.class);
+        when(node.getBroadcastAddress()).thenReturn(Optional.of(address));
+
+        myHostStates = HostStatesImpl.builder()
+                .withJmxProxyFactory(myJmxProxyFactory)
+                .withRefreshIntervalInMs(TimeUnit.HOURS.toMillis(1))
+                .withStaleAfter(50, TimeUnit.MILLISECONDS)
+                .build();
+
+        myHostStates.onUp(node);
+        assertThat(myHostStates.isUp(node)).isTrue();
+
+        await().pollInterval(10, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> !myHostStates.isUp(node));
+    }
+
+    private static Node mockNode(String address, NodeState nodeState) throws UnknownHostException
+    {
+        Node node = mock(Node.class);
+        when(node.getBroadcastAddress()).thenReturn(Optional.of(new InetSocketAddress(InetAddress.getByName(address), 9042)));
+        when(node.getState()).thenReturn(nodeState);
+        return node;
     }
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.management.MBeanServerConnection;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnectionNotification;
+import javax.management.remote.JMXConnector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestStorageServiceNotificationDispatcher
+{
+    @Mock
+    private JMXConnector myJmxConnector;
+
+    @Mock
+    private JMXConnector myOtherJmxConnector;
+
+    @Mock
+    private MBeanServerConnection myMBeanServerConnection;
+
+    @Mock
+    private NotificationListener myListener;
+
+    @Mock
+    private NotificationListener myOtherListener;
+
+    private ObjectName myStorageServiceObject;
+
+    private final StorageServiceNotificationDispatcher myDispatcher = new StorageServiceNotificationDispatcher();
+
+    @Before
+    public void setup() throws Exception
+    {
+        myStorageServiceObject = new ObjectName("org.apache.cassandra.db:type=StorageService");
+    }
+
+    @Test
+    public void testRegisteredOnceForMultipleListeners() throws Exception
+    {
+        myDispatcher.addListener(myJmxConnector, myMBeanServerConnection, myStorageServiceObject, myListener);
+        myDispatcher.addListener(myJmxConnector, myMBeanServerConnection, myStorageServiceObject, myOtherListener);
+
+        verify(myJmxConnector).addConnectionNotificationListener(eq(myDispatcher), isNull(), isNull());
+        verify(myMBeanServerConnection).addNotificationListener(eq(myStorageServiceObject), eq(myDispatcher),
+                isNull(), isNull());
+
+        Notification notification = new Notification("progress", "repair:1", 0);
+        myDispatcher.handleNotification(notification, null);
+
+        verify(myListener).handleNotification(notification, null);
+        verify(myOtherListener).handleNotification(notification, null);
+    }
+
+    @Test
+    public void testRemovedListenerIsNotNotified()
+    {
+        myDispatcher.addListener(myJmxConnector, myMBeanServerConnection, myStorageServiceObject, myListener);
+        myDispatcher.removeListener(myListener);
+
+        myDispatcher.handleNotification(new Notification("progress", "repair:1", 0), null);
+
+        verify(myListener, never()).handleNotification(any(), any());
+        assertThat(myDispatcher.getListenerCount()).isZero();
+    }
+
+    @Test
+    public void testLostNotificationsDeliveredToAllListeners()
+    {
+        myDispatcher.addListener(myJmxConnector, myMBeanServerConnection, myStorageServiceObject, myListener);
+        myDispatcher.addListener(myJmxConnector, myMBeanServerConnection, myStorageServiceObject, myOtherListener);
+
+        Notification notification = new Notification(JMXConnectionNotification.NOTIFS_LOST, "connection", 0);
+        myDispatcher.handleNotification(notification, null);
+
+        verify(myListener).handleNotification(notification, null);
+        verify(myOtherListener).handleNotification(notification, null);
+    }
+
+    @Test
+    public void testRegisteredAgainAfterConnectionClosed() throws Exception
+    {
+        myDispatcher.addListener(myJmxConnector, myMBeanServerConnection, myStorageServiceObject, myListener);
+
+        myDispatcher.handleNotification(new Notification(JMXConnectionNotification.CLOSED, "connection", 0), null);
+        myDispatcher.addListener(myJmxConnector, myMBeanServerConnection, myStorageServiceObject, myOtherListener);
+
+        verify(myJmxConnector).removeConnectionNotificationListener(myDispatcher);
+        verify(myMBeanServerConnection).removeNotificationListener(myStorageServiceObject, myDispatcher);
+        verify(myMBeanServerConnection, times(2)).addNotificationListener(eq(myStorageServiceObject),
+                eq(myDispatcher), isNull(), isNull());
+    }
+
+    @Test
+    public void testRegisteredOnNewConnector() throws Exception
+    {
+        myDispatcher.addListener(myJmxConnector, myMBeanServerConnection, myStorageServiceObject, myListener);
+        myDispatcher.addListener(myOtherJmxConnector, myMBeanServerConnection, myStorageServiceObject,
+                myOtherListener);
+
+        verify(myJmxConnector).removeConnectionNotificationListener(myDispatcher);
+        verify(myOtherJmxConnector).addConnectionNotificationListener(eq(myDispatcher), isNull(), isNull());
+    }
+
+    @Test
+    public void testFailingListenerDoesNotStopDispatch()
+    {
+        myDispatcher.addListener(myJmxConnector, myMBeanServerConnection, myStorageServiceObject, myListener);
+        myDispatcher.addListener(myJmxConnector, myMBeanServerConnection, myStorageServiceObject, myOtherListener);
+
+        Notification notification = new Notification("progress", "repair:1", 0);
+        doThrow(IllegalStateException.class).when(myListener).handleNotification(notification, null);
+
+        myDispatcher.handleNotification(notification, null);
+
+        verify(myOtherListener).handleNotification(notification, null);
+    }
+}
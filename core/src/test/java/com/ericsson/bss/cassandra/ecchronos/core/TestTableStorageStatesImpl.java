@@ -16,6 +16,8 @@ package com.ericsson.bss.cassandra.ecchronos.core;
 
 import com.ericsson.bss.cassandra.ecchronos.core.utils.ReplicatedTableProvider;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReference;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -31,7 +33,9 @@ import java.util.concurrent.TimeUnit;
 import static com.ericsson.bss.cassandra.ecchronos.core.MockTableReferenceFactory.tableReference;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Matchers.anyCollection;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 
@@ -56,6 +60,7 @@ public class TestTableStorageStatesImpl
     {
         doReturn(myJmxProxy).when(myJmxProxyFactory).connect();
         doReturn(myReplicatedTables).when(myReplicatedTableProviderMock).getAll();
+        doCallRealMethod().when(myJmxProxy).liveDiskSpaceUsedForTables(anyCollection());
 
         myTableStorageeStatesImpl = TableStorageStatesImpl.builder()
                 .withReplicatedTableProvider(myReplicatedTableProviderMock)
@@ -210,6 +215,30 @@ public class TestTableStorageStatesImpl
         assertThat(myTableStorageeStatesImpl.getDataSize(tableReference2)).isEqualTo(expectedTableDataSize2);
     }
 
+    @Test
+    public void testRefreshTimeIsRecorded()
+    {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TableReference tableReference = tableReference("keyspace", "table");
+        mockTable(tableReference, 1000);
+
+        try (TableStorageStatesImpl tableStorageStates = TableStorageStatesImpl.builder()
+                .withReplicatedTableProvider(myReplicatedTableProviderMock)
+                .withJmxProxyFactory(myJmxProxyFactory)
+                .withInitialDelay(60, TimeUnit.SECONDS)
+                .withMeterRegistry(meterRegistry)
+                .build())
+        {
+            tableStorageStates.updateTableStates();
+            tableStorageStates.updateTableStates();
+
+            assertThat(tableStorageStates.getDataSize(tableReference)).isEqualTo(1000);
+            Timer timer = meterRegistry.find(TableStorageStatesImpl.REFRESH_TIME).timer();
+            assertThat(timer).isNotNull();
+            assertThat(timer.count()).isEqualTo(2);
+        }
+    }
+
     private void mockTable(TableReference tableReference, long dataSize)
     {
         myReplicatedTables.add(tableReference);
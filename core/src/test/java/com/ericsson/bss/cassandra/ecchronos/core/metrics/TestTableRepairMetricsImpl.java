@@ -28,11 +28,14 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import static com.ericsson.bss.cassandra.ecchronos.core.MockTableReferenceFactory.tableReference;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.within;
 
 @RunWith(MockitoJUnitRunner.class)
 public class TestTableRepairMetricsImpl
@@ -536,4 +539,145 @@ public class TestTableRepairMetricsImpl
         assertThat(nodeFailedRepairSessions.max(TimeUnit.MILLISECONDS)).isEqualTo(failedRepairTimeTable1);
         assertThat(nodeFailedRepairSessions.mean(TimeUnit.MILLISECONDS)).isEqualTo(expectedNodeMeanFailedTime);
     }
+
+    @Test
+    public void testRepairStateUpdatesRegisteredGauges()
+    {
+        TableReference tableReference = tableReference(TEST_KEYSPACE, TEST_TABLE1);
+        TableReference tableReference2 = tableReference(TEST_KEYSPACE, TEST_TABLE2);
+
+        myTableRepairMetricsImpl.repairState(tableReference, 1, 1);
+        myTableRepairMetricsImpl.repairState(tableReference2, 1, 0);
+        myTableRepairMetricsImpl.repairState(tableReference, 1, 0);
+        myTableRepairMetricsImpl.repairState(tableReference2, 0, 1);
+
+        assertThat(myMeterRegistry.find(TableRepairMetricsImpl.REPAIRED_RATIO).gauges()).hasSize(2);
+        assertThat(myMeterRegistry.find(TableRepairMetricsImpl.REPAIRED_RATIO)
+                .tags("keyspace", TEST_KEYSPACE, "table", TEST_TABLE1)
+                .gauge().value()).isEqualTo(1.0);
+        assertThat(myMeterRegistry.find(TableRepairMetricsImpl.REPAIRED_RATIO)
+                .tags("keyspace", TEST_KEYSPACE, "table", TEST_TABLE2)
+                .gauge().value()).isEqualTo(0.0);
+        assertThat(myMeterRegistry.find(TableRepairMetricsImpl.NODE_REPAIRED_RATIO).gauge().value())
+                .isEqualTo(0.5);
+    }
+
+    @Test
+    public void testTimeSinceLastRepairedWhenLeastRecentlyRepairedTableIsRepaired()
+    {
+        TableReference tableReference = tableReference(TEST_KEYSPACE, TEST_TABLE1);
+        TableReference tableReference2 = tableReference(TEST_KEYSPACE, TEST_TABLE2);
+        long timeNow = System.currentTimeMillis();
+        TableRepairMetricsImpl.clock = () -> timeNow;
+
+        myTableRepairMetricsImpl.lastRepairedAt(tableReference, timeNow - 1000L);
+        myTableRepairMetricsImpl.lastRepairedAt(tableReference2, timeNow - 5000L);
+
+        Gauge nodeTimeSinceLastRepaired = myMeterRegistry.find(TableRepairMetricsImpl.NODE_TIME_SINCE_LAST_REPAIRED)
+                .gauge();
+        assertThat(nodeTimeSinceLastRepaired.value()).isEqualTo(5.0);
+
+        myTableRepairMetricsImpl.lastRepairedAt(tableReference2, timeNow - 500L);
+        assertThat(nodeTimeSinceLastRepaired.value()).isEqualTo(1.0);
+
+        myTableRepairMetricsImpl.lastRepairedAt(tableReference, timeNow - 3000L);
+        assertThat(nodeTimeSinceLastRepaired.value()).isEqualTo(3.0);
+    }
+
+    @Test
+    public void testRemoveTable()
+    {
+        TableReference tableReference = tableReference(TEST_KEYSPACE, TEST_TABLE1);
+        TableReference tableReference2 = tableReference(TEST_KEYSPACE, TEST_TABLE2);
+
+        myTableRepairMetricsImpl.repairState(tableReference, 1, 0);
+        myTableRepairMetricsImpl.remainingRepairTime(tableReference, 10L);
+        myTableRepairMetricsImpl.repairSession(tableReference, 1, TimeUnit.SECONDS, true);
+        myTableRepairMetricsImpl.repairState(tableReference2, 0, 1);
+        myTableRepairMetricsImpl.remainingRepairTime(tableReference2, 20L);
+
+        myTableRepairMetricsImpl.remove(tableReference);
+
+        assertThat(myMeterRegistry.find(TableRepairMetricsImpl.REPAIRED_RATIO)
+                .tags("keyspace", TEST_KEYSPACE, "table", TEST_TABLE1)
+                .gauge()).isNull();
+        assertThat(myMeterRegistry.find(TableRepairMetricsImpl.REMAINING_REPAIR_TIME)
+                .tags("keyspace", TEST_KEYSPACE, "table", TEST_TABLE1)
+                .gauge()).isNull();
+        assertThat(myMeterRegistry.find(TableRepairMetricsImpl.REPAIR_SESSIONS)
+                .tags("keyspace", TEST_KEYSPACE, "table", TEST_TABLE1)
+                .timer()).isNull();
+        assertThat(myTableRepairMetricsImpl.getRepairRatio(tableReference)).isEmpty();
+        assertThat(myMeterRegistry.find(TableRepairMetricsImpl.NODE_REPAIRED_RATIO).gauge().value())
+                .isEqualTo(0.0);
+        assertThat(myMeterRegistry.find(TableRepairMetricsImpl.NODE_REMAINING_REPAIR_TIME).gauge().value())
+                .isEqualTo(0.02);
+        assertThat(myMeterRegistry.find(TableRepairMetricsImpl.NODE_REPAIR_SESSIONS).timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void testConcurrentRepairStateUpdates() throws InterruptedException
+    {
+        TableReference tableReference = tableReference(TEST_KEYSPACE, TEST_TABLE1);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try
+        {
+            for (int i = 0; i < 1000; i++)
+            {
+                int repairedRanges = i % 3;
+                executorService.execute(() -> myTableRepairMetricsImpl.repairState(tableReference, repairedRanges, 1));
+            }
+        }
+        finally
+        {
+            executorService.shutdown();
+            assertThat(executorService.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+
+        myTableRepairMetricsImpl.repairState(tableReference, 1, 1);
+
+        assertThat(myMeterRegistry.find(TableRepairMetricsImpl.NODE_REPAIRED_RATIO).gauge().value())
+                .isCloseTo(0.5, within(0.000001));
+    }
+
+    @Test
+    public void testRemoveTableWhileUpdating() throws InterruptedException
+    {
+        TableReference tableReference = tableReference(TEST_KEYSPACE, TEST_TABLE1);
+        TableReference tableReference2 = tableReference(TEST_KEYSPACE, TEST_TABLE2);
+        myTableRepairMetricsImpl.repairState(tableReference, 0, 1);
+        myTableRepairMetricsImpl.repairState(tableReference2, 0, 1);
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try
+        {
+            for (int i = 0; i < 1000; i++)
+            {
+                executorService.execute(() -> myTableRepairMetricsImpl.repairState(tableReference, 1, 0));
+            }
+            myTableRepairMetricsImpl.remove(tableReference);
+        }
+        finally
+        {
+            executorService.shutdown();
+            assertThat(executorService.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+
+        Gauge tableRepairRatio = myMeterRegistry.find(TableRepairMetricsImpl.REPAIRED_RATIO)
+                .tags("keyspace", TEST_KEYSPACE, "table", TEST_TABLE1)
+                .gauge();
+        double nodeRepairRatio = myMeterRegistry.find(TableRepairMetricsImpl.NODE_REPAIRED_RATIO).gauge().value();
+        if (myTableRepairMetricsImpl.getRepairRatio(tableReference).isPresent())
+        {
+            // Updated again after the removal
+            assertThat(tableRepairRatio).isNotNull();
+            assertThat(nodeRepairRatio).isCloseTo(0.5, within(0.000001));
+        }
+        else
+        {
+            assertThat(tableRepairRatio).isNull();
+            assertThat(nodeRepairRatio).isCloseTo(0.0, within(0.000001));
+        }
+    }
 }
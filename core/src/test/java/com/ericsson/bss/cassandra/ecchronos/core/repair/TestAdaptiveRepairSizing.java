@@ -0,0 +1,151 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.repair;
+
+import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReference;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.ericsson.bss.cassandra.ecchronos.core.MockTableReferenceFactory.tableReference;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestAdaptiveRepairSizing
+{
+    private static final TableReference TABLE_REFERENCE = tableReference("keyspace", "table");
+    private static final BigInteger BASE_TOKENS = BigInteger.valueOf(1_000_000L);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testBaseTokensWhenNothingLearned()
+    {
+        AdaptiveRepairSizing repairSizing = AdaptiveRepairSizing.builder().build();
+
+        assertThat(repairSizing.getTokensPerRepair(TABLE_REFERENCE, TimeUnit.MINUTES.toMillis(1), BASE_TOKENS))
+                .isEqualTo(BASE_TOKENS);
+    }
+
+    @Test
+    public void testTokensAdaptedToTargetSessionTime()
+    {
+        AdaptiveRepairSizing repairSizing = AdaptiveRepairSizing.builder().build();
+
+        // 2 000 000 tokens in 10 seconds, 5 000 nanoseconds per token
+        repairSizing.recordSession(TABLE_REFERENCE, BigInteger.valueOf(2_000_000L), TimeUnit.SECONDS.toNanos(10));
+
+        assertThat(repairSizing.getTokensPerRepair(TABLE_REFERENCE, TimeUnit.SECONDS.toMillis(20), BASE_TOKENS))
+                .isEqualTo(BigInteger.valueOf(4_000_000L));
+    }
+
+    @Test
+    public void testObservationsAreSmoothed()
+    {
+        AdaptiveRepairSizing repairSizing = AdaptiveRepairSizing.builder()
+                .withSmoothingFactor(0.5d)
+                .build();
+
+        repairSizing.recordSession(TABLE_REFERENCE, BigInteger.valueOf(1000L), 1000L);
+        repairSizing.recordSession(TABLE_REFERENCE, BigInteger.valueOf(1000L), 3000L);
+
+        assertThat(repairSizing.getNanosPerToken(TABLE_REFERENCE)).isEqualTo(2.0d);
+    }
+
+    @Test
+    public void testTokensAreClamped()
+    {
+        AdaptiveRepairSizing repairSizing = AdaptiveRepairSizing.builder()
+                .withMaxAdjustmentFactor(4)
+                .build();
+        TableReference slowTable = tableReference("keyspace", "slow");
+
+        repairSizing.recordSession(TABLE_REFERENCE, BigInteger.valueOf(1_000_000_000L), 1L);
+        repairSizing.recordSession(slowTable, BigInteger.ONE, TimeUnit.HOURS.toNanos(1));
+
+        assertThat(repairSizing.getTokensPerRepair(TABLE_REFERENCE, TimeUnit.MINUTES.toMillis(1), BASE_TOKENS))
+                .isEqualTo(BigInteger.valueOf(4_000_000L));
+        assertThat(repairSizing.getTokensPerRepair(slowTable, TimeUnit.MINUTES.toMillis(1), BASE_TOKENS))
+                .isEqualTo(BigInteger.valueOf(250_000L));
+    }
+
+    @Test
+    public void testFailedOrEmptySessionsAreIgnored()
+    {
+        AdaptiveRepairSizing repairSizing = AdaptiveRepairSizing.builder().build();
+
+        repairSizing.recordSession(TABLE_REFERENCE, BigInteger.ZERO, 1000L);
+        repairSizing.recordSession(TABLE_REFERENCE, BigInteger.TEN, 0L);
+
+        assertThat(repairSizing.getNanosPerToken(TABLE_REFERENCE)).isNull();
+    }
+
+    @Test
+    public void testPersistedAndLoaded() throws IOException
+    {
+        Path file = temporaryFolder.newFolder().toPath().resolve("sizing.properties");
+
+        try (AdaptiveRepairSizing repairSizing = AdaptiveRepairSizing.builder().withFile(file).build())
+        {
+            repairSizing.recordSession(TABLE_REFERENCE, BigInteger.valueOf(1000L), 5000L);
+        }
+
+        AdaptiveRepairSizing loaded = AdaptiveRepairSizing.builder().withFile(file).build();
+
+        assertThat(loaded.getNanosPerToken(TABLE_REFERENCE)).isEqualTo(5.0d);
+    }
+
+    @Test
+    public void testConcurrentSessionsAreStoredInBackground() throws Exception
+    {
+        Path file = temporaryFolder.newFolder().toPath().resolve("sizing.properties");
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        try (AdaptiveRepairSizing repairSizing = AdaptiveRepairSizing.builder()
+                .withFile(file)
+                .withSaveInterval(0, TimeUnit.MILLISECONDS)
+                .build())
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++)
+            {
+                futures.add(executorService.submit(() -> repairSizing.recordSession(TABLE_REFERENCE,
+                        BigInteger.valueOf(1000L), 5000L)));
+            }
+            for (Future<?> future : futures)
+            {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+
+        assertThat(file.resolveSibling(file.getFileName() + ".tmp")).doesNotExist();
+        AdaptiveRepairSizing loaded = AdaptiveRepairSizing.builder().withFile(file).build();
+        assertThat(loaded.getNanosPerToken(TABLE_REFERENCE)).isEqualTo(5.0d);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.repair;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TestAsyncRequestLimiter
+{
+    @Test
+    public void testRequestsAreLimited()
+    {
+        AsyncRequestLimiter limiter = new AsyncRequestLimiter(2);
+        List<CompletableFuture<Integer>> responses = new ArrayList<>();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++)
+        {
+            results.add(limiter.submit(() ->
+            {
+                CompletableFuture<Integer> response = new CompletableFuture<>();
+                responses.add(response);
+                return response;
+            }));
+        }
+
+        assertThat(responses).hasSize(2);
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+
+        responses.get(0).complete(1);
+
+        assertThat(results.get(0)).isCompletedWithValue(1);
+        assertThat(responses).hasSize(3);
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    public void testRequestsSubmittedFromCallbacksAreLimited()
+    {
+        AsyncRequestLimiter limiter = new AsyncRequestLimiter(1);
+        List<CompletableFuture<Integer>> responses = new ArrayList<>();
+
+        CompletableFuture<Integer> result = limiter.submit(() ->
+        {
+            CompletableFuture<Integer> response = new CompletableFuture<>();
+            responses.add(response);
+            return response;
+        }).thenCompose(value -> limiter.submit(() -> CompletableFuture.completedFuture(value + 1)));
+
+        assertThat(responses).hasSize(1);
+
+        responses.get(0).complete(1);
+
+        assertThat(result).isCompletedWithValue(2);
+        assertThat(limiter.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testSynchronousFailureReleasesPermit()
+    {
+        AsyncRequestLimiter limiter = new AsyncRequestLimiter(1);
+
+        CompletableFuture<Integer> failed = limiter.submit(() ->
+        {
+            throw new IllegalStateException();
+        });
+        CompletableFuture<Integer> result = limiter.submit(() -> CompletableFuture.completedFuture(1));
+
+        assertThat(failed).isCompletedExceptionally();
+        assertThat(result).isCompletedWithValue(1);
+        assertThat(limiter.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCancelPendingRequests()
+    {
+        AsyncRequestLimiter limiter = new AsyncRequestLimiter(1);
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<Integer> response = new CompletableFuture<>();
+
+        CompletableFuture<Integer> result = limiter.submit(() ->
+        {
+            started.incrementAndGet();
+            return response;
+        });
+        CompletableFuture<Integer> pending = limiter.submit(() ->
+        {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture(2);
+        });
+
+        limiter.cancel();
+        response.complete(1);
+
+        assertThat(result).isCompletedWithValue(1);
+        assertThat(pending).hasFailedWithThrowableThat().isInstanceOf(CancellationException.class);
+        assertThat(started.get()).isEqualTo(1);
+        assertThat(limiter.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testManyCompletedRequests()
+    {
+        AsyncRequestLimiter limiter = new AsyncRequestLimiter(1);
+        CompletableFuture<Integer> response = new CompletableFuture<>();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+        results.add(limiter.submit(() -> response));
+        for (int i = 0; i < 100_000; i++)
+        {
+            results.add(limiter.submit(() -> CompletableFuture.completedFuture(1)));
+        }
+
+        response.complete(1);
+
+        assertThat(results).allMatch(result -> result.isDone() && !result.isCompletedExceptionally());
+    }
+}
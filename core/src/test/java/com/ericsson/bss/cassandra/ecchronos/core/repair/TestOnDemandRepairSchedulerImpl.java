@@ -37,12 +37,14 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 
 import static com.ericsson.bss.cassandra.ecchronos.core.MockTableReferenceFactory.tableReference;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -153,6 +155,22 @@ public class TestOnDemandRepairSchedulerImpl
         verifyNoMoreInteractions(scheduleManager);
     }
 
+    @Test
+    public void testPollOnlyNewOngoingJobsAfterStartup()
+    {
+        UUID jobId = UUID.randomUUID();
+        when(myOngingJob.getJobId()).thenReturn(jobId);
+        when(myOnDemandStatus.getOngoingJobs(replicationState)).thenReturn(Collections.singleton(myOngingJob));
+
+        OnDemandRepairSchedulerImpl repairScheduler = defaultOnDemandRepairSchedulerImplBuilder().build();
+
+        verify(myOnDemandStatus, timeout(15000)).getOngoingJobs(replicationState, Collections.singleton(jobId));
+        verify(myOnDemandStatus).getOngoingJobs(replicationState);
+        verify(scheduleManager).schedule(any(ScheduledJob.class));
+
+        repairScheduler.close();
+    }
+
     @Test
     public void testRestartRepairOnTableWithException()
     {
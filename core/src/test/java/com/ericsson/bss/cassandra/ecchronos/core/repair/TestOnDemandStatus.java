@@ -27,6 +27,7 @@ import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReference;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReferenceFactory;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReferenceFactoryImpl;
 import com.google.common.collect.ImmutableSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -35,12 +36,14 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.time.Instant;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
@@ -53,6 +56,8 @@ public class TestOnDemandStatus extends AbstractCassandraTest
     private static final String STATUS_STARTED = "started";
     private static final String KEYSPACE_NAME = "ecchronos";
     private static final String TABLE_NAME = "on_demand_repair_status";
+    private static final String PROGRESS_TABLE_NAME = "on_demand_repair_progress";
+    private static final String ACTIVE_TABLE_NAME = "on_demand_repair_active";
     private static final String TEST_TABLE_NAME = "test_table";
     private static final String HOST_ID_COLUMN_NAME = "host_id";
     private static final String STATUS_COLUMN_NAME = "status";
@@ -89,6 +94,12 @@ public class TestOnDemandStatus extends AbstractCassandraTest
         mySession.execute(String.format(
                 "CREATE TABLE IF NOT EXISTS %s.%s (host_id uuid, job_id uuid, table_reference frozen<table_reference>, token_map_hash int, repaired_tokens frozen<set<frozen<token_range>>>, status text, completed_time timestamp, PRIMARY KEY(host_id, job_id)) WITH default_time_to_live = 2592000 AND gc_grace_seconds = 0",
                 KEYSPACE_NAME, TABLE_NAME));
+        mySession.execute(String.format(
+                "CREATE TABLE IF NOT EXISTS %s.%s (host_id uuid, job_id uuid, range_begin text, range_end text, PRIMARY KEY((host_id, job_id), range_begin, range_end)) WITH default_time_to_live = 2592000 AND gc_grace_seconds = 0",
+                KEYSPACE_NAME, PROGRESS_TABLE_NAME));
+        mySession.execute(String.format(
+                "CREATE TABLE IF NOT EXISTS %s.%s (host_id uuid, job_id uuid, PRIMARY KEY(host_id, job_id)) WITH default_time_to_live = 2592000 AND gc_grace_seconds = 0",
+                KEYSPACE_NAME, ACTIVE_TABLE_NAME));
         mySession.execute(
                 String.format("CREATE TABLE IF NOT EXISTS %s.%s (col1 int, col2 int, PRIMARY KEY(col1))", KEYSPACE_NAME,
                         TEST_TABLE_NAME));
@@ -102,6 +113,8 @@ public class TestOnDemandStatus extends AbstractCassandraTest
     public void testCleanup()
     {
         mySession.execute(String.format("TRUNCATE %s.%s", KEYSPACE_NAME, TABLE_NAME));
+        mySession.execute(String.format("TRUNCATE %s.%s", KEYSPACE_NAME, PROGRESS_TABLE_NAME));
+        mySession.execute(String.format("TRUNCATE %s.%s", KEYSPACE_NAME, ACTIVE_TABLE_NAME));
     }
 
     @Test
@@ -297,6 +310,42 @@ public class TestOnDemandStatus extends AbstractCassandraTest
         assertThat(ongoingJob.getCompletedTime()).isEqualTo(-1L);
     }
 
+    @Test
+    public void testGetAllClusterWideJobsIsCached()
+    {
+        OnDemandStatus onDemandStatus = new OnDemandStatus(getNativeConnectionProvider(), null, 1, TimeUnit.HOURS);
+        OnDemandStatus otherOnDemandStatus = new OnDemandStatus(getNativeConnectionProvider());
+
+        UUID jobId = UUID.randomUUID();
+        UUID otherJobId = UUID.randomUUID();
+        TableReference tableReference = myTableReferenceFactory.forTable(KEYSPACE_NAME, TEST_TABLE_NAME);
+
+        assertThat(onDemandStatus.getAllClusterWideJobs()).isEmpty();
+
+        otherOnDemandStatus.addNewJob(otherJobId, tableReference, 1);
+        assertThat(onDemandStatus.getAllClusterWideJobs()).isEmpty();
+
+        onDemandStatus.addNewJob(jobId, tableReference, 1);
+        assertThat(onDemandStatus.getAllClusterWideJobs()).extracting(OngoingJob::getJobId)
+                .containsExactlyInAnyOrder(jobId, otherJobId);
+    }
+
+    @Test
+    public void testGetAllClusterWideJobsFromCacheAreNotShared()
+    {
+        OnDemandStatus onDemandStatus = new OnDemandStatus(getNativeConnectionProvider(), null, 1, TimeUnit.HOURS);
+
+        UUID jobId = UUID.randomUUID();
+        TableReference tableReference = myTableReferenceFactory.forTable(KEYSPACE_NAME, TEST_TABLE_NAME);
+        onDemandStatus.addNewJob(jobId, tableReference, 1);
+
+        OngoingJob job = onDemandStatus.getAllClusterWideJobs().iterator().next();
+        OngoingJob cachedJob = onDemandStatus.getAllClusterWideJobs().iterator().next();
+
+        assertThat(cachedJob.getJobId()).isEqualTo(jobId);
+        assertThat(cachedJob).isNotSameAs(job);
+    }
+
     @Test
     public void testGetOngoingJobsNoJobs()
     {
@@ -333,6 +382,52 @@ public class TestOnDemandStatus extends AbstractCassandraTest
         assertThat(ongoingJob.getCompletedTime()).isEqualTo(-1L);
     }
 
+    @Test
+    public void testGetNewOngoingJobs()
+    {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OnDemandStatus onDemandStatus = new OnDemandStatus(getNativeConnectionProvider(), meterRegistry);
+
+        UUID jobId = UUID.randomUUID();
+        UUID finishedJobId = UUID.randomUUID();
+        TableReference tableReference = myTableReferenceFactory.forTable(KEYSPACE_NAME, TEST_TABLE_NAME);
+        Map<LongTokenRange, ImmutableSet<DriverNode>> tokenMap = new HashMap<>();
+        when(myReplicationState.getTokenRangeToReplicas(tableReference)).thenReturn(tokenMap);
+
+        onDemandStatus.addNewJob(jobId, tableReference, 1);
+        onDemandStatus.addNewJob(finishedJobId, tableReference, 1);
+        onDemandStatus.finishJob(finishedJobId);
+
+        Set<OngoingJob> ongoingJobs = onDemandStatus.getOngoingJobs(myReplicationState, Collections.emptySet());
+
+        assertThat(ongoingJobs).extracting(OngoingJob::getJobId).containsExactly(jobId);
+        assertThat(onDemandStatus.getOngoingJobs(myReplicationState, Collections.singleton(jobId))).isEmpty();
+
+        assertThat(meterRegistry.get(OnDemandStatus.POLL_TIME).timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(OnDemandStatus.POLL_ROWS).summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testGetOngoingJobsIndexesStartedJobs()
+    {
+        OnDemandStatus onDemandStatus = new OnDemandStatus(getNativeConnectionProvider());
+
+        UUID jobId = UUID.randomUUID();
+        TableReference tableReference = myTableReferenceFactory.forTable(KEYSPACE_NAME, TEST_TABLE_NAME);
+        Map<LongTokenRange, ImmutableSet<DriverNode>> tokenMap = new HashMap<>();
+        when(myReplicationState.getTokenRangeToReplicas(tableReference)).thenReturn(tokenMap);
+
+        onDemandStatus.addNewJob(jobId, tableReference, 1);
+        mySession.execute(String.format("DELETE FROM %s.%s WHERE host_id=%s AND job_id=%s", KEYSPACE_NAME,
+                ACTIVE_TABLE_NAME, myHostId, jobId));
+
+        assertThat(onDemandStatus.getOngoingJobs(myReplicationState, Collections.emptySet())).isEmpty();
+        assertThat(onDemandStatus.getOngoingJobs(myReplicationState)).extracting(OngoingJob::getJobId)
+                .containsExactly(jobId);
+        assertThat(onDemandStatus.getOngoingJobs(myReplicationState, Collections.emptySet()))
+                .extracting(OngoingJob::getJobId).containsExactly(jobId);
+    }
+
     @Test
     public void testGetOngoingJobsWithNewTable()
     {
@@ -383,6 +478,36 @@ public class TestOnDemandStatus extends AbstractCassandraTest
         assertThat(ongoingJob.getCompletedTime()).isEqualTo(-1L);
     }
 
+    @Test
+    public void testGetOngoingJobsWithRepairedRanges()
+    {
+        OnDemandStatus onDemandStatus = new OnDemandStatus(getNativeConnectionProvider());
+
+        UUID jobId = UUID.randomUUID();
+        int hashValue = 1;
+        TableReference tableReference = myTableReferenceFactory.forTable(KEYSPACE_NAME, TEST_TABLE_NAME);
+        Map<LongTokenRange, ImmutableSet<DriverNode>> tokenMap = new HashMap<>();
+        when(myReplicationState.getTokenRangeToReplicas(tableReference)).thenReturn(tokenMap);
+        onDemandStatus.addNewJob(jobId, tableReference, hashValue);
+
+        Set<UdtValue> repairedTokens = new HashSet<>();
+        repairedTokens.add(onDemandStatus.createUDTTokenRangeValue(-50L, 700L));
+        onDemandStatus.updateJob(jobId, repairedTokens);
+        onDemandStatus.addRepairedRanges(jobId, ImmutableSet.of(new LongTokenRange(-50L, 700L)));
+        onDemandStatus.addRepairedRanges(jobId,
+                ImmutableSet.of(new LongTokenRange(700L, 800L), new LongTokenRange(800L, 900L)));
+
+        assertThat(onDemandStatus.getRepairedRanges(myHostId, jobId)).containsOnly(new LongTokenRange(-50L, 700L),
+                new LongTokenRange(700L, 800L), new LongTokenRange(800L, 900L));
+
+        Set<OngoingJob> ongoingJobs = onDemandStatus.getOngoingJobs(myReplicationState);
+
+        OngoingJob ongoingJob = ongoingJobs.iterator().next();
+        assertThat(ongoingJob.getJobId()).isEqualTo(jobId);
+        assertThat(ongoingJob.getRepairedTokens()).containsOnly(new LongTokenRange(-50L, 700L),
+                new LongTokenRange(700L, 800L), new LongTokenRange(800L, 900L));
+    }
+
     @Test
     public void testGetOngoingJobsWithFinishedJob()
     {
@@ -467,6 +592,38 @@ public class TestOnDemandStatus extends AbstractCassandraTest
         assertThat(ongoingJob.getCompletedTime()).isEqualTo(-1L);
     }
 
+    @Test
+    public void testGetAllJobsWithRepairedRanges()
+    {
+        OnDemandStatus onDemandStatus = new OnDemandStatus(getNativeConnectionProvider());
+
+        UUID jobId = UUID.randomUUID();
+        UUID finishedJobId = UUID.randomUUID();
+        int hashValue = 1;
+        TableReference tableReference = myTableReferenceFactory.forTable(KEYSPACE_NAME, TEST_TABLE_NAME);
+        Map<LongTokenRange, ImmutableSet<DriverNode>> tokenMap = new HashMap<>();
+        when(myReplicationState.getTokenRangeToReplicas(tableReference)).thenReturn(tokenMap);
+        onDemandStatus.addNewJob(jobId, tableReference, hashValue);
+        onDemandStatus.addNewJob(finishedJobId, tableReference, hashValue);
+
+        Set<UdtValue> repairedTokens = new HashSet<>();
+        repairedTokens.add(onDemandStatus.createUDTTokenRangeValue(-50L, 700L));
+        onDemandStatus.updateJob(jobId, repairedTokens);
+        onDemandStatus.addRepairedRanges(jobId, ImmutableSet.of(new LongTokenRange(700L, 800L)));
+
+        onDemandStatus.updateJob(finishedJobId, repairedTokens);
+        onDemandStatus.addRepairedRanges(finishedJobId, ImmutableSet.of(new LongTokenRange(-50L, 700L)));
+        onDemandStatus.finishJob(finishedJobId);
+
+        Map<UUID, OngoingJob> jobs = new HashMap<>();
+        onDemandStatus.getAllJobs(myReplicationState).forEach(job -> jobs.put(job.getJobId(), job));
+
+        assertThat(jobs).containsOnlyKeys(jobId, finishedJobId);
+        assertThat(jobs.get(jobId).getRepairedTokens()).containsOnly(new LongTokenRange(-50L, 700L),
+                new LongTokenRange(700L, 800L));
+        assertThat(jobs.get(finishedJobId).getRepairedTokens()).containsOnly(new LongTokenRange(-50L, 700L));
+    }
+
     @Test
     public void testGetAllJobsWithNewTable()
     {
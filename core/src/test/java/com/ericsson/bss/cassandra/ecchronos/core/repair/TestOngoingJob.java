@@ -140,6 +140,51 @@ public class TestOngoingJob
         assertThat(ongoingJob.getCompletedTime()).isEqualTo(12345L);
     }
 
+    @Test
+    public void testFinishedJobDoesNotReadProgress()
+    {
+        UUID jobId = UUID.randomUUID();
+        Set<UdtValue> repairedTokens = new HashSet<>();
+        repairedTokens.add(myUdtValue);
+
+        when(myOnDemandStatus.getStartTokenFrom(myUdtValue)).thenReturn(-50L);
+        when(myOnDemandStatus.getEndTokenFrom(myUdtValue)).thenReturn(700L);
+
+        OngoingJob finishedJob = new OngoingJob.Builder()
+                .withOnDemandStatus(myOnDemandStatus)
+                .withReplicationState(myReplicationState)
+                .withTableReference(myTableReference)
+                .withOngoingJobInfo(jobId, myTokenMap.hashCode(), repairedTokens, Status.finished, 12345L)
+                .build();
+        OngoingJob failedJob = new OngoingJob.Builder()
+                .withOnDemandStatus(myOnDemandStatus)
+                .withReplicationState(myReplicationState)
+                .withTableReference(myTableReference)
+                .withOngoingJobInfo(jobId, myTokenMap.hashCode(), repairedTokens, Status.failed, 12345L)
+                .build();
+
+        assertThat(finishedJob.getRepairedTokens()).containsOnly(new LongTokenRange(-50L, 700L));
+        assertThat(failedJob.getRepairedTokens()).containsOnly(new LongTokenRange(-50L, 700L));
+        verify(myOnDemandStatus, never()).getRepairedRanges(any(), any());
+    }
+
+    @Test
+    public void testStartedJobWithProgressDoesNotReadProgress()
+    {
+        UUID jobId = UUID.randomUUID();
+
+        OngoingJob ongoingJob = new OngoingJob.Builder()
+                .withOnDemandStatus(myOnDemandStatus)
+                .withReplicationState(myReplicationState)
+                .withTableReference(myTableReference)
+                .withOngoingJobInfo(jobId, myTokenMap.hashCode(), new HashSet<>(), Status.started, null)
+                .withProgress(ImmutableSet.of(new LongTokenRange(700L, 800L)))
+                .build();
+
+        assertThat(ongoingJob.getRepairedTokens()).containsOnly(new LongTokenRange(700L, 800L));
+        verify(myOnDemandStatus, never()).getRepairedRanges(any(), any());
+    }
+
     @Test
     public void testFinishRange()
     {
@@ -151,12 +196,57 @@ public class TestOngoingJob
 
         Set<LongTokenRange> finishedRanges = new HashSet<>();
         finishedRanges.add(new LongTokenRange(-50L, 700L));
-        when(myOnDemandStatus.createUDTTokenRangeValue(-50L, 700L)).thenReturn(myUdtValue);
         ongoingJob.finishRanges(finishedRanges);
 
-        verify(myOnDemandStatus).updateJob(any(UUID.class), myUdtSetCaptor.capture());
-        Set<UdtValue> rangeSet = myUdtSetCaptor.getValue();
-        assertThat(rangeSet).containsOnly(myUdtValue);
+        verify(myOnDemandStatus).addRepairedRanges(ongoingJob.getJobId(), finishedRanges);
+        verify(myOnDemandStatus, never()).updateJob(any(UUID.class), any());
+        assertThat(ongoingJob.getRepairedTokens()).isEqualTo(finishedRanges);
+    }
+
+    @Test
+    public void testFinishRangesCheckpoints()
+    {
+        OngoingJob ongoingJob = new OngoingJob.Builder()
+                .withOnDemandStatus(myOnDemandStatus)
+                .withReplicationState(myReplicationState)
+                .withTableReference(myTableReference)
+                .build();
+
+        when(myOnDemandStatus.createUDTTokenRangeValue(anyLong(), anyLong())).thenAnswer(i -> mock(UdtValue.class));
+        for (long i = 0; i < 32; i++)
+        {
+            ongoingJob.finishRanges(ImmutableSet.of(new LongTokenRange(i, i + 1)));
+        }
+
+        verify(myOnDemandStatus, times(32)).addRepairedRanges(eq(ongoingJob.getJobId()), any());
+        verify(myOnDemandStatus).updateJob(eq(ongoingJob.getJobId()), myUdtSetCaptor.capture());
+        assertThat(myUdtSetCaptor.getValue()).hasSize(32);
+    }
+
+    @Test
+    public void testRestartedJobReconstructsProgress()
+    {
+        UUID jobId = UUID.randomUUID();
+        UUID hostId = UUID.randomUUID();
+        Set<UdtValue> repairedTokens = new HashSet<>();
+        repairedTokens.add(myUdtValue);
+
+        when(myOnDemandStatus.getStartTokenFrom(myUdtValue)).thenReturn(-50L);
+        when(myOnDemandStatus.getEndTokenFrom(myUdtValue)).thenReturn(700L);
+        when(myOnDemandStatus.getHostId()).thenReturn(hostId);
+        when(myOnDemandStatus.getRepairedRanges(hostId, jobId))
+                .thenReturn(ImmutableSet.of(new LongTokenRange(700L, 800L)));
+
+        OngoingJob ongoingJob = new OngoingJob.Builder()
+                .withOnDemandStatus(myOnDemandStatus)
+                .withReplicationState(myReplicationState)
+                .withTableReference(myTableReference)
+                .withOngoingJobInfo(jobId, myTokenMap.keySet().hashCode(), repairedTokens, Status.started, null)
+                .build();
+
+        verify(myOnDemandStatus, never()).getRepairedRanges(any(), any());
+        assertThat(ongoingJob.getRepairedTokens()).containsOnly(new LongTokenRange(-50L, 700L),
+                new LongTokenRange(700L, 800L));
     }
 
     @Test
@@ -170,9 +260,28 @@ public class TestOngoingJob
 
         ongoingJob.finishJob();
 
+        verify(myOnDemandStatus, never()).updateJob(any(UUID.class), any());
         verify(myOnDemandStatus).finishJob(any(UUID.class));
     }
 
+    @Test
+    public void testFinishJobCheckpointsProgress()
+    {
+        OngoingJob ongoingJob = new OngoingJob.Builder()
+                .withOnDemandStatus(myOnDemandStatus)
+                .withReplicationState(myReplicationState)
+                .withTableReference(myTableReference)
+                .build();
+
+        when(myOnDemandStatus.createUDTTokenRangeValue(-50L, 700L)).thenReturn(myUdtValue);
+        ongoingJob.finishRanges(ImmutableSet.of(new LongTokenRange(-50L, 700L)));
+        ongoingJob.finishJob();
+
+        verify(myOnDemandStatus).updateJob(eq(ongoingJob.getJobId()), myUdtSetCaptor.capture());
+        assertThat(myUdtSetCaptor.getValue()).containsOnly(myUdtValue);
+        verify(myOnDemandStatus).finishJob(ongoingJob.getJobId());
+    }
+
     @Test
     public void testFailJob()
     {
@@ -187,6 +296,24 @@ public class TestOngoingJob
         verify(myOnDemandStatus).failJob(any(UUID.class));
     }
 
+    @Test
+    public void testFailJobCheckpointsProgress()
+    {
+        OngoingJob ongoingJob = new OngoingJob.Builder()
+                .withOnDemandStatus(myOnDemandStatus)
+                .withReplicationState(myReplicationState)
+                .withTableReference(myTableReference)
+                .build();
+
+        when(myOnDemandStatus.createUDTTokenRangeValue(-50L, 700L)).thenReturn(myUdtValue);
+        ongoingJob.finishRanges(ImmutableSet.of(new LongTokenRange(-50L, 700L)));
+        ongoingJob.failJob();
+
+        verify(myOnDemandStatus).updateJob(eq(ongoingJob.getJobId()), myUdtSetCaptor.capture());
+        assertThat(myUdtSetCaptor.getValue()).containsOnly(myUdtValue);
+        verify(myOnDemandStatus).failJob(ongoingJob.getJobId());
+    }
+
     @Test
     public void testHasTopologyChangedWithSameTopology()
     {
@@ -18,6 +18,7 @@ import static com.ericsson.bss.cassandra.ecchronos.core.MockTableReferenceFactor
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
@@ -31,6 +32,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -264,6 +266,88 @@ public class TestRepairGroup
         assertThat(repairTaskRanges).containsExactlyInAnyOrderElementsOf(vnodes);
     }
 
+    @Test
+    public void testGetBatchedRepairTasks()
+    {
+        DriverNode node = mockNode("DC1");
+
+        ImmutableList<LongTokenRange> vnodes = ImmutableList.of(
+                new LongTokenRange(1, 2),
+                new LongTokenRange(2, 3),
+                new LongTokenRange(4, 5),
+                new LongTokenRange(5, 6),
+                new LongTokenRange(6, 7));
+
+        ReplicaRepairGroup replicaRepairGroup = new ReplicaRepairGroup(ImmutableSet.of(node), vnodes);
+
+        RepairGroup repairGroup = builderFor(replicaRepairGroup)
+                .withRepairConfiguration(RepairConfiguration.newBuilder(repairConfiguration)
+                        .withMaxRangesPerRepair(2)
+                        .build())
+                .build(priority);
+
+        List<RepairTask> repairTasks = new ArrayList<>(repairGroup.getRepairTasks());
+
+        assertThat(repairTasks).hasSize(3);
+        assertThat(repairTasks.get(0).getTokenRanges()).containsExactlyInAnyOrder(vnodes.get(0), vnodes.get(1));
+        assertThat(repairTasks.get(1).getTokenRanges()).containsExactlyInAnyOrder(vnodes.get(2), vnodes.get(3));
+        assertThat(repairTasks.get(2).getTokenRanges()).containsExactly(vnodes.get(4));
+    }
+
+    @Test
+    public void testGetBatchedRepairTasksWithinTokenBudget()
+    {
+        DriverNode node = mockNode("DC1");
+
+        ImmutableList<LongTokenRange> vnodes = ImmutableList.of(
+                new LongTokenRange(0, 1),
+                new LongTokenRange(1, 2),
+                new LongTokenRange(2, 4));
+
+        ReplicaRepairGroup replicaRepairGroup = new ReplicaRepairGroup(ImmutableSet.of(node), vnodes);
+
+        RepairGroup repairGroup = builderFor(replicaRepairGroup)
+                .withRepairConfiguration(RepairConfiguration.newBuilder(repairConfiguration)
+                        .withMaxRangesPerRepair(10)
+                        .build())
+                .withTokensPerRepair(BigInteger.valueOf(2))
+                .build(priority);
+
+        List<RepairTask> repairTasks = new ArrayList<>(repairGroup.getRepairTasks());
+
+        assertThat(repairTasks).hasSize(2);
+        assertThat(repairTasks.get(0).getTokenRanges()).containsExactlyInAnyOrder(vnodes.get(0), vnodes.get(1));
+        assertThat(repairTasks.get(1).getTokenRanges()).containsExactly(vnodes.get(2));
+    }
+
+    @Test
+    public void testFailedBatchRetriesUnfinishedRangesIndividually() throws Exception
+    {
+        DriverNode node = mockNode("DC1");
+        LongTokenRange range1 = new LongTokenRange(1, 2);
+        LongTokenRange range2 = new LongTokenRange(2, 3);
+        LongTokenRange range3 = new LongTokenRange(3, 4);
+        ReplicaRepairGroup replicaRepairGroup = new ReplicaRepairGroup(ImmutableSet.of(node),
+                ImmutableList.of(range1, range2, range3));
+
+        RepairGroup repairGroup = spy(builderFor(replicaRepairGroup).build(priority));
+        RepairTask batchTask = mock(RepairTask.class);
+        doReturn(new HashSet<>(Arrays.asList(range1, range2, range3))).when(batchTask).getTokenRanges();
+        doReturn(Sets.newHashSet(range1)).when(batchTask).getCompletedRanges();
+        doThrow(new ScheduledJobException("foo")).when(batchTask).execute();
+        doReturn(Sets.newHashSet(batchTask)).when(repairGroup).getRepairTasks();
+        when(myJmxProxyFactory.connect()).thenThrow(new IOException("foo"));
+
+        boolean success = repairGroup.execute();
+        assertThat(success).isFalse();
+
+        verify(myRepairHistory, never()).newSession(any(), any(), eq(range1), any());
+        verify(myRepairHistory).newSession(any(), any(), eq(range2), any());
+        verify(myRepairHistory).newSession(any(), any(), eq(range3), any());
+        verify(myTableRepairMetrics, times(2)).repairSession(eq(tableReference), anyLong(), any(TimeUnit.class),
+                eq(false));
+    }
+
     @Test
     public void testExecuteAllTasksSuccessful() throws ScheduledJobException
     {
@@ -15,10 +15,12 @@
 package com.ericsson.bss.cassandra.ecchronos.core.repair;
 
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -27,6 +29,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -53,6 +56,7 @@ public class TestRepairLockFactoryImpl
     public void setup()
     {
         when(mockLockFactory.getCachedFailure(anyString(), anyString())).thenReturn(Optional.empty());
+        lenient().when(mockLockFactory.tryLockAsync(any(), anyString(), anyInt(), anyMap())).thenCallRealMethod();
     }
 
     @Test
@@ -183,6 +187,28 @@ public class TestRepairLockFactoryImpl
         verify(mockLock).close();
     }
 
+    @Test
+    public void testMultipleLocksFirstFailingReleasesLaterLocks() throws LockException
+    {
+        RepairResource repairResourceDc1 = new RepairResource("DC1", "my-resource-dc1");
+        RepairResource repairResourceDc2 = new RepairResource("DC2", "my-resource-dc2");
+        RepairLockFactoryImpl repairLockFactory = new RepairLockFactoryImpl();
+        Map<String, String> metadata = Collections.singletonMap("metadatakey", "metadatavalue");
+        int priority = 1;
+
+        withSufficientNodesForLocking(repairResourceDc1);
+        withSufficientNodesForLocking(repairResourceDc2);
+
+        CompletableFuture<LockFactory.DistributedLock> failedLock = new CompletableFuture<>();
+        failedLock.completeExceptionally(new LockException(""));
+        when(mockLockFactory.tryLockAsync(eq(repairResourceDc1.getDataCenter()), eq(repairResourceDc1.getResourceName(LOCKS_PER_RESOURCE)), eq(priority), eq(metadata))).thenReturn(failedLock);
+        when(mockLockFactory.tryLockAsync(eq(repairResourceDc2.getDataCenter()), eq(repairResourceDc2.getResourceName(LOCKS_PER_RESOURCE)), eq(priority), eq(metadata))).thenReturn(CompletableFuture.completedFuture(mockLock));
+
+        verifyExceptionIsThrownWhenGettingLock(repairLockFactory, priority, metadata, repairResourceDc1, repairResourceDc2);
+        verify(mockLockFactory).tryLockAsync(eq(repairResourceDc2.getDataCenter()), eq(repairResourceDc2.getResourceName(LOCKS_PER_RESOURCE)), eq(priority), eq(metadata));
+        verify(mockLock).close();
+    }
+
     @Test
     public void testMultipleLocksOneHasCachedFailure() throws LockException
     {
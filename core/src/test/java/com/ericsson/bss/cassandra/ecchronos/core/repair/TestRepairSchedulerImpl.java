@@ -25,15 +25,18 @@ import com.google.common.collect.ImmutableSet;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static com.ericsson.bss.cassandra.ecchronos.core.MockTableReferenceFactory.tableReference;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
@@ -43,6 +46,7 @@ public class TestRepairSchedulerImpl
 {
     private static final TableReference TABLE_REFERENCE = tableReference("keyspace", "table");
     private static final TableReference TABLE_REFERENCE2 = tableReference("keyspace", "table2");
+    private static final TableReference TABLE_REFERENCE3 = tableReference("keyspace", "table3");
     private static final VnodeRepairState VNODE_REPAIR_STATE = TestUtils.createVnodeRepairState(1, 2, ImmutableSet.of(), System.currentTimeMillis());
 
     @Mock
@@ -137,6 +141,7 @@ public class TestRepairSchedulerImpl
 
         repairSchedulerImpl.removeConfiguration(TABLE_REFERENCE);
         verify(scheduleManager, timeout(1000)).deschedule(any(ScheduledJob.class));
+        verify(myTableRepairMetrics, timeout(1000)).remove(TABLE_REFERENCE);
         assertThat(repairSchedulerImpl.getCurrentRepairJobs()).isEmpty();
 
         repairSchedulerImpl.close();
@@ -207,6 +212,79 @@ public class TestRepairSchedulerImpl
         verifyNoMoreInteractions(scheduleManager);
     }
 
+    @Test
+    public void testWarmupPrioritizesShortestRepairErrorTime() throws Exception
+    {
+        CountDownLatch blockWarmup = new CountDownLatch(1);
+        when(myRepairStateFactory.create(eq(TABLE_REFERENCE3), any(), any())).thenAnswer(invocation -> {
+            blockWarmup.await();
+            return myRepairState;
+        });
+        RepairConfiguration shortErrorTime = RepairConfiguration.newBuilder()
+                .withRepairErrorTime(2, TimeUnit.DAYS)
+                .withRepairWarningTime(1, TimeUnit.DAYS)
+                .withRepairInterval(12, TimeUnit.HOURS)
+                .build();
+        RepairSchedulerImpl repairSchedulerImpl = defaultRepairSchedulerImplBuilder()
+                .withWarmupThreads(1)
+                .build();
+
+        repairSchedulerImpl.putConfiguration(TABLE_REFERENCE3, RepairConfiguration.DEFAULT);
+        repairSchedulerImpl.putConfiguration(TABLE_REFERENCE, RepairConfiguration.DEFAULT);
+        repairSchedulerImpl.putConfiguration(TABLE_REFERENCE2, shortErrorTime);
+
+        await().pollInterval(10, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS)
+                .until(() -> repairSchedulerImpl.getWarmupQueueSize() == 2);
+        assertThat(repairSchedulerImpl.getPendingSchedules()).isEqualTo(3);
+        assertThat(repairSchedulerImpl.getCurrentRepairJobs()).isEmpty();
+        assertThat(repairSchedulerImpl.getScheduledTableCount()).isZero();
+
+        blockWarmup.countDown();
+
+        verify(scheduleManager, timeout(1000).times(3)).schedule(any(ScheduledJob.class));
+        InOrder inOrder = inOrder(myRepairStateFactory);
+        inOrder.verify(myRepairStateFactory).create(eq(TABLE_REFERENCE3), eq(RepairConfiguration.DEFAULT), any());
+        inOrder.verify(myRepairStateFactory).create(eq(TABLE_REFERENCE2), eq(shortErrorTime), any());
+        inOrder.verify(myRepairStateFactory).create(eq(TABLE_REFERENCE), eq(RepairConfiguration.DEFAULT), any());
+        assertThat(repairSchedulerImpl.getPendingSchedules()).isZero();
+        assertThat(repairSchedulerImpl.getCurrentRepairJobs()).hasSize(3);
+        assertThat(repairSchedulerImpl.getScheduledTableCount()).isEqualTo(3);
+
+        repairSchedulerImpl.close();
+        verifyNoMoreInteractions(myRepairStateFactory);
+    }
+
+    @Test
+    public void testRemovePendingTableConfiguration() throws Exception
+    {
+        CountDownLatch blockWarmup = new CountDownLatch(1);
+        when(myRepairStateFactory.create(eq(TABLE_REFERENCE3), any(), any())).thenAnswer(invocation -> {
+            blockWarmup.await();
+            return myRepairState;
+        });
+        RepairSchedulerImpl repairSchedulerImpl = defaultRepairSchedulerImplBuilder()
+                .withWarmupThreads(1)
+                .build();
+
+        repairSchedulerImpl.putConfiguration(TABLE_REFERENCE3, RepairConfiguration.DEFAULT);
+        repairSchedulerImpl.putConfiguration(TABLE_REFERENCE, RepairConfiguration.DEFAULT);
+        repairSchedulerImpl.putConfiguration(TABLE_REFERENCE2, RepairConfiguration.DEFAULT);
+        repairSchedulerImpl.removeConfiguration(TABLE_REFERENCE);
+
+        await().pollInterval(10, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS)
+                .until(() -> repairSchedulerImpl.getPendingSchedules() == 2);
+
+        blockWarmup.countDown();
+
+        verify(scheduleManager, timeout(1000).times(2)).schedule(any(ScheduledJob.class));
+        verify(myRepairStateFactory).create(eq(TABLE_REFERENCE3), eq(RepairConfiguration.DEFAULT), any());
+        verify(myRepairStateFactory).create(eq(TABLE_REFERENCE2), eq(RepairConfiguration.DEFAULT), any());
+        assertThat(repairSchedulerImpl.getPendingSchedules()).isZero();
+
+        repairSchedulerImpl.close();
+        verify(myRepairStateFactory, never()).create(eq(TABLE_REFERENCE), any(), any());
+    }
+
     private void assertOneTableViewExist(RepairScheduler repairScheduler, TableReference tableReference, RepairConfiguration repairConfiguration)
     {
         List<ScheduledRepairJobView> repairJobViews = repairScheduler.getCurrentRepairJobs();
@@ -21,6 +21,7 @@ import com.ericsson.bss.cassandra.ecchronos.core.TableStorageStates;
 import com.ericsson.bss.cassandra.ecchronos.core.metrics.TableRepairMetrics;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairHistory;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairState;
+import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairStateRefresher;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.RepairStateSnapshot;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.ReplicaRepairGroup;
 import com.ericsson.bss.cassandra.ecchronos.core.repair.state.VnodeRepairState;
@@ -227,6 +228,42 @@ public class TestTableRepairJob
         verify(myRepairState, times(1)).update();
     }
 
+    @Test
+    public void testPostExecuteWithRefresherUpdatesStateBeforeReturning()
+    {
+        RepairStateRefresher repairStateRefresher = RepairStateRefresher.builder()
+                .withRefreshInterval(1, TimeUnit.HOURS)
+                .build();
+        try
+        {
+            repairStateRefresher.register(myTableReference, myRepairState,
+                    myRepairConfiguration.getRepairIntervalInMs());
+            TableRepairJob repairJob = new TableRepairJob.Builder()
+                    .withConfiguration(new ScheduledJob.ConfigurationBuilder()
+                            .withPriority(ScheduledJob.Priority.LOW)
+                            .withRunInterval(RUN_INTERVAL_IN_DAYS, TimeUnit.DAYS)
+                            .build())
+                    .withTableReference(myTableReference)
+                    .withJmxProxyFactory(myJmxProxyFactory)
+                    .withRepairState(myRepairState)
+                    .withTableRepairMetrics(myTableRepairMetrics)
+                    .withRepairConfiguration(myRepairConfiguration)
+                    .withRepairLockType(RepairLockType.VNODE)
+                    .withTableStorageStates(myTableStorageStates)
+                    .withRepairHistory(myRepairHistory)
+                    .withRepairStateRefresher(repairStateRefresher)
+                    .build();
+
+            repairJob.postExecute(true, null);
+
+            verify(myRepairState, times(1)).update();
+        }
+        finally
+        {
+            repairStateRefresher.close();
+        }
+    }
+
     @Test
     public void testPostExecuteRepairedWithFailure()
     {
@@ -46,6 +46,7 @@ import java.util.concurrent.TimeUnit;
 import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -105,6 +106,17 @@ public class TestEccRepairHistory extends AbstractCassandraTest
                 + "  finished_at timestamp,\n"
                 + "  PRIMARY KEY((table_id,node_id), repair_id)\n"
                 + ") WITH CLUSTERING ORDER BY (repair_id DESC)", keyspaceName));
+        mySession.execute(String.format("CREATE TABLE IF NOT EXISTS %s.repair_history_checkpoint(\n"
+                + "  table_id uuid,\n"
+                + "  node_id uuid,\n"
+                + "  range_begin text,\n"
+                + "  range_end text,\n"
+                + "  status text,\n"
+                + "  started_at timestamp,\n"
+                + "  finished_at timestamp,\n"
+                + "  merged_until timestamp static,\n"
+                + "  PRIMARY KEY((table_id,node_id), range_begin, range_end, status)\n"
+                + ")", keyspaceName));
 
         mockReplicationState = mock(ReplicationState.class);
         localId = mySession.getMetadata().getNodes().values().iterator().next().getHostId();
@@ -139,6 +151,7 @@ public class TestEccRepairHistory extends AbstractCassandraTest
     public void cleanup()
     {
         mySession.execute(String.format("TRUNCATE %s.repair_history", keyspaceName));
+        mySession.execute(String.format("TRUNCATE %s.repair_history_checkpoint", keyspaceName));
     }
 
     @Test
@@ -376,6 +389,43 @@ public class TestEccRepairHistory extends AbstractCassandraTest
         assertThat(repairEntryIterator.hasNext()).isFalse();
     }
 
+    @Test
+    public void testHistoryIsRebuiltFromCheckpoint()
+    {
+        long from = System.currentTimeMillis();
+        UUID jobId = UUID.randomUUID();
+        LongTokenRange range = new LongTokenRange(1, 2);
+
+        Set<DriverNode> participants = Sets.newHashSet(mockLocalNode, mockNode());
+        withKnownRange(range, participants);
+
+        EccRepairHistory checkpointingHistory = checkpointingRepairHistory();
+        RepairHistory.RepairSession repairSession = checkpointingHistory
+                .newSession(tableReference, jobId, range, participants);
+        repairSession.start();
+        repairSession.finish(RepairStatus.SUCCESS);
+
+        // Reading the history creates the first checkpoint
+        assertThat(checkpointingHistory.iterate(tableReference, System.currentTimeMillis(),
+                Predicates.alwaysTrue())).toIterable().hasSize(1);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> mySession.execute(String.format(
+                "SELECT merged_until FROM %s.repair_history_checkpoint WHERE table_id=%s AND node_id=%s",
+                keyspaceName, tableId, localId)).one() != null);
+
+        // Remove the history so that only the checkpoint remains
+        mySession.execute(String.format("TRUNCATE %s.repair_history", keyspaceName));
+
+        List<RepairEntry> repairEntries = Lists.newArrayList(checkpointingRepairHistory()
+                .iterate(tableReference, System.currentTimeMillis(), Predicates.alwaysTrue()));
+
+        assertThat(repairEntries).hasSize(1);
+        RepairEntry repairEntry = repairEntries.get(0);
+        assertThat(repairEntry.getRange()).isEqualTo(range);
+        assertThat(repairEntry.getStatus()).isEqualTo(RepairStatus.SUCCESS);
+        assertThat(repairEntry.getParticipants()).isEqualTo(participants);
+        assertThat(repairEntry.getStartedAt()).isGreaterThanOrEqualTo(from);
+    }
+
     @Test
     public void testMultipleInvocationsThrowsException()
     {
@@ -457,6 +507,19 @@ public class TestEccRepairHistory extends AbstractCassandraTest
         assertThat(actual.finishedAt).isBetween(actual.startedAt, expected.finishedAt);
     }
 
+    private EccRepairHistory checkpointingRepairHistory()
+    {
+        return EccRepairHistory.newBuilder()
+                .withLocalNode(mockLocalNode)
+                .withLookbackTime(30, TimeUnit.DAYS)
+                .withSession(mySession)
+                .withKeyspace(keyspaceName)
+                .withStatementDecorator(s -> s)
+                .withReplicationState(mockReplicationState)
+                .withCheckpointInterval(1, TimeUnit.HOURS)
+                .build();
+    }
+
     private void withKnownRange(LongTokenRange range, Set<DriverNode> participants)
     {
         when(mockReplicationState.getNodes(tableReference, range)).thenReturn(ImmutableSet.copyOf(participants));
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.ericsson.bss.cassandra.ecchronos.core.utils.LongTokenRange;
+
+public class TestIngestedRepairHistory
+{
+    private static final long TRACKING_TIME = TimeUnit.DAYS.toMillis(1);
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(1);
+    private static final long OVERLAP = TimeUnit.MINUTES.toMillis(1);
+
+    private static final LongTokenRange RANGE_1 = new LongTokenRange(1, 2);
+    private static final LongTokenRange RANGE_2 = new LongTokenRange(2, 3);
+
+    @Test
+    public void testCanServe()
+    {
+        long now = TimeUnit.DAYS.toMillis(10);
+        long from = now - TimeUnit.DAYS.toMillis(5);
+        IngestedRepairHistory history = new IngestedRepairHistory(from, now, TRACKING_TIME);
+        history.ingest(Collections.emptyList(), now);
+
+        assertThat(history.canServe(from, now, now, MAX_AGE)).isTrue();
+        assertThat(history.canServe(from - 1, now, now, MAX_AGE)).isFalse();
+        assertThat(history.canServe(from, now - 1, now, MAX_AGE)).isFalse();
+        assertThat(history.canServe(from, now + MAX_AGE, now + MAX_AGE, MAX_AGE)).isFalse();
+    }
+
+    @Test
+    public void testTailStartsAtWatermark()
+    {
+        long now = TimeUnit.DAYS.toMillis(10);
+        long from = now - TimeUnit.DAYS.toMillis(5);
+        IngestedRepairHistory history = new IngestedRepairHistory(from, now, TRACKING_TIME);
+
+        history.ingest(Collections.singletonList(finished(RANGE_1, now - 1000, now - 500, "SUCCESS")), now);
+
+        assertThat(history.getWatermark()).isEqualTo(now);
+        assertThat(history.tailStart(OVERLAP)).isEqualTo(now - OVERLAP);
+    }
+
+    @Test
+    public void testCheckpointContainsFinishedRows()
+    {
+        long now = TimeUnit.DAYS.toMillis(10);
+        long from = now - TimeUnit.DAYS.toMillis(5);
+        long startedAt = now - TimeUnit.HOURS.toMillis(2);
+        IngestedRepairHistory history = new IngestedRepairHistory(from, now, TRACKING_TIME);
+
+        history.ingest(Arrays.asList(finished(RANGE_1, now - 1000, now - 500, "SUCCESS"),
+                started(RANGE_2, startedAt)), now);
+
+        RepairHistoryCheckpoints.Checkpoint checkpoint = history.checkpointIfDue(now, TimeUnit.HOURS.toMillis(1));
+
+        assertThat(checkpoint).isNotNull();
+        assertThat(checkpoint.getRows()).extracting(IngestedRepairHistory.HistoryRow::getRange)
+                .containsExactly(RANGE_1);
+        assertThat(checkpoint.getMergedUntil()).isEqualTo(startedAt);
+    }
+
+    @Test
+    public void testCheckpointIsCreatedOncePerInterval()
+    {
+        long now = TimeUnit.DAYS.toMillis(10);
+        long interval = TimeUnit.HOURS.toMillis(1);
+        IngestedRepairHistory history = new IngestedRepairHistory(now - TimeUnit.DAYS.toMillis(5), now,
+                TRACKING_TIME);
+        history.markCheckpointed(now);
+
+        assertThat(history.checkpointIfDue(now + interval - 1, interval)).isNull();
+        assertThat(history.checkpointIfDue(now + interval, interval)).isNotNull();
+        assertThat(history.checkpointIfDue(now + interval, interval)).isNull();
+    }
+
+    @Test
+    public void testTailStartsAtOldestUnfinishedRow()
+    {
+        long now = TimeUnit.DAYS.toMillis(10);
+        long from = now - TimeUnit.DAYS.toMillis(5);
+        long startedAt = now - TimeUnit.HOURS.toMillis(2);
+        IngestedRepairHistory history = new IngestedRepairHistory(from, now, TRACKING_TIME);
+
+        history.ingest(Collections.singletonList(started(RANGE_1, startedAt)), now);
+
+        assertThat(history.tailStart(OVERLAP)).isEqualTo(startedAt - OVERLAP);
+    }
+
+    @Test
+    public void testTailIgnoresOldUnfinishedRow()
+    {
+        long now = TimeUnit.DAYS.toMillis(10);
+        long from = now - TimeUnit.DAYS.toMillis(5);
+        IngestedRepairHistory history = new IngestedRepairHistory(from, now, TRACKING_TIME);
+
+        history.ingest(Collections.singletonList(started(RANGE_1, now - TimeUnit.DAYS.toMillis(2))), now);
+
+        assertThat(history.tailStart(OVERLAP)).isEqualTo(now - OVERLAP);
+    }
+
+    @Test
+    public void testFinishedRowReplacesStartedRow()
+    {
+        long now = TimeUnit.DAYS.toMillis(10);
+        long from = now - TimeUnit.DAYS.toMillis(5);
+        long startedAt = now - TimeUnit.HOURS.toMillis(2);
+        IngestedRepairHistory history = new IngestedRepairHistory(from, now, TRACKING_TIME);
+
+        history.ingest(Collections.singletonList(started(RANGE_1, startedAt)), now);
+        history.ingest(Collections.singletonList(finished(RANGE_1, startedAt, now, "SUCCESS")), now + 1000);
+
+        List<IngestedRepairHistory.HistoryRow> rows = history.getRows(from, now + 1000);
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getStatus()).isEqualTo("SUCCESS");
+        assertThat(rows.get(0).getFinishedAt()).isEqualTo(now);
+        assertThat(history.tailStart(OVERLAP)).isEqualTo(now + 1000 - OVERLAP);
+    }
+
+    @Test
+    public void testLatestRowPerRangeAndStatusIsKept()
+    {
+        long now = TimeUnit.DAYS.toMillis(10);
+        long from = now - TimeUnit.DAYS.toMillis(5);
+        IngestedRepairHistory history = new IngestedRepairHistory(from, now, TRACKING_TIME);
+
+        history.ingest(Arrays.asList(
+                finished(RANGE_1, now - 5000, now - 4000, "SUCCESS"),
+                finished(RANGE_1, now - 3000, now - 2000, "SUCCESS"),
+                finished(RANGE_1, now - 2000, now - 1000, "FAILED"),
+                finished(RANGE_2, now - 4000, now - 3000, "SUCCESS")), now);
+
+        List<IngestedRepairHistory.HistoryRow> rows = history.getRows(from, now);
+        assertThat(rows).extracting(IngestedRepairHistory.HistoryRow::getStartedAt)
+                .containsExactly(now - 2000, now - 3000, now - 4000);
+        assertThat(history.getRows(now - 2500, now)).extracting(IngestedRepairHistory.HistoryRow::getStatus)
+                .containsExactly("FAILED");
+    }
+
+    private static IngestedRepairHistory.HistoryRow started(LongTokenRange range, long startedAt)
+    {
+        return new IngestedRepairHistory.HistoryRow(range, startedAt, -1L, "STARTED");
+    }
+
+    private static IngestedRepairHistory.HistoryRow finished(LongTokenRange range, long startedAt, long finishedAt,
+            String status)
+    {
+        return new IngestedRepairHistory.HistoryRow(range, startedAt, finishedAt, status);
+    }
+}
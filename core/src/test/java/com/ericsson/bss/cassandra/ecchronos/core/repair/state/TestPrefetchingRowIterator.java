@@ -0,0 +1,113 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.google.common.collect.Lists;
+
+public class TestPrefetchingRowIterator
+{
+    @Test
+    public void testEmptyResult()
+    {
+        AsyncResultSet page = page(false);
+
+        PrefetchingRowIterator iterator = new PrefetchingRowIterator(CompletableFuture.completedFuture(page));
+
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testSinglePage()
+    {
+        Row row1 = mock(Row.class);
+        Row row2 = mock(Row.class);
+        AsyncResultSet page = page(false, row1, row2);
+
+        PrefetchingRowIterator iterator = new PrefetchingRowIterator(CompletableFuture.completedFuture(page));
+
+        assertThat(Lists.newArrayList(iterator)).containsExactly(row1, row2);
+        verify(page, never()).fetchNextPage();
+    }
+
+    @Test
+    public void testNextPageIsFetchedBeforeCurrentPageIsConsumed()
+    {
+        Row row1 = mock(Row.class);
+        Row row2 = mock(Row.class);
+        Row row3 = mock(Row.class);
+        AsyncResultSet secondPage = page(false, row3);
+        AsyncResultSet firstPage = page(true, row1, row2);
+        when(firstPage.fetchNextPage()).thenReturn(CompletableFuture.completedFuture(secondPage));
+
+        PrefetchingRowIterator iterator = new PrefetchingRowIterator(CompletableFuture.completedFuture(firstPage));
+
+        assertThat(iterator.next()).isEqualTo(row1);
+        verify(firstPage).fetchNextPage();
+
+        assertThat(iterator.next()).isEqualTo(row2);
+        assertThat(iterator.next()).isEqualTo(row3);
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testEmptyPageInTheMiddle()
+    {
+        Row row1 = mock(Row.class);
+        Row row2 = mock(Row.class);
+        AsyncResultSet thirdPage = page(false, row2);
+        AsyncResultSet secondPage = page(true);
+        when(secondPage.fetchNextPage()).thenReturn(CompletableFuture.completedFuture(thirdPage));
+        AsyncResultSet firstPage = page(true, row1);
+        when(firstPage.fetchNextPage()).thenReturn(CompletableFuture.completedFuture(secondPage));
+
+        PrefetchingRowIterator iterator = new PrefetchingRowIterator(CompletableFuture.completedFuture(firstPage));
+
+        assertThat(Lists.newArrayList(iterator)).containsExactly(row1, row2);
+    }
+
+    @Test
+    public void testFailedPageIsRethrown()
+    {
+        CompletableFuture<AsyncResultSet> failedPage = new CompletableFuture<>();
+        failedPage.completeExceptionally(new IllegalStateException("read failed"));
+
+        PrefetchingRowIterator iterator = new PrefetchingRowIterator(failedPage);
+
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> iterator.hasNext());
+    }
+
+    private static AsyncResultSet page(boolean hasMorePages, Row... rows)
+    {
+        AsyncResultSet page = mock(AsyncResultSet.class);
+        when(page.currentPage()).thenReturn(rows.length == 0 ? Collections.emptyList() : Arrays.asList(rows));
+        when(page.hasMorePages()).thenReturn(hasMorePages);
+        return page;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
+
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+public class TestRepairHistoryWriter
+{
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private final List<Statement<?>> executedStatements = new CopyOnWriteArrayList<>();
+    private final List<CompletableFuture<AsyncResultSet>> futures = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+    private RepairHistoryWriter writer;
+
+    @After
+    public void cleanup()
+    {
+        futures.forEach(future -> future.complete(mock(AsyncResultSet.class)));
+        if (writer != null)
+        {
+            writer.close();
+        }
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testWritesAreBufferedUntilFlush()
+    {
+        writer = new RepairHistoryWriter(this::completed, 10, 100, ONE_HOUR, null);
+
+        writer.write("partition1", mock(BoundStatement.class));
+        writer.write("partition1", mock(BoundStatement.class));
+        writer.write("partition2", mock(BoundStatement.class));
+
+        assertThat(executedStatements).isEmpty();
+        assertThat(writer.getPendingWrites()).isEqualTo(3);
+
+        writer.flush();
+
+        assertThat(executedStatements).hasSize(2);
+        assertThat(executedStatements.get(0)).isInstanceOf(BatchStatement.class);
+        assertThat(((BatchStatement) executedStatements.get(0)).size()).isEqualTo(2);
+        assertThat(executedStatements.get(1)).isInstanceOf(BoundStatement.class);
+        assertThat(writer.getPendingWrites()).isZero();
+    }
+
+    @Test
+    public void testPartitionIsSplitInBatches()
+    {
+        writer = new RepairHistoryWriter(this::completed, 2, 100, ONE_HOUR, null);
+        List<BatchableStatement<?>> statements = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+        {
+            BoundStatement statement = mock(BoundStatement.class);
+            statements.add(statement);
+            writer.write("partition", statement);
+        }
+
+        writer.flush();
+
+        assertThat(executedStatements).hasSize(3);
+        assertThat(executedStatements.get(2)).isSameAs(statements.get(4));
+    }
+
+    @Test
+    public void testFlushWhenBatchSizeIsReached()
+    {
+        writer = new RepairHistoryWriter(this::completed, 2, 100, ONE_HOUR, null);
+
+        writer.write("partition", mock(BoundStatement.class));
+        writer.write("partition", mock(BoundStatement.class));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executedStatements.size() == 1);
+        assertThat(writer.getPendingWrites()).isZero();
+    }
+
+    @Test
+    public void testFlushPeriodically()
+    {
+        writer = new RepairHistoryWriter(this::completed, 10, 100, 50, null);
+
+        writer.write("partition", mock(BoundStatement.class));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executedStatements.size() == 1);
+    }
+
+    @Test
+    public void testWriteIsBlockedWhenBufferIsFull() throws Exception
+    {
+        writer = new RepairHistoryWriter(this::pending, 1, 1, ONE_HOUR, null);
+
+        writer.write("partition", mock(BoundStatement.class));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> futures.size() == 1);
+
+        Future<?> blockedWrite = executorService.submit(() -> writer.write("partition", mock(BoundStatement.class)));
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertThat(blockedWrite.isDone()).isFalse();
+
+        futures.get(0).complete(mock(AsyncResultSet.class));
+
+        blockedWrite.get(5, TimeUnit.SECONDS);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> futures.size() == 2);
+    }
+
+    @Test
+    public void testFailedWriteIsRetriedOnce()
+    {
+        writer = new RepairHistoryWriter(this::failed, 10, 100, ONE_HOUR, null);
+
+        writer.write("partition", mock(BoundStatement.class));
+        writer.flush();
+
+        assertThat(executedStatements).hasSize(2);
+        assertThat(executedStatements.get(1)).isSameAs(executedStatements.get(0));
+        assertThat(writer.getPendingWrites()).isZero();
+    }
+
+    @Test
+    public void testCloseFlushesBufferedWrites()
+    {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        writer = new RepairHistoryWriter(this::completed, 10, 100, ONE_HOUR, meterRegistry);
+
+        writer.write("partition", mock(BoundStatement.class));
+        assertThat(meterRegistry.get(RepairHistoryWriter.BUFFER_DEPTH).gauge().value()).isEqualTo(1.0d);
+
+        writer.close();
+
+        assertThat(executedStatements).hasSize(1);
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
+
+    @Test
+    public void testWriteAfterCloseIsWrittenDirectly()
+    {
+        writer = new RepairHistoryWriter(this::completed, 10, 100, ONE_HOUR, null);
+        writer.close();
+
+        writer.write("partition", mock(BoundStatement.class));
+
+        assertThat(executedStatements).hasSize(1);
+    }
+
+    private CompletionStage<AsyncResultSet> completed(final Statement<?> statement)
+    {
+        executedStatements.add(statement);
+        return CompletableFuture.completedFuture(mock(AsyncResultSet.class));
+    }
+
+    private CompletionStage<AsyncResultSet> pending(final Statement<?> statement)
+    {
+        executedStatements.add(statement);
+        CompletableFuture<AsyncResultSet> future = new CompletableFuture<>();
+        futures.add(future);
+        return future;
+    }
+
+    private CompletionStage<AsyncResultSet> failed(final Statement<?> statement)
+    {
+        executedStatements.add(statement);
+        CompletableFuture<AsyncResultSet> future = new CompletableFuture<>();
+        future.completeExceptionally(new RuntimeException("failed"));
+        return future;
+    }
+}
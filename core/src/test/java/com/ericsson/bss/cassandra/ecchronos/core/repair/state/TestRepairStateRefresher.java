@@ -0,0 +1,336 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
+
+import static com.ericsson.bss.cassandra.ecchronos.core.MockTableReferenceFactory.tableReference;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.metadata.Metadata;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReference;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestRepairStateRefresher
+{
+    private static final TableReference TABLE_REFERENCE = tableReference("ks", "tb");
+    private static final long TIMEOUT_IN_MS = TimeUnit.SECONDS.toMillis(5);
+    private static final long REPAIR_INTERVAL_IN_MS = TimeUnit.DAYS.toMillis(1);
+
+    @Mock
+    private RepairState mockRepairState;
+
+    private MeterRegistry myMeterRegistry;
+    private RepairStateRefresher myRepairStateRefresher;
+
+    @Before
+    public void setup()
+    {
+        myMeterRegistry = new SimpleMeterRegistry();
+        myRepairStateRefresher = RepairStateRefresher.builder()
+                .withThreads(1)
+                .withRefreshInterval(1, TimeUnit.HOURS)
+                .withMeterRegistry(myMeterRegistry)
+                .build();
+    }
+
+    @After
+    public void cleanup()
+    {
+        myRepairStateRefresher.close();
+    }
+
+    @Test
+    public void testRefreshUnregisteredTable()
+    {
+        assertThat(myRepairStateRefresher.requestRefresh(TABLE_REFERENCE)).isFalse();
+        assertThat(myRepairStateRefresher.isStale(TABLE_REFERENCE)).isTrue();
+    }
+
+    @Test
+    public void testRefreshIsPerformedInBackground()
+    {
+        myRepairStateRefresher.register(TABLE_REFERENCE, mockRepairState, REPAIR_INTERVAL_IN_MS);
+
+        assertThat(myRepairStateRefresher.requestRefresh(TABLE_REFERENCE)).isTrue();
+
+        verify(mockRepairState, timeout(TIMEOUT_IN_MS)).update();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> refreshCount() == 1);
+        assertThat(myRepairStateRefresher.isStale(TABLE_REFERENCE)).isFalse();
+        assertThat(myMeterRegistry.find(RepairStateRefresher.SNAPSHOT_AGE).timeGauge()).isNotNull();
+    }
+
+    @Test
+    public void testPendingRefreshesAreCoalesced() throws InterruptedException
+    {
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch blockRefresh = new CountDownLatch(1);
+        myRepairStateRefresher.register(tableReference("ks", "blocking"), new BlockingRepairState(refreshStarted,
+                blockRefresh), REPAIR_INTERVAL_IN_MS);
+        myRepairStateRefresher.register(TABLE_REFERENCE, mockRepairState, REPAIR_INTERVAL_IN_MS);
+
+        myRepairStateRefresher.requestRefresh(tableReference("ks", "blocking"));
+        assertThat(refreshStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        myRepairStateRefresher.requestRefresh(TABLE_REFERENCE);
+        myRepairStateRefresher.requestRefresh(TABLE_REFERENCE);
+        myRepairStateRefresher.requestRefresh(TABLE_REFERENCE);
+
+        verify(mockRepairState, never()).update();
+        blockRefresh.countDown();
+
+        verify(mockRepairState, timeout(TIMEOUT_IN_MS)).update();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> refreshCount() == 2);
+        verify(mockRepairState, times(1)).update();
+    }
+
+    @Test
+    public void testFailedRefreshKeepsStateStale()
+    {
+        doThrow(new IllegalStateException("history unavailable")).when(mockRepairState).update();
+        RepairStateRefresher repairStateRefresher = RepairStateRefresher.builder()
+                .withRefreshInterval(0, TimeUnit.MILLISECONDS)
+                .build();
+        try
+        {
+            repairStateRefresher.register(TABLE_REFERENCE, mockRepairState, REPAIR_INTERVAL_IN_MS);
+            repairStateRefresher.requestRefresh(TABLE_REFERENCE);
+
+            verify(mockRepairState, timeout(TIMEOUT_IN_MS).atLeastOnce()).update();
+            assertThat(repairStateRefresher.isStale(TABLE_REFERENCE)).isTrue();
+        }
+        finally
+        {
+            repairStateRefresher.close();
+        }
+    }
+
+    @Test
+    public void testUnregisterRemovesMeters()
+    {
+        myRepairStateRefresher.register(TABLE_REFERENCE, mockRepairState, REPAIR_INTERVAL_IN_MS);
+        assertThat(myMeterRegistry.find(RepairStateRefresher.SNAPSHOT_AGE).timeGauge()).isNotNull();
+
+        myRepairStateRefresher.unregister(TABLE_REFERENCE);
+
+        assertThat(myMeterRegistry.find(RepairStateRefresher.SNAPSHOT_AGE).timeGauge()).isNull();
+        assertThat(myMeterRegistry.find(RepairStateRefresher.REFRESH_TIME).timers()).isEmpty();
+        assertThat(myRepairStateRefresher.requestRefresh(TABLE_REFERENCE)).isFalse();
+    }
+
+    @Test
+    public void testSweepRefreshesStaleStates()
+    {
+        RepairStateRefresher repairStateRefresher = RepairStateRefresher.builder()
+                .withRefreshInterval(0, TimeUnit.MILLISECONDS)
+                .build();
+        try
+        {
+            repairStateRefresher.register(TABLE_REFERENCE, mockRepairState, REPAIR_INTERVAL_IN_MS);
+            repairStateRefresher.sweep();
+
+            verify(mockRepairState, timeout(TIMEOUT_IN_MS).atLeastOnce()).update();
+        }
+        finally
+        {
+            repairStateRefresher.close();
+        }
+    }
+
+    @Test
+    public void testRefreshTimersAreRegisteredOnce()
+    {
+        myRepairStateRefresher.register(TABLE_REFERENCE, mockRepairState, REPAIR_INTERVAL_IN_MS);
+        assertThat(myMeterRegistry.find(RepairStateRefresher.REFRESH_TIME).timers()).hasSize(2);
+
+        myRepairStateRefresher.refreshNow(TABLE_REFERENCE);
+        myRepairStateRefresher.refreshNow(TABLE_REFERENCE);
+
+        assertThat(myMeterRegistry.find(RepairStateRefresher.REFRESH_TIME).timers()).hasSize(2);
+        assertThat(refreshCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testRefreshNowIsPerformedInCallingThread()
+    {
+        myRepairStateRefresher.register(TABLE_REFERENCE, mockRepairState, REPAIR_INTERVAL_IN_MS);
+
+        assertThat(myRepairStateRefresher.refreshNow(TABLE_REFERENCE)).isTrue();
+
+        verify(mockRepairState).update();
+        assertThat(myRepairStateRefresher.refreshNow(tableReference("ks", "unregistered"))).isFalse();
+    }
+
+    @Test
+    public void testRefreshListenerIsCalledAfterSuccessfulRefresh()
+    {
+        Runnable refreshListener = mock(Runnable.class);
+        myRepairStateRefresher.register(TABLE_REFERENCE, mockRepairState, REPAIR_INTERVAL_IN_MS, refreshListener);
+
+        myRepairStateRefresher.refreshNow(TABLE_REFERENCE);
+        verify(refreshListener).run();
+
+        doThrow(new RuntimeException()).when(mockRepairState).update();
+        myRepairStateRefresher.refreshNow(TABLE_REFERENCE);
+        verify(refreshListener, times(1)).run();
+    }
+
+    @Test
+    public void testSweepSkipsStatesNotDue()
+    {
+        RepairStateSnapshot snapshot = mock(RepairStateSnapshot.class);
+        when(snapshot.lastCompletedAt()).thenReturn(System.currentTimeMillis());
+        when(snapshot.getEstimatedRepairTime()).thenReturn(0L);
+        when(mockRepairState.getSnapshot()).thenReturn(snapshot);
+        RepairStateRefresher repairStateRefresher = RepairStateRefresher.builder()
+                .withRefreshInterval(0, TimeUnit.MILLISECONDS)
+                .withDueWindow(1, TimeUnit.HOURS)
+                .build();
+        try
+        {
+            repairStateRefresher.register(TABLE_REFERENCE, mockRepairState, REPAIR_INTERVAL_IN_MS);
+            repairStateRefresher.sweep();
+
+            verify(mockRepairState, after(500).never()).update();
+        }
+        finally
+        {
+            repairStateRefresher.close();
+        }
+    }
+
+    @Test
+    public void testSweepRefreshesStatesDueWithinWindow()
+    {
+        RepairStateSnapshot snapshot = mock(RepairStateSnapshot.class);
+        when(snapshot.lastCompletedAt()).thenReturn(System.currentTimeMillis() - REPAIR_INTERVAL_IN_MS
+                + TimeUnit.MINUTES.toMillis(30));
+        when(snapshot.getEstimatedRepairTime()).thenReturn(0L);
+        when(mockRepairState.getSnapshot()).thenReturn(snapshot);
+        RepairStateRefresher repairStateRefresher = RepairStateRefresher.builder()
+                .withRefreshInterval(0, TimeUnit.MILLISECONDS)
+                .withDueWindow(1, TimeUnit.HOURS)
+                .build();
+        try
+        {
+            repairStateRefresher.register(TABLE_REFERENCE, mockRepairState, REPAIR_INTERVAL_IN_MS);
+            repairStateRefresher.sweep();
+
+            verify(mockRepairState, timeout(TIMEOUT_IN_MS).atLeastOnce()).update();
+        }
+        finally
+        {
+            repairStateRefresher.close();
+        }
+    }
+
+    @Test
+    public void testSweepRefreshesStatesNotDueAfterTokenMapChange()
+    {
+        RepairStateSnapshot snapshot = mock(RepairStateSnapshot.class);
+        when(snapshot.lastCompletedAt()).thenReturn(System.currentTimeMillis());
+        when(snapshot.getEstimatedRepairTime()).thenReturn(0L);
+        when(mockRepairState.getSnapshot()).thenReturn(snapshot);
+        CqlSession session = mock(CqlSession.class);
+        Metadata metadata = mock(Metadata.class);
+        when(session.getMetadata()).thenReturn(metadata);
+        when(metadata.getTokenMap()).thenReturn(Optional.of(mock(TokenMap.class)));
+        RepairStateRefresher repairStateRefresher = RepairStateRefresher.builder()
+                .withRefreshInterval(1, TimeUnit.HOURS)
+                .withDueWindow(1, TimeUnit.HOURS)
+                .withSession(session)
+                .build();
+        try
+        {
+            repairStateRefresher.register(TABLE_REFERENCE, mockRepairState, REPAIR_INTERVAL_IN_MS);
+            repairStateRefresher.sweep();
+            verify(mockRepairState, after(500).never()).update();
+
+            when(metadata.getTokenMap()).thenReturn(Optional.of(mock(TokenMap.class)));
+            repairStateRefresher.sweep();
+
+            await().atMost(TIMEOUT_IN_MS, TimeUnit.MILLISECONDS)
+                    .until(() -> !repairStateRefresher.isStale(TABLE_REFERENCE));
+
+            repairStateRefresher.sweep();
+            verify(mockRepairState, after(500).times(1)).update();
+        }
+        finally
+        {
+            repairStateRefresher.close();
+        }
+    }
+
+    private long refreshCount()
+    {
+        return myMeterRegistry.find(RepairStateRefresher.REFRESH_TIME).timers().stream()
+                .mapToLong(timer -> timer.count())
+                .sum();
+    }
+
+    private static class BlockingRepairState implements RepairState
+    {
+        private final CountDownLatch myRefreshStarted;
+        private final CountDownLatch myBlockRefresh;
+
+        BlockingRepairState(CountDownLatch refreshStarted, CountDownLatch blockRefresh)
+        {
+            myRefreshStarted = refreshStarted;
+            myBlockRefresh = blockRefresh;
+        }
+
+        @Override
+        public void update()
+        {
+            myRefreshStarted.countDown();
+            try
+            {
+                myBlockRefresh.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public RepairStateSnapshot getSnapshot()
+        {
+            return null;
+        }
+    }
+}
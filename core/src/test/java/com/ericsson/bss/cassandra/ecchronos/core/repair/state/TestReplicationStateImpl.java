@@ -18,14 +18,17 @@ import com.datastax.oss.driver.api.core.CqlSession;
 import com.datastax.oss.driver.api.core.metadata.Metadata;
 import com.datastax.oss.driver.api.core.metadata.Node;
 import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.datastax.oss.driver.api.core.metadata.schema.KeyspaceMetadata;
 import com.datastax.oss.driver.api.core.metadata.token.TokenRange;
 import com.ericsson.bss.cassandra.ecchronos.core.TokenUtil;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.LongTokenRange;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.DriverNode;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.NodeResolver;
 import com.ericsson.bss.cassandra.ecchronos.core.utils.TableReference;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -41,6 +44,9 @@ import static com.ericsson.bss.cassandra.ecchronos.core.MockTableReferenceFactor
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -383,4 +389,162 @@ public class TestReplicationStateImpl
 
         assertThat(replicationState.getTokenRanges(tableReference)).isSameAs(tokenRanges);
     }
+
+    @Test
+    public void testGetTokenRangeToReplicasRebuiltOnNewTokenMap() throws Exception
+    {
+        LongTokenRange range1 = new LongTokenRange(1, 2);
+        LongTokenRange range2 = new LongTokenRange(2, 3);
+        TableReference tableReference = tableReference("ks", "tb");
+
+        TokenRange tokenRange1 = TokenUtil.getRange(1, 2);
+        TokenRange tokenRange2 = TokenUtil.getRange(2, 3);
+
+        doReturn(Sets.newHashSet(tokenRange1)).when(mockTokenMap).getTokenRanges(eq("ks"), eq(mockReplica1));
+        doReturn(Sets.newHashSet(mockReplica1, mockReplica2)).when(mockTokenMap).getReplicas(eq("ks"), eq(tokenRange1));
+
+        ReplicationState replicationState = new ReplicationStateImpl(mockNodeResolver, mockSession, mockReplica1);
+
+        Map<LongTokenRange, ImmutableSet<DriverNode>> tokenRangeToReplicas = replicationState.getTokenRangeToReplicas(
+                tableReference);
+        assertThat(replicationState.getTokenRangeToReplicas(tableReference)).isSameAs(tokenRangeToReplicas);
+        verify(mockTokenMap, times(1)).getTokenRanges(eq("ks"), eq(mockReplica1));
+
+        TokenMap newTokenMap = mock(TokenMap.class);
+        doReturn(Sets.newHashSet(tokenRange1, tokenRange2)).when(newTokenMap)
+                .getTokenRanges(eq("ks"), eq(mockReplica1));
+        doReturn(Sets.newHashSet(mockReplica1, mockReplica2)).when(newTokenMap).getReplicas(eq("ks"), eq(tokenRange1));
+        doReturn(Sets.newHashSet(mockReplica1, mockReplica3)).when(newTokenMap).getReplicas(eq("ks"), eq(tokenRange2));
+        when(mockMetadata.getTokenMap()).thenReturn(Optional.of(newTokenMap));
+
+        Map<LongTokenRange, ImmutableSet<DriverNode>> newTokenRangeToReplicas
+                = replicationState.getTokenRangeToReplicas(tableReference);
+
+        assertThat(newTokenRangeToReplicas.keySet()).containsExactlyInAnyOrder(range1, range2);
+        assertThat(newTokenRangeToReplicas.get(range2)).containsExactlyInAnyOrder(mockNode1, mockNode3);
+    }
+
+    @Test
+    public void testGetTokenRangeToReplicasSharedForSameReplication() throws Exception
+    {
+        TableReference tableReference = tableReference("ks", "tb");
+        TableReference otherTableReference = tableReference("ks2", "tb");
+
+        TokenRange tokenRange = TokenUtil.getRange(1, 2);
+
+        Map<String, String> replication = ImmutableMap.of("class", "SimpleStrategy", "replication_factor", "3");
+        KeyspaceMetadata keyspaceMetadata = mock(KeyspaceMetadata.class);
+        KeyspaceMetadata otherKeyspaceMetadata = mock(KeyspaceMetadata.class);
+        when(keyspaceMetadata.getReplication()).thenReturn(replication);
+        when(otherKeyspaceMetadata.getReplication()).thenReturn(replication);
+        doReturn(Optional.of(keyspaceMetadata)).when(mockMetadata).getKeyspace(eq("ks"));
+        doReturn(Optional.of(otherKeyspaceMetadata)).when(mockMetadata).getKeyspace(eq("ks2"));
+
+        doReturn(Sets.newHashSet(tokenRange)).when(mockTokenMap).getTokenRanges(eq("ks"), eq(mockReplica1));
+        doReturn(Sets.newHashSet(mockReplica1, mockReplica2, mockReplica3)).when(mockTokenMap)
+                .getReplicas(eq("ks"), eq(tokenRange));
+
+        ReplicationState replicationState = new ReplicationStateImpl(mockNodeResolver, mockSession, mockReplica1);
+
+        Map<LongTokenRange, ImmutableSet<DriverNode>> tokenRangeToReplicas = replicationState.getTokenRangeToReplicas(
+                tableReference);
+
+        assertThat(replicationState.getTokenRangeToReplicas(otherTableReference)).isSameAs(tokenRangeToReplicas);
+    }
+
+    @Test
+    public void testGetTokenRangeToReplicasSeparateForLocalNodes() throws Exception
+    {
+        LongTokenRange range1 = new LongTokenRange(1, 2);
+        LongTokenRange range2 = new LongTokenRange(2, 3);
+        TableReference tableReference = tableReference("ks", "tb");
+
+        TokenRange tokenRange1 = TokenUtil.getRange(1, 2);
+        TokenRange tokenRange2 = TokenUtil.getRange(2, 3);
+
+        doReturn(Sets.newHashSet(tokenRange1)).when(mockTokenMap).getTokenRanges(eq("ks"), eq(mockReplica1));
+        doReturn(Sets.newHashSet(tokenRange2)).when(mockTokenMap).getTokenRanges(eq("ks"), eq(mockReplica2));
+        doReturn(Sets.newHashSet(mockReplica1, mockReplica2)).when(mockTokenMap).getReplicas(eq("ks"), eq(tokenRange1));
+        doReturn(Sets.newHashSet(mockReplica2, mockReplica3)).when(mockTokenMap).getReplicas(eq("ks"), eq(tokenRange2));
+
+        ReplicationState replicationState1 = new ReplicationStateImpl(mockNodeResolver, mockSession, mockReplica1);
+        ReplicationState replicationState2 = new ReplicationStateImpl(mockNodeResolver, mockSession, mockReplica2);
+
+        Map<LongTokenRange, ImmutableSet<DriverNode>> tokenRangeToReplicas1
+                = replicationState1.getTokenRangeToReplicas(tableReference);
+        Map<LongTokenRange, ImmutableSet<DriverNode>> tokenRangeToReplicas2
+                = replicationState2.getTokenRangeToReplicas(tableReference);
+
+        assertThat(tokenRangeToReplicas1.keySet()).containsExactly(range1);
+        assertThat(tokenRangeToReplicas1.get(range1)).containsExactlyInAnyOrder(mockNode1, mockNode2);
+        assertThat(tokenRangeToReplicas2.keySet()).containsExactly(range2);
+        assertThat(tokenRangeToReplicas2.get(range2)).containsExactlyInAnyOrder(mockNode2, mockNode3);
+        assertThat(replicationState1.getTokenRangeToReplicas(tableReference)).isSameAs(tokenRangeToReplicas1);
+    }
+
+    @Test
+    public void testCacheIsNotSharedBetweenInstances() throws Exception
+    {
+        TableReference tableReference = tableReference("ks", "tb");
+
+        TokenRange tokenRange = TokenUtil.getRange(1, 2);
+
+        doReturn(Sets.newHashSet(tokenRange)).when(mockTokenMap).getTokenRanges(eq("ks"), eq(mockReplica1));
+        doReturn(Sets.newHashSet(mockReplica1, mockReplica2)).when(mockTokenMap).getReplicas(eq("ks"), eq(tokenRange));
+
+        new ReplicationStateImpl(mockNodeResolver, mockSession, mockReplica1).getTokenRangeToReplicas(tableReference);
+        new ReplicationStateImpl(mockNodeResolver, mockSession, mockReplica1).getTokenRangeToReplicas(tableReference);
+
+        verify(mockTokenMap, times(2)).getTokenRanges(eq("ks"), eq(mockReplica1));
+    }
+
+    @Test
+    public void testDroppedKeyspaceIsEvictedOnNewTokenMap() throws Exception
+    {
+        TableReference tableReference = tableReference("ks", "tb");
+        TableReference otherTableReference = tableReference("ks2", "tb");
+
+        TokenRange tokenRange = TokenUtil.getRange(1, 2);
+
+        doReturn(Sets.newHashSet(tokenRange)).when(mockTokenMap).getTokenRanges(eq("ks"), eq(mockReplica1));
+        doReturn(Sets.newHashSet(mockReplica1, mockReplica2)).when(mockTokenMap).getReplicas(eq("ks"), eq(tokenRange));
+
+        ReplicationState replicationState = new ReplicationStateImpl(mockNodeResolver, mockSession, mockReplica1);
+        replicationState.getTokenRangeToReplicas(tableReference);
+
+        TokenMap newTokenMap = mock(TokenMap.class);
+        doReturn(Sets.newHashSet(tokenRange)).when(newTokenMap).getTokenRanges(eq("ks2"), eq(mockReplica1));
+        doReturn(Sets.newHashSet(mockReplica1, mockReplica2)).when(newTokenMap).getReplicas(eq("ks2"), eq(tokenRange));
+        when(mockMetadata.getTokenMap()).thenReturn(Optional.of(newTokenMap));
+        replicationState.getTokenRangeToReplicas(otherTableReference);
+
+        // The keyspace is not in the metadata, so it was evicted when the new token map was seen
+        when(mockMetadata.getTokenMap()).thenReturn(Optional.of(mockTokenMap));
+        replicationState.getTokenRangeToReplicas(tableReference);
+
+        verify(mockTokenMap, times(2)).getTokenRanges(eq("ks"), eq(mockReplica1));
+    }
+
+    @Test
+    public void testCacheMetrics() throws Exception
+    {
+        TableReference tableReference = tableReference("ks", "tb");
+
+        TokenRange tokenRange = TokenUtil.getRange(1, 2);
+
+        doReturn(Sets.newHashSet(tokenRange)).when(mockTokenMap).getTokenRanges(eq("ks"), eq(mockReplica1));
+        doReturn(Sets.newHashSet(mockReplica1, mockReplica2)).when(mockTokenMap).getReplicas(eq("ks"), eq(tokenRange));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReplicationState replicationState = new ReplicationStateImpl(mockNodeResolver, mockSession, mockReplica1,
+                meterRegistry);
+
+        replicationState.getTokenRangeToReplicas(tableReference);
+        replicationState.getTokenRangeToReplicas(tableReference);
+        replicationState.getTokenRangeToReplicas(tableReference);
+
+        assertThat(meterRegistry.get(ReplicationStateImpl.CACHE_MISSES).counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get(ReplicationStateImpl.CACHE_HITS).counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get(ReplicationStateImpl.CACHE_REBUILD_TIME).timer().count()).isEqualTo(1);
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.repair.state;
+
+import com.ericsson.bss.cassandra.ecchronos.core.utils.LongTokenRange;
+import com.ericsson.bss.cassandra.ecchronos.core.utils.DriverNode;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class TestVnodeRepairGroupFactory
+{
+    private final DriverNode node1 = mock(DriverNode.class);
+    private final DriverNode node2 = mock(DriverNode.class);
+    private final DriverNode node3 = mock(DriverNode.class);
+    private final DriverNode node4 = mock(DriverNode.class);
+
+    private final ImmutableSet<DriverNode> replicas1 = ImmutableSet.of(node1, node2, node3);
+    private final ImmutableSet<DriverNode> replicas2 = ImmutableSet.of(node2, node3, node4);
+
+    private final LongTokenRange range1 = new LongTokenRange(1, 2);
+    private final LongTokenRange range2 = new LongTokenRange(2, 3);
+    private final LongTokenRange range3 = new LongTokenRange(3, 4);
+    private final LongTokenRange range4 = new LongTokenRange(4, 5);
+
+    @Test
+    public void testSingleGroup()
+    {
+        List<VnodeRepairState> vnodes = Arrays.asList(
+                new VnodeRepairState(range1, replicas1, 2),
+                new VnodeRepairState(range2, ImmutableSet.of(node1, node2, node3), 1));
+
+        List<ReplicaRepairGroup> groups = VnodeRepairGroupFactory.INSTANCE.generateReplicaRepairGroups(vnodes);
+
+        assertThat(groups).hasSize(1);
+        assertThat(groups.get(0).getReplicas()).isEqualTo(replicas1);
+        assertThat(groups.get(0).iterator()).toIterable().containsExactly(range1, range2);
+    }
+
+    @Test
+    public void testMostUrgentGroupFirst()
+    {
+        List<VnodeRepairState> vnodes = Arrays.asList(
+                new VnodeRepairState(range1, replicas1, 3),
+                new VnodeRepairState(range2, replicas2, 4),
+                new VnodeRepairState(range3, replicas1, 5),
+                new VnodeRepairState(range4, replicas2, 1));
+
+        List<ReplicaRepairGroup> groups = VnodeRepairGroupFactory.INSTANCE.generateReplicaRepairGroups(vnodes);
+
+        assertThat(groups).hasSize(2);
+        assertThat(groups.get(0).getReplicas()).isEqualTo(replicas2);
+        assertThat(groups.get(0).iterator()).toIterable().containsExactly(range2, range4);
+        assertThat(groups.get(1).getReplicas()).isEqualTo(replicas1);
+        assertThat(groups.get(1).iterator()).toIterable().containsExactly(range1, range3);
+    }
+
+    @Test
+    public void testEquallyUrgentGroupsKeepOrder()
+    {
+        List<VnodeRepairState> vnodes = Arrays.asList(
+                new VnodeRepairState(range1, replicas1, 1),
+                new VnodeRepairState(range2, replicas2, 1));
+
+        List<ReplicaRepairGroup> groups = VnodeRepairGroupFactory.INSTANCE.generateReplicaRepairGroups(vnodes);
+
+        assertThat(groups).hasSize(2);
+        assertThat(groups.get(0).getReplicas()).isEqualTo(replicas1);
+        assertThat(groups.get(1).getReplicas()).isEqualTo(replicas2);
+    }
+
+    @Test
+    public void testBoundedGroups()
+    {
+        List<VnodeRepairState> vnodes = Arrays.asList(
+                new VnodeRepairState(range1, replicas1, 4),
+                new VnodeRepairState(range2, replicas1, 1),
+                new VnodeRepairState(range3, replicas1, 3),
+                new VnodeRepairState(range4, replicas2, 2));
+
+        List<ReplicaRepairGroup> groups = VnodeRepairGroupFactory.withMaxVnodesPerGroup(2)
+                .generateReplicaRepairGroups(vnodes);
+
+        assertThat(groups).hasSize(3);
+        assertThat(groups.get(0).getReplicas()).isEqualTo(replicas1);
+        assertThat(groups.get(0).iterator()).toIterable().containsExactly(range2, range3);
+        assertThat(groups.get(1).getReplicas()).isEqualTo(replicas2);
+        assertThat(groups.get(1).iterator()).toIterable().containsExactly(range4);
+        assertThat(groups.get(2).getReplicas()).isEqualTo(replicas1);
+        assertThat(groups.get(2).iterator()).toIterable().containsExactly(range1);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testInvalidMaxVnodesPerGroup()
+    {
+        VnodeRepairGroupFactory.withMaxVnodesPerGroup(0);
+    }
+}
@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -584,6 +585,32 @@ public class TestVnodeRepairStateFactoryImpl
         assertThat(vnodeRepairStates).containsOnlyElementsOf(expectedStates);
     }
 
+    @Test
+    public void testCalculateClusterWideStateReadsBoundedNumberOfNodesAhead()
+    {
+        int nodes = VnodeRepairStateFactoryImpl.MAX_CONCURRENT_NODE_READS * 2 + 1;
+        List<Integer> started = new ArrayList<>();
+        Iterator<Integer> readAheadIterator = new VnodeRepairStateFactoryImpl.ReadAheadIterator<>(
+                IntStream.range(0, nodes).iterator(), node ->
+                {
+                    started.add(node);
+                    return node;
+                }, VnodeRepairStateFactoryImpl.MAX_CONCURRENT_NODE_READS);
+
+        assertThat(started).hasSize(VnodeRepairStateFactoryImpl.MAX_CONCURRENT_NODE_READS);
+
+        List<Integer> consumed = new ArrayList<>();
+        while (readAheadIterator.hasNext())
+        {
+            consumed.add(readAheadIterator.next());
+            assertThat(started.size() - consumed.size())
+                    .isLessThanOrEqualTo(VnodeRepairStateFactoryImpl.MAX_CONCURRENT_NODE_READS);
+        }
+
+        assertThat(consumed).containsExactlyElementsOf(started);
+        assertThat(consumed).hasSize(nodes);
+    }
+
     private void assertClusterWideStateSameForVnodeAndSubrange(long to, long from, VnodeRepairState... states)
     {
         assertClusterWideVnodeStates(to, from, states);
@@ -246,6 +246,59 @@ public class TestVnodeRepairStates
         assertSubRangeStatesContainsExactly(Collections.singletonList(vnodeRepairState), subRangeRepairStates, expectedVnodeRepairStates);
     }
 
+    @Test
+    public void testUpdateFromPreviousSnapshotOnlyReplacesNewer()
+    {
+        LongTokenRange range = new LongTokenRange(1, 2);
+        LongTokenRange range2 = new LongTokenRange(2, 3);
+        DriverNode node1 = mock(DriverNode.class);
+
+        VnodeRepairState vnodeRepairState = new VnodeRepairState(range, ImmutableSet.of(node1), 1234L, 1240L);
+        VnodeRepairState vnodeRepairState2 = new VnodeRepairState(range2, ImmutableSet.of(node1), 1234L, 1240L);
+        VnodeRepairState updatedVnodeRepairState = new VnodeRepairState(range, ImmutableSet.of(node1), 2234L, 2240L);
+
+        VnodeRepairStates reset = VnodeRepairStatesImpl.newBuilder(Arrays.asList(
+                new VnodeRepairState(range, ImmutableSet.of(node1), VnodeRepairState.UNREPAIRED),
+                new VnodeRepairState(range2, ImmutableSet.of(node1), VnodeRepairState.UNREPAIRED)))
+                .build();
+
+        VnodeRepairStates previous = VnodeRepairStatesImpl.newBuilder(reset.getVnodeRepairStates())
+                .updateVnodeRepairStates(Arrays.asList(vnodeRepairState, vnodeRepairState2))
+                .updateVnodeRepairState(updatedVnodeRepairState)
+                .build();
+
+        VnodeRepairStates actual = VnodeRepairStatesImpl.newBuilder(reset.getVnodeRepairStates())
+                .updateVnodeRepairStates(previous.getVnodeRepairStates())
+                .build();
+
+        assertThat(actual.getVnodeRepairStates()).containsExactly(updatedVnodeRepairState, vnodeRepairState2);
+        assertThat(actual).isEqualTo(previous);
+        assertThat(actual.hashCode()).isEqualTo(previous.hashCode());
+        assertThat(reset.getVnodeRepairStates()).extracting(VnodeRepairState::lastRepairedAt)
+                .containsOnly(VnodeRepairState.UNREPAIRED);
+    }
+
+    @Test
+    public void testCombineWithRepairedAtKeepsOriginal()
+    {
+        LongTokenRange range = new LongTokenRange(1, 2);
+        LongTokenRange range2 = new LongTokenRange(2, 3);
+        DriverNode node1 = mock(DriverNode.class);
+
+        VnodeRepairState vnodeRepairState = new VnodeRepairState(range, ImmutableSet.of(node1), 1000L, 1010L);
+        VnodeRepairState vnodeRepairState2 = new VnodeRepairState(range2, ImmutableSet.of(node1), 3000L, 3010L);
+
+        VnodeRepairStates original = VnodeRepairStatesImpl.newBuilder(Arrays.asList(vnodeRepairState, vnodeRepairState2))
+                .build();
+
+        VnodeRepairStates combined = original.combineWithRepairedAt(2000L);
+
+        assertThat(combined.getVnodeRepairStates()).containsExactly(
+                new VnodeRepairState(range, ImmutableSet.of(node1), 2000L), vnodeRepairState2);
+        assertThat(original.getVnodeRepairStates()).containsExactly(vnodeRepairState, vnodeRepairState2);
+        assertThat(original.combineWithRepairedAt(500L)).isSameAs(original);
+    }
+
     private List<VnodeRepairState> generateSubRanges(LongTokenRange range, int subRangeCount, DriverNode node, long lastRepairedAt)
     {
         BigInteger fullRange = range.rangeSize();
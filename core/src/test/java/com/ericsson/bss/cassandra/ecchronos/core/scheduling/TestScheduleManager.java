@@ -265,6 +265,199 @@ public class TestScheduleManager
 
 
 
+    @Test (timeout = 5000L)
+    public void testRunningTwoJobsInParallelWithWorkers() throws InterruptedException
+    {
+        ScheduleManagerImpl parallelScheduler = ScheduleManagerImpl.builder()
+                .withLockFactory(myLockFactory)
+                .withWorkers(2)
+                .build();
+
+        try
+        {
+            LongRunningJob job = new LongRunningJob(ScheduledJob.Priority.HIGH);
+            LongRunningJob job2 = new LongRunningJob(ScheduledJob.Priority.LOW);
+            parallelScheduler.schedule(job);
+            parallelScheduler.schedule(job2);
+
+            parallelScheduler.run();
+
+            while (!job.hasStarted() || !job2.hasStarted())
+            {
+                Thread.sleep(10);
+            }
+
+            assertThat(parallelScheduler.getRunningJobs()).isEqualTo(2);
+
+            // All workers busy, nothing new should be dispatched
+            parallelScheduler.run();
+
+            while (!job.hasRun() || !job2.hasRun())
+            {
+                Thread.sleep(10);
+            }
+
+            while (parallelScheduler.getRunningJobs() > 0)
+            {
+                Thread.sleep(10);
+            }
+
+            assertThat(parallelScheduler.getQueueSize()).isEqualTo(2);
+        }
+        finally
+        {
+            parallelScheduler.close();
+        }
+    }
+
+    @Test (timeout = 5000L)
+    public void testRunningJobIsNotEvaluatedByWorkers() throws InterruptedException
+    {
+        ScheduleManagerImpl parallelScheduler = ScheduleManagerImpl.builder()
+                .withLockFactory(myLockFactory)
+                .withWorkers(2)
+                .build();
+        BlockingJob job = new BlockingJob(ScheduledJob.Priority.LOW);
+
+        try
+        {
+            parallelScheduler.schedule(job);
+            parallelScheduler.run();
+
+            job.awaitStarted();
+
+            parallelScheduler.run();
+            parallelScheduler.run();
+
+            assertThat(job.getStateCallsWhileRunning()).isEqualTo(0);
+            assertThat(job.isFinished()).isFalse();
+            assertThat(parallelScheduler.getQueueSize()).isEqualTo(1);
+        }
+        finally
+        {
+            job.release();
+            parallelScheduler.close();
+        }
+    }
+
+    @Test
+    public void testNextRunDelayWithoutJobs()
+    {
+        assertThat(myScheduler.getNextRunDelay(System.currentTimeMillis()))
+                .isEqualTo(ScheduleManagerImpl.DEFAULT_RUN_DELAY_IN_MS);
+    }
+
+    @Test
+    public void testNextRunDelayUntilRejectedJobIsDue()
+    {
+        DummyJob job = new DummyJob(ScheduledJob.Priority.LOW);
+        myScheduler.schedule(job);
+
+        when(myRunPolicy.validate(any(ScheduledJob.class))).thenReturn(5000L);
+
+        myScheduler.run();
+
+        assertThat(job.hasRun()).isFalse();
+        assertThat(myScheduler.getNextRunDelay(System.currentTimeMillis()))
+                .isBetween(ScheduleManagerImpl.MIN_RUN_DELAY_IN_MS, 5000L);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testZeroWorkersNotAllowed()
+    {
+        ScheduleManagerImpl.builder().withWorkers(0);
+    }
+
+    private class BlockingJob extends ScheduledJob
+    {
+        private final CountDownLatch myStarted = new CountDownLatch(1);
+        private final CountDownLatch myRelease = new CountDownLatch(1);
+        private final AtomicInteger myStateCallsWhileRunning = new AtomicInteger();
+        private volatile boolean myRunning = false;
+        private volatile boolean myFinished = false;
+
+        BlockingJob(Priority priority)
+        {
+            super(new ConfigurationBuilder().withPriority(priority).withRunInterval(1, TimeUnit.SECONDS).build());
+        }
+
+        void awaitStarted() throws InterruptedException
+        {
+            myStarted.await();
+        }
+
+        void release()
+        {
+            myRelease.countDown();
+        }
+
+        int getStateCallsWhileRunning()
+        {
+            return myStateCallsWhileRunning.get();
+        }
+
+        boolean isFinished()
+        {
+            return myFinished;
+        }
+
+        @Override
+        public State getState()
+        {
+            if (myRunning)
+            {
+                // A job running on a worker can report itself as finished before the worker is done with it
+                myStateCallsWhileRunning.incrementAndGet();
+                return State.FINISHED;
+            }
+            return super.getState();
+        }
+
+        @Override
+        protected void finishJob()
+        {
+            myFinished = true;
+        }
+
+        @Override
+        public Iterator<ScheduledTask> iterator()
+        {
+            return Arrays.<ScheduledTask> asList(new BlockingTask()).iterator();
+        }
+
+        @Override
+        public String toString()
+        {
+            return "BlockingJob " + getPriority();
+        }
+
+        private class BlockingTask extends ScheduledTask
+        {
+            @Override
+            public boolean execute()
+            {
+                myRunning = true;
+                myStarted.countDown();
+                try
+                {
+                    myRelease.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                myRunning = false;
+                return true;
+            }
+
+            @Override
+            public void cleanup()
+            {
+                // NOOP
+            }
+        }
+    }
+
     private class LongRunningJob extends ScheduledJob
     {
         private volatile boolean hasRun = false;
@@ -83,6 +83,63 @@ public class TestScheduledJobQueue
         assertThat(queue.iterator()).toIterable().isEmpty();
     }
 
+    @Test
+    public void testJobIsIndexedByNextEligibleTime()
+    {
+        RunnableOnce job = new RunnableOnce(Priority.LOW);
+        DummyJob job2 = new DummyJob(Priority.LOW);
+
+        queue.add(job);
+        queue.add(job2);
+
+        assertThat(queue.getNextDeadline()).isLessThanOrEqualTo(System.currentTimeMillis());
+
+        job.postExecute(true, null);
+
+        assertThat(queue.iterator()).toIterable().containsExactly(job2);
+        assertThat(queue.size()).isEqualTo(2);
+
+        queue.remove(job2);
+
+        assertThat(queue.getNextDeadline()).isGreaterThan(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(23));
+    }
+
+    @Test
+    public void testReindexMovesEligibleTimeEarlier()
+    {
+        RefreshedJob job = new RefreshedJob(Priority.LOW, System.currentTimeMillis());
+
+        queue.add(job);
+
+        assertThat(queue.iterator()).toIterable().isEmpty();
+
+        // A topology change introduces unrepaired ranges, the refreshed state was last completed earlier
+        job.lastSuccessfulRun = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2);
+
+        assertThat(queue.iterator()).toIterable().isEmpty();
+
+        queue.reindex(job);
+
+        assertThat(queue.getNextDeadline()).isLessThanOrEqualTo(System.currentTimeMillis());
+        assertThat(queue.iterator()).toIterable().containsExactly(job);
+    }
+
+    @Test
+    public void testReindexJobNotInQueue()
+    {
+        DummyJob job = new DummyJob(Priority.LOW);
+
+        queue.reindex(job);
+
+        assertThat(queue.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testEmptyQueueHasNoDeadline()
+    {
+        assertThat(queue.getNextDeadline()).isEqualTo(Long.MAX_VALUE);
+    }
+
     @Test
     public void testRemoveJobInQueueIsPossible()
     {
@@ -174,6 +231,23 @@ public class TestScheduledJobQueue
         }
     }
 
+    private class RefreshedJob extends RunnableOnce
+    {
+        private volatile long lastSuccessfulRun;
+
+        RefreshedJob(Priority priority, long lastSuccessfulRun)
+        {
+            super(priority);
+            this.lastSuccessfulRun = lastSuccessfulRun;
+        }
+
+        @Override
+        public long getLastSuccessfulRun()
+        {
+            return lastSuccessfulRun;
+        }
+    }
+
     private class StateJob extends DummyJob
     {
         private State state;
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2022 Telefonaktiebolaget LM Ericsson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ericsson.bss.cassandra.ecchronos.core.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class TestLongTokenRangeIndex
+{
+    @Test
+    public void testEmptyIndex()
+    {
+        LongTokenRangeIndex<String> index = LongTokenRangeIndex.of(Collections.<LongTokenRange, String> emptyMap());
+
+        assertThat(index.size()).isEqualTo(0);
+        assertThat(index.getCovering(new LongTokenRange(1, 2))).isNull();
+    }
+
+    @Test
+    public void testExactMatch()
+    {
+        LongTokenRangeIndex<String> index = LongTokenRangeIndex.of(ranges());
+
+        assertThat(index.getCovering(new LongTokenRange(1, 5))).isEqualTo("a");
+        assertThat(index.getCovering(new LongTokenRange(5, 10))).isEqualTo("b");
+        assertThat(index.getCovering(new LongTokenRange(10, 1))).isEqualTo("c");
+        assertThat(index.getCoveringRange(new LongTokenRange(5, 10))).isEqualTo(new LongTokenRange(5, 10));
+    }
+
+    @Test
+    public void testSubRange()
+    {
+        LongTokenRangeIndex<String> index = LongTokenRangeIndex.of(ranges());
+
+        assertThat(index.getCovering(new LongTokenRange(2, 3))).isEqualTo("a");
+        assertThat(index.getCovering(new LongTokenRange(5, 7))).isEqualTo("b");
+        assertThat(index.getCovering(new LongTokenRange(7, 10))).isEqualTo("b");
+    }
+
+    @Test
+    public void testSubRangeOfWrappingRange()
+    {
+        LongTokenRangeIndex<String> index = LongTokenRangeIndex.of(ranges());
+
+        assertThat(index.getCovering(new LongTokenRange(11, 20))).isEqualTo("c");
+        assertThat(index.getCovering(new LongTokenRange(Long.MIN_VALUE, 0))).isEqualTo("c");
+        assertThat(index.getCovering(new LongTokenRange(12, 0))).isEqualTo("c");
+        assertThat(index.getCoveringRange(new LongTokenRange(12, 0))).isEqualTo(new LongTokenRange(10, 1));
+    }
+
+    @Test
+    public void testIntersectingRange()
+    {
+        LongTokenRangeIndex<String> index = LongTokenRangeIndex.of(ranges());
+
+        assertThat(index.getCovering(new LongTokenRange(4, 6))).isNull();
+        assertThat(index.getCovering(new LongTokenRange(9, 11))).isNull();
+        assertThat(index.getCovering(new LongTokenRange(0, 2))).isNull();
+        assertThat(index.getCoveringRange(new LongTokenRange(4, 6))).isNull();
+    }
+
+    @Test
+    public void testNonExistingRange()
+    {
+        Map<LongTokenRange, String> ranges = new HashMap<>();
+        ranges.put(new LongTokenRange(1, 5), "a");
+
+        LongTokenRangeIndex<String> index = LongTokenRangeIndex.of(ranges);
+
+        assertThat(index.getCovering(new LongTokenRange(6, 7))).isNull();
+        assertThat(index.getCovering(new LongTokenRange(-5, 0))).isNull();
+        assertThat(index.getCovering(new LongTokenRange(6, 0))).isNull();
+    }
+
+    @Test
+    public void testFromElements()
+    {
+        LongTokenRange range1 = new LongTokenRange(1, 5);
+        LongTokenRange range2 = new LongTokenRange(5, 10);
+
+        LongTokenRangeIndex<LongTokenRange> index = LongTokenRangeIndex.of(Arrays.asList(range2, range1), r -> r);
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.getCovering(new LongTokenRange(2, 4))).isSameAs(range1);
+        assertThat(index.getCovering(new LongTokenRange(6, 8))).isSameAs(range2);
+    }
+
+    private Map<LongTokenRange, String> ranges()
+    {
+        Map<LongTokenRange, String> ranges = new HashMap<>();
+        ranges.put(new LongTokenRange(1, 5), "a");
+        ranges.put(new LongTokenRange(5, 10), "b");
+        ranges.put(new LongTokenRange(10, 1), "c");
+        return ranges;
+    }
+}
@@ -63,6 +63,8 @@ def before_all(context):
 def after_feature(context, feature): # pylint: disable=unused-argument
     wait_for_local_repairs_to_complete(context)
     context.environment.session.execute('TRUNCATE TABLE ecchronos.on_demand_repair_status')
+    context.environment.session.execute('TRUNCATE TABLE ecchronos.on_demand_repair_progress')
+    context.environment.session.execute('TRUNCATE TABLE ecchronos.on_demand_repair_active')
     context.environment.session.execute('TRUNCATE TABLE ecchronos.repair_history')
 
 